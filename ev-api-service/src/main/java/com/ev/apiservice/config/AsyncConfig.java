@@ -3,19 +3,26 @@ package com.ev.apiservice.config;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 
 import java.util.concurrent.Executor;
 
 /**
- * Configuration for asynchronous task execution.
+ * Configuration for asynchronous task execution, and for the scheduled polling of the shared
+ * data loading job queue. Scheduled tasks share a small pool, except lease renewal, which runs
+ * alone so no other task can delay it past a lease.
  */
 @Configuration
 @EnableAsync
+@EnableScheduling
 public class AsyncConfig {
 
     /**
-     * Task executor for asynchronous operations.
+     * Task executor for asynchronous operations. Jobs from the shared queue are only taken while
+     * the instance has a free worker slot, so a burst of jobs waits in the database rather than
+     * in this executor's queue.
      *
      * @return ThreadPoolTaskExecutor configured for data loading tasks
      */
@@ -29,4 +36,48 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
+
+    /**
+     * Scheduler of the {@code @Scheduled} tasks: queue polling, checkpoint flushes, event publishing
+     * and evictions. With more than one thread, a slow run of one task does not hold up the others.
+     *
+     * @return ThreadPoolTaskScheduler for the scheduled tasks
+     */
+    @Bean(name = "taskScheduler")
+    public ThreadPoolTaskScheduler taskScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(4);
+        scheduler.setThreadNamePrefix("Scheduler-");
+        return scheduler;
+    }
+
+    /**
+     * Scheduler of lease renewal alone. A job whose lease is not renewed in time is claimed by
+     * another instance and runs twice, so renewal must not wait on any other scheduled task.
+     *
+     * @return Single-threaded ThreadPoolTaskScheduler for lease renewal
+     */
+    @Bean(name = "leaseScheduler")
+    public ThreadPoolTaskScheduler leaseScheduler() {
+        ThreadPoolTaskScheduler scheduler = new ThreadPoolTaskScheduler();
+        scheduler.setPoolSize(1);
+        scheduler.setThreadNamePrefix("LeaseRenewer-");
+        return scheduler;
+    }
+
+    /**
+     * Executor that writes job events to server-sent event streams, so a client that stops
+     * reading blocks one of its threads rather than the scheduler.
+     *
+     * @return ThreadPoolTaskExecutor for event stream writes
+     */
+    @Bean(name = "eventExecutor")
+    public Executor eventExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(2);
+        executor.setMaxPoolSize(2);
+        executor.setThreadNamePrefix("JobEvents-");
+        executor.initialize();
+        return executor;
+    }
 }
@@ -0,0 +1,105 @@
+package com.ev.apiservice.config;
+
+import com.ev.apiservice.service.JobTelemetryService;
+import com.ev.apiservice.service.loader.JobTelemetry;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Actuator endpoint {@code /actuator/loadjobs} showing where each load job running on this
+ * instance spends its time: seconds and share per pipeline stage, the busiest working stage,
+ * throughput and batch commit latency percentiles.
+ * <p>
+ * A busy {@code parse} stage calls for more parse threads or the schema parser, {@code acquire}
+ * for a larger connection pool, and {@code execute} or {@code commit} for database tuning or
+ * another write mode. {@code blocked} and {@code idle} are waits: the parser waiting for the
+ * writers and the writers waiting for the parser.
+ */
+@Component
+@Endpoint(id = "loadjobs")
+public class LoadJobsEndpoint {
+
+    /**
+     * Stages in which a load does work rather than wait.
+     */
+    private static final Set<JobTelemetry.Stage> WORKING = EnumSet.of(JobTelemetry.Stage.PARSE,
+            JobTelemetry.Stage.ACQUIRE, JobTelemetry.Stage.BIND, JobTelemetry.Stage.EXECUTE, JobTelemetry.Stage.COMMIT);
+
+    private final JobTelemetryService telemetryService;
+
+    public LoadJobsEndpoint(JobTelemetryService telemetryService) {
+        this.telemetryService = telemetryService;
+    }
+
+    @ReadOperation
+    public Map<String, Object> runningJobs() {
+        long now = System.currentTimeMillis();
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("jobs", telemetryService.getRunning().stream()
+                .sorted(Comparator.comparingLong(JobTelemetry::getStartTime))
+                .map(telemetry -> breakdown(telemetry, now))
+                .toList());
+        return response;
+    }
+
+    /**
+     * @return The breakdown of a running job, or {@code null} (404) if it is not running here
+     */
+    @ReadOperation
+    public Map<String, Object> runningJob(@Selector String jobId) {
+        JobTelemetry telemetry = telemetryService.getRunning(jobId);
+        return telemetry != null ? breakdown(telemetry, System.currentTimeMillis()) : null;
+    }
+
+    static Map<String, Object> breakdown(JobTelemetry telemetry, long now) {
+        double elapsedSeconds = Math.max(now - telemetry.getStartTime(), 1) / 1000.0;
+        Map<String, Object> job = new LinkedHashMap<>();
+        job.put("jobId", telemetry.getJobId());
+        job.put("elapsedSeconds", elapsedSeconds);
+        job.put("rowsParsed", telemetry.getParsedRows());
+        job.put("rowsWritten", telemetry.getWrittenRows());
+        job.put("bytesRead", telemetry.getBytesRead());
+        job.put("rowsPerSecond", telemetry.getWrittenRows() / elapsedSeconds);
+
+        long totalNanos = 0;
+        for (JobTelemetry.Stage stage : JobTelemetry.Stage.values()) {
+            totalNanos += telemetry.getStageNanos(stage);
+        }
+        Map<String, Object> stages = new LinkedHashMap<>();
+        JobTelemetry.Stage busiest = null;
+        for (JobTelemetry.Stage stage : JobTelemetry.Stage.values()) {
+            long nanos = telemetry.getStageNanos(stage);
+            Map<String, Object> entry = new LinkedHashMap<>();
+            entry.put("seconds", nanos / 1e9);
+            entry.put("share", totalNanos > 0 ? (double) nanos / totalNanos : 0.0);
+            stages.put(stage.name().toLowerCase(), entry);
+            if (nanos > 0 && WORKING.contains(stage) && (busiest == null || nanos > telemetry.getStageNanos(busiest))) {
+                busiest = stage;
+            }
+        }
+        job.put("stages", stages);
+        job.put("busiestStage", busiest != null ? busiest.name().toLowerCase() : null);
+
+        HistogramSnapshot commits = telemetry.getBatchCommit().takeSnapshot();
+        Map<String, Object> commitLatency = new LinkedHashMap<>();
+        commitLatency.put("batches", commits.count());
+        commitLatency.put("meanMillis", commits.mean(TimeUnit.MILLISECONDS));
+        for (ValueAtPercentile percentile : commits.percentileValues()) {
+            commitLatency.put("p" + Math.round(percentile.percentile() * 100) + "Millis", percentile.value(TimeUnit.MILLISECONDS));
+        }
+        commitLatency.put("maxMillis", commits.max(TimeUnit.MILLISECONDS));
+        job.put("batchCommit", commitLatency);
+        return job;
+    }
+}
@@ -47,7 +47,15 @@ public class LoggingAspect {
     @Pointcut("execution(* com.ev.apiservice.service.*.*(..))")
     private void serviceMethods() {}
 
-    @Around("controllerMethods() || serviceMethods()")
+    // Polling the job queue every second would drown out the calls worth logging
+    @Pointcut("@annotation(org.springframework.scheduling.annotation.Scheduled)")
+    private void scheduledMethods() {}
+
+    // In-memory job status lookups back every status read and event tick; logging them adds nothing
+    @Pointcut("within(com.ev.apiservice.service.JobStatusRegistry)")
+    private void jobStatusLookups() {}
+
+    @Around("(controllerMethods() || serviceMethods()) && !scheduledMethods() && !jobStatusLookups()")
     public Object logMethodExecution(ProceedingJoinPoint joinPoint) throws Throwable {
         Map<String, Object> logData = new HashMap<>();
         String className = joinPoint.getSignature().getDeclaringTypeName();
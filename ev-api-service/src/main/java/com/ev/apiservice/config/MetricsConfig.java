@@ -1,8 +1,10 @@
 package com.ev.apiservice.config;
 
+import com.ev.apiservice.model.StringDictionary;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Counter;
 import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -58,4 +60,10 @@ public class MetricsConfig {
                 .description("Database operation duration in seconds")
                 .register(meterRegistry);
     }
-}
\ No newline at end of file
+
+    // Hit, miss and overflow counts and the size of the shared vehicle attribute dictionary
+    @Bean
+    public MeterBinder vehicleAttributeDictionaryMetrics() {
+        return StringDictionary.VEHICLE_ATTRIBUTES;
+    }
+}
@@ -2,6 +2,12 @@ package com.ev.apiservice.controller;
 
 import com.ev.apiservice.service.DataLoaderJobService;
 import com.ev.apiservice.service.DataLoaderJobService.JobStatus;
+import com.ev.apiservice.service.DataLoaderJobService.JobSummary;
+import com.ev.apiservice.service.JobEventService;
+import com.ev.apiservice.service.loader.InputFormat;
+import com.ev.apiservice.service.loader.LoadMode;
+import com.ev.apiservice.service.loader.LoadOptions;
+import com.ev.apiservice.service.loader.ParserType;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -10,15 +16,21 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -32,10 +44,14 @@ import java.util.Map;
 public class DataLoaderController {
 
     private final DataLoaderJobService jobService;
+    private final JobEventService jobEventService;
 
     @Operation(summary = "Load data from CSV file",
             description = "Upload a CSV file containing electric vehicle data for processing. " +
-                    "The file is processed asynchronously and returns a job ID for status tracking.")
+                    "The file may be gzip (.csv.gz) or zstd (.csv.zst) compressed; it is decompressed while parsing " +
+                    "and the compressed size counts against the upload limit. " +
+                    "The file is processed asynchronously and returns a job ID for status tracking. " +
+                    "Rows the database refuses are written with the reason to a per-job reject file and skipped.")
     @ApiResponse(responseCode = "202", description = "CSV file accepted for processing",
             content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
                     schema = @Schema(type = "object", example = "{\"message\":\"Data loading job started successfully\", " +
@@ -45,19 +61,42 @@ public class DataLoaderController {
     @ApiResponse(responseCode = "500", description = "Error processing file")
     @PostMapping(value = "/load-csv", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
     public ResponseEntity<Map<String, Object>> loadCsvData(
-            @Parameter(description = "CSV file to upload and process", required = true)
+            @Parameter(description = "CSV file to upload and process, optionally gzip or zstd compressed", required = true)
             @RequestParam("file") MultipartFile file,
             @Parameter(description = "Batch size for processing")
-            @RequestParam(value = "batchSize", required = false, defaultValue = "1000") Integer batchSize) {
+            @RequestParam(value = "batchSize", required = false, defaultValue = "1000") Integer batchSize,
+            @Parameter(description = "Write mode: UPSERT (JDBC batch), COPY (bulk COPY into a staging table, then merge) " +
+                    "REPLACE (full refresh: bulk COPY into a shadow table, index it, then swap it in for the live table) " +
+                    "or VALIDATE (dry run: parse and profile the file without touching the database)")
+            @RequestParam(value = "mode", required = false, defaultValue = "UPSERT") LoadMode mode,
+            @Parameter(description = "Input format: CSV, or JSON (NDJSON or a JSON array of vehicle creation payloads, " +
+                    "parsed sequentially)")
+            @RequestParam(value = "format", required = false, defaultValue = "CSV") InputFormat format,
+            @Parameter(description = "CSV parser: COMMONS (general-purpose commons-csv) or SCHEMA (tokenizer specialized " +
+                    "for the DOL vehicle columns, with far less allocation per row)")
+            @RequestParam(value = "parser", required = false, defaultValue = "COMMONS") ParserType parser,
+            @Parameter(description = "Number of threads parsing the uploaded file in parallel (1 = sequential)")
+            @RequestParam(value = "parseThreads", required = false, defaultValue = "1") Integer parseThreads,
+            @Parameter(description = "Number of writer workers, each on its own database connection (1 = write on the parsing thread)")
+            @RequestParam(value = "writerThreads", required = false, defaultValue = "1") Integer writerThreads,
+            @Parameter(description = "Target duration of one batch transaction in milliseconds; when set, the batch size " +
+                    "starts at batchSize and adapts to the measured commit latency (0 = fixed batch size)")
+            @RequestParam(value = "targetBatchMillis", required = false, defaultValue = "0") Long targetBatchMillis,
+            @Parameter(description = "Ceiling on the rows written per second; can be changed while the job runs (0 = no limit)")
+            @RequestParam(value = "maxRowsPerSecond", required = false, defaultValue = "0") Long maxRowsPerSecond,
+            @Parameter(description = "Snapshot sync: the file lists every current vehicle, so once it has loaded, vehicles " +
+                    "it does not list are deleted and their VINs reported (not with REPLACE)")
+            @RequestParam(value = "deleteMissing", required = false, defaultValue = "false") Boolean deleteMissing) {
 
-        log.info("Received CSV file: {} ({}B) with batch size: {}",
-                file.getOriginalFilename(), file.getSize(), batchSize);
+        log.info("Received {} file: {} ({}B) with batch size: {}, mode: {}, parser: {}, parse threads: {} and writer threads: {}",
+                format, file.getOriginalFilename(), file.getSize(), batchSize, mode, parser, parseThreads, writerThreads);
 
         if (file.isEmpty()) {
             return ResponseEntity.badRequest()
                     .body(Map.of("error", "Uploaded file is empty"));
         }
 
+        Path tempFile = null;
         try {
             // Create temp directory and save file with unique name
             Path tempDir = Files.createTempDirectory("ev-loader");
@@ -66,24 +105,38 @@ public class DataLoaderController {
                     ? filename.substring(filename.lastIndexOf("."))
                     : ".csv";
 
-            Path tempFile = Files.createTempFile(tempDir, "upload-", extension);
+            tempFile = Files.createTempFile(tempDir, "upload-", extension);
             file.transferTo(tempFile.toFile());
 
             log.info("Saved to: {}", tempFile);
 
-            // Start processing job
-            String jobId = jobService.startLoadJob(tempFile.toString(), batchSize);
+            // Start processing job; the job deletes the file once it completes
+            LoadOptions options = new LoadOptions();
+            options.setBatchSize(batchSize);
+            options.setMode(mode);
+            options.setFormat(format);
+            options.setFormat(format);
+        options.setParserType(parser);
+            options.setParseThreads(parseThreads);
+            options.setWriterThreads(writerThreads);
+            options.setTargetBatchMillis(targetBatchMillis);
+            options.setMaxRowsPerSecond(maxRowsPerSecond);
+            options.setDeleteMissing(deleteMissing);
+            String jobId = jobService.startUploadJob(tempFile, options);
+            tempFile = null;
 
             Map<String, Object> response = new HashMap<>();
             response.put("message", "Data loading job started successfully");
             response.put("jobId", jobId);
             response.put("statusEndpoint", "/api/v1/data-loader/job-status/" + jobId);
             response.put("originalFilename", filename);
+            response.put("mode", mode.name());
 
             return ResponseEntity.accepted().body(response);
 
         } catch (Exception e) {
             log.error("Error processing CSV file", e);
+            deleteQuietly(tempFile);
 
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("error", "Failed to process CSV file");
@@ -93,6 +146,154 @@ public class DataLoaderController {
         }
     }
 
+    @Operation(summary = "Load data from a directory or glob of CSV files",
+            description = "Loads every CSV file of a directory (files ending in .csv, optionally .gz or .zst compressed) " +
+                    "or every file matching an Ant-style glob such as extracts/2024-05/*.csv.gz. Locations are resolved " +
+                    "against the import directory (ev.loader.import-dir) and may not leave it, also not through " +
+                    "symbolic links. Each file is loaded by a file " +
+                    "job of its own, at most fileParallelism at a time, and the returned job reports their rolled-up " +
+                    "progress and counts. The rows per second ceiling applies to the files loaded at the same time " +
+                    "together. Resuming the job resumes its files that did not complete.")
+    @ApiResponse(responseCode = "202", description = "Files accepted for processing",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(type = "object", example = "{\"message\":\"Data loading job started successfully\", " +
+                            "\"jobId\":\"550e8400-e29b-41d4-a716-446655440000\", \"fileCount\":39, " +
+                            "\"statusEndpoint\":\"/api/v1/data-loader/job-status/550e8400-e29b-41d4-a716-446655440000\"}")))
+    @ApiResponse(responseCode = "400", description = "No CSV files found at the location, a location outside the " +
+            "import directory, or invalid parameters")
+    @PostMapping("/load-directory")
+    public ResponseEntity<Map<String, Object>> loadDirectory(
+            @Parameter(description = "Directory or glob of CSV files below the import directory, e.g. " +
+                    "extracts/2024-05 or extracts/**/*.csv.gz", required = true)
+            @RequestParam("location") String location,
+            @Parameter(description = "Maximum number of files loaded at the same time")
+            @RequestParam(value = "fileParallelism", required = false,
+                    defaultValue = "" + DataLoaderJobService.DEFAULT_FILE_PARALLELISM) Integer fileParallelism,
+            @Parameter(description = "Batch size for processing")
+            @RequestParam(value = "batchSize", required = false, defaultValue = "1000") Integer batchSize,
+            @Parameter(description = "Write mode: UPSERT (JDBC batch), COPY (bulk COPY into a staging table, then merge) " +
+                    "or VALIDATE (dry run: parse and profile the data without touching the database)")
+            @RequestParam(value = "mode", required = false, defaultValue = "UPSERT") LoadMode mode,
+            @Parameter(description = "Input format: CSV, or JSON (NDJSON or a JSON array of vehicle creation payloads, " +
+                    "parsed sequentially)")
+            @RequestParam(value = "format", required = false, defaultValue = "CSV") InputFormat format,
+            @Parameter(description = "CSV parser: COMMONS (general-purpose commons-csv) or SCHEMA (tokenizer specialized " +
+                    "for the DOL vehicle columns, with far less allocation per row)")
+            @RequestParam(value = "parser", required = false, defaultValue = "COMMONS") ParserType parser,
+            @Parameter(description = "Number of threads parsing each file in parallel (1 = sequential)")
+            @RequestParam(value = "parseThreads", required = false, defaultValue = "1") Integer parseThreads,
+            @Parameter(description = "Number of writer workers per file, each on its own database connection (1 = write on the parsing thread)")
+            @RequestParam(value = "writerThreads", required = false, defaultValue = "1") Integer writerThreads,
+            @Parameter(description = "Target duration of one batch transaction in milliseconds; when set, the batch size " +
+                    "starts at batchSize and adapts to the measured commit latency (0 = fixed batch size)")
+            @RequestParam(value = "targetBatchMillis", required = false, defaultValue = "0") Long targetBatchMillis,
+            @Parameter(description = "Ceiling on the rows written per second; can be changed while the job runs (0 = no limit)")
+            @RequestParam(value = "maxRowsPerSecond", required = false, defaultValue = "0") Long maxRowsPerSecond) {
+
+        log.info("Received directory load for {} with file parallelism: {}, batch size: {}, mode: {}, format: {}, " +
+                        "parser: {}, parse threads: {} and writer threads: {}",
+                location, fileParallelism, batchSize, mode, format, parser, parseThreads, writerThreads);
+
+        LoadOptions options = new LoadOptions();
+        options.setBatchSize(batchSize);
+        options.setMode(mode);
+        options.setFormat(format);
+        options.setParserType(parser);
+        options.setParseThreads(parseThreads);
+        options.setWriterThreads(writerThreads);
+        options.setTargetBatchMillis(targetBatchMillis);
+        options.setMaxRowsPerSecond(maxRowsPerSecond);
+        String jobId = jobService.startDirectoryJob(location, options, fileParallelism);
+        JobStatus status = jobService.getJobStatus(jobId);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Data loading job started successfully");
+        response.put("jobId", jobId);
+        response.put("statusEndpoint", "/api/v1/data-loader/job-status/" + jobId);
+        response.put("location", location);
+        response.put("mode", mode.name());
+        putFiles(response, status);
+
+        return ResponseEntity.accepted().body(response);
+    }
+
+    @Operation(summary = "Load data from a streamed CSV request body",
+            description = "Parses the raw request body as it arrives, without staging it on disk, and commits " +
+                    "batches while the client is still uploading. Chunked transfer encoding is supported, and the " +
+                    "body may be gzip or zstd compressed. The request returns when the load has finished or been " +
+                    "cancelled, with the counts committed so far. Streamed jobs cannot be resumed.")
+    @ApiResponse(responseCode = "200", description = "CSV data loaded, or the load cancelled",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE,
+                    schema = @Schema(type = "object", example = "{\"jobId\":\"550e8400-e29b-41d4-a716-446655440000\", " +
+                            "\"status\":\"COMPLETED\", \"recordsProcessed\":1000, \"insertedRecords\":900, " +
+                            "\"updatedRecords\":50, \"unchangedRecords\":40, \"duplicateRecords\":8, \"rejectedRecords\":2, \"deletedRecords\":0, " +
+                            "\"rejectFile\":\"/tmp/ev-loader-rejects/550e8400-e29b-41d4-a716-446655440000-rejects.csv\"}")))
+    @ApiResponse(responseCode = "500", description = "Error processing the request body")
+    @PostMapping(value = "/load-csv/stream",
+            consumes = {"text/csv", MediaType.APPLICATION_NDJSON_VALUE, MediaType.APPLICATION_JSON_VALUE,
+                    "application/gzip", "application/zstd", MediaType.APPLICATION_OCTET_STREAM_VALUE})
+    public ResponseEntity<Map<String, Object>> loadCsvStream(
+            @Parameter(description = "Raw CSV data, or JSON with format=JSON, optionally gzip or zstd compressed", required = true)
+            InputStream body,
+            @Parameter(description = "Name of the uploaded file, used in logs and to detect compression by extension")
+            @RequestParam(value = "filename", required = false, defaultValue = "request-body.csv") String filename,
+            @Parameter(description = "Batch size for processing")
+            @RequestParam(value = "batchSize", required = false, defaultValue = "1000") Integer batchSize,
+            @Parameter(description = "Write mode: UPSERT (JDBC batch), COPY (bulk COPY into a staging table, then merge) " +
+                    "or VALIDATE (dry run: parse and profile the data without touching the database)")
+            @RequestParam(value = "mode", required = false, defaultValue = "UPSERT") LoadMode mode,
+            @Parameter(description = "Input format: CSV, or JSON (NDJSON or a JSON array of vehicle creation payloads, " +
+                    "parsed sequentially)")
+            @RequestParam(value = "format", required = false, defaultValue = "CSV") InputFormat format,
+            @Parameter(description = "CSV parser: COMMONS (general-purpose commons-csv) or SCHEMA (tokenizer specialized " +
+                    "for the DOL vehicle columns, with far less allocation per row)")
+            @RequestParam(value = "parser", required = false, defaultValue = "COMMONS") ParserType parser,
+            @Parameter(description = "Number of writer workers, each on its own database connection (1 = write on the request thread)")
+            @RequestParam(value = "writerThreads", required = false, defaultValue = "1") Integer writerThreads,
+            @Parameter(description = "Target duration of one batch transaction in milliseconds; when set, the batch size " +
+                    "starts at batchSize and adapts to the measured commit latency (0 = fixed batch size)")
+            @RequestParam(value = "targetBatchMillis", required = false, defaultValue = "0") Long targetBatchMillis,
+            @Parameter(description = "Ceiling on the rows written per second; can be changed while the job runs (0 = no limit)")
+            @RequestParam(value = "maxRowsPerSecond", required = false, defaultValue = "0") Long maxRowsPerSecond,
+            @Parameter(description = "Snapshot sync: the body lists every current vehicle, so once it has loaded, vehicles " +
+                    "it does not list are deleted and their VINs reported")
+            @RequestParam(value = "deleteMissing", required = false, defaultValue = "false") Boolean deleteMissing,
+            @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength) {
+
+        log.info("Streaming {} request body: {} ({}B) with batch size: {}, mode: {}, parser: {} and writer threads: {}",
+                format, filename, contentLength, batchSize, mode, parser, writerThreads);
+
+        LoadOptions options = new LoadOptions();
+        options.setBatchSize(batchSize);
+        options.setMode(mode);
+        options.setFormat(format);
+        options.setParserType(parser);
+        options.setWriterThreads(writerThreads);
+        options.setTargetBatchMillis(targetBatchMillis);
+        options.setMaxRowsPerSecond(maxRowsPerSecond);
+        options.setDeleteMissing(deleteMissing);
+        String jobId = jobService.runStreamingJob(filename, body, contentLength != null ? contentLength : -1, options);
+        JobStatus status = jobService.getJobStatus(jobId);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobId", jobId);
+        response.put("status", status.getStatus().name());
+        response.put("recordsProcessed", status.getRecordsProcessed());
+        if (status.getStatus() == JobStatus.Status.FAILED) {
+            response.put("error", "Failed to process CSV stream");
+            response.put("message", status.getErrorMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(response);
+        }
+        response.put("insertedRecords", status.getInsertedRecords());
+        response.put("updatedRecords", status.getUpdatedRecords());
+        response.put("unchangedRecords", status.getUnchangedRecords());
+        response.put("duplicateRecords", status.getDuplicateRecords());
+        putRejects(response, status);
+        putDeletions(response, status);
+        putProfile(response, status);
+        return ResponseEntity.ok(response);
+    }
+
     @Operation(summary = "Get job status",
             description = "Check the status of a data loading job")
     @ApiResponse(responseCode = "200", description = "Job status retrieved successfully")
@@ -116,12 +317,241 @@ public class DataLoaderController {
 
         if (status.getStatus() == JobStatus.Status.RUNNING) {
             response.put("progress", status.getProgress());
+            response.put("bytesRead", status.getBytesRead());
+            if (status.getTotalBytes() > 0) {
+                response.put("totalBytes", status.getTotalBytes());
+            }
+            if (status.getEstimatedRemainingMillis() >= 0) {
+                response.put("estimatedRemainingSeconds", status.getEstimatedRemainingMillis() / 1000);
+            }
+        }
+
+        if (status.getStatus() == JobStatus.Status.COMPLETED || status.getStatus() == JobStatus.Status.CANCELLED) {
+            response.put("insertedRecords", status.getInsertedRecords());
+            response.put("updatedRecords", status.getUpdatedRecords());
+            response.put("unchangedRecords", status.getUnchangedRecords());
+            response.put("duplicateRecords", status.getDuplicateRecords());
+            putRejects(response, status);
+            putDeletions(response, status);
+            putProfile(response, status);
         }
 
-        if (status.getStatus() == JobStatus.Status.FAILED && status.getErrorMessage() != null) {
+        if (status.getCurrentBatchSize() > 0) {
+            response.put("currentBatchSize", status.getCurrentBatchSize());
+            response.put("batchSizeAdjustments", status.getBatchSizeAdjustments());
+        }
+
+        if (status.getMaxRowsPerSecond() > 0) {
+            response.put("maxRowsPerSecond", status.getMaxRowsPerSecond());
+        }
+
+        if (status.getCheckpointRecords() > 0 && status.getStatus() != JobStatus.Status.COMPLETED) {
+            response.put("checkpointRecords", status.getCheckpointRecords());
+        }
+
+        if ((status.getStatus() == JobStatus.Status.FAILED || status.getStatus() == JobStatus.Status.INTERRUPTED)
+                && status.getErrorMessage() != null) {
             response.put("errorMessage", status.getErrorMessage());
         }
 
+        putFiles(response, status);
+        if (status.getParentJobId() != null) {
+            response.put("parentJobId", status.getParentJobId());
+        }
+        if (status.getWorker() != null) {
+            response.put("worker", status.getWorker());
+        }
+
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "List data loading jobs",
+            description = "Pages through single-file and directory jobs, most recently started first, from their " +
+                    "persisted records; the file jobs of a directory job are listed by its status. Jobs can be " +
+                    "filtered by status and by a window on their start time in epoch milliseconds. A job the " +
+                    "answering instance runs shows its live progress.")
+    @ApiResponse(responseCode = "200", description = "Page of jobs retrieved successfully",
+            content = @Content(mediaType = MediaType.APPLICATION_JSON_VALUE, schema = @Schema(implementation = Page.class)))
+    @ApiResponse(responseCode = "400", description = "Invalid page, page size, status or time window")
+    @GetMapping("/jobs")
+    public ResponseEntity<Page<Map<String, Object>>> getJobHistory(
+            @Parameter(description = "Only jobs in this status (QUEUED, RUNNING, COMPLETED, FAILED, INTERRUPTED, CANCELLED)")
+            @RequestParam(value = "status", required = false) JobStatus.Status status,
+            @Parameter(description = "Only jobs started at or after this time, in epoch milliseconds")
+            @RequestParam(value = "from", required = false, defaultValue = "0") Long from,
+            @Parameter(description = "Only jobs started before this time, in epoch milliseconds (default: no end)")
+            @RequestParam(value = "to", required = false) Long to,
+            @Parameter(description = "Page number, from 0")
+            @RequestParam(value = "page", required = false, defaultValue = "0") Integer page,
+            @Parameter(description = "Jobs per page (1-" + DataLoaderJobService.MAX_HISTORY_PAGE_SIZE + ")")
+            @RequestParam(value = "size", required = false, defaultValue = "20") Integer size) {
+
+        Page<JobSummary> jobs = jobService.getJobHistory(status, from, to != null ? to : Long.MAX_VALUE, page, size);
+        return ResponseEntity.ok(jobs.map(DataLoaderController::toHistoryEntry));
+    }
+
+    @Operation(summary = "Stream the progress of a data loading job",
+            description = "Opens a server-sent event stream instead of polling the job status. The first " +
+                    "`progress` event carries the full status; later ones carry only the fields that changed at " +
+                    "batch boundaries, at most one per `intervalMillis`. A `done` event with the final status ends " +
+                    "the stream once the job completes, fails, is interrupted or is cancelled.")
+    @ApiResponse(responseCode = "200", description = "Event stream opened",
+            content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE))
+    @ApiResponse(responseCode = "404", description = "Job not found")
+    @GetMapping(value = "/job-events/{jobId}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamJobEvents(
+            @Parameter(description = "ID of the job to follow", required = true)
+            @PathVariable String jobId,
+            @Parameter(description = "Minimum time between two progress events in milliseconds; the server's " +
+                    "publishing interval (500 ms by default) is the floor")
+            @RequestParam(value = "intervalMillis", defaultValue = "1000") long intervalMillis) {
+
+        // Answered here rather than by the exception handler, whose JSON body an event stream client does not accept
+        if (jobService.getJobStatus(jobId).getStatus() == JobStatus.Status.NOT_FOUND) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(jobEventService.subscribe(jobId, intervalMillis));
+    }
+
+    @Operation(summary = "Resume a data loading job",
+            description = "Continues a failed, interrupted or cancelled job from its last committed checkpoint. " +
+                    "Records before the checkpoint are skipped; the job keeps its ID.")
+    @ApiResponse(responseCode = "202", description = "Job queued for resumption")
+    @ApiResponse(responseCode = "404", description = "Job not found")
+    @ApiResponse(responseCode = "409", description = "Job is not resumable, or its file is missing or has changed")
+    @PostMapping("/resume/{jobId}")
+    public ResponseEntity<Map<String, Object>> resumeJob(
+            @Parameter(description = "ID of the job to resume", required = true)
+            @PathVariable String jobId) {
+
+        jobService.resumeJob(jobId);
+        JobStatus status = jobService.getJobStatus(jobId);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Data loading job resumed successfully");
+        response.put("jobId", jobId);
+        response.put("statusEndpoint", "/api/v1/data-loader/job-status/" + jobId);
+        response.put("resumeFromRecord", status.getCheckpointRecords());
+
+        return ResponseEntity.accepted().body(response);
+    }
+
+    @Operation(summary = "Cancel a data loading job",
+            description = "Stops a queued or running job at its next batch boundary. Batches already handed to " +
+                    "writers are committed; the job then ends CANCELLED and can be resumed from its checkpoint. " +
+                    "Cancelling a directory job cancels its files that have not finished. A job waiting in the " +
+                    "shared queue is cancelled from any instance; a claimed job only by the instance running it.")
+    @ApiResponse(responseCode = "202", description = "Job asked to stop")
+    @ApiResponse(responseCode = "404", description = "Job not found")
+    @ApiResponse(responseCode = "409", description = "Job is not queued or running in this instance, nor waiting in the shared queue")
+    @PostMapping("/cancel/{jobId}")
+    public ResponseEntity<Map<String, Object>> cancelJob(
+            @Parameter(description = "ID of the job to cancel", required = true)
+            @PathVariable String jobId) {
+
+        jobService.cancelJob(jobId);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "Data loading job cancellation requested");
+        response.put("jobId", jobId);
+        response.put("statusEndpoint", "/api/v1/data-loader/job-status/" + jobId);
+
+        return ResponseEntity.accepted().body(response);
+    }
+
+    @Operation(summary = "Change the rate limit of a data loading job",
+            description = "Sets the ceiling on the rows a queued or running job writes per second; the load picks " +
+                    "it up within 100 ms. For a directory job it applies to its files together.")
+    @ApiResponse(responseCode = "200", description = "Rate limit changed")
+    @ApiResponse(responseCode = "400", description = "Negative rate")
+    @ApiResponse(responseCode = "404", description = "Job not found")
+    @ApiResponse(responseCode = "409", description = "Job is not queued or running in this instance")
+    @PutMapping("/rate-limit/{jobId}")
+    public ResponseEntity<Map<String, Object>> setRateLimit(
+            @Parameter(description = "ID of the job to throttle", required = true)
+            @PathVariable String jobId,
+            @Parameter(description = "Ceiling on the rows written per second (0 = no limit)", required = true)
+            @RequestParam("maxRowsPerSecond") Long maxRowsPerSecond) {
+
+        jobService.setRateLimit(jobId, maxRowsPerSecond);
+
+        Map<String, Object> response = new HashMap<>();
+        response.put("jobId", jobId);
+        response.put("maxRowsPerSecond", maxRowsPerSecond);
+
         return ResponseEntity.ok(response);
     }
-}
\ No newline at end of file
+
+    private static Map<String, Object> toHistoryEntry(JobSummary job) {
+        JobStatus status = job.status();
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("jobId", job.jobId());
+        entry.put("filePath", job.filePath());
+        entry.put("mode", job.loadMode());
+        entry.put("status", status.getStatus().name());
+        entry.put("startTime", status.getStartTime());
+        if (status.getEndTime() > 0) {
+            entry.put("endTime", status.getEndTime());
+        }
+        entry.put("recordsProcessed", status.getRecordsProcessed());
+        entry.put("insertedRecords", status.getInsertedRecords());
+        entry.put("updatedRecords", status.getUpdatedRecords());
+        entry.put("unchangedRecords", status.getUnchangedRecords());
+        entry.put("rejectedRecords", status.getRejectedRecords());
+        if (status.getStatus() == JobStatus.Status.RUNNING) {
+            entry.put("progress", status.getProgress());
+        }
+        if (status.getFileCount() > 0) {
+            entry.put("fileCount", status.getFileCount());
+        }
+        if (status.getErrorMessage() != null) {
+            entry.put("errorMessage", status.getErrorMessage());
+        }
+        if (status.getWorker() != null) {
+            entry.put("worker", status.getWorker());
+        }
+        return entry;
+    }
+
+    private static void putRejects(Map<String, Object> response, JobStatus status) {
+        response.put("rejectedRecords", status.getRejectedRecords());
+        if (status.getRejectedRecords() > 0) {
+            response.put("rejectFile", status.getRejectFile());
+        }
+    }
+
+    private static void putDeletions(Map<String, Object> response, JobStatus status) {
+        response.put("deletedRecords", status.getDeletedRecords());
+        if (status.getDeletedRecords() > 0) {
+            response.put("removedFile", status.getRemovedFile());
+        }
+    }
+
+    private static void putProfile(Map<String, Object> response, JobStatus status) {
+        if (status.getProfile() != null) {
+            response.put("profile", status.getProfile());
+        }
+    }
+
+    private static void putFiles(Map<String, Object> response, JobStatus status) {
+        if (status.getFileCount() == 0) {
+            return;
+        }
+        response.put("fileCount", status.getFileCount());
+        response.put("completedFiles", status.getCompletedFiles());
+        response.put("failedFiles", status.getFailedFiles());
+        response.put("fileJobIds", status.getFileJobIds() != null ? status.getFileJobIds() : List.of());
+    }
+
+    private static void deleteQuietly(Path tempFile) {
+        if (tempFile == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(tempFile);
+            Files.deleteIfExists(tempFile.getParent());
+        } catch (IOException e) {
+            log.warn("Could not delete temporary upload {}: {}", tempFile, e.getMessage());
+        }
+    }
+}
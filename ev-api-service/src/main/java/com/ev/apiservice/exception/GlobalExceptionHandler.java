@@ -46,6 +46,18 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(errorResponse, HttpStatus.BAD_REQUEST);
     }
 
+    /**
+     * Handles {@link JobStateConflictException}, thrown when a request conflicts with the current state of a data loading job.
+     * @param ex The caught JobStateConflictException.
+     * @return A ResponseEntity with HTTP 409 (Conflict) status and an error message.
+     */
+    @ExceptionHandler(JobStateConflictException.class)
+    public ResponseEntity<ErrorResponse> handleJobStateConflictException(JobStateConflictException ex) {
+        log.warn("Conflicting request: {}", ex.getMessage());
+        ErrorResponse errorResponse = new ErrorResponse(HttpStatus.CONFLICT.value(), ex.getMessage(), null);
+        return new ResponseEntity<>(errorResponse, HttpStatus.CONFLICT);
+    }
+
     /**
      * Handles {@link MethodArgumentNotValidException}, thrown when Spring's @Valid validation fails on a request body.
      * @param ex The caught MethodArgumentNotValidException.
@@ -0,0 +1,15 @@
+package com.ev.apiservice.exception;
+
+/**
+ * Thrown when a request conflicts with the current state of a data loading job, such as resuming
+ * a completed job, cancelling one that has ended, or resuming one whose file has changed.
+ */
+public class JobStateConflictException extends RuntimeException {
+
+    /**
+     * @param message Why the job's state does not allow the request
+     */
+    public JobStateConflictException(String message) {
+        super(message);
+    }
+}
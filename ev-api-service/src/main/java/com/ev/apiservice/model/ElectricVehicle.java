@@ -12,6 +12,8 @@ import java.math.BigDecimal;
 
 /**
  * JPA Entity representing an electric vehicle record in the database.
+ * Low-cardinality text columns are read through {@link InternedStringConverter}, so a page of
+ * entities holds one string per distinct make, model, county and so on rather than one per row.
  */
 @Entity
 @Table(name = "electric_vehicle_population")
@@ -27,9 +29,11 @@ public class ElectricVehicle {
     private String vin;
 
     @Column(name = "county")
+    @Convert(converter = InternedStringConverter.class)
     private String county;
 
     @Column(name = "city")
+    @Convert(converter = InternedStringConverter.class)
     private String city;
 
     @Column(name = "state", length = 50)
@@ -42,15 +46,19 @@ public class ElectricVehicle {
     private Integer modelYear;
 
     @Column(name = "make")
+    @Convert(converter = InternedStringConverter.class)
     private String make;
 
     @Column(name = "model")
+    @Convert(converter = InternedStringConverter.class)
     private String model;
 
     @Column(name = "electric_vehicle_type", length = 100)
+    @Convert(converter = InternedStringConverter.class)
     private String electricVehicleType;
 
     @Column(name = "cafv_eligibility_status")
+    @Convert(converter = InternedStringConverter.class)
     private String cafvEligibilityStatus;
 
     @Column(name = "electric_range")
@@ -77,6 +85,7 @@ public class ElectricVehicle {
     private Point vehicleLocationPoint; // Uses org.locationtech.jts.geom.Point
 
     @Column(name = "electric_utility")
+    @Convert(converter = InternedStringConverter.class)
     private String electricUtility;
 
     @Column(name = "census_tract_2020")
@@ -0,0 +1,22 @@
+package com.ev.apiservice.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Maps low-cardinality text columns through {@link StringDictionary#VEHICLE_ATTRIBUTES}, so
+ * entities read from the database share one instance per distinct value.
+ */
+@Converter
+public class InternedStringConverter implements AttributeConverter<String, String> {
+
+    @Override
+    public String convertToDatabaseColumn(String attribute) {
+        return attribute;
+    }
+
+    @Override
+    public String convertToEntityAttribute(String dbData) {
+        return StringDictionary.VEHICLE_ATTRIBUTES.intern(dbData);
+    }
+}
@@ -0,0 +1,169 @@
+package com.ev.apiservice.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * JPA Entity persisting a CSV data loading job and its last committed checkpoint.
+ */
+@Entity
+@Table(name = "data_loader_job")
+@Data
+@NoArgsConstructor
+public class LoadJob {
+
+    @Id
+    @Column(name = "job_id", length = 36, nullable = false)
+    private String jobId;
+
+    /*
+     * Name of a DataLoaderJobService.JobStatus.Status value
+     */
+    @Column(name = "status", length = 20, nullable = false)
+    private String status;
+
+    @Column(name = "file_path", nullable = false, columnDefinition = "TEXT")
+    private String filePath;
+
+    /*
+     * Whether the file is an upload owned by the job, deleted once the job completes
+     */
+    @Column(name = "temporary_file", nullable = false)
+    private boolean temporaryFile;
+
+    /*
+     * File identity when the job started; null if the input is not a local file
+     */
+    @Column(name = "file_size")
+    private Long fileSize;
+
+    @Column(name = "file_last_modified")
+    private Long fileLastModified;
+
+    /*
+     * Job loading a directory or glob that this job loads one file of; null for a single-file job
+     */
+    @Column(name = "parent_job_id", length = 36)
+    private String parentJobId;
+
+    /*
+     * Number of files of a directory or glob job, each loaded by a child job; 0 for a single-file job
+     */
+    @Column(name = "file_count", nullable = false)
+    private int fileCount;
+
+    /*
+     * Maximum number of files of a directory or glob job loaded at the same time
+     */
+    @Column(name = "file_parallelism", nullable = false)
+    private int fileParallelism;
+
+    @Column(name = "batch_size", nullable = false)
+    private int batchSize;
+
+    @Column(name = "load_mode", length = 20, nullable = false)
+    private String loadMode;
+
+    /*
+     * Name of an InputFormat value
+     */
+    @Column(name = "input_format", length = 10, nullable = false)
+    private String inputFormat = "CSV";
+
+    /*
+     * Name of a ParserType value
+     */
+    @Column(name = "parser_type", length = 20, nullable = false)
+    private String parserType;
+
+    @Column(name = "parse_threads", nullable = false)
+    private int parseThreads;
+
+    @Column(name = "writer_threads", nullable = false)
+    private int writerThreads;
+
+    /*
+     * Target duration of one batch transaction for an adaptive batch size; 0 for a fixed batch size
+     */
+    @Column(name = "target_batch_millis", nullable = false)
+    private long targetBatchMillis;
+
+    /*
+     * Ceiling on the rows per second the job writes, as last set; 0 for no limit
+     */
+    @Column(name = "max_rows_per_second", nullable = false)
+    private long maxRowsPerSecond;
+
+    /*
+     * Number of leading data records of the file that are all committed; a resumed job skips them
+     */
+    @Column(name = "checkpoint_records", nullable = false)
+    private long checkpointRecords;
+
+    @Column(name = "records_processed", nullable = false)
+    private int recordsProcessed;
+
+    @Column(name = "inserted_records", nullable = false)
+    private int insertedRecords;
+
+    @Column(name = "updated_records", nullable = false)
+    private int updatedRecords;
+
+    @Column(name = "unchanged_records", nullable = false)
+    private int unchangedRecords;
+
+    @Column(name = "duplicate_records", nullable = false)
+    private int duplicateRecords;
+
+    @Column(name = "rejected_records", nullable = false)
+    private int rejectedRecords;
+
+    /*
+     * CSV file receiving the rows the database refused, with the reason; only exists once a row was rejected
+     */
+    @Column(name = "reject_file", columnDefinition = "TEXT")
+    private String rejectFile;
+
+    /*
+     * Snapshot sync: vehicles the file does not list are deleted once it has loaded completely
+     */
+    @Column(name = "delete_missing", nullable = false)
+    private boolean deleteMissing;
+
+    @Column(name = "deleted_records", nullable = false)
+    private int deletedRecords;
+
+    /*
+     * CSV file receiving the VINs a snapshot sync deleted; only exists once a vehicle was deleted
+     */
+    @Column(name = "removed_file", columnDefinition = "TEXT")
+    private String removedFile;
+
+    /*
+     * Instance holding the job and until when, in database time; NULL while a queued job waits to be
+     * claimed. Only written by LoadJobQueue, so saving the entity never overwrites a renewed lease.
+     */
+    @Column(name = "lease_owner", length = 100, updatable = false)
+    private String leaseOwner;
+
+    @Column(name = "lease_expires_at", updatable = false)
+    private Instant leaseExpiresAt;
+
+    /*
+     * Times the job was claimed from the queue; a job that keeps losing its worker is given up on
+     */
+    @Column(name = "attempts", nullable = false, updatable = false)
+    private int attempts;
+
+    @Column(name = "error_message", columnDefinition = "TEXT")
+    private String errorMessage;
+
+    @Column(name = "start_time", nullable = false)
+    private long startTime;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+}
@@ -0,0 +1,192 @@
+package com.ev.apiservice.model;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded, thread-safe dictionary that maps equal strings to one shared instance.
+ * <p>
+ * Columns such as make, model, county and city hold a few hundred distinct values across the
+ * whole dataset, so keeping one instance per value instead of one per row shrinks loader batches
+ * and materialized entity pages alike. Lookups accept any {@link CharSequence}, which lets a
+ * tokenizer look a field up in its own buffer and only create a string for a value it has not
+ * seen before. Once the dictionary holds {@code maxSize} values it stops growing and hands
+ * unknown values back unshared, so an unexpectedly high-cardinality input cannot exhaust the heap.
+ */
+public final class StringDictionary implements MeterBinder {
+
+    /**
+     * Values of the low-cardinality vehicle columns, shared by the CSV loader and the entity read path.
+     */
+    public static final StringDictionary VEHICLE_ATTRIBUTES = new StringDictionary("vehicle.attributes", 50_000);
+
+    private final String name;
+    private final int maxSize;
+    private final ConcurrentHashMap<Key, String> values = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final ThreadLocal<Key> probes = ThreadLocal.withInitial(Key::new);
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder overflows = new LongAdder();
+
+    /**
+     * @param name Name reported in the {@code dictionary} tag of the metrics
+     * @param maxSize Maximum number of distinct values kept
+     */
+    public StringDictionary(String name, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Dictionary size must be at least 1");
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Returns the shared instance equal to the value, adding the value if there is room.
+     *
+     * @param value Value to look up, may be {@code null}
+     * @return The shared instance, the value itself when the dictionary is full, or {@code null}
+     */
+    public String intern(String value) {
+        if (value == null || value.isEmpty()) {
+            return value;
+        }
+        String shared = lookup(value);
+        return shared != null ? shared : add(value);
+    }
+
+    /**
+     * Returns the shared instance equal to the characters, adding them if there is room. A string
+     * is only created when the value is not in the dictionary yet.
+     *
+     * @param chars Characters to look up, may be {@code null}; not retained
+     * @return The shared instance, a new string when the dictionary is full, or {@code null}
+     */
+    public String intern(CharSequence chars) {
+        if (chars == null) {
+            return null;
+        }
+        if (chars instanceof String value) {
+            return intern(value);
+        }
+        if (chars.length() == 0) {
+            return "";
+        }
+        String shared = lookup(chars);
+        return shared != null ? shared : add(chars.toString());
+    }
+
+    /**
+     * @return Number of distinct values held
+     */
+    public int size() {
+        return size.get();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("dictionary.lookups", hits, LongAdder::doubleValue)
+                .description("Dictionary lookups that returned a shared instance")
+                .tags("dictionary", name, "result", "hit")
+                .register(registry);
+        FunctionCounter.builder("dictionary.lookups", misses, LongAdder::doubleValue)
+                .description("Dictionary lookups that added a new value")
+                .tags("dictionary", name, "result", "miss")
+                .register(registry);
+        FunctionCounter.builder("dictionary.lookups", overflows, LongAdder::doubleValue)
+                .description("Dictionary lookups of new values refused because the dictionary is full")
+                .tags("dictionary", name, "result", "overflow")
+                .register(registry);
+        Gauge.builder("dictionary.size", size, AtomicInteger::get)
+                .description("Distinct values held by the dictionary")
+                .tag("dictionary", name)
+                .register(registry);
+    }
+
+    private String lookup(CharSequence chars) {
+        Key probe = probes.get();
+        try {
+            String shared = values.get(probe.of(chars));
+            if (shared != null) {
+                hits.increment();
+            }
+            return shared;
+        } finally {
+            probe.of(null);
+        }
+    }
+
+    private String add(String value) {
+        // The bound is checked before inserting, so racing threads may overshoot it by a few entries
+        if (size.get() >= maxSize) {
+            overflows.increment();
+            return value;
+        }
+        String shared = values.putIfAbsent(new Key().of(value), value);
+        if (shared != null) {
+            hits.increment();
+            return shared;
+        }
+        size.incrementAndGet();
+        misses.increment();
+        return value;
+    }
+
+    /**
+     * Map key comparing characters, so a reused probe over a caller's buffer matches a stored
+     * string. The hash is the {@link String#hashCode()} of the characters.
+     */
+    private static final class Key {
+
+        private CharSequence chars;
+        private int hash;
+
+        Key of(CharSequence chars) {
+            this.chars = chars;
+            if (chars instanceof String value) {
+                hash = value.hashCode();
+            } else if (chars != null) {
+                int h = 0;
+                for (int i = 0, length = chars.length(); i < length; i++) {
+                    h = 31 * h + chars.charAt(i);
+                }
+                hash = h;
+            }
+            return this;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof Key key) || key.hash != hash) {
+                return false;
+            }
+            CharSequence a = chars;
+            CharSequence b = key.chars;
+            int length = a.length();
+            if (b.length() != length) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (a.charAt(i) != b.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.ev.apiservice.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The {@code data_loader_job} table used as a job queue shared by all instances of the service.
+ * <p>
+ * A queued job is claimed by one worker with {@code SELECT ... FOR UPDATE SKIP LOCKED}, so
+ * instances polling at the same time never claim the same job and never wait on each other.
+ * The claiming instance holds a lease on the job and renews it while the job runs; once a lease
+ * expires, its job is claimed again and resumed from its checkpoint. Lease times are database
+ * times, so the clocks of the instances do not need to agree.
+ * <p>
+ * Only jobs any instance can run are shared: single-file jobs reading a file by path. Uploads live
+ * on the disk of the instance that received them, directory jobs are scheduled by the instance
+ * that expanded them, and streamed jobs read a request body; those are leased by their instance
+ * from the start, and become INTERRUPTED when that instance stops renewing them.
+ */
+@Repository
+public class LoadJobQueue {
+
+    private static final String ACTIVE = "status IN ('QUEUED', 'RUNNING')";
+    private static final String SHARED = "parent_job_id IS NULL AND file_count = 0 AND NOT temporary_file"
+            + " AND file_path NOT LIKE 'stream:%'";
+    private static final String EXPIRED = "(lease_expires_at IS NULL OR lease_expires_at < now())";
+    private static final String LEASE = "now() + make_interval(secs => ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LoadJobQueue(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Claims the oldest shared jobs that are waiting or whose worker stopped renewing its lease.
+     *
+     * @param owner ID of the claiming instance
+     * @param limit Maximum number of jobs to claim
+     * @param leaseMillis Duration of the lease
+     * @param maxAttempts Jobs claimed this many times already are left to {@link #expireLeases(int)}
+     * @return IDs of the claimed jobs, oldest first
+     */
+    public List<String> claim(String owner, int limit, long leaseMillis, int maxAttempts) {
+        // RETURNING does not keep the order of the subquery
+        return jdbcTemplate.queryForList(
+                "UPDATE data_loader_job SET lease_owner = ?, lease_expires_at = " + LEASE + ", attempts = attempts + 1"
+                        + " WHERE job_id IN (SELECT job_id FROM data_loader_job WHERE " + ACTIVE + " AND " + SHARED
+                        + " AND (lease_owner IS NULL OR lease_expires_at < now()) AND attempts < ?"
+                        + " ORDER BY start_time LIMIT ? FOR UPDATE SKIP LOCKED)"
+                        + " RETURNING job_id, start_time",
+                owner, leaseMillis / 1000.0, maxAttempts, limit)
+                .stream()
+                .sorted(Comparator.comparingLong((Map<String, Object> row) -> ((Number) row.get("start_time")).longValue()))
+                .map(row -> (String) row.get("job_id"))
+                .toList();
+    }
+
+    /**
+     * Leases jobs to an instance that runs them itself, e.g. the file jobs of a resumed directory job.
+     *
+     * @param owner ID of the instance
+     * @param jobIds IDs of the jobs
+     * @param leaseMillis Duration of the lease
+     */
+    public void lease(String owner, Collection<String> jobIds, long leaseMillis) {
+        for (String jobId : jobIds) {
+            jdbcTemplate.update("UPDATE data_loader_job SET lease_owner = ?, lease_expires_at = " + LEASE
+                    + " WHERE job_id = ?", owner, leaseMillis / 1000.0, jobId);
+        }
+    }
+
+    /**
+     * Renews the leases an instance holds on its queued and running jobs.
+     *
+     * @param owner ID of the instance
+     * @param jobIds Jobs the instance is running or about to run
+     * @param leaseMillis Duration of the renewed lease
+     * @return IDs of the jobs whose lease was renewed; a missing one was taken over by another instance
+     */
+    public List<String> renew(String owner, Collection<String> jobIds, long leaseMillis) {
+        if (jobIds.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(jobIds.size(), "?"));
+        Object[] args = new Object[jobIds.size() + 2];
+        args[0] = leaseMillis / 1000.0;
+        args[1] = owner;
+        int i = 2;
+        for (String jobId : jobIds) {
+            args[i++] = jobId;
+        }
+        return jdbcTemplate.queryForList("UPDATE data_loader_job SET lease_expires_at = " + LEASE
+                + " WHERE lease_owner = ? AND " + ACTIVE + " AND job_id IN (" + placeholders + ") RETURNING job_id",
+                String.class, args);
+    }
+
+    /**
+     * Gives back the lease on a claimed job that could not be started, without counting the attempt.
+     *
+     * @param owner ID of the instance that claimed the job
+     * @param jobId The job ID
+     */
+    public void release(String owner, String jobId) {
+        jdbcTemplate.update("UPDATE data_loader_job SET lease_owner = NULL, lease_expires_at = NULL,"
+                + " attempts = GREATEST(attempts - 1, 0) WHERE job_id = ? AND lease_owner = ?", jobId, owner);
+    }
+
+    /**
+     * Queues a shared job again for any instance to claim, with a fresh attempt count.
+     *
+     * @param jobId The job ID
+     */
+    public void requeue(String jobId) {
+        jdbcTemplate.update("UPDATE data_loader_job SET status = 'QUEUED', error_message = NULL, lease_owner = NULL,"
+                + " lease_expires_at = NULL, attempts = 0, updated_at = now() WHERE job_id = ?", jobId);
+    }
+
+    /**
+     * Cancels a shared job no instance has claimed yet.
+     *
+     * @param jobId The job ID
+     * @return Whether the job was waiting and is now CANCELLED
+     */
+    public boolean cancelQueued(String jobId) {
+        return jdbcTemplate.update("UPDATE data_loader_job SET status = 'CANCELLED', updated_at = now()"
+                + " WHERE job_id = ? AND status = 'QUEUED' AND lease_owner IS NULL", jobId) > 0;
+    }
+
+    /**
+     * Ends the jobs whose instance stopped renewing their lease and no other instance can take
+     * over: jobs that are not shared become INTERRUPTED and can be resumed; shared jobs that
+     * were claimed {@code maxAttempts} times become FAILED, so a job that brings down its worker
+     * does not bring down every instance in turn.
+     *
+     * @param maxAttempts Claims after which a shared job is given up on
+     * @return IDs of the jobs ended
+     */
+    public List<String> expireLeases(int maxAttempts) {
+        List<String> interrupted = jdbcTemplate.queryForList("UPDATE data_loader_job SET status = 'INTERRUPTED',"
+                + " error_message = 'Interrupted: the instance running the job stopped', updated_at = now()"
+                + " WHERE " + ACTIVE + " AND file_count = 0 AND NOT (" + SHARED + ") AND " + EXPIRED
+                + " RETURNING job_id", String.class);
+        List<String> failed = jdbcTemplate.queryForList("UPDATE data_loader_job SET status = 'FAILED',"
+                + " error_message = 'Gave up after ' || attempts || ' attempt(s): the instance running the job stopped',"
+                + " updated_at = now()"
+                + " WHERE " + ACTIVE + " AND " + SHARED + " AND lease_expires_at < now() AND attempts >= ?"
+                + " RETURNING job_id", String.class, maxAttempts);
+        List<String> ended = new ArrayList<>(interrupted);
+        ended.addAll(failed);
+        return ended;
+    }
+}
@@ -0,0 +1,63 @@
+package com.ev.apiservice.repository;
+
+import com.ev.apiservice.model.LoadJob;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for {@link LoadJob} entities.
+ */
+@Repository
+public interface LoadJobRepository extends JpaRepository<LoadJob, String> {
+
+    /**
+     * Finds the file jobs of a directory or glob job.
+     *
+     * @param parentJobId ID of the directory or glob job
+     * @return The file jobs, ordered by file path
+     */
+    List<LoadJob> findByParentJobIdOrderByFilePath(String parentJobId);
+
+    /**
+     * Finds single-file and directory jobs, but not the file jobs of a directory job, most recently started first.
+     *
+     * @param status Name of the status the jobs are in; {@code null} for any
+     * @param from Only jobs started at or after this time in milliseconds
+     * @param to Only jobs started before this time in milliseconds
+     * @param pageable The page to return
+     * @return The page of jobs
+     */
+    @Query("SELECT j FROM LoadJob j WHERE j.parentJobId IS NULL AND (:status IS NULL OR j.status = :status) " +
+            "AND j.startTime >= :from AND j.startTime < :to ORDER BY j.startTime DESC")
+    Page<LoadJob> findHistory(@Param("status") String status, @Param("from") long from, @Param("to") long to,
+                              Pageable pageable);
+
+    /**
+     * Records the checkpoint of a running job without loading the entity, as long as the
+     * recording instance still holds the job's lease.
+     * Runs in its own transaction because it is called while the job runs.
+     *
+     * @param jobId The job ID
+     * @param instanceId ID of the instance running the job
+     * @param checkpointRecords Leading data records of the file that are all committed
+     * @param recordsProcessed Records written so far
+     * @param updatedAt Time of the update
+     * @return The number of records updated; 0 once another instance has taken the job over
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE LoadJob j SET j.checkpointRecords = :checkpointRecords, j.recordsProcessed = :recordsProcessed, " +
+            "j.updatedAt = :updatedAt WHERE j.jobId = :jobId AND j.leaseOwner = :instanceId")
+    int updateCheckpoint(@Param("jobId") String jobId, @Param("instanceId") String instanceId,
+                         @Param("checkpointRecords") long checkpointRecords, @Param("recordsProcessed") int recordsProcessed,
+                         @Param("updatedAt") Instant updatedAt);
+}
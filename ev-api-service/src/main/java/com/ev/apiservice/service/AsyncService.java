@@ -1,5 +1,8 @@
 package com.ev.apiservice.service;
 
+import com.ev.apiservice.service.loader.LoadOptions;
+
+import java.io.InputStream;
 import java.util.concurrent.CompletableFuture;
 
 /**
@@ -16,4 +19,28 @@ public interface AsyncService {
      * @return CompletableFuture containing the number of records processed
      */
     CompletableFuture<Integer> executeLoadDataAsync(String jobId, String csvFilePath, int batchSize);
+
+    /**
+     * Executes data loading asynchronously with explicit load options.
+     *
+     * @param jobId The ID of the job
+     * @param csvFilePath Path to the CSV file
+     * @param options Batch size and write mode for the load
+     * @return CompletableFuture containing the number of records processed
+     */
+    CompletableFuture<Integer> executeLoadDataAsync(String jobId, String csvFilePath, LoadOptions options);
+
+    /**
+     * Executes data loading from a stream on the calling thread, since a request body can only be
+     * read while its request is open.
+     *
+     * @param jobId The ID of the job
+     * @param sourceName Name of the input
+     * @param input The CSV data
+     * @param contentLength Length of the input in bytes, or -1 if unknown
+     * @param options Batch size and write mode for the load
+     * @return An already completed future containing the number of records processed
+     */
+    CompletableFuture<Integer> executeStreamingLoad(String jobId, String sourceName, InputStream input,
+                                                    long contentLength, LoadOptions options);
 }
\ No newline at end of file
@@ -1,11 +1,17 @@
 package com.ev.apiservice.service;
 
+import com.ev.apiservice.service.loader.LoadCancelledException;
+import com.ev.apiservice.service.loader.LoadMode;
+import com.ev.apiservice.service.loader.LoadOptions;
+import com.ev.apiservice.service.loader.LoadResult;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
 
+import java.io.InputStream;
 import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 
 /**
  * Implementation of AsyncService for handling asynchronous data loading operations.
@@ -16,11 +22,14 @@ public class AsyncServiceImpl implements AsyncService {
 
     private final CsvDataLoaderService csvDataLoaderService;
     private final DataLoaderJobService dataLoaderJobService;
+    private final JobTelemetryService jobTelemetryService;
 
     @Autowired
-    public AsyncServiceImpl(CsvDataLoaderService csvDataLoaderService, DataLoaderJobService dataLoaderJobService) {
+    public AsyncServiceImpl(CsvDataLoaderService csvDataLoaderService, DataLoaderJobService dataLoaderJobService,
+                            JobTelemetryService jobTelemetryService) {
         this.csvDataLoaderService = csvDataLoaderService;
         this.dataLoaderJobService = dataLoaderJobService;
+        this.jobTelemetryService = jobTelemetryService;
     }
 
     /**
@@ -34,48 +43,166 @@ public class AsyncServiceImpl implements AsyncService {
     @Async("taskExecutor")
     @Override
     public CompletableFuture<Integer> executeLoadDataAsync(String jobId, String csvFilePath, int batchSize) {
+        return executeLoadDataAsync(jobId, csvFilePath, LoadOptions.ofBatchSize(batchSize));
+    }
+
+    /**
+     * Executes data loading asynchronously with explicit load options.
+     *
+     * @param jobId The ID of the job
+     * @param csvFilePath Path to the CSV file
+     * @param options Batch size and write mode for the load
+     * @return CompletableFuture containing the number of records processed
+     */
+    @Async("taskExecutor")
+    @Override
+    public CompletableFuture<Integer> executeLoadDataAsync(String jobId, String csvFilePath, LoadOptions options) {
+        CompletableFuture<Integer> future = runLoad(jobId, csvFilePath, options,
+                callback -> csvDataLoaderService.loadData(csvFilePath, options, callback));
+        boolean cancelled = options.getControl() != null && options.getControl().isCancelled();
+        if (!future.isCompletedExceptionally() && !cancelled) {
+            // The uploaded copy is no longer needed; a failed or cancelled job keeps it so it can be resumed
+            dataLoaderJobService.deleteTemporaryFile(jobId);
+        }
+        return future;
+    }
+
+    /**
+     * Executes data loading from a stream on the calling thread, since a request body can only be
+     * read while its request is open.
+     *
+     * @param jobId The ID of the job
+     * @param sourceName Name of the input
+     * @param input The CSV data
+     * @param contentLength Length of the input in bytes, or -1 if unknown
+     * @param options Batch size and write mode for the load
+     * @return An already completed future containing the number of records processed
+     */
+    @Override
+    public CompletableFuture<Integer> executeStreamingLoad(String jobId, String sourceName, InputStream input,
+                                                           long contentLength, LoadOptions options) {
+        return runLoad(jobId, sourceName, options,
+                callback -> csvDataLoaderService.loadStream(sourceName, input, contentLength, options, callback));
+    }
+
+    /**
+     * Runs one load and keeps the job status up to date: RUNNING, live progress and checkpoints,
+     * then COMPLETED with the outcome counts, CANCELLED with the counts committed before it
+     * stopped, or FAILED with the error. A job cancelled while queued does not start. A load that
+     * writes records the per-job meters of {@link JobTelemetryService} while it runs.
+     */
+    private CompletableFuture<Integer> runLoad(String jobId, String source, LoadOptions options,
+                                               Function<CsvDataLoaderService.ProgressCallback, LoadResult> load) {
         DataLoaderJobService.JobStatus status = dataLoaderJobService.getJobStatus(jobId);
+        if (options.getControl() != null && options.getControl().isCancelled()) {
+            log.info("Data loading job {} was cancelled before it started", jobId);
+            status.setStatus(DataLoaderJobService.JobStatus.Status.CANCELLED);
+            dataLoaderJobService.saveJob(jobId);
+            return CompletableFuture.completedFuture(status.getRecordsProcessed());
+        }
         status.setStatus(DataLoaderJobService.JobStatus.Status.RUNNING);
+        dataLoaderJobService.saveJob(jobId);
+        options.setJobId(jobId);
+        if (options.getMode() != LoadMode.VALIDATE) {
+            options.setTelemetry(jobTelemetryService.start(jobId));
+        }
 
         try {
-            log.info("Starting asynchronous data loading for job {} in thread {}: {}",
-                    jobId, Thread.currentThread().getName(), csvFilePath);
-
-            int recordsProcessed;
-
-            // First pass to estimate total records for progress tracking
-            final int totalRecords;
-            int totalRecords1;
-            try {
-                int count = csvDataLoaderService.countRecords(csvFilePath);
-                status.setTotalRecords(count);
-                totalRecords1 = count;
-            } catch (Exception e) {
-                log.warn("Unable to determine total record count for progress tracking: {}", e.getMessage());
-                totalRecords1 = 0;
-            }
+            log.info("Starting data loading for job {} in thread {} ({} mode): {}",
+                    jobId, Thread.currentThread().getName(), options.getMode(), source);
 
-            // Process in smaller chunks and update progress
-            totalRecords = totalRecords1;
-            recordsProcessed = csvDataLoaderService.loadData(csvFilePath, batchSize, (processed) -> {
-                status.setRecordsProcessed(processed);
-                if (totalRecords > 0) {
-                    status.setProgress((double) processed / totalRecords * 100);
+            // Single pass: progress and ETA come from bytes consumed against the file size
+            long runStartMillis = System.currentTimeMillis();
+            LoadResult result = load.apply(new CsvDataLoaderService.ProgressCallback() {
+                @Override
+                public void onProgress(int processed, long bytesRead, long totalBytes) {
+                    updateProgress(status, processed, bytesRead, totalBytes, runStartMillis);
+                }
+
+                @Override
+                public void onCheckpoint(long committedRecords) {
+                    // Persisted by the job service's checkpoint flush, not on the batch's thread
+                    status.advanceCheckpoint(committedRecords);
                 }
-            });
 
-            status.setRecordsProcessed(recordsProcessed);
+                @Override
+                public void onBatchSizeChanged(int batchSize) {
+                    status.setCurrentBatchSize(batchSize);
+                    status.incrementBatchSizeAdjustments();
+                }
+            });
+            int recordsProcessed = applyResult(status, options, result);
+            status.setTotalRecords(recordsProcessed);
             status.setStatus(DataLoaderJobService.JobStatus.Status.COMPLETED);
             status.setProgress(100.0);
+            status.setEstimatedRemainingMillis(0);
+            status.setCheckpointRecords(recordsProcessed);
+            dataLoaderJobService.saveJob(jobId);
 
-            log.info("Completed asynchronous data loading for job {} in thread {}. Records processed: {}",
-                    jobId, Thread.currentThread().getName(), recordsProcessed);
+            log.info("Completed data loading for job {} in thread {}. Records processed: {} " +
+                            "(inserted: {}, updated: {}, unchanged: {}, duplicates: {}, rejected: {})", jobId, Thread.currentThread().getName(),
+                    recordsProcessed, result.getInserted(), result.getUpdated(), result.getUnchanged(), result.getDuplicates(),
+                    result.getRejected());
+            return CompletableFuture.completedFuture(recordsProcessed);
+        } catch (LoadCancelledException e) {
+            int recordsProcessed = applyResult(status, options, e.getResult());
+            status.setStatus(DataLoaderJobService.JobStatus.Status.CANCELLED);
+            status.setEstimatedRemainingMillis(-1);
+            dataLoaderJobService.saveJob(jobId);
+
+            log.info("Cancelled data loading for job {} after {} records; it can be resumed from record {}",
+                    jobId, recordsProcessed, status.getCheckpointRecords());
             return CompletableFuture.completedFuture(recordsProcessed);
         } catch (Exception e) {
-            log.error("Error during asynchronous data loading for job {}: {}", jobId, e.getMessage(), e);
+            log.error("Error during data loading for job {}: {}", jobId, e.getMessage(), e);
             status.setStatus(DataLoaderJobService.JobStatus.Status.FAILED);
             status.setErrorMessage(e.getMessage());
+            dataLoaderJobService.saveJob(jobId);
             return CompletableFuture.failedFuture(e);
+        } finally {
+            jobTelemetryService.end(jobId);
+        }
+    }
+
+    /**
+     * Copies the outcome counts of a load, the file of VINs a snapshot sync deleted and the profile
+     * of a dry run into the job status.
+     *
+     * @return Records processed, counting the records before a resumed job's checkpoint
+     */
+    private static int applyResult(DataLoaderJobService.JobStatus status, LoadOptions options, LoadResult result) {
+        // A resumed job counts the records before its checkpoint as processed
+        int recordsProcessed = (int) options.getResumeFromRecord() + result.getRecordsProcessed();
+        status.setRecordsProcessed(recordsProcessed);
+        status.setInsertedRecords(result.getInserted());
+        status.setUpdatedRecords(result.getUpdated());
+        status.setUnchangedRecords(result.getUnchanged());
+        status.setDuplicateRecords(result.getDuplicates());
+        status.setRejectedRecords(result.getRejected());
+        status.setDeletedRecords(result.getDeleted());
+        status.setProfile(result.getProfile());
+        if (result.getDeleted() > 0 && options.getRemovedFile() != null) {
+            status.setRemovedFile(options.getRemovedFile().toString());
+        }
+        return recordsProcessed;
+    }
+
+    /**
+     * Updates live progress of a running job. Progress is the fraction of input bytes consumed;
+     * the ETA extrapolates the elapsed run time over the remaining bytes. Writer threads report
+     * concurrently, so a report older than the last one does not move the progress back.
+     */
+    private void updateProgress(DataLoaderJobService.JobStatus status, int processed, long bytesRead,
+                                long totalBytes, long runStartMillis) {
+        bytesRead = status.advance(processed, bytesRead);
+        if (totalBytes > 0) {
+            status.setTotalBytes(totalBytes);
+            double fraction = Math.min(1.0, (double) bytesRead / totalBytes);
+            status.setProgress(fraction * 100);
+            if (fraction > 0) {
+                long elapsedMillis = System.currentTimeMillis() - runStartMillis;
+                status.setEstimatedRemainingMillis((long) (elapsedMillis * (1 - fraction) / fraction));
+            }
         }
     }
-}
\ No newline at end of file
+}
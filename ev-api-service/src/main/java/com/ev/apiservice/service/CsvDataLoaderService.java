@@ -1,30 +1,74 @@
 package com.ev.apiservice.service;
 
+import com.ev.apiservice.service.loader.BatchDeduplicator;
+import com.ev.apiservice.service.loader.BatchSizer;
+import com.ev.apiservice.service.loader.Compression;
+import com.ev.apiservice.service.loader.CommonsCsvRecordReader;
+import com.ev.apiservice.service.loader.CopyBatchWriter;
+import com.ev.apiservice.service.loader.CountingInputStream;
+import com.ev.apiservice.service.loader.CsvProfile;
+import com.ev.apiservice.service.loader.CsvProfiler;
+import com.ev.apiservice.service.loader.InputFormat;
+import com.ev.apiservice.service.loader.JobTelemetry;
+import com.ev.apiservice.service.loader.JsonVehicleRecordReader;
+import com.ev.apiservice.service.loader.LoadCancelledException;
+import com.ev.apiservice.service.loader.LoadControl;
+import com.ev.apiservice.service.loader.LoadMetrics;
+import com.ev.apiservice.service.loader.LoadMode;
+import com.ev.apiservice.service.loader.LoadOptions;
+import com.ev.apiservice.service.loader.LoadPipeline;
+import com.ev.apiservice.service.loader.LoadResult;
+import com.ev.apiservice.service.loader.LoadSource;
+import com.ev.apiservice.service.loader.LoadTables;
+import com.ev.apiservice.service.loader.ParallelCsvParser;
+import com.ev.apiservice.service.loader.ParserType;
+import com.ev.apiservice.service.loader.RejectWriter;
+import com.ev.apiservice.service.loader.RowRateLimiter;
+import com.ev.apiservice.service.loader.SeenVins;
+import com.ev.apiservice.service.loader.ShadowTable;
+import com.ev.apiservice.service.loader.SnapshotSync;
+import com.ev.apiservice.service.loader.UpsertBatchWriter;
+import com.ev.apiservice.service.loader.VehicleBatchWriter;
+import com.ev.apiservice.service.loader.VehicleColumn;
+import com.ev.apiservice.service.loader.VehicleCsvReader;
+import com.ev.apiservice.service.loader.VehicleRecordReader;
+import com.ev.apiservice.service.loader.VehicleRow;
+import com.ev.apiservice.service.loader.VinDeduplicator;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.commons.csv.CSVFormat;
-import org.apache.commons.csv.CSVParser;
-import org.apache.commons.csv.CSVRecord;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.io.Resource;
 import org.springframework.core.io.ResourceLoader;
-import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternUtils;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.util.PathMatcher;
 
 import java.io.File;
-import java.io.FileReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.io.PushbackInputStream;
 import java.io.Reader;
-import java.math.BigDecimal;
-import java.sql.PreparedStatement;
-import java.sql.SQLException;
-import java.sql.Types;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 
 /**
  * Service for loading electric vehicle data from CSV files into the database.
@@ -33,61 +77,56 @@ import java.util.List;
 @Slf4j
 public class CsvDataLoaderService {
 
+    /**
+     * File name endings picked up when a whole directory is loaded.
+     */
+    private static final List<String> CSV_EXTENSIONS = List.of(".csv", ".csv.gz", ".csv.gzip", ".csv.zst", ".csv.zstd");
+
+    private static final PathMatcher PATH_MATCHER = new AntPathMatcher();
+
+    /**
+     * Directory below which directory loads read their files, relative to the working directory.
+     */
+    public static final String DEFAULT_IMPORT_DIR = "import";
+
     private final JdbcTemplate jdbcTemplate;
     private final ResourceLoader resourceLoader;
+    private final ResourcePatternResolver resourcePatternResolver;
     private final TransactionTemplate transactionTemplate;
+    private final LoadMetrics loadMetrics;
+    private final Path importDir;
 
     // CSV Header Names Constants
-    public static final String HEADER_VIN = "VIN (1-10)";
-    public static final String HEADER_COUNTY = "County";
-    public static final String HEADER_CITY = "City";
-    public static final String HEADER_STATE = "State";
-    public static final String HEADER_POSTAL_CODE = "Postal Code";
-    public static final String HEADER_MODEL_YEAR = "Model Year";
-    public static final String HEADER_MAKE = "Make";
-    public static final String HEADER_MODEL = "Model";
-    public static final String HEADER_EV_TYPE = "Electric Vehicle Type";
-    public static final String HEADER_CAFV_ELIGIBILITY = "Clean Alternative Fuel Vehicle (CAFV) Eligibility";
-    public static final String HEADER_ELECTRIC_RANGE = "Electric Range";
-    public static final String HEADER_BASE_MSRP = "Base MSRP";
-    public static final String HEADER_LEGISLATIVE_DISTRICT = "Legislative District";
-    public static final String HEADER_DOL_VEHICLE_ID = "DOL Vehicle ID";
-    public static final String HEADER_VEHICLE_LOCATION = "Vehicle Location";
-    public static final String HEADER_ELECTRIC_UTILITY = "Electric Utility";
-    public static final String HEADER_CENSUS_TRACT_2020 = "2020 Census Tract";
+    public static final String HEADER_VIN = VehicleColumn.VIN.getHeader();
+    public static final String HEADER_COUNTY = VehicleColumn.COUNTY.getHeader();
+    public static final String HEADER_CITY = VehicleColumn.CITY.getHeader();
+    public static final String HEADER_STATE = VehicleColumn.STATE.getHeader();
+    public static final String HEADER_POSTAL_CODE = VehicleColumn.POSTAL_CODE.getHeader();
+    public static final String HEADER_MODEL_YEAR = VehicleColumn.MODEL_YEAR.getHeader();
+    public static final String HEADER_MAKE = VehicleColumn.MAKE.getHeader();
+    public static final String HEADER_MODEL = VehicleColumn.MODEL.getHeader();
+    public static final String HEADER_EV_TYPE = VehicleColumn.EV_TYPE.getHeader();
+    public static final String HEADER_CAFV_ELIGIBILITY = VehicleColumn.CAFV_ELIGIBILITY.getHeader();
+    public static final String HEADER_ELECTRIC_RANGE = VehicleColumn.ELECTRIC_RANGE.getHeader();
+    public static final String HEADER_BASE_MSRP = VehicleColumn.BASE_MSRP.getHeader();
+    public static final String HEADER_LEGISLATIVE_DISTRICT = VehicleColumn.LEGISLATIVE_DISTRICT.getHeader();
+    public static final String HEADER_DOL_VEHICLE_ID = VehicleColumn.DOL_VEHICLE_ID.getHeader();
+    public static final String HEADER_VEHICLE_LOCATION = VehicleColumn.VEHICLE_LOCATION.getHeader();
+    public static final String HEADER_ELECTRIC_UTILITY = VehicleColumn.ELECTRIC_UTILITY.getHeader();
+    public static final String HEADER_CENSUS_TRACT_2020 = VehicleColumn.CENSUS_TRACT_2020.getHeader();
 
     @Autowired
     public CsvDataLoaderService(JdbcTemplate jdbcTemplate,
                                 ResourceLoader resourceLoader,
-                                PlatformTransactionManager transactionManager) {
+                                PlatformTransactionManager transactionManager,
+                                MeterRegistry meterRegistry,
+                                @Value("${ev.loader.import-dir:" + DEFAULT_IMPORT_DIR + "}") String importDir) {
         this.jdbcTemplate = jdbcTemplate;
         this.resourceLoader = resourceLoader;
+        this.resourcePatternResolver = ResourcePatternUtils.getResourcePatternResolver(resourceLoader);
         this.transactionTemplate = new TransactionTemplate(transactionManager);
-    }
-
-    /**
-     * Counts the number of records in a CSV file.
-     *
-     * @param csvFilePath Path to the CSV file
-     * @return The number of records in the file
-     * @throws RuntimeException if the file cannot be read
-     */
-    public int countRecords(String csvFilePath) throws RuntimeException {
-        try {
-            Reader reader = getReader(csvFilePath);
-            try (reader;
-                 CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.builder()
-                         .setHeader()
-                         .setSkipHeaderRecord(true)
-                         .setIgnoreHeaderCase(true)
-                         .setTrim(true)
-                         .build())) {
-                return (int) csvParser.stream().count();
-            }
-        } catch (Exception e) {
-            log.error("Error counting CSV records: {}", csvFilePath, e);
-            throw new RuntimeException("Error counting CSV records: " + e.getMessage(), e);
-        }
+        this.loadMetrics = new LoadMetrics(meterRegistry);
+        this.importDir = Path.of(importDir).toAbsolutePath().normalize();
     }
 
     /**
@@ -105,8 +144,8 @@ public class CsvDataLoaderService {
     }
 
     /**
-     * Loads electric vehicle data from a CSV file into the database with progress reporting.
-     * Each batch is processed in its own transaction to prevent connection timeouts.
+     * Loads electric vehicle data from a CSV file into the database with progress reporting
+     * using the default UPSERT mode.
      *
      * @param csvFilePath Path to the CSV file
      * @param batchSize Number of records to process in each batch
@@ -116,175 +155,549 @@ public class CsvDataLoaderService {
      */
     @Transactional(propagation = Propagation.NEVER) // Ensure no outer transaction
     public int loadData(String csvFilePath, int batchSize, ProgressCallback progressCallback) throws RuntimeException {
-        log.info("Starting data loading (UPSERT mode) from CSV: {}", csvFilePath);
-
-        List<CSVRecord> allRecords = new ArrayList<>();
+        return loadData(csvFilePath, LoadOptions.ofBatchSize(batchSize), progressCallback).getRecordsProcessed();
+    }
 
+    /**
+     * Loads electric vehicle data from a CSV file into the database with progress reporting.
+     * Records are streamed from the parser into reusable batch buffers, so heap use is
+     * bounded by the batch size rather than the file size.
+     * Each batch is processed in its own transaction to prevent connection timeouts. With several
+     * writer threads, batches are written concurrently, each worker on its own pooled connection.
+     * Rows whose content hash matches the stored one are left untouched. When a VIN occurs more
+     * than once, only its last record is written and the others are counted as duplicates.
+     * With a reject file, rows the database refuses are isolated, recorded there and skipped.
+     * Batches wait for the rows-per-second limit, and a cancelled load stops before its next batch.
+     * In REPLACE mode, the file is loaded into a shadow table that replaces the live table only
+     * once it is complete and indexed. A snapshot sync deletes the vehicles the completely loaded
+     * file does not list. In VALIDATE mode, the file is only parsed and profiled. In the JSON
+     * format, the file holds NDJSON or a JSON array of vehicle objects instead of CSV.
+     *
+     * @param csvFilePath Path to the CSV file
+     * @param options Batch size, write mode, parse and write parallelism for this load
+     * @param progressCallback Callback for reporting progress
+     * @return The numbers of records inserted, updated, left unchanged, dropped as duplicates and
+     *         rejected, and of vehicles deleted by a snapshot sync
+     * @throws LoadCancelledException if the load was cancelled through its control
+     * @throws RuntimeException if the file cannot be read or processed
+     */
+    @Transactional(propagation = Propagation.NEVER) // Ensure no outer transaction
+    public LoadResult loadData(String csvFilePath, LoadOptions options, ProgressCallback progressCallback) throws RuntimeException {
+        validateOptions(options);
+        LoadSource source;
         try {
-            Reader reader = getReader(csvFilePath);
-            try (reader;
-                 CSVParser csvParser = new CSVParser(reader, CSVFormat.DEFAULT.builder()
-                         .setHeader()
-                         .setSkipHeaderRecord(true)
-                         .setIgnoreHeaderCase(true)
-                         .setTrim(true)
-                         .build())) {
-                csvParser.forEach(allRecords::add);
-            }
+            source = openSource(csvFilePath);
         } catch (Exception e) {
             log.error("Error reading CSV file: {}", csvFilePath, e);
             throw new RuntimeException("Error reading CSV file: " + e.getMessage(), e);
         }
+        return load(csvFilePath, source, options, progressCallback);
+    }
 
-        log.info("Total records read from CSV (excluding header): {}", allRecords.size());
-        if (allRecords.isEmpty()) {
-            log.info("No records to load.");
-            return 0;
-        }
-
-        String sql = """
-            INSERT INTO electric_vehicle_population (
-                vin, county, city, state, postal_code, model_year, make, model,
-                electric_vehicle_type, cafv_eligibility_status, electric_range, base_msrp,
-                legislative_district, dol_vehicle_id, vehicle_location_point,
-                electric_utility, census_tract_2020
-            ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ST_GeomFromText(?, 4326), ?, ?)
-            ON CONFLICT (vin) DO UPDATE SET
-                county = EXCLUDED.county,
-                city = EXCLUDED.city,
-                state = EXCLUDED.state,
-                postal_code = EXCLUDED.postal_code,
-                model_year = EXCLUDED.model_year,
-                make = EXCLUDED.make,
-                model = EXCLUDED.model,
-                electric_vehicle_type = EXCLUDED.electric_vehicle_type,
-                cafv_eligibility_status = EXCLUDED.cafv_eligibility_status,
-                electric_range = EXCLUDED.electric_range,
-                base_msrp = EXCLUDED.base_msrp,
-                legislative_district = EXCLUDED.legislative_district,
-                dol_vehicle_id = EXCLUDED.dol_vehicle_id,
-                vehicle_location_point = EXCLUDED.vehicle_location_point,
-                electric_utility = EXCLUDED.electric_utility,
-                census_tract_2020 = EXCLUDED.census_tract_2020
-            """;
-
-        int totalRecordsProcessed = 0;
+    /**
+     * Loads electric vehicle data from a CSV stream, such as a request body, while it is still
+     * arriving. Batches are committed as soon as they are parsed, so nothing is staged on disk.
+     * The stream may be gzip or zstd compressed. It is closed when the load ends. As the stream
+     * cannot be read twice, duplicate VINs are only resolved within a batch: a later batch
+     * overwrites an earlier one, and the last record wins either way.
+     *
+     * @param sourceName Name of the input for logging and compression detection by extension
+     * @param input The CSV data
+     * @param contentLength Length of the input in bytes, or -1 if unknown (chunked transfer)
+     * @param options Batch size, write mode and write parallelism for this load; the input is parsed sequentially
+     * @param progressCallback Callback for reporting progress
+     * @return The numbers of records inserted, updated, left unchanged, dropped as duplicates and
+     *         rejected, and of vehicles deleted by a snapshot sync
+     * @throws LoadCancelledException if the load was cancelled through its control
+     * @throws RuntimeException if the stream cannot be read or processed
+     */
+    @Transactional(propagation = Propagation.NEVER) // Ensure no outer transaction
+    public LoadResult loadStream(String sourceName, InputStream input, long contentLength, LoadOptions options,
+                                 ProgressCallback progressCallback) throws RuntimeException {
+        validateOptions(options);
+        LoadSource source;
         try {
-            for (int i = 0; i < allRecords.size(); i += batchSize) {
-                final int startIndex = i;
-                final int endIndex = Math.min(i + batchSize, allRecords.size());
-                final List<CSVRecord> batchList = allRecords.subList(startIndex, endIndex);
-
-                log.debug("Processing batch starting at index {}. Batch size: {}", startIndex, batchList.size());
-
-                // Process each batch in its own transaction
-                transactionTemplate.execute(status -> {
-                    jdbcTemplate.batchUpdate(sql, new BatchPreparedStatementSetter() {
-                        @Override
-                        public void setValues(PreparedStatement ps, int k) throws SQLException {
-                            CSVRecord record = batchList.get(k);
-
-                            ps.setString(1, record.get(HEADER_VIN));
-                            ps.setString(2, record.get(HEADER_COUNTY));
-                            ps.setString(3, record.get(HEADER_CITY));
-                            ps.setString(4, record.get(HEADER_STATE));
-                            ps.setString(5, record.get(HEADER_POSTAL_CODE));
-
-                            setInteger(ps, 6, record.get(HEADER_MODEL_YEAR), HEADER_MODEL_YEAR, record.get(HEADER_VIN));
-                            ps.setString(7, record.get(HEADER_MAKE));
-                            ps.setString(8, record.get(HEADER_MODEL));
-                            ps.setString(9, record.get(HEADER_EV_TYPE));
-                            ps.setString(10, record.get(HEADER_CAFV_ELIGIBILITY));
-                            setInteger(ps, 11, record.get(HEADER_ELECTRIC_RANGE), HEADER_ELECTRIC_RANGE, record.get(HEADER_VIN));
-                            setBigDecimal(ps, 12, record.get(HEADER_BASE_MSRP), HEADER_BASE_MSRP, record.get(HEADER_VIN));
-                            ps.setString(13, record.get(HEADER_LEGISLATIVE_DISTRICT));
-                            setLong(ps, 14, record.get(HEADER_DOL_VEHICLE_ID), HEADER_DOL_VEHICLE_ID, record.get(HEADER_VIN));
-
-                            String locationWkt = record.get(HEADER_VEHICLE_LOCATION);
-                            if (isValidWktPoint(locationWkt)) {
-                                ps.setString(15, locationWkt);
-                            } else {
-                                log.warn("Invalid or empty Vehicle Location for VIN {}: '{}'. Setting related geometry to NULL.",
-                                        record.get(HEADER_VIN), locationWkt);
-                                ps.setNull(15, Types.VARCHAR);
-                            }
-
-                            ps.setString(16, record.get(HEADER_ELECTRIC_UTILITY));
-                            setLong(ps, 17, record.get(HEADER_CENSUS_TRACT_2020), HEADER_CENSUS_TRACT_2020, record.get(HEADER_VIN));
-                        }
+            source = openStream(sourceName, input, contentLength, null);
+        } catch (IOException e) {
+            log.error("Error reading CSV stream: {}", sourceName, e);
+            throw new RuntimeException("Error reading CSV stream: " + e.getMessage(), e);
+        }
+        return load(sourceName, source, options, progressCallback);
+    }
 
-                        @Override
-                        public int getBatchSize() {
-                            return batchList.size();
-                        }
-                    });
-                    return null; // Must return something for the execute() method
-                });
+    private void validateOptions(LoadOptions options) {
+        if (options.getBatchSize() < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        if (options.getMaxRowsPerSecond() < 0) {
+            throw new IllegalArgumentException("Rows per second must not be negative");
+        }
+        if (options.isDeleteMissing() && options.getMode() == LoadMode.REPLACE) {
+            throw new IllegalArgumentException("A snapshot sync cannot be combined with REPLACE mode, which drops missing vehicles anyway");
+        }
+        if (options.isDeleteMissing() && options.getMode() == LoadMode.VALIDATE) {
+            throw new IllegalArgumentException("A dry run deletes nothing and cannot be a snapshot sync");
+        }
+    }
 
-                totalRecordsProcessed += batchList.size();
-                log.info("Processed batch. Total records considered for UPSERT so far: {}", totalRecordsProcessed);
+    private LoadResult load(String csvFilePath, LoadSource source, LoadOptions options, ProgressCallback progressCallback) {
+        LoadMode mode = options.getMode() != null ? options.getMode() : LoadMode.UPSERT;
+        InputFormat format = options.getFormat() != null ? options.getFormat() : InputFormat.CSV;
+        ParserType parserType = options.getParserType() != null ? options.getParserType() : ParserType.COMMONS;
+        log.info("Starting data loading ({} mode, {}) from: {}", mode,
+                format == InputFormat.CSV ? parserType + " CSV parser" : format, csvFilePath);
 
-                // Report progress outside the transaction
-                if (progressCallback != null) {
-                    progressCallback.onProgress(totalRecordsProcessed);
+        long skipRecords = Math.max(options.getResumeFromRecord(), 0);
+        int parseThreads = Math.min(Math.max(options.getParseThreads(), 1), Runtime.getRuntime().availableProcessors());
+        if (parseThreads > 1 && format == InputFormat.JSON) {
+            // JSON records have no line boundaries to split ranges at
+            log.info("{} is JSON; parsing sequentially", csvFilePath);
+            parseThreads = 1;
+        }
+        if (parseThreads > 1 && source.getCompression() != Compression.NONE) {
+            log.info("{} is {}-compressed; parsing sequentially", csvFilePath, source.getCompression());
+            parseThreads = 1;
+        }
+        if (parseThreads > 1 && (source.getPath() == null || source.getSize() > Integer.MAX_VALUE)) {
+            log.warn("Parallel parsing needs a local file of at most 2 GiB; parsing {} sequentially", csvFilePath);
+            parseThreads = 1;
+        }
+        if (mode == LoadMode.REPLACE && skipRecords > 0) {
+            // The shadow table of the interrupted run is gone, so a full refresh starts over
+            log.info("Full refresh of {} cannot resume from record {}; loading it from the start", csvFilePath, skipRecords);
+            skipRecords = 0;
+        }
+        if (mode == LoadMode.VALIDATE && skipRecords > 0) {
+            // A dry run commits nothing, so there is no checkpoint to resume from
+            log.info("Dry run of {} cannot resume from record {}; validating it from the start", csvFilePath, skipRecords);
+            skipRecords = 0;
+        }
+        if (parseThreads > 1 && skipRecords > 0) {
+            log.info("Resuming {} from record {}; parsing sequentially", csvFilePath, skipRecords);
+            parseThreads = 1;
+        }
+        int writerThreads = Math.min(Math.max(options.getWriterThreads(), 1), Runtime.getRuntime().availableProcessors());
+        // The pre-pass reads the file once more, so it only runs for what needs every VIN ahead:
+        // batches written out of file order, the shadow table's primary key and a snapshot sync
+        boolean scanAhead = parseThreads > 1 || writerThreads > 1 || mode == LoadMode.REPLACE || options.isDeleteMissing();
+        VinDeduplicator deduplicator = scanAhead && source.getPath() != null ? scanVins(source, format, parseThreads) : null;
+        if (parseThreads > 1 && deduplicator == null) {
+            // Parallel ranges could put the same VIN in two concurrently written batches
+            log.info("VINs of {} could not be scanned ahead; parsing sequentially", csvFilePath);
+            parseThreads = 1;
+        }
+        // The pre-pass already holds every VIN of the file; otherwise the parser collects them
+        SeenVins seenVins = !options.isDeleteMissing() ? null : deduplicator != null ? deduplicator.getVins() : new SeenVins();
+        if (mode == LoadMode.VALIDATE) {
+            return validate(csvFilePath, source, format, parserType, parseThreads, writerThreads, deduplicator);
+        }
+        BatchSizer batchSizer = createBatchSizer(options, progressCallback);
+        LoadControl control = options.getControl();
+        if (control == null && options.getMaxRowsPerSecond() > 0) {
+            control = new LoadControl(new RowRateLimiter(options.getMaxRowsPerSecond()));
+        }
+
+        RejectWriter rejectWriter = options.getRejectFile() != null ? new RejectWriter(options.getRejectFile()) : null;
+        LoadResult result;
+        String tableTag = LoadTables.tag(options.getJobId());
+        try (source; rejectWriter;
+             ShadowTable shadow = mode == LoadMode.REPLACE ? createShadowTable(csvFilePath, deduplicator, tableTag) : null) {
+            Supplier<VehicleBatchWriter> writerFactory = () -> shadow != null ? shadow.newWriter() : createWriter(mode, tableTag);
+            if (parseThreads > 1) {
+                ParallelCsvParser parser = parserType == ParserType.SCHEMA
+                        ? ParallelCsvParser.withSchemaReader(source.getPath(), parseThreads, batchSizer::getBatchSize,
+                                (records, range, index) -> deduplicator.keep(records.getVin(), deduplicator.ordinal(range, index))
+                                        ? records.toRow() : null)
+                        : new ParallelCsvParser(source.getPath(), parseThreads, batchSizer::getBatchSize,
+                                (record, range, index) -> deduplicator.keep(record.get(HEADER_VIN), deduplicator.ordinal(range, index))
+                                        ? CommonsCsvRecordReader.toRow(record) : null);
+                // Batches from parallel ranges are not in file order, so no checkpoints are reported
+                ProgressContext progress = new ProgressContext(parser::getBytesRead, source.getSize(), 0, false);
+                try (LoadPipeline pipeline = createPipeline(mode, writerFactory, writerThreads, batchSizer, progress,
+                        progressCallback, rejectWriter, control, options.getTelemetry())) {
+                    parser.parse(pipeline::submit);
+                    result = pipeline.finish();
+                }
+                // Dropped records never reach the pipeline
+                result.setDuplicates(result.getDuplicates() + deduplicator.getDuplicates());
+                loadMetrics.getDuplicateRows().increment(deduplicator.getDuplicates());
+            } else {
+                // Counting below the decompressor keeps progress in the same unit as the file size
+                CountingInputStream countingStream = new CountingInputStream(source.getInputStream());
+                // Rows committed to a shadow table are lost with it, so they make no checkpoint
+                ProgressContext progress = new ProgressContext(countingStream::getCount, source.getSize(), skipRecords,
+                        shadow == null);
+                try (LoadPipeline pipeline = createPipeline(mode, writerFactory, writerThreads, batchSizer, progress,
+                        progressCallback, rejectWriter, control, options.getTelemetry())) {
+                    parseSequential(source.getCompression().decompress(countingStream), format, parserType, batchSizer,
+                            skipRecords, deduplicator, seenVins, pipeline);
+                    result = pipeline.finish();
                 }
             }
+            if (shadow != null) {
+                shadow.buildIndexes();
+                shadow.swap(transactionTemplate);
+            }
+            if (seenVins != null) {
+                int deleted = new SnapshotSync(jdbcTemplate, transactionTemplate, SnapshotSync.DEFAULT_CHUNK_SIZE)
+                        .deleteMissing(seenVins, options.getRemovedFile());
+                result.setDeleted(deleted);
+                loadMetrics.getDeletedRows().increment(deleted);
+            }
+        } catch (LoadCancelledException e) {
+            log.info("Data loading ({} mode) from {} cancelled after {} records", mode, csvFilePath,
+                    e.getResult().getRecordsProcessed());
+            throw e;
+        } catch (UncheckedIOException e) {
+            // The parser iterator wraps read failures
+            log.error("Error reading CSV file: {}", csvFilePath, e);
+            throw new RuntimeException("Error reading CSV file: " + e.getMessage(), e);
         } catch (Exception e) {
             log.error("Error during data loading: {}", e.getMessage(), e);
             throw new RuntimeException("Error during data loading: " + e.getMessage(), e);
         }
 
-        log.info("Data loading (UPSERT mode) completed. Total records from CSV processed: {}", allRecords.size());
-        return totalRecordsProcessed;
+        if (result.getRecordsProcessed() == 0) {
+            log.info("No records to load.");
+        } else {
+            log.info("Data loading ({} mode) completed. Total records from CSV processed: {} (inserted: {}, updated: {}, unchanged: {}, duplicates: {}, rejected: {}, deleted: {})",
+                    mode, result.getRecordsProcessed(), result.getInserted(), result.getUpdated(), result.getUnchanged(),
+                    result.getDuplicates(), result.getRejected(), result.getDeleted());
+        }
+        return result;
     }
 
-    private void setInteger(PreparedStatement ps, int index, String value, String fieldName, String vin) throws SQLException {
-        try {
-            if (value != null && !value.trim().isEmpty()) {
-                ps.setInt(index, Integer.parseInt(value.trim()));
+    /**
+     * Parses and validates every record like a load, but profiles the rows instead of writing them,
+     * so no database connection is used. Local files are parsed on {@code parseThreads} threads;
+     * duplicate VINs are counted exactly, by the pre-pass or while parsing sequentially.
+     */
+    private LoadResult validate(String csvFilePath, LoadSource source, InputFormat format, ParserType parserType,
+                                int parseThreads, int writerThreads, VinDeduplicator deduplicator) {
+        long start = System.nanoTime();
+        CsvProfiler profiler = new CsvProfiler();
+        SeenVins seenVins = deduplicator == null ? new SeenVins() : null;
+        try (source) {
+            if (parseThreads > 1) {
+                // Converters return no rows, so nothing is queued and ranges parse at full speed
+                ParallelCsvParser parser = parserType == ParserType.SCHEMA
+                        ? ParallelCsvParser.withSchemaReader(source.getPath(), parseThreads, () -> 1, (records, range, index) -> {
+                            profiler.add(records);
+                            return null;
+                        })
+                        : new ParallelCsvParser(source.getPath(), parseThreads, () -> 1, (record, range, index) -> {
+                            profiler.add(CommonsCsvRecordReader.toRow(record, false),
+                                    column -> record.isSet(column.getHeader()) ? record.get(column.getHeader()) : null);
+                            return null;
+                        });
+                parser.parse(batch -> {
+                });
             } else {
-                ps.setNull(index, Types.INTEGER);
+                InputStream input = source.getCompression().decompress(source.getInputStream());
+                try (VehicleRecordReader records = openRecordReader(new InputStreamReader(input, StandardCharsets.UTF_8),
+                        format, parserType)) {
+                    while (records.next()) {
+                        if (seenVins != null) {
+                            seenVins.add(records.getVin());
+                        }
+                        profiler.add(records);
+                    }
+                }
+            }
+        } catch (UncheckedIOException e) {
+            log.error("Error reading CSV file: {}", csvFilePath, e);
+            throw new RuntimeException("Error reading CSV file: " + e.getMessage(), e);
+        } catch (Exception e) {
+            log.error("Error during validation: {}", e.getMessage(), e);
+            throw new RuntimeException("Error during validation: " + e.getMessage(), e);
+        }
+        long parseMillis = (System.nanoTime() - start) / 1_000_000;
+
+        long records = profiler.getRecords();
+        long distinctVins = deduplicator != null ? deduplicator.getDistinctVins() : seenVins.size();
+        long duplicateVins = Math.max(records - distinctVins, 0);
+        double writeMillisPerRow = loadMetrics.getWriteMillisPerRow();
+        long estimatedLoadMillis = writeMillisPerRow < 0 ? -1
+                : parseMillis + Math.round(distinctVins * writeMillisPerRow / writerThreads);
+        CsvProfile profile = new CsvProfile(records, distinctVins, duplicateVins, parseMillis, estimatedLoadMillis,
+                profiler.getColumns());
+        loadMetrics.getParsedRows().increment(records);
+
+        LoadResult result = new LoadResult();
+        result.setValidated((int) (records - duplicateVins));
+        result.setDuplicates((int) duplicateVins);
+        result.setProfile(profile);
+        log.info("Dry run of {} completed in {} ms: {} records, {} duplicate VINs, {} invalid values, estimated load time {} ms",
+                csvFilePath, parseMillis, records, duplicateVins,
+                profile.columns().stream().mapToLong(CsvProfile.ColumnProfile::invalid).sum(), estimatedLoadMillis);
+        return result;
+    }
+
+    /**
+     * Creates the shadow table of a full refresh. Only the last record of each VIN may reach it,
+     * as its primary key is built after the load, so the VINs must have been scanned ahead.
+     */
+    private ShadowTable createShadowTable(String csvFilePath, VinDeduplicator deduplicator, String tableTag) {
+        if (deduplicator == null) {
+            throw new IllegalArgumentException("REPLACE mode needs a local CSV file whose VINs can be scanned ahead: " + csvFilePath);
+        }
+        return ShadowTable.create(jdbcTemplate, tableTag);
+    }
+
+    /**
+     * Streams records from a single parser into batch buffers handed to the pipeline.
+     * Progress is derived from bytes consumed, so the file is parsed exactly once.
+     * The first {@code skipRecords} records are parsed but not converted or written.
+     * Records superseded by a later one with the same VIN are dropped before conversion when the
+     * VINs were scanned ahead, and replaced within their batch otherwise; a single writer writes the
+     * batches in file order, so the last record still wins across batches. A batch is submitted
+     * once it holds {@code batchSize} input records, so checkpoints stay offsets into the file.
+     * Without a pre-pass, the VINs of a snapshot sync are collected here, skipped records included.
+     */
+    private void parseSequential(InputStream input, InputFormat format, ParserType parserType, BatchSizer batchSizer,
+                                 long skipRecords, VinDeduplicator deduplicator, SeenVins seenVins,
+                                 LoadPipeline pipeline) throws IOException {
+        int batchSize = batchSizer.getBatchSize();
+        List<VehicleRow> batch = new ArrayList<>(batchSize);
+        BatchDeduplicator batchDeduplicator = new BatchDeduplicator();
+        int sourceRecords = 0;
+        int ordinal = -1;
+        try (VehicleRecordReader records = openRecordReader(new InputStreamReader(input, StandardCharsets.UTF_8),
+                format, parserType)) {
+            while (records.next()) {
+                ordinal++;
+                if (seenVins != null && deduplicator == null) {
+                    seenVins.add(records.getVin());
+                }
+                if (ordinal < skipRecords) {
+                    continue;
+                }
+                sourceRecords++;
+                if (deduplicator == null || deduplicator.keep(records.getVin(), ordinal)) {
+                    batchDeduplicator.add(batch, records.toRow());
+                }
+                if (sourceRecords >= batchSize) {
+                    batch = pipeline.submit(batch, sourceRecords);
+                    batchDeduplicator.clear();
+                    sourceRecords = 0;
+                    batchSize = batchSizer.getBatchSize();
+                }
+            }
+            if (sourceRecords > 0) {
+                pipeline.submit(batch, sourceRecords);
             }
-        } catch (NumberFormatException e) {
-            log.warn("Invalid integer value for {} for VIN {}: '{}'. Setting to NULL.", fieldName, vin, value);
-            ps.setNull(index, Types.INTEGER);
         }
     }
 
-    private void setLong(PreparedStatement ps, int index, String value, String fieldName, String vin) throws SQLException {
+    private VehicleRecordReader openRecordReader(Reader reader, InputFormat format, ParserType parserType)
+            throws IOException {
         try {
-            if (value != null && !value.trim().isEmpty()) {
-                ps.setLong(index, Long.parseLong(value.trim()));
+            if (format == InputFormat.JSON) {
+                return new JsonVehicleRecordReader(reader);
+            }
+            return switch (parserType) {
+                case SCHEMA -> new VehicleCsvReader(reader);
+                case COMMONS -> new CommonsCsvRecordReader(reader);
+            };
+        } catch (IOException | RuntimeException e) {
+            reader.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Finds the last record of each VIN of a local file in a pre-pass, so that only that record is
+     * converted and written. For parallel parsing, the pre-pass also places the parser's ranges in
+     * the file. A JSON file is scanned through its record reader. Returns {@code null}, and the load
+     * falls back to per-batch deduplication, if the file has no VIN column or cannot be read.
+     */
+    private VinDeduplicator scanVins(LoadSource source, InputFormat format, int parseThreads) {
+        long start = System.nanoTime();
+        VinDeduplicator deduplicator;
+        try (InputStream in = source.getCompression().decompress(Files.newInputStream(source.getPath()))) {
+            if (format == InputFormat.JSON) {
+                try (VehicleRecordReader records = new JsonVehicleRecordReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+                    deduplicator = VinDeduplicator.scan(records);
+                }
             } else {
-                ps.setNull(index, Types.BIGINT);
+                int[] rangeStarts = parseThreads > 1 ? ParallelCsvParser.rangeStarts(source.getPath(), parseThreads) : new int[0];
+                deduplicator = VinDeduplicator.scan(in, HEADER_VIN, rangeStarts);
+            }
+        } catch (IOException e) {
+            log.warn("Could not scan VINs of {}; duplicates are only resolved within a batch: {}",
+                    source.getPath(), e.getMessage());
+            return null;
+        }
+        if (deduplicator != null) {
+            log.info("Scanned {} records with {} distinct VINs in {} ms", deduplicator.getRecords(),
+                    deduplicator.getDistinctVins(), (System.nanoTime() - start) / 1_000_000);
+        }
+        return deduplicator;
+    }
+
+    /**
+     * Creates the writer stage for one load. Progress is reported after each committed batch;
+     * with several writer threads, bytes read may run ahead of the records written by up to the
+     * queue capacity. Record counts include records skipped by a resume. Without a reject writer,
+     * the first refused batch fails the load. With telemetry, the job's bytes read are the parser's.
+     */
+    private LoadPipeline createPipeline(LoadMode mode, Supplier<VehicleBatchWriter> writerFactory, int writerThreads,
+                                        BatchSizer batchSizer, ProgressContext progress, ProgressCallback progressCallback,
+                                        RejectWriter rejectWriter, LoadControl control, JobTelemetry telemetry) {
+        if (telemetry != null) {
+            telemetry.setBytesRead(progress.bytesRead());
+        }
+        LoadPipeline.Hooks hooks = LoadPipeline.Hooks.onBatchWritten((written, committedPrefix) -> {
+            int total = (int) (progress.skippedRecords() + written);
+            log.info("Processed batch. Total records considered for {} so far: {}", mode, total);
+            // Report progress outside the transaction
+            if (progressCallback != null) {
+                progressCallback.onProgress(total, progress.bytesRead().getAsLong(), progress.totalBytes());
+                if (progress.inFileOrder()) {
+                    progressCallback.onCheckpoint(progress.skippedRecords() + committedPrefix);
+                }
             }
-        } catch (NumberFormatException e) {
-            log.warn("Invalid long value for {} for VIN {}: '{}'. Setting to NULL.", fieldName, vin, value);
-            ps.setNull(index, Types.BIGINT);
+        });
+        hooks.setRejectWriter(rejectWriter);
+        hooks.setControl(control);
+        hooks.setTelemetry(telemetry);
+        return new LoadPipeline(writerThreads, batchSizer, writerFactory, transactionTemplate, loadMetrics, hooks);
+    }
+
+    /**
+     * Uses the requested batch size throughout, or, with a target batch duration, starts from it
+     * and adapts it to the measured transaction latency.
+     */
+    private BatchSizer createBatchSizer(LoadOptions options, ProgressCallback progressCallback) {
+        if (options.getTargetBatchMillis() <= 0) {
+            return BatchSizer.fixed(options.getBatchSize());
         }
+        log.info("Adapting batch size from {} toward {} ms per batch transaction",
+                options.getBatchSize(), options.getTargetBatchMillis());
+        return BatchSizer.adaptive(options.getBatchSize(), options.getTargetBatchMillis(), loadMetrics,
+                progressCallback != null ? progressCallback::onBatchSizeChanged : null);
+    }
+
+    private VehicleBatchWriter createWriter(LoadMode mode, String tableTag) {
+        return switch (mode) {
+            case UPSERT -> new UpsertBatchWriter(jdbcTemplate);
+            case COPY -> new CopyBatchWriter(jdbcTemplate, tableTag);
+            case REPLACE -> throw new IllegalStateException("REPLACE mode writes through its shadow table");
+            case VALIDATE -> throw new IllegalStateException("VALIDATE mode writes nothing");
+        };
     }
 
-    private void setBigDecimal(PreparedStatement ps, int index, String value, String fieldName, String vin) throws SQLException {
+    /**
+     * Drops the staging and shadow tables a job's loads left behind, e.g. on an instance that
+     * stopped while running it. Call it only once no instance runs the job any more.
+     *
+     * @param jobId The job ID
+     * @return Number of tables dropped
+     */
+    public int dropLeftoverTables(String jobId) {
+        return LoadTables.dropLeftovers(jdbcTemplate, jobId).size();
+    }
+
+    /**
+     * Lists the CSV files of a directory or glob under the import directory
+     * ({@code ev.loader.import-dir}), sorted by path, as paths accepted by
+     * {@link #loadData(String, LoadOptions, ProgressCallback)}. A relative location is resolved
+     * against the import directory; an absolute one, optionally with a {@code file:} prefix, must
+     * lie within it. A location without wildcards is a directory, of which the files ending in
+     * {@code .csv}, optionally followed by a compression extension, are loaded. A glob uses
+     * Ant-style {@code *}, {@code ?} and {@code **} wildcards and matches files of any name.
+     *
+     * @param location Directory or glob
+     * @return Paths of the matching files, never empty
+     * @throws IllegalArgumentException if the location or a matched file lies outside the import
+     *         directory, also through a symbolic link, or if nothing matches
+     * @throws RuntimeException if the location cannot be listed
+     */
+    public List<String> resolveFiles(String location) {
+        if (location.startsWith("classpath:") || location.startsWith("classpath*:")) {
+            throw new IllegalArgumentException("Directory loads read from the import directory, not the classpath: " + location);
+        }
+        String path = location.startsWith("file:") ? location.substring("file:".length()) : location;
+        boolean glob = PATH_MATCHER.isPattern(path);
+        // The directory part before the first wildcard is confined here; the matches are checked below
+        int baseEnd = glob ? path.lastIndexOf('/', firstWildcard(path)) + 1 : path.length();
+        String subPattern = glob ? path.substring(baseEnd) : "*";
+        if (Arrays.asList(subPattern.split("/")).contains("..")) {
+            throw new IllegalArgumentException("Location must not leave the import directory: " + location);
+        }
+
+        List<String> files = new ArrayList<>();
         try {
-            if (value != null && !value.trim().isEmpty()) {
-                ps.setBigDecimal(index, new BigDecimal(value.trim()));
-            } else {
-                ps.setNull(index, Types.NUMERIC);
+            Path root = importRoot();
+            Path base = importDir.resolve(path.substring(0, baseEnd)).normalize();
+            if (!base.startsWith(importDir)) {
+                throw new IllegalArgumentException("Location must not leave the import directory: " + location);
             }
-        } catch (NumberFormatException e) {
-            log.warn("Invalid BigDecimal value for {} for VIN {}: '{}'. Setting to NULL.", fieldName, vin, value);
-            ps.setNull(index, Types.NUMERIC);
+            if (!Files.isDirectory(base)) {
+                throw new IllegalArgumentException("No CSV files found at: " + location);
+            }
+            base = base.toRealPath();
+            if (!base.startsWith(root)) {
+                throw new IllegalArgumentException("Location must not leave the import directory: " + location);
+            }
+
+            for (Resource resource : resourcePatternResolver.getResources("file:" + base + "/" + subPattern)) {
+                if (resource.exists() && resource.isReadable() && (glob || isCsvFileName(resource.getFilename()))) {
+                    Path file = resource.getFile().toPath().toRealPath();
+                    if (!file.startsWith(root)) {
+                        // A symbolic link below the import directory pointing out of it
+                        throw new IllegalArgumentException("Location must not leave the import directory: " + location);
+                    }
+                    files.add("file:" + resource.getFile().getAbsolutePath());
+                }
+            }
+            files.sort(Comparator.naturalOrder());
+            if (files.isEmpty()) {
+                throw new IllegalArgumentException("No CSV files found at: " + location);
+            }
+            log.info("Resolved {} CSV file(s) at {}", files.size(), location);
+            return files;
+        } catch (IOException e) {
+            log.error("Error listing CSV files at: {}", location, e);
+            throw new RuntimeException("Error listing CSV files at " + location + ": " + e.getMessage(), e);
         }
     }
 
-    private boolean isValidWktPoint(String wkt) {
-        return wkt != null && !wkt.trim().isEmpty() && wkt.toUpperCase().startsWith("POINT (") && wkt.endsWith(")");
+    /**
+     * @return The real path of the import directory
+     * @throws IllegalArgumentException if it does not exist
+     */
+    private Path importRoot() throws IOException {
+        if (!Files.isDirectory(importDir)) {
+            throw new IllegalArgumentException("Import directory does not exist: " + importDir);
+        }
+        return importDir.toRealPath();
+    }
+
+    private static int firstWildcard(String path) {
+        int first = path.length();
+        for (char wildcard : new char[]{'*', '?', '{'}) {
+            int index = path.indexOf(wildcard);
+            if (index >= 0 && index < first) {
+                first = index;
+            }
+        }
+        return first;
+    }
+
+    private static boolean isCsvFileName(String filename) {
+        if (filename == null) {
+            return false;
+        }
+        String lowerName = filename.toLowerCase(Locale.ROOT);
+        return CSV_EXTENSIONS.stream().anyMatch(lowerName::endsWith);
     }
 
     /**
-     * Helper method to get a reader for a file.
+     * Opens a CSV input by path. Supports {@code classpath:} resources, {@code file:} paths
+     * and plain paths (tried as a resource first, then as a file).
      */
-    private Reader getReader(String csvFilePath) throws Exception {
+    private LoadSource openSource(String csvFilePath) throws Exception {
         if (csvFilePath.startsWith("classpath:")) {
             // Handle classpath resources
             Resource resource = resourceLoader.getResource(csvFilePath);
@@ -292,37 +705,105 @@ public class CsvDataLoaderService {
                 log.error("CSV file not found at classpath: {}", csvFilePath);
                 throw new RuntimeException("CSV file not found: " + csvFilePath);
             }
-            return new InputStreamReader(resource.getInputStream());
+            return openResource(csvFilePath, resource);
         } else if (csvFilePath.startsWith("file:")) {
             // Handle absolute file paths
             String path = csvFilePath.substring(5); // Remove "file:" prefix
-            File file = new File(path);
-            if (!file.exists() || !file.canRead()) {
-                log.error("CSV file not found or not readable at path: {}", path);
-                throw new RuntimeException("CSV file not found or not readable: " + path);
-            }
-            return new FileReader(file);
+            return openFile(new File(path));
         } else {
             // Try as a regular resource
             Resource resource = resourceLoader.getResource(csvFilePath);
             if (resource.exists()) {
-                return new InputStreamReader(resource.getInputStream());
+                return openResource(csvFilePath, resource);
             } else {
                 // Try as a regular file
-                File file = new File(csvFilePath);
-                if (!file.exists() || !file.canRead()) {
-                    log.error("CSV file not found or not readable at path: {}", csvFilePath);
-                    throw new RuntimeException("CSV file not found or not readable: " + csvFilePath);
-                }
-                return new FileReader(file);
+                return openFile(new File(csvFilePath));
             }
         }
     }
 
+    private LoadSource openResource(String csvFilePath, Resource resource) throws IOException {
+        long size;
+        try {
+            size = resource.contentLength();
+        } catch (IOException e) {
+            size = -1;
+        }
+        Path path = resource.isFile() ? resource.getFile().toPath() : null;
+        return openStream(csvFilePath, resource.getInputStream(), size, path);
+    }
+
+    private LoadSource openFile(File file) throws IOException {
+        if (!file.exists() || !file.canRead()) {
+            log.error("CSV file not found or not readable at path: {}", file.getPath());
+            throw new RuntimeException("CSV file not found or not readable: " + file.getPath());
+        }
+        return openStream(file.getPath(), new FileInputStream(file), file.length(), file.toPath());
+    }
+
+    /**
+     * Peeks at the leading bytes of an opened input to detect gzip or zstd compression.
+     * Sizes stay those of the stored, possibly compressed, input.
+     */
+    private LoadSource openStream(String name, InputStream inputStream, long size, Path path) throws IOException {
+        PushbackInputStream pushback = new PushbackInputStream(inputStream, Compression.MAGIC_LENGTH);
+        byte[] header = new byte[Compression.MAGIC_LENGTH];
+        int length;
+        try {
+            length = pushback.readNBytes(header, 0, header.length);
+            pushback.unread(header, 0, length);
+        } catch (IOException e) {
+            pushback.close();
+            throw e;
+        }
+        Compression compression = Compression.detect(name, header, length);
+        if (compression != Compression.NONE) {
+            log.info("Reading {} as a {}-compressed stream", name, compression);
+        }
+        return new LoadSource(name, pushback, size, path, compression);
+    }
+
+    /**
+     * Where progress comes from for one load.
+     *
+     * @param bytesRead Bytes consumed by the parser so far
+     * @param totalBytes Size of the input in bytes, or -1 if unknown
+     * @param skippedRecords Leading records skipped because the load resumes a checkpoint
+     * @param inFileOrder Whether batches are submitted in file order, which checkpoints require
+     */
+    private record ProgressContext(LongSupplier bytesRead, long totalBytes, long skippedRecords, boolean inFileOrder) {
+    }
+
     /**
      * Interface for progress tracking.
      */
     public interface ProgressCallback {
-        void onProgress(int processedRecords);
+
+        /**
+         * Called after each committed batch.
+         *
+         * @param processedRecords Number of records written so far
+         * @param bytesRead Number of input bytes consumed by the parser so far
+         * @param totalBytes Size of the input in bytes, or -1 if unknown
+         */
+        void onProgress(int processedRecords, long bytesRead, long totalBytes);
+
+        /**
+         * Called after each committed batch of a sequentially parsed load. Every data record
+         * before {@code committedRecords} is committed, so a load resumed from this offset
+         * loses nothing.
+         *
+         * @param committedRecords Leading data records of the file that are all committed
+         */
+        default void onCheckpoint(long committedRecords) {
+        }
+
+        /**
+         * Called when an adaptive load changes its batch size.
+         *
+         * @param batchSize Rows per batch from now on
+         */
+        default void onBatchSizeChanged(int batchSize) {
+        }
     }
-}
\ No newline at end of file
+}
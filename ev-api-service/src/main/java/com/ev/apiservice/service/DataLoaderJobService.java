@@ -1,47 +1,276 @@
 package com.ev.apiservice.service;
 
-import lombok.Data;
+import com.ev.apiservice.exception.JobStateConflictException;
+import com.ev.apiservice.model.LoadJob;
+import com.ev.apiservice.repository.LoadJobRepository;
+import com.ev.apiservice.service.loader.CsvProfile;
+import com.ev.apiservice.service.loader.InputFormat;
+import com.ev.apiservice.service.loader.LoadControl;
+import com.ev.apiservice.service.loader.LoadMode;
+import com.ev.apiservice.service.loader.LoadOptions;
+import com.ev.apiservice.service.loader.ParserType;
+import com.ev.apiservice.service.loader.RowRateLimiter;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service for managing asynchronous data loading jobs.
+ * Jobs are persisted as {@link LoadJob} records, so a job and its last committed checkpoint
+ * survive a restart and the job can be resumed, and any instance can report the status of any
+ * job. The instance running a job also tracks it in memory for live progress, in a
+ * {@link JobStatusRegistry} that lets go of jobs some time after they end.
+ * <p>
+ * Jobs reading a file by path wait in a queue shared by all instances, from which the
+ * {@link LoadJobDispatcher} of each instance claims them; uploads, directory jobs and streamed jobs
+ * are run by the instance that received them. The dispatcher also holds the leases on the jobs of
+ * this instance and persists their checkpoints.
+ * A directory job loads each of its files as a file job of its own and reports the rolled-up
+ * status of those file jobs.
+ * Jobs running on this instance can be throttled and cancelled while they run.
  */
 @Service
 @Slf4j
 public class DataLoaderJobService {
 
-    private final Map<String, JobStatus> jobStatusMap = new ConcurrentHashMap<>();
+    private static final Set<JobStatus.Status> RESUMABLE =
+            Set.of(JobStatus.Status.FAILED, JobStatus.Status.INTERRUPTED, JobStatus.Status.CANCELLED);
+    private static final Set<JobStatus.Status> ACTIVE = Set.of(JobStatus.Status.QUEUED, JobStatus.Status.RUNNING);
+
+    /**
+     * File path prefix recorded for jobs that read a request body; such jobs have no file to resume from.
+     */
+    static final String STREAM_PREFIX = "stream:";
+
+    /**
+     * Directory holding the reject file of each job, named after the job ID.
+     */
+    static final Path REJECT_DIR = Path.of(System.getProperty("java.io.tmpdir"), "ev-loader-rejects");
+
+    /**
+     * Default time a reject or removed-VIN file is kept after it was last written: 7 days.
+     */
+    public static final long DEFAULT_REJECT_RETENTION_MILLIS = 7 * 24 * 3_600_000L;
+
+    /**
+     * Default maximum number of files of a directory job loaded at the same time.
+     */
+    public static final int DEFAULT_FILE_PARALLELISM = 2;
+
+    /**
+     * Largest page of the job history.
+     */
+    public static final int MAX_HISTORY_PAGE_SIZE = 100;
+
+    private final Map<String, DirectoryJob> directoryJobs = new ConcurrentHashMap<>();
+    private final Map<String, LoadControl> controls = new ConcurrentHashMap<>();
+    private final JobStatusRegistry jobStatuses;
     private final CsvDataLoaderService csvDataLoaderService;
     private final AsyncService asyncService;
+    private final LoadJobRepository loadJobRepository;
+    private final LoadJobDispatcher dispatcher;
+    private final long rejectRetentionMillis;
 
     @Autowired
-    public DataLoaderJobService(CsvDataLoaderService csvDataLoaderService, @Lazy AsyncService asyncService) {
+    public DataLoaderJobService(CsvDataLoaderService csvDataLoaderService, @Lazy AsyncService asyncService,
+                                LoadJobRepository loadJobRepository, LoadJobDispatcher dispatcher,
+                                JobStatusRegistry jobStatuses,
+                                @Value("${ev.loader.rejects.retention-millis:" + DEFAULT_REJECT_RETENTION_MILLIS + "}")
+                                long rejectRetentionMillis) {
         this.csvDataLoaderService = csvDataLoaderService;
         this.asyncService = asyncService;
+        this.loadJobRepository = loadJobRepository;
+        this.dispatcher = dispatcher;
+        this.jobStatuses = jobStatuses;
+        this.rejectRetentionMillis = rejectRetentionMillis;
     }
 
     /**
-     * Starts an asynchronous data loading job.
+     * Starts an asynchronous data loading job in the default UPSERT mode.
      *
      * @param csvFilePath Path to the CSV file
      * @param batchSize Number of records to process in each batch
      * @return The job ID
      */
     public String startLoadJob(String csvFilePath, int batchSize) {
+        return startLoadJob(csvFilePath, LoadOptions.ofBatchSize(batchSize));
+    }
+
+    /**
+     * Starts an asynchronous data loading job.
+     *
+     * @param csvFilePath Path to the CSV file
+     * @param options Batch size and write mode for the load
+     * @return The job ID
+     */
+    public String startLoadJob(String csvFilePath, LoadOptions options) {
+        return startLoadJob(csvFilePath, options, false);
+    }
+
+    /**
+     * Starts an asynchronous data loading job for an uploaded temporary file. The job owns the
+     * file: it is deleted once the job completes, and kept after a failure so the job can be resumed.
+     * The file is on this instance's disk, so the job waits for a worker slot of this instance
+     * rather than in the shared queue.
+     *
+     * @param uploadedFile Temporary file holding the upload
+     * @param options Batch size and write mode for the load
+     * @return The job ID
+     */
+    public String startUploadJob(Path uploadedFile, LoadOptions options) {
+        return startLoadJob(uploadedFile.toString(), options, true);
+    }
+
+    private String startLoadJob(String csvFilePath, LoadOptions options, boolean temporaryFile) {
         String jobId = UUID.randomUUID().toString();
-        jobStatusMap.put(jobId, new JobStatus(JobStatus.Status.QUEUED, 0, System.currentTimeMillis()));
+        options.setRejectFile(rejectFile(jobId));
+        options.setRemovedFile(options.isDeleteMissing() ? removedFile(jobId) : null);
+        JobStatus status = newJobStatus(options);
+        LoadJob job = newLoadJob(jobId, csvFilePath, options, status);
+        job.setTemporaryFile(temporaryFile);
+        if (temporaryFile) {
+            register(jobId, options, new RowRateLimiter(options.getMaxRowsPerSecond()));
+            dispatcher.holdLease(job, status);
+            loadJobRepository.save(job);
+            track(jobId, status);
+            dispatcher.enqueueLocal(jobId, csvFilePath, options);
+        } else {
+            // Whichever instance claims the job builds its options from the record
+            loadJobRepository.save(job);
+        }
 
-        // Start the async process using the AsyncService
-        asyncService.executeLoadDataAsync(jobId, csvFilePath, batchSize);
+        log.info("Queued asynchronous data loading job {} ({} mode) for file: {}", jobId, options.getMode(), csvFilePath);
+        dispatcher.dispatch();
+        return jobId;
+    }
 
-        log.info("Queued asynchronous data loading job {} for file: {}", jobId, csvFilePath);
+    /**
+     * Starts an asynchronous job loading every CSV file of a directory or glob. Each file is loaded
+     * by a file job of its own, with its own checkpoint and reject file, and at most
+     * {@code fileParallelism} files are loaded at the same time, so one directory cannot take
+     * over the task executor. The status of the returned job rolls up its file jobs. The rows per
+     * second limit of the options caps the files loaded at the same time together.
+     *
+     * @param location Directory or glob, as accepted by {@link CsvDataLoaderService#resolveFiles(String)}
+     * @param options Batch size, write mode and parallelism applied to each file
+     * @param fileParallelism Maximum number of files loaded at the same time
+     * @return The job ID
+     * @throws IllegalArgumentException if no files match, the parallelism is below 1, the mode is
+     *         REPLACE or the options ask for a snapshot sync
+     */
+    public String startDirectoryJob(String location, LoadOptions options, int fileParallelism) {
+        if (fileParallelism < 1) {
+            throw new IllegalArgumentException("File parallelism must be at least 1");
+        }
+        if (options.getMode() == LoadMode.REPLACE) {
+            // Each file would replace the table loaded from the previous one
+            throw new IllegalArgumentException("REPLACE mode loads one complete file and cannot be used for a directory");
+        }
+        if (options.isDeleteMissing()) {
+            // Each file would delete the vehicles listed only by the others
+            throw new IllegalArgumentException("A snapshot sync needs one complete file and cannot be used for a directory");
+        }
+        List<String> files = csvDataLoaderService.resolveFiles(location);
+
+        String jobId = UUID.randomUUID().toString();
+        RowRateLimiter rateLimiter = new RowRateLimiter(options.getMaxRowsPerSecond());
+        LoadJob job = newLoadJob(jobId, location, options, new JobStatus(JobStatus.Status.QUEUED, 0, 0));
+        job.setFileCount(files.size());
+        job.setFileParallelism(fileParallelism);
+
+        List<LoadJob> fileJobs = new ArrayList<>(files.size());
+        List<String> fileJobIds = new ArrayList<>(files.size());
+        List<JobStatus> statuses = new ArrayList<>(files.size());
+        Deque<PendingFile> pending = new ArrayDeque<>(files.size());
+        for (String file : files) {
+            String fileJobId = UUID.randomUUID().toString();
+            LoadOptions fileOptions = options.copy();
+            fileOptions.setRejectFile(rejectFile(fileJobId));
+            register(fileJobId, fileOptions, rateLimiter);
+            JobStatus status = newJobStatus(fileOptions);
+            status.setParentJobId(jobId);
+            LoadJob fileJob = newLoadJob(fileJobId, file, fileOptions, status);
+            fileJob.setParentJobId(jobId);
+            dispatcher.holdLease(fileJob, status);
+            if (fileJob.getFileSize() != null) {
+                status.setTotalBytes(fileJob.getFileSize());
+            }
+            statuses.add(status);
+            fileJobs.add(fileJob);
+            fileJobIds.add(fileJobId);
+            pending.add(new PendingFile(fileJobId, file, fileOptions));
+        }
+        loadJobRepository.save(job);
+        loadJobRepository.saveAll(fileJobs);
+        for (int i = 0; i < fileJobIds.size(); i++) {
+            track(fileJobIds.get(i), statuses.get(i));
+        }
+
+        DirectoryJob directoryJob = new DirectoryJob(jobId, job.getStartTime(), fileJobIds, pending, fileParallelism,
+                rateLimiter);
+        directoryJobs.put(jobId, directoryJob);
+        log.info("Queued directory data loading job {} ({} mode) for {} file(s), {} at a time: {}",
+                jobId, options.getMode(), files.size(), fileParallelism, location);
+        startFiles(directoryJob);
+        return jobId;
+    }
+
+    /**
+     * Runs a data loading job that parses a stream, such as a request body, on the calling thread
+     * as it arrives. The job is tracked like any other, but cannot be resumed.
+     *
+     * @param sourceName Name of the input, e.g. the client's file name
+     * @param input The CSV data, optionally gzip or zstd compressed
+     * @param contentLength Length of the input in bytes, or -1 if unknown
+     * @param options Batch size and write mode for the load
+     * @return The job ID; the job has completed, failed or been cancelled when this method returns
+     * @throws IllegalArgumentException if the mode is REPLACE, which needs a local file
+     */
+    public String runStreamingJob(String sourceName, InputStream input, long contentLength, LoadOptions options) {
+        if (options.getMode() == LoadMode.REPLACE) {
+            throw new IllegalArgumentException("REPLACE mode needs a local file and cannot load a request body");
+        }
+        String jobId = UUID.randomUUID().toString();
+        options.setRejectFile(rejectFile(jobId));
+        options.setRemovedFile(options.isDeleteMissing() ? removedFile(jobId) : null);
+        register(jobId, options, new RowRateLimiter(options.getMaxRowsPerSecond()));
+        JobStatus status = newJobStatus(options);
+        LoadJob job = newLoadJob(jobId, STREAM_PREFIX + sourceName, options, status);
+        dispatcher.holdLease(job, status);
+        loadJobRepository.save(job);
+        track(jobId, status);
+
+        log.info("Streaming data loading job {} ({} mode) from request body: {}", jobId, options.getMode(), sourceName);
+        asyncService.executeStreamingLoad(jobId, sourceName, input, contentLength, options);
         return jobId;
     }
 
@@ -52,29 +281,890 @@ public class DataLoaderJobService {
      * @return The job status
      */
     public JobStatus getJobStatus(String jobId) {
-        return jobStatusMap.getOrDefault(jobId,
-                new JobStatus(JobStatus.Status.NOT_FOUND, 0, 0));
+        JobStatus status = jobStatuses.get(jobId);
+        if (status != null) {
+            return status;
+        }
+        DirectoryJob directoryJob = directoryJobs.get(jobId);
+        if (directoryJob != null) {
+            JobStatus rolledUp = rollUp(directoryJob.getStartTime(),
+                    directoryJob.getFileJobIds().stream().map(this::getJobStatus).toList(), directoryJob.getFileJobIds());
+            rolledUp.setMaxRowsPerSecond(directoryJob.getRateLimiter().getMaxRowsPerSecond());
+            return rolledUp;
+        }
+        // Jobs from before a restart are only in the database
+        return loadJobRepository.findById(jobId)
+                .map(job -> job.getFileCount() > 0 ? rollUp(job) : toJobStatus(job))
+                .orElseGet(() -> new JobStatus(JobStatus.Status.NOT_FOUND, 0, 0));
+    }
+
+    /**
+     * Lists single-file and directory jobs from their persisted records, most recently started
+     * first. A job this instance still keeps in memory shows its live status.
+     *
+     * @param status Only jobs in this state; {@code null} for any
+     * @param from Only jobs started at or after this time in milliseconds
+     * @param to Only jobs started before this time in milliseconds
+     * @param page Page number, from 0
+     * @param size Jobs per page, at most {@link #MAX_HISTORY_PAGE_SIZE}
+     * @return The page of jobs
+     * @throws IllegalArgumentException if the page, its size or the time window is invalid
+     */
+    public Page<JobSummary> getJobHistory(JobStatus.Status status, long from, long to, int page, int size) {
+        if (page < 0) {
+            throw new IllegalArgumentException("Page must not be negative");
+        }
+        if (size < 1 || size > MAX_HISTORY_PAGE_SIZE) {
+            throw new IllegalArgumentException("Page size must be between 1 and " + MAX_HISTORY_PAGE_SIZE);
+        }
+        if (from > to) {
+            throw new IllegalArgumentException("Start of the time window must not be after its end");
+        }
+        if (status == JobStatus.Status.NOT_FOUND) {
+            throw new IllegalArgumentException("No job is in status " + status);
+        }
+        return loadJobRepository.findHistory(status != null ? status.name() : null, from, to, PageRequest.of(page, size))
+                .map(job -> new JobSummary(job.getJobId(), job.getFilePath(), job.getLoadMode(), liveStatus(job)));
+    }
+
+    /**
+     * Status of a listed job without rolling up the records of a directory job's files.
+     */
+    private JobStatus liveStatus(LoadJob job) {
+        if (directoryJobs.containsKey(job.getJobId())) {
+            return getJobStatus(job.getJobId());
+        }
+        JobStatus status = jobStatuses.get(job.getJobId());
+        if (status != null) {
+            return status;
+        }
+        status = toJobStatus(job);
+        status.setFileCount(job.getFileCount());
+        return status;
+    }
+
+    /**
+     * Resumes a failed, interrupted or cancelled job from its last checkpoint. Records before the
+     * checkpoint are skipped; the job keeps its ID and its rows per second limit. A job reading a
+     * file by path goes back to the shared queue, an upload is resumed by this instance. Resuming a
+     * directory job resumes its file jobs that did not complete, again at most its file
+     * parallelism at a time.
+     *
+     * @param jobId The job ID
+     * @return The job ID
+     * @throws EntityNotFoundException if the job does not exist
+     * @throws JobStateConflictException if the job is not resumable or its file is missing or has changed
+     */
+    public synchronized String resumeJob(String jobId) {
+        LoadJob job = loadJobRepository.findById(jobId)
+                .orElseThrow(() -> new EntityNotFoundException("Data loading job not found: " + jobId));
+        if (job.getFileCount() > 0) {
+            return resumeDirectoryJob(job);
+        }
+
+        verifyResumable(job);
+        log.info("Resuming data loading job {} from record {} for file: {}", jobId, job.getCheckpointRecords(), job.getFilePath());
+        if (isShared(job)) {
+            // The instance that claims it first builds its options from the checkpoint
+            dispatcher.requeue(jobId);
+            jobStatuses.remove(jobId);
+        } else {
+            dispatcher.lease(List.of(jobId));
+            LoadOptions options = prepareResume(job, new RowRateLimiter(job.getMaxRowsPerSecond()));
+            dispatcher.enqueueLocal(jobId, job.getFilePath(), options);
+        }
+        dispatcher.dispatch();
+        return jobId;
+    }
+
+    private String resumeDirectoryJob(LoadJob job) {
+        String jobId = job.getJobId();
+        JobStatus.Status state = getJobStatus(jobId).getStatus();
+        if (!RESUMABLE.contains(state)) {
+            throw new JobStateConflictException("Job " + jobId + " is " + state + " and cannot be resumed");
+        }
+        List<LoadJob> fileJobs = loadJobRepository.findByParentJobIdOrderByFilePath(jobId);
+        List<LoadJob> resumable = fileJobs.stream()
+                .filter(fileJob -> RESUMABLE.contains(currentState(fileJob)))
+                .toList();
+        // Check every file before queuing any, so a changed file leaves the whole job untouched
+        resumable.forEach(this::verifyResumable);
+
+        dispatcher.lease(resumable.stream().map(LoadJob::getJobId).toList());
+        RowRateLimiter rateLimiter = new RowRateLimiter(job.getMaxRowsPerSecond());
+        Deque<PendingFile> pending = new ArrayDeque<>(resumable.size());
+        for (LoadJob fileJob : resumable) {
+            pending.add(new PendingFile(fileJob.getJobId(), fileJob.getFilePath(), prepareResume(fileJob, rateLimiter)));
+        }
+        DirectoryJob directoryJob = new DirectoryJob(jobId, job.getStartTime(),
+                fileJobs.stream().map(LoadJob::getJobId).toList(), pending, job.getFileParallelism(), rateLimiter);
+        directoryJobs.put(jobId, directoryJob);
+
+        log.info("Resuming {} of {} file(s) of directory data loading job {}: {}",
+                resumable.size(), fileJobs.size(), jobId, job.getFilePath());
+        startFiles(directoryJob);
+        return jobId;
+    }
+
+    private JobStatus.Status currentState(LoadJob job) {
+        JobStatus current = jobStatuses.get(job.getJobId());
+        return current != null ? current.getStatus() : JobStatus.Status.valueOf(job.getStatus());
+    }
+
+    private void verifyResumable(LoadJob job) {
+        String jobId = job.getJobId();
+        JobStatus.Status state = currentState(job);
+        if (!RESUMABLE.contains(state)) {
+            throw new JobStateConflictException("Job " + jobId + " is " + state + " and cannot be resumed");
+        }
+        if (job.getFilePath().startsWith(STREAM_PREFIX)) {
+            throw new JobStateConflictException("Job " + jobId + " read a request body that was not kept and cannot be resumed");
+        }
+        verifyFileUnchanged(job);
+    }
+
+    /**
+     * Prepares a job this instance claimed from the shared queue to run from its checkpoint.
+     *
+     * @param job The claimed job record
+     * @return Options of the load, skipping the committed records
+     */
+    public LoadOptions resumeClaimed(LoadJob job) {
+        return prepareResume(job, new RowRateLimiter(job.getMaxRowsPerSecond()));
+    }
+
+    /**
+     * Queues a resumable or claimed job on this instance: its status restarts from the checkpoint,
+     * and the returned options skip the committed records and are throttled by the given limiter.
+     */
+    private LoadOptions prepareResume(LoadJob job, RowRateLimiter rateLimiter) {
+        String jobId = job.getJobId();
+        LoadOptions options = new LoadOptions();
+        options.setBatchSize(job.getBatchSize());
+        options.setMode(LoadMode.valueOf(job.getLoadMode()));
+        options.setFormat(InputFormat.valueOf(job.getInputFormat()));
+        options.setParserType(ParserType.valueOf(job.getParserType()));
+        options.setParseThreads(job.getParseThreads());
+        options.setWriterThreads(job.getWriterThreads());
+        options.setTargetBatchMillis(job.getTargetBatchMillis());
+        options.setMaxRowsPerSecond(rateLimiter.getMaxRowsPerSecond());
+        options.setResumeFromRecord(job.getCheckpointRecords());
+        // Rows rejected by the resumed run are appended to the same file
+        options.setRejectFile(job.getRejectFile() != null ? Path.of(job.getRejectFile()) : rejectFile(jobId));
+        options.setDeleteMissing(job.isDeleteMissing());
+        options.setRemovedFile(job.isDeleteMissing() ? removedFile(jobId) : null);
+        register(jobId, options, rateLimiter);
+
+        JobStatus status = new JobStatus(JobStatus.Status.QUEUED, (int) job.getCheckpointRecords(), job.getStartTime());
+        status.setCheckpointRecords(job.getCheckpointRecords());
+        status.setRejectFile(options.getRejectFile().toString());
+        status.setParentJobId(job.getParentJobId());
+        status.setMaxRowsPerSecond(options.getMaxRowsPerSecond());
+        status.setWorker(dispatcher.getInstanceId());
+        if (job.getFileSize() != null) {
+            status.setTotalBytes(job.getFileSize());
+        }
+        if (job.getTargetBatchMillis() > 0) {
+            status.setCurrentBatchSize(job.getBatchSize());
+        }
+
+        job.setStatus(JobStatus.Status.QUEUED.name());
+        job.setErrorMessage(null);
+        job.setUpdatedAt(Instant.now());
+        loadJobRepository.save(job);
+        // Only once the record is active again, so the next lease renewal finds it
+        track(jobId, status);
+        return options;
+    }
+
+    /**
+     * Cancels a queued or running job. A running load stops at its next batch boundary, once the
+     * batches already handed to its writers have committed; a queued one does not start. The job
+     * then ends CANCELLED with a checkpoint it can be resumed from. Cancelling a directory job
+     * cancels all its file jobs that have not finished.
+     *
+     * @param jobId The job ID
+     * @throws EntityNotFoundException if the job does not exist
+     * @throws JobStateConflictException if the job is not queued or running in this instance, and is
+     *         not waiting in the shared queue either
+     */
+    public synchronized void cancelJob(String jobId) {
+        if (!jobStatuses.contains(jobId) && !directoryJobs.containsKey(jobId) && dispatcher.cancelQueued(jobId)) {
+            log.info("Cancelled data loading job {} before any instance claimed it", jobId);
+            return;
+        }
+        verifyActive(jobId, "cancelled");
+        DirectoryJob directoryJob = directoryJobs.get(jobId);
+        List<String> jobIds = directoryJob != null ? directoryJob.getFileJobIds() : List.of(jobId);
+        for (String id : jobIds) {
+            LoadControl control = controls.get(id);
+            if (control != null) {
+                control.cancel();
+            }
+        }
+        log.info("Cancelling data loading job {}", jobId);
+    }
+
+    /**
+     * Changes the rows per second limit of a queued or running job; the load picks it up within
+     * 100 ms. The limit of a directory job caps its file jobs together.
+     *
+     * @param jobId The job ID
+     * @param maxRowsPerSecond Rows per second; 0 for no limit
+     * @throws EntityNotFoundException if the job does not exist
+     * @throws IllegalArgumentException if the rate is negative
+     * @throws JobStateConflictException if the job is not queued or running in this instance
+     */
+    public synchronized void setRateLimit(String jobId, long maxRowsPerSecond) {
+        if (maxRowsPerSecond < 0) {
+            throw new IllegalArgumentException("Rows per second must not be negative");
+        }
+        verifyActive(jobId, "throttled");
+        DirectoryJob directoryJob = directoryJobs.get(jobId);
+        List<String> jobIds;
+        if (directoryJob != null) {
+            directoryJob.getRateLimiter().setMaxRowsPerSecond(maxRowsPerSecond);
+            jobIds = directoryJob.getFileJobIds();
+        } else {
+            controls.get(jobId).getRateLimiter().setMaxRowsPerSecond(maxRowsPerSecond);
+            jobIds = List.of(jobId);
+        }
+        for (String id : jobIds) {
+            JobStatus status = jobStatuses.get(id);
+            if (status != null) {
+                status.setMaxRowsPerSecond(maxRowsPerSecond);
+            }
+        }
+        try {
+            // A resumed job starts with the limit it last had
+            loadJobRepository.findById(jobId).ifPresent(job -> {
+                job.setMaxRowsPerSecond(maxRowsPerSecond);
+                job.setUpdatedAt(Instant.now());
+                loadJobRepository.save(job);
+            });
+        } catch (DataAccessException e) {
+            log.warn("Could not persist rate limit of job {}: {}", jobId, e.getMessage());
+        }
+        log.info("Limited data loading job {} to {} rows per second", jobId,
+                maxRowsPerSecond > 0 ? maxRowsPerSecond : "unlimited");
+    }
+
+    /**
+     * Checks that a job is queued or running on this instance, which holds its {@link LoadControl}.
+     */
+    private void verifyActive(String jobId, String action) {
+        JobStatus.Status state = getJobStatus(jobId).getStatus();
+        if (state == JobStatus.Status.NOT_FOUND) {
+            throw new EntityNotFoundException("Data loading job not found: " + jobId);
+        }
+        if (!ACTIVE.contains(state)) {
+            throw new JobStateConflictException("Job " + jobId + " is " + state + " and cannot be " + action);
+        }
+        if (!directoryJobs.containsKey(jobId) && !jobStatuses.contains(jobId)) {
+            throw new JobStateConflictException("Job " + jobId + " is not run by this instance and cannot be " + action);
+        }
+    }
+
+    /**
+     * Persists the current in-memory state of a job (status, counts and error message). Does
+     * nothing once another instance has taken the job over.
+     *
+     * @param jobId The job ID
+     */
+    public void saveJob(String jobId) {
+        JobStatus status = jobStatuses.get(jobId);
+        if (status == null) {
+            return;
+        }
+        try {
+            loadJobRepository.findById(jobId).ifPresent(job -> {
+                if (job.getLeaseOwner() != null && !job.getLeaseOwner().equals(dispatcher.getInstanceId())) {
+                    log.warn("Not saving state of job {}: it is now run by instance {}", jobId, job.getLeaseOwner());
+                    return;
+                }
+                job.setStatus(status.getStatus().name());
+                job.setRecordsProcessed(status.getRecordsProcessed());
+                job.setCheckpointRecords(status.getCheckpointRecords());
+                job.setInsertedRecords(status.getInsertedRecords());
+                job.setUpdatedRecords(status.getUpdatedRecords());
+                job.setUnchangedRecords(status.getUnchangedRecords());
+                job.setDuplicateRecords(status.getDuplicateRecords());
+                job.setRejectedRecords(status.getRejectedRecords());
+                job.setDeletedRecords(status.getDeletedRecords());
+                job.setRemovedFile(status.getRemovedFile());
+                job.setErrorMessage(status.getErrorMessage());
+                job.setUpdatedAt(Instant.now());
+                loadJobRepository.save(job);
+            });
+        } catch (DataAccessException e) {
+            log.warn("Could not persist state of job {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    /**
+     * Deletes the uploaded temporary file of a job, and its directory if that is left empty.
+     * Does nothing for jobs that read a file they do not own.
+     *
+     * @param jobId The job ID
+     */
+    public void deleteTemporaryFile(String jobId) {
+        try {
+            loadJobRepository.findById(jobId)
+                    .filter(LoadJob::isTemporaryFile)
+                    .ifPresent(job -> {
+                        Path file = Path.of(job.getFilePath());
+                        try {
+                            Files.deleteIfExists(file);
+                            if (file.getParent() != null) {
+                                Files.deleteIfExists(file.getParent());
+                            }
+                            log.debug("Deleted uploaded file of job {}: {}", jobId, file);
+                        } catch (DirectoryNotEmptyException e) {
+                            // The directory is shared; leave it
+                        } catch (IOException e) {
+                            log.warn("Could not delete uploaded file of job {}: {}", jobId, e.getMessage());
+                        }
+                    });
+        } catch (DataAccessException e) {
+            log.warn("Could not look up job {} to delete its uploaded file: {}", jobId, e.getMessage());
+        }
+    }
+
+    /**
+     * Starts pending files of a directory job while it is below its file parallelism.
+     */
+    private void startFiles(DirectoryJob directoryJob) {
+        PendingFile file;
+        while ((file = directoryJob.claim()) != null) {
+            startFile(directoryJob, file);
+        }
+    }
+
+    private void startFile(DirectoryJob directoryJob, PendingFile file) {
+        try {
+            asyncService.executeLoadDataAsync(file.jobId(), file.path(), file.options())
+                    .whenComplete((records, error) -> onFileDone(directoryJob));
+        } catch (RuntimeException e) {
+            // E.g. the task executor's queue is full; the other files still get their turn
+            log.error("Could not start file job {} of directory job {}: {}", file.jobId(), directoryJob.getJobId(), e.getMessage());
+            JobStatus status = jobStatuses.get(file.jobId());
+            status.setStatus(JobStatus.Status.FAILED);
+            status.setErrorMessage("Could not start: " + e.getMessage());
+            saveJob(file.jobId());
+            onFileDone(directoryJob);
+        }
+    }
+
+    /**
+     * Called when a file job of a directory job has ended: starts the next file,
+     * or persists the rolled-up state once the last one is done.
+     */
+    private void onFileDone(DirectoryJob directoryJob) {
+        if (!directoryJob.release()) {
+            startFiles(directoryJob);
+            return;
+        }
+        JobStatus status = getJobStatus(directoryJob.getJobId());
+        try {
+            loadJobRepository.findById(directoryJob.getJobId()).ifPresent(job -> {
+                job.setStatus(status.getStatus().name());
+                job.setRecordsProcessed(status.getRecordsProcessed());
+                job.setInsertedRecords(status.getInsertedRecords());
+                job.setUpdatedRecords(status.getUpdatedRecords());
+                job.setUnchangedRecords(status.getUnchangedRecords());
+                job.setDuplicateRecords(status.getDuplicateRecords());
+                job.setRejectedRecords(status.getRejectedRecords());
+                job.setErrorMessage(status.getErrorMessage());
+                job.setUpdatedAt(Instant.now());
+                loadJobRepository.save(job);
+            });
+        } catch (DataAccessException e) {
+            log.warn("Could not persist state of directory job {}: {}", directoryJob.getJobId(), e.getMessage());
+        }
+        // From now on it is rolled up from its file jobs' records and whichever of their statuses are still kept
+        directoryJobs.remove(directoryJob.getJobId(), directoryJob);
+        log.info("Directory data loading job {} is {}: {} of {} file(s) completed, {} records processed",
+                directoryJob.getJobId(), status.getStatus(), status.getCompletedFiles(), status.getFileCount(),
+                status.getRecordsProcessed());
+    }
+
+    /**
+     * Stops a job this instance runs but no longer holds the lease of, so it does not run twice.
+     *
+     * @param jobId The job ID
+     */
+    public void stopTakenOver(String jobId) {
+        log.warn("Data loading job {} lost its lease and is taken over by another instance; stopping it here", jobId);
+        LoadControl control = controls.remove(jobId);
+        if (control != null) {
+            control.cancel();
+        }
+        jobStatuses.remove(jobId);
+    }
+
+    /**
+     * Evicts the ended jobs past their retention from memory, with their controls.
+     * Runs every {@code ev.loader.jobs.evict-millis}, 1 minute by default.
+     */
+    @Scheduled(fixedDelayString = "${ev.loader.jobs.evict-millis:60000}")
+    public void evictEndedJobs() {
+        forget(jobStatuses.evict(System.currentTimeMillis()));
+    }
+
+    /**
+     * Deletes the reject and removed-VIN files last written more than
+     * {@code ev.loader.rejects.retention-millis} ago, 7 days by default, except those of jobs queued
+     * or running on this instance. Runs every {@code ev.loader.rejects.sweep-millis}, 1 hour by default.
+     */
+    @Scheduled(fixedDelayString = "${ev.loader.rejects.sweep-millis:3600000}")
+    public void deleteExpiredRejectFiles() {
+        int deleted = deleteFilesOlderThan(REJECT_DIR, System.currentTimeMillis() - rejectRetentionMillis,
+                Set.copyOf(jobStatuses.activeJobIds()));
+        if (deleted > 0) {
+            log.info("Deleted {} expired reject file(s) from {}", deleted, REJECT_DIR);
+        }
+    }
+
+    /**
+     * Deletes the files of a directory last modified before a cutoff, skipping those named after
+     * one of the kept jobs ({@code <jobId>-rejects.csv} or {@code <jobId>-removed.csv}).
+     *
+     * @return Number of files deleted
+     */
+    static int deleteFilesOlderThan(Path dir, long cutoffMillis, Set<String> keptJobIds) {
+        if (!Files.isDirectory(dir)) {
+            return 0;
+        }
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                int suffix = name.lastIndexOf('-');
+                if (suffix > 0 && keptJobIds.contains(name.substring(0, suffix))) {
+                    continue;
+                }
+                try {
+                    if (Files.getLastModifiedTime(file).toMillis() < cutoffMillis && Files.deleteIfExists(file)) {
+                        deleted++;
+                    }
+                } catch (IOException e) {
+                    log.warn("Could not delete expired reject file {}: {}", file, e.getMessage());
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Could not list reject files in {}: {}", dir, e.getMessage());
+        }
+        return deleted;
+    }
+
+    /**
+     * Keeps the status of a job this instance runs in memory.
+     */
+    private void track(String jobId, JobStatus status) {
+        forget(jobStatuses.put(jobId, status));
+    }
+
+    private void forget(List<String> evictedJobIds) {
+        evictedJobIds.forEach(controls::remove);
+    }
+
+    /**
+     * Attaches a new control to the options of a job, so the job can be throttled and cancelled.
+     */
+    private void register(String jobId, LoadOptions options, RowRateLimiter rateLimiter) {
+        LoadControl control = new LoadControl(rateLimiter);
+        options.setControl(control);
+        controls.put(jobId, control);
+    }
+
+    /**
+     * Whether any instance can run the job, so it waits in the shared queue.
+     */
+    private static boolean isShared(LoadJob job) {
+        return job.getParentJobId() == null && job.getFileCount() == 0 && !job.isTemporaryFile()
+                && !job.getFilePath().startsWith(STREAM_PREFIX);
+    }
+
+    private static Path rejectFile(String jobId) {
+        return REJECT_DIR.resolve(jobId + "-rejects.csv");
+    }
+
+    private static Path removedFile(String jobId) {
+        return REJECT_DIR.resolve(jobId + "-removed.csv");
+    }
+
+    private static JobStatus newJobStatus(LoadOptions options) {
+        JobStatus status = new JobStatus(JobStatus.Status.QUEUED, 0, System.currentTimeMillis());
+        status.setMaxRowsPerSecond(options.getMaxRowsPerSecond());
+        if (options.getRejectFile() != null) {
+            status.setRejectFile(options.getRejectFile().toString());
+        }
+        if (options.getTargetBatchMillis() > 0) {
+            status.setCurrentBatchSize(options.getBatchSize());
+        }
+        return status;
+    }
+
+    private LoadJob newLoadJob(String jobId, String csvFilePath, LoadOptions options, JobStatus status) {
+        LoadJob job = new LoadJob();
+        job.setJobId(jobId);
+        job.setStatus(status.getStatus().name());
+        job.setFilePath(csvFilePath);
+        File file = localFile(csvFilePath);
+        if (file != null && file.isFile()) {
+            job.setFileSize(file.length());
+            job.setFileLastModified(file.lastModified());
+        }
+        job.setBatchSize(options.getBatchSize());
+        job.setLoadMode(options.getMode().name());
+        job.setInputFormat(options.getFormat().name());
+        job.setParserType(options.getParserType().name());
+        job.setParseThreads(options.getParseThreads());
+        job.setWriterThreads(options.getWriterThreads());
+        job.setTargetBatchMillis(options.getTargetBatchMillis());
+        job.setMaxRowsPerSecond(options.getMaxRowsPerSecond());
+        job.setDeleteMissing(options.isDeleteMissing());
+        if (options.getRejectFile() != null) {
+            job.setRejectFile(options.getRejectFile().toString());
+        }
+        job.setStartTime(status.getStartTime());
+        job.setUpdatedAt(Instant.now());
+        return job;
+    }
+
+    /**
+     * @throws JobStateConflictException if the job's local file is gone or has changed since the job started
+     */
+    static void verifyFileUnchanged(LoadJob job) {
+        if (job.getFileSize() == null) {
+            return;
+        }
+        File file = localFile(job.getFilePath());
+        if (file == null || !file.isFile()) {
+            throw new JobStateConflictException("File of job " + job.getJobId() + " no longer exists: " + job.getFilePath());
+        }
+        if (file.length() != job.getFileSize() || file.lastModified() != job.getFileLastModified()) {
+            throw new JobStateConflictException("File of job " + job.getJobId() + " has changed since the job started: "
+                    + job.getFilePath());
+        }
+    }
+
+    /**
+     * Returns the local file for a path as accepted by {@link CsvDataLoaderService}, or {@code null}
+     * for classpath resources and streamed request bodies.
+     */
+    private static File localFile(String csvFilePath) {
+        if (csvFilePath.startsWith("classpath:") || csvFilePath.startsWith(STREAM_PREFIX)) {
+            return null;
+        }
+        return new File(csvFilePath.startsWith("file:") ? csvFilePath.substring(5) : csvFilePath);
+    }
+
+    private JobStatus toJobStatus(LoadJob job) {
+        JobStatus status = new JobStatus(JobStatus.Status.valueOf(job.getStatus()), job.getRecordsProcessed(), job.getStartTime());
+        status.setCheckpointRecords(job.getCheckpointRecords());
+        status.setInsertedRecords(job.getInsertedRecords());
+        status.setUpdatedRecords(job.getUpdatedRecords());
+        status.setUnchangedRecords(job.getUnchangedRecords());
+        status.setDuplicateRecords(job.getDuplicateRecords());
+        status.setRejectedRecords(job.getRejectedRecords());
+        status.setRejectFile(job.getRejectFile());
+        status.setDeletedRecords(job.getDeletedRecords());
+        status.setRemovedFile(job.getRemovedFile());
+        status.setErrorMessage(job.getErrorMessage());
+        status.setParentJobId(job.getParentJobId());
+        status.setMaxRowsPerSecond(job.getMaxRowsPerSecond());
+        status.setWorker(job.getLeaseOwner());
+        if (status.isEnded() && job.getUpdatedAt() != null) {
+            status.setEndTime(job.getUpdatedAt().toEpochMilli());
+        }
+        if (job.getFileSize() != null) {
+            status.setTotalBytes(job.getFileSize());
+        }
+        if (status.getStatus() == JobStatus.Status.COMPLETED) {
+            status.setTotalRecords(job.getRecordsProcessed());
+            status.setProgress(100.0);
+        }
+        return status;
+    }
+
+    private JobStatus rollUp(LoadJob job) {
+        List<LoadJob> fileJobs = loadJobRepository.findByParentJobIdOrderByFilePath(job.getJobId());
+        if (fileJobs.isEmpty()) {
+            // Without its file jobs, the job's own record holds the state last rolled up from them
+            return toJobStatus(job);
+        }
+        List<JobStatus> files = fileJobs.stream()
+                .map(fileJob -> {
+                    JobStatus live = jobStatuses.get(fileJob.getJobId());
+                    return live != null ? live : toJobStatus(fileJob);
+                })
+                .toList();
+        JobStatus status = rollUp(job.getStartTime(), files, fileJobs.stream().map(LoadJob::getJobId).toList());
+        status.setMaxRowsPerSecond(job.getMaxRowsPerSecond());
+        return status;
+    }
+
+    /**
+     * Combines the statuses of the file jobs of a directory job. The job runs while any file is
+     * running or still queued after others started. Once every file is done and any did not
+     * complete, the job has failed if any file failed, else is interrupted if any file was
+     * interrupted, else is cancelled. A job without files has completed. Progress is the share of the bytes of all files consumed so far.
+     */
+    private static JobStatus rollUp(long startTime, List<JobStatus> files, List<String> fileJobIds) {
+        JobStatus status = new JobStatus(JobStatus.Status.QUEUED, 0, startTime);
+        status.setFileCount(files.size());
+        status.setFileJobIds(fileJobIds);
+        int queued = 0;
+        int running = 0;
+        int failed = 0;
+        int interrupted = 0;
+        int cancelled = 0;
+        long totalBytes = 0;
+        double bytesDone = 0;
+        double progressSum = 0;
+        boolean sizesKnown = true;
+        for (JobStatus file : files) {
+            status.setRecordsProcessed(status.getRecordsProcessed() + file.getRecordsProcessed());
+            status.setInsertedRecords(status.getInsertedRecords() + file.getInsertedRecords());
+            status.setUpdatedRecords(status.getUpdatedRecords() + file.getUpdatedRecords());
+            status.setUnchangedRecords(status.getUnchangedRecords() + file.getUnchangedRecords());
+            status.setDuplicateRecords(status.getDuplicateRecords() + file.getDuplicateRecords());
+            status.setRejectedRecords(status.getRejectedRecords() + file.getRejectedRecords());
+            status.setBytesRead(status.getBytesRead() + file.getBytesRead());
+            switch (file.getStatus()) {
+                case QUEUED -> queued++;
+                case RUNNING -> running++;
+                case COMPLETED -> status.setCompletedFiles(status.getCompletedFiles() + 1);
+                case FAILED -> failed++;
+                case INTERRUPTED -> interrupted++;
+                case CANCELLED -> cancelled++;
+                default -> {
+                }
+            }
+            progressSum += file.getProgress();
+            if (file.getTotalBytes() > 0) {
+                totalBytes += file.getTotalBytes();
+                bytesDone += file.getProgress() / 100 * file.getTotalBytes();
+            } else {
+                sizesKnown = false;
+            }
+        }
+        status.setFailedFiles(failed + interrupted + cancelled);
+
+        if (running > 0 || (queued > 0 && queued < files.size())) {
+            status.setStatus(JobStatus.Status.RUNNING);
+        } else if (queued > 0) {
+            status.setStatus(JobStatus.Status.QUEUED);
+        } else if (status.getCompletedFiles() == files.size()) {
+            status.setStatus(JobStatus.Status.COMPLETED);
+        } else {
+            if (failed > 0) {
+                status.setStatus(JobStatus.Status.FAILED);
+            } else {
+                status.setStatus(interrupted > 0 ? JobStatus.Status.INTERRUPTED : JobStatus.Status.CANCELLED);
+            }
+            status.setErrorMessage(status.getFailedFiles() + " of " + files.size() + " file(s) did not complete");
+        }
+
+        if (status.getStatus() == JobStatus.Status.COMPLETED) {
+            status.setTotalRecords(status.getRecordsProcessed());
+            status.setProgress(100.0);
+            status.setEstimatedRemainingMillis(0);
+        } else {
+            double progress = sizesKnown && totalBytes > 0 ? bytesDone / totalBytes * 100 : progressSum / files.size();
+            status.setProgress(progress);
+            if (sizesKnown) {
+                status.setTotalBytes(totalBytes);
+            }
+            if (status.getStatus() == JobStatus.Status.RUNNING && progress > 0) {
+                long elapsedMillis = System.currentTimeMillis() - startTime;
+                status.setEstimatedRemainingMillis((long) (elapsedMillis * (100 - progress) / progress));
+            }
+        }
+        return status;
+    }
+
+    /**
+     * Job listed in the job history.
+     */
+    public record JobSummary(String jobId, String filePath, String loadMode, JobStatus status) {
+    }
+
+    /**
+     * File of a directory job waiting for its turn.
+     */
+    private record PendingFile(String jobId, String path, LoadOptions options) {
+    }
+
+    /**
+     * Schedules the file jobs of a directory job, at most {@code parallelism} at a time.
+     */
+    @Getter
+    private static final class DirectoryJob {
+
+        private final String jobId;
+        private final long startTime;
+        private final List<String> fileJobIds;
+        private final RowRateLimiter rateLimiter; // shared by the file jobs
+        @Getter(AccessLevel.NONE)
+        private final Deque<PendingFile> pending;
+        @Getter(AccessLevel.NONE)
+        private final int parallelism;
+        @Getter(AccessLevel.NONE)
+        private int running;
+
+        DirectoryJob(String jobId, long startTime, List<String> fileJobIds, Deque<PendingFile> pending, int parallelism,
+                     RowRateLimiter rateLimiter) {
+            this.jobId = jobId;
+            this.startTime = startTime;
+            this.fileJobIds = fileJobIds;
+            this.rateLimiter = rateLimiter;
+            this.pending = pending;
+            this.parallelism = Math.max(parallelism, 1);
+        }
+
+        /**
+         * @return The next file to start, or {@code null} if none is pending or the job is at its parallelism
+         */
+        synchronized PendingFile claim() {
+            if (running >= parallelism || pending.isEmpty()) {
+                return null;
+            }
+            running++;
+            return pending.poll();
+        }
+
+        /**
+         * @return Whether the released file was the last one
+         */
+        synchronized boolean release() {
+            running--;
+            return running == 0 && pending.isEmpty();
+        }
     }
 
     /**
      * Data class for tracking job status.
+     * <p>
+     * A status is written by the threads running its job and read by request threads, so every
+     * field is volatile. The progress counters are atomic and only move forward, since writer
+     * threads report committed batches concurrently and not necessarily in order.
      */
-    @Data
+    @Getter
+    @Setter
     public static class JobStatus {
-        public enum Status { QUEUED, RUNNING, COMPLETED, FAILED, NOT_FOUND }
+        public enum Status { QUEUED, RUNNING, COMPLETED, FAILED, INTERRUPTED, CANCELLED, NOT_FOUND }
 
-        private Status status;
-        private int recordsProcessed;
-        private int totalRecords;
-        private long startTime;
-        private String errorMessage;
-        private double progress; // 0-100 percentage
+        private static final Set<Status> ENDED = Set.of(Status.COMPLETED, Status.FAILED, Status.INTERRUPTED, Status.CANCELLED);
+
+        private volatile Status status;
+        private final AtomicInteger recordsProcessed = new AtomicInteger();
+        private volatile int totalRecords;
+        private volatile long startTime;
+        private volatile long endTime; // when the job ended; 0 while queued or running
+        private volatile String errorMessage;
+        private volatile double progress; // 0-100 percentage, derived from bytes read
+        private final AtomicLong bytesRead = new AtomicLong();
+        private volatile long totalBytes; // 0 while unknown
+        private volatile long estimatedRemainingMillis = -1; // -1 until an estimate is available
+        private volatile int insertedRecords;
+        private volatile int updatedRecords;
+        private volatile int unchangedRecords; // matched the stored content hash and were not rewritten
+        private volatile int duplicateRecords; // superseded by a later record with the same VIN and not written
+        private volatile int rejectedRecords; // refused by the database and recorded in the reject file
+        private volatile String rejectFile; // created on the first rejected row
+        private volatile int deletedRecords; // vehicles a snapshot sync deleted because the file no longer lists them
+        private volatile String removedFile; // VINs deleted by a snapshot sync, set once one was deleted
+        private volatile CsvProfile profile; // column statistics of a dry run; kept in memory only
+        private final AtomicLong checkpointRecords = new AtomicLong(); // leading records of the file that are all committed
+        private volatile int currentBatchSize; // 0 unless the batch size adapts to commit latency
+        private final AtomicInteger batchSizeAdjustments = new AtomicInteger();
+        private volatile long maxRowsPerSecond; // 0 for no limit
+        private volatile String parentJobId; // directory job this file job belongs to, if any
+        private volatile String worker; // instance running or holding the job; null while waiting in the shared queue
+        private volatile int fileCount; // files of a directory job; 0 for a single-file job
+        private volatile int completedFiles;
+        private volatile int failedFiles; // failed, interrupted or cancelled
+        private volatile List<String> fileJobIds; // file jobs of a directory job, ordered by file path
 
         public JobStatus(Status status, int recordsProcessed, long startTime) {
-            this.status = status;
-            this.recordsProcessed = recordsProcessed;
+            setStatus(status);
+            this.recordsProcessed.set(recordsProcessed);
             this.startTime = startTime > 0 ? startTime : System.currentTimeMillis();
             this.progress = 0.0;
         }
+
+        /**
+         * Sets the state, recording when the job ended once it reaches a final one.
+         */
+        public void setStatus(Status status) {
+            this.status = status;
+            this.endTime = ENDED.contains(status) ? System.currentTimeMillis() : 0;
+        }
+
+        /**
+         * @return Whether the job has completed, failed, been interrupted or been cancelled
+         */
+        public boolean isEnded() {
+            return ENDED.contains(status);
+        }
+
+        public int getRecordsProcessed() {
+            return recordsProcessed.get();
+        }
+
+        public void setRecordsProcessed(int recordsProcessed) {
+            this.recordsProcessed.set(recordsProcessed);
+        }
+
+        public long getBytesRead() {
+            return bytesRead.get();
+        }
+
+        public void setBytesRead(long bytesRead) {
+            this.bytesRead.set(bytesRead);
+        }
+
+        public long getCheckpointRecords() {
+            return checkpointRecords.get();
+        }
+
+        public void setCheckpointRecords(long checkpointRecords) {
+            this.checkpointRecords.set(checkpointRecords);
+        }
+
+        public int getBatchSizeAdjustments() {
+            return batchSizeAdjustments.get();
+        }
+
+        public void setBatchSizeAdjustments(int batchSizeAdjustments) {
+            this.batchSizeAdjustments.set(batchSizeAdjustments);
+        }
+
+        /**
+         * Records the progress reported after a committed batch; neither count moves back.
+         *
+         * @param processed Records processed so far
+         * @param read Input bytes consumed so far
+         * @return Input bytes consumed, the furthest reported
+         */
+        public long advance(int processed, long read) {
+            recordsProcessed.accumulateAndGet(processed, Math::max);
+            return bytesRead.accumulateAndGet(read, Math::max);
+        }
+
+        /**
+         * Records a committed checkpoint; it does not move back.
+         *
+         * @param committedRecords Leading data records of the file that are all committed
+         */
+        public void advanceCheckpoint(long committedRecords) {
+            checkpointRecords.accumulateAndGet(committedRecords, Math::max);
+        }
+
+        public void incrementBatchSizeAdjustments() {
+            batchSizeAdjustments.incrementAndGet();
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,276 @@
+package com.ev.apiservice.service;
+
+import com.ev.apiservice.service.DataLoaderJobService.JobStatus;
+import jakarta.persistence.EntityNotFoundException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Pushes the progress of data loading jobs to server-sent event subscribers, so dashboards do
+ * not have to poll the job status endpoint.
+ * <p>
+ * One scheduled publisher reads the status of each watched job every
+ * {@code ev.loader.events.interval-millis} (500 ms by default) and sends each subscriber the
+ * fields that changed since its last event, at most once per the subscriber's own interval.
+ * The status only changes at batch boundaries, so every event is one. Events are written on the
+ * {@code eventExecutor}, one at a time per subscriber: a client that stops reading holds up
+ * neither a parser nor a writer, nor the scheduler, and gets the fields that changed meanwhile
+ * once it reads again. A job this instance
+ * runs is read straight from the {@link JobStatusRegistry}; a directory job, or one running on
+ * another instance, is followed through the job service and its persisted record.
+ * <p>
+ * Events are {@code progress} with the changed fields (all of them in the first event), and
+ * {@code done} with the final status once the job has ended, after which the stream closes.
+ */
+@Service
+@Slf4j
+public class JobEventService {
+
+    public static final long DEFAULT_INTERVAL_MILLIS = 500;
+
+    /**
+     * Idle time after which a comment is sent, so proxies do not close a stream waiting on a queued job.
+     */
+    static final long KEEP_ALIVE_MILLIS = 15_000;
+
+    private static final Set<JobStatus.Status> ENDED = Set.of(JobStatus.Status.COMPLETED, JobStatus.Status.FAILED,
+            JobStatus.Status.INTERRUPTED, JobStatus.Status.CANCELLED, JobStatus.Status.NOT_FOUND);
+
+    private final DataLoaderJobService jobService;
+    private final JobStatusRegistry jobStatuses;
+    private final Executor eventExecutor;
+    private final long intervalMillis;
+    private final Map<String, List<Subscriber>> subscribers = new ConcurrentHashMap<>();
+
+    public JobEventService(DataLoaderJobService jobService, JobStatusRegistry jobStatuses,
+                           @Qualifier("eventExecutor") Executor eventExecutor,
+                           @Value("${ev.loader.events.interval-millis:" + DEFAULT_INTERVAL_MILLIS + "}") long intervalMillis) {
+        this.jobService = jobService;
+        this.jobStatuses = jobStatuses;
+        this.eventExecutor = eventExecutor;
+        this.intervalMillis = intervalMillis;
+    }
+
+    /**
+     * Opens an event stream for a job. It starts with the job's full status; a job that has
+     * already ended gets its {@code done} event right away.
+     *
+     * @param jobId The job ID
+     * @param minIntervalMillis Minimum time between two progress events; raised to the publisher's interval
+     * @return The stream, closed once the job ends
+     * @throws EntityNotFoundException if the job does not exist
+     */
+    public SseEmitter subscribe(String jobId, long minIntervalMillis) {
+        JobStatus status = jobService.getJobStatus(jobId);
+        if (status.getStatus() == JobStatus.Status.NOT_FOUND) {
+            throw new EntityNotFoundException("Data loading job not found: " + jobId);
+        }
+        // No timeout: the stream lasts as long as the job
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscriber subscriber = new Subscriber(emitter, Math.max(minIntervalMillis, intervalMillis));
+        Map<String, Object> snapshot = snapshot(status);
+        if (ENDED.contains(status.getStatus())) {
+            if (subscriber.send("done", snapshot)) {
+                emitter.complete();
+            }
+            return emitter;
+        }
+        if (!subscriber.send("progress", subscriber.delta(snapshot))) {
+            return emitter;
+        }
+        Runnable unsubscribe = () -> unsubscribe(jobId, subscriber);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+        subscribers.compute(jobId, (id, list) -> {
+            List<Subscriber> jobSubscribers = list != null ? list : new CopyOnWriteArrayList<>();
+            jobSubscribers.add(subscriber);
+            return jobSubscribers;
+        });
+        log.debug("Subscribed to events of data loading job {} every {} ms", jobId, subscriber.intervalMillis);
+        return emitter;
+    }
+
+    /**
+     * Sends each subscriber whose interval has passed the fields of its job's status that changed,
+     * and ends the streams of jobs that have ended. A subscriber still writing its last event is
+     * skipped until the next run.
+     */
+    @Scheduled(fixedDelayString = "${ev.loader.events.interval-millis:" + DEFAULT_INTERVAL_MILLIS + "}")
+    public void publish() {
+        long now = System.currentTimeMillis();
+        subscribers.forEach((jobId, jobSubscribers) -> {
+            JobStatus status = currentStatus(jobId);
+            boolean ended = ENDED.contains(status.getStatus());
+            // One snapshot serves every subscriber of the job
+            Map<String, Object> snapshot = snapshot(status);
+            for (Subscriber subscriber : jobSubscribers) {
+                if (ended) {
+                    sendAsync(subscriber, () -> {
+                        if (subscriber.send("done", snapshot)) {
+                            subscriber.emitter.complete();
+                        }
+                        unsubscribe(jobId, subscriber);
+                    });
+                } else if (now - subscriber.lastSentAt >= subscriber.intervalMillis) {
+                    sendAsync(subscriber, () -> {
+                        Map<String, Object> delta = subscriber.delta(snapshot);
+                        boolean sent = !delta.isEmpty() ? subscriber.send("progress", delta)
+                                : now - subscriber.lastSentAt < KEEP_ALIVE_MILLIS || subscriber.keepAlive();
+                        if (!sent) {
+                            unsubscribe(jobId, subscriber);
+                        }
+                    });
+                }
+            }
+        });
+    }
+
+    /**
+     * Hands a write to the event executor unless the subscriber's previous one is still running.
+     * A rejected write is tried again on the next run.
+     */
+    private void sendAsync(Subscriber subscriber, Runnable send) {
+        if (!subscriber.sending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            eventExecutor.execute(() -> {
+                try {
+                    send.run();
+                } finally {
+                    subscriber.sending.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            subscriber.sending.set(false);
+        }
+    }
+
+    /**
+     * @return Number of open event streams
+     */
+    public int getSubscriberCount() {
+        return subscribers.values().stream().mapToInt(List::size).sum();
+    }
+
+    /**
+     * Reads the registry directly rather than through the job service, whose calls are logged with
+     * the whole status; doing that every tick for every watched job would cost what polling did.
+     */
+    private JobStatus currentStatus(String jobId) {
+        JobStatus status = jobStatuses.get(jobId);
+        return status != null ? status : jobService.getJobStatus(jobId);
+    }
+
+    private void unsubscribe(String jobId, Subscriber subscriber) {
+        subscribers.computeIfPresent(jobId, (id, list) -> {
+            list.remove(subscriber);
+            return list.isEmpty() ? null : list;
+        });
+    }
+
+    /**
+     * The fields of a job status sent to subscribers, named as in the job status response.
+     */
+    static Map<String, Object> snapshot(JobStatus status) {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put("status", status.getStatus().name());
+        snapshot.put("recordsProcessed", status.getRecordsProcessed());
+        snapshot.put("progress", status.getProgress());
+        snapshot.put("bytesRead", status.getBytesRead());
+        snapshot.put("totalBytes", status.getTotalBytes());
+        snapshot.put("estimatedRemainingSeconds",
+                status.getEstimatedRemainingMillis() >= 0 ? status.getEstimatedRemainingMillis() / 1000 : -1);
+        snapshot.put("insertedRecords", status.getInsertedRecords());
+        snapshot.put("updatedRecords", status.getUpdatedRecords());
+        snapshot.put("unchangedRecords", status.getUnchangedRecords());
+        snapshot.put("duplicateRecords", status.getDuplicateRecords());
+        snapshot.put("rejectedRecords", status.getRejectedRecords());
+        snapshot.put("deletedRecords", status.getDeletedRecords());
+        snapshot.put("checkpointRecords", status.getCheckpointRecords());
+        snapshot.put("currentBatchSize", status.getCurrentBatchSize());
+        snapshot.put("maxRowsPerSecond", status.getMaxRowsPerSecond());
+        if (status.getFileCount() > 0) {
+            snapshot.put("completedFiles", status.getCompletedFiles());
+            snapshot.put("failedFiles", status.getFailedFiles());
+        }
+        snapshot.put("worker", status.getWorker());
+        snapshot.put("errorMessage", status.getErrorMessage());
+        return snapshot;
+    }
+
+    /**
+     * One open stream and what it was last sent. After the first event, only one write at a time
+     * runs on the event executor.
+     */
+    private static final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final long intervalMillis;
+        private final Map<String, Object> sent = new LinkedHashMap<>();
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile long lastSentAt;
+        private long eventId;
+
+        Subscriber(SseEmitter emitter, long intervalMillis) {
+            this.emitter = emitter;
+            this.intervalMillis = intervalMillis;
+        }
+
+        /**
+         * @return The fields of the snapshot that differ from what this subscriber was last sent
+         */
+        synchronized Map<String, Object> delta(Map<String, Object> snapshot) {
+            Map<String, Object> delta = new LinkedHashMap<>();
+            snapshot.forEach((field, value) -> {
+                if (!sent.containsKey(field) || !Objects.equals(sent.get(field), value)) {
+                    delta.put(field, value);
+                }
+            });
+            sent.putAll(delta);
+            return delta;
+        }
+
+        /**
+         * @return Whether the event was sent; {@code false} once the client has gone
+         */
+        synchronized boolean send(String name, Map<String, Object> data) {
+            try {
+                emitter.send(SseEmitter.event().id(Long.toString(++eventId)).name(name).data(data, MediaType.APPLICATION_JSON));
+                lastSentAt = System.currentTimeMillis();
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Event stream closed: {}", e.getMessage());
+                return false;
+            }
+        }
+
+        synchronized boolean keepAlive() {
+            try {
+                emitter.send(SseEmitter.event().comment("keep-alive"));
+                lastSentAt = System.currentTimeMillis();
+                return true;
+            } catch (IOException | IllegalStateException e) {
+                return false;
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.ev.apiservice.service;
+
+import com.ev.apiservice.service.DataLoaderJobService.JobStatus;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory statuses of the jobs this instance runs, bounded in time and size.
+ * <p>
+ * Queued and running jobs are always kept. A job that has ended is kept for
+ * {@code ev.loader.jobs.retention-millis} (1 hour by default) and, while more than
+ * {@code ev.loader.jobs.max-retained} jobs (1000 by default) are kept, evicted earlier, the
+ * longest ended first. An evicted job is still answered from its persisted record; only the
+ * fields that are never persisted, such as the profile of a dry run, are lost with it.
+ */
+@Component
+@Slf4j
+public class JobStatusRegistry {
+
+    public static final long DEFAULT_RETENTION_MILLIS = 3_600_000;
+    public static final int DEFAULT_MAX_RETAINED = 1_000;
+
+    /**
+     * Time an ended job is kept even over the bound, so the thread that ended it can still persist it.
+     */
+    static final long GRACE_MILLIS = 5_000;
+
+    private final Map<String, JobStatus> statuses = new ConcurrentHashMap<>();
+    private final long retentionMillis;
+    private final int maxRetained;
+
+    public JobStatusRegistry(
+            @Value("${ev.loader.jobs.retention-millis:" + DEFAULT_RETENTION_MILLIS + "}") long retentionMillis,
+            @Value("${ev.loader.jobs.max-retained:" + DEFAULT_MAX_RETAINED + "}") int maxRetained) {
+        this.retentionMillis = Math.max(retentionMillis, GRACE_MILLIS);
+        this.maxRetained = Math.max(maxRetained, 1);
+    }
+
+    /**
+     * @param jobId The job ID
+     * @return The status of the job, or {@code null} if it is not run by this instance or was evicted
+     */
+    public JobStatus get(String jobId) {
+        return statuses.get(jobId);
+    }
+
+    public boolean contains(String jobId) {
+        return statuses.containsKey(jobId);
+    }
+
+    /**
+     * Adds or replaces the status of a job, evicting ended jobs if the registry is over its bound.
+     *
+     * @param jobId The job ID
+     * @param status The status
+     * @return IDs of the jobs evicted to make room
+     */
+    public List<String> put(String jobId, JobStatus status) {
+        statuses.put(jobId, status);
+        return statuses.size() > maxRetained ? evict(System.currentTimeMillis()) : List.of();
+    }
+
+    public void remove(String jobId) {
+        statuses.remove(jobId);
+    }
+
+    /**
+     * @return IDs of the jobs queued or running on this instance
+     */
+    public List<String> activeJobIds() {
+        return statuses.entrySet().stream()
+                .filter(entry -> !entry.getValue().isEnded())
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public int size() {
+        return statuses.size();
+    }
+
+    /**
+     * Evicts the ended jobs past their retention, then the longest ended ones while over the bound.
+     *
+     * @param now Current time in milliseconds
+     * @return IDs of the evicted jobs
+     */
+    public synchronized List<String> evict(long now) {
+        List<Map.Entry<String, JobStatus>> ended = statuses.entrySet().stream()
+                .filter(entry -> entry.getValue().isEnded())
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().getEndTime()))
+                .toList();
+        int excess = statuses.size() - maxRetained;
+        List<String> evicted = new ArrayList<>();
+        for (Map.Entry<String, JobStatus> entry : ended) {
+            long age = now - entry.getValue().getEndTime();
+            // Oldest first: once one is kept, so are the rest
+            if (age < retentionMillis && (excess <= 0 || age < GRACE_MILLIS)) {
+                break;
+            }
+            // A resumed job has a new status under the same ID; keep that one
+            if (statuses.remove(entry.getKey(), entry.getValue())) {
+                evicted.add(entry.getKey());
+                excess--;
+            }
+        }
+        if (!evicted.isEmpty()) {
+            log.debug("Evicted {} ended data loading job(s); {} kept", evicted.size(), statuses.size());
+        }
+        return evicted;
+    }
+}
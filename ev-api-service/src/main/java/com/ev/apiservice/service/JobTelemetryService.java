@@ -0,0 +1,100 @@
+package com.ev.apiservice.service;
+
+import com.ev.apiservice.service.loader.JobTelemetry;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the per-job meters ({@link JobTelemetry}) of the loads running on this instance.
+ * <p>
+ * Meters tagged by job would grow the registry with every job, so they are removed again once
+ * the job has ended and {@code ev.loader.telemetry.retention-millis} (5 minutes by default) has
+ * passed, long enough for a few scrapes to see the final values.
+ */
+@Service
+@Slf4j
+public class JobTelemetryService {
+
+    public static final long DEFAULT_RETENTION_MILLIS = 300_000;
+
+    private final MeterRegistry meterRegistry;
+    private final long retentionMillis;
+    private final Map<String, JobTelemetry> running = new ConcurrentHashMap<>();
+    private final Map<String, EndedJob> ended = new ConcurrentHashMap<>();
+
+    public JobTelemetryService(MeterRegistry meterRegistry,
+                               @Value("${ev.loader.telemetry.retention-millis:" + DEFAULT_RETENTION_MILLIS + "}") long retentionMillis) {
+        this.meterRegistry = meterRegistry;
+        this.retentionMillis = retentionMillis;
+    }
+
+    /**
+     * Registers the meters of a job that starts running. The meters of an earlier run of the job
+     * are removed first, so a resumed job counts from zero.
+     *
+     * @param jobId The job ID
+     * @return The job's meters, to pass to its load
+     */
+    public JobTelemetry start(String jobId) {
+        EndedJob previous = ended.remove(jobId);
+        if (previous != null) {
+            previous.telemetry().close();
+        }
+        JobTelemetry telemetry = new JobTelemetry(meterRegistry, jobId);
+        running.put(jobId, telemetry);
+        return telemetry;
+    }
+
+    /**
+     * Marks the meters of a job as ended; they are removed after the retention time.
+     *
+     * @param jobId The job ID
+     */
+    public void end(String jobId) {
+        JobTelemetry telemetry = running.remove(jobId);
+        if (telemetry != null) {
+            ended.put(jobId, new EndedJob(telemetry, System.currentTimeMillis()));
+        }
+    }
+
+    /**
+     * @return Meters of the jobs running on this instance
+     */
+    public Collection<JobTelemetry> getRunning() {
+        return List.copyOf(running.values());
+    }
+
+    /**
+     * @param jobId The job ID
+     * @return Meters of the job if it is running on this instance, else {@code null}
+     */
+    public JobTelemetry getRunning(String jobId) {
+        return running.get(jobId);
+    }
+
+    /**
+     * Removes the meters of jobs that ended more than the retention time ago.
+     * Runs every {@code ev.loader.telemetry.evict-millis}, 1 minute by default.
+     */
+    @Scheduled(fixedDelayString = "${ev.loader.telemetry.evict-millis:60000}")
+    public void removeEnded() {
+        long cutoff = System.currentTimeMillis() - retentionMillis;
+        ended.forEach((jobId, job) -> {
+            if (job.endTime() <= cutoff && ended.remove(jobId, job)) {
+                job.telemetry().close();
+                log.debug("Removed the meters of data loading job {}", jobId);
+            }
+        });
+    }
+
+    private record EndedJob(JobTelemetry telemetry, long endTime) {
+    }
+}
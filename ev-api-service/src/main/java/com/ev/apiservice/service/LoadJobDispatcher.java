@@ -0,0 +1,324 @@
+package com.ev.apiservice.service;
+
+import com.ev.apiservice.exception.JobStateConflictException;
+import com.ev.apiservice.model.LoadJob;
+import com.ev.apiservice.repository.LoadJobQueue;
+import com.ev.apiservice.repository.LoadJobRepository;
+import com.ev.apiservice.service.DataLoaderJobService.JobStatus;
+import com.ev.apiservice.service.loader.LoadOptions;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Instant;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs the queued data loading jobs of this instance and holds the leases on them.
+ * <p>
+ * Jobs reading a file by path wait in a queue shared by all instances ({@link LoadJobQueue}):
+ * this instance claims the oldest ones while it has free worker slots and holds a lease on them
+ * while they run, so ingest capacity grows with the number of instances, a burst of jobs waits
+ * in the table instead of overflowing a task executor, and the job of a stopped instance is
+ * picked up by another one. Uploads, and resumed uploads, can only run where their file is; they
+ * wait in a local queue that is served first. Jobs this instance runs outside the queues, such
+ * as directory and streamed jobs, are leased to it from the start.
+ * <p>
+ * While a job runs, its leases are renewed and its checkpoints persisted here; a job whose lease
+ * another instance took over is stopped through {@link DataLoaderJobService#stopTakenOver(String)}.
+ */
+@Service
+@Slf4j
+public class LoadJobDispatcher {
+
+    /**
+     * Default number of queued jobs an instance runs at the same time, the core size of the task executor.
+     */
+    public static final int DEFAULT_WORKER_SLOTS = 5;
+
+    /**
+     * Default duration of a lease; renewed every {@code ev.loader.queue.renew-millis}, 10 s by default.
+     */
+    public static final long DEFAULT_LEASE_MILLIS = 30_000;
+
+    /**
+     * Default number of times a shared job is claimed before it is given up on.
+     */
+    public static final int DEFAULT_MAX_ATTEMPTS = 3;
+
+    private static final Set<JobStatus.Status> ACTIVE = Set.of(JobStatus.Status.QUEUED, JobStatus.Status.RUNNING);
+
+    private final Map<String, Long> persistedCheckpoints = new ConcurrentHashMap<>(); // last checkpoint written per running job
+    private final Deque<PendingJob> localQueue = new ConcurrentLinkedDeque<>(); // jobs only this instance can run
+    private final AtomicInteger runningJobs = new AtomicInteger(); // started from either queue and not finished
+    private final DataLoaderJobService jobService;
+    private final CsvDataLoaderService csvDataLoaderService;
+    private final AsyncService asyncService;
+    private final LoadJobRepository loadJobRepository;
+    private final LoadJobQueue jobQueue;
+    private final JobStatusRegistry jobStatuses;
+    private final int workerSlots;
+    private final long leaseMillis;
+    private final int maxAttempts;
+    @Getter
+    private final String instanceId = newInstanceId();
+
+    @Autowired
+    public LoadJobDispatcher(@Lazy DataLoaderJobService jobService, CsvDataLoaderService csvDataLoaderService,
+                             @Lazy AsyncService asyncService, LoadJobRepository loadJobRepository, LoadJobQueue jobQueue,
+                             JobStatusRegistry jobStatuses,
+                             @Value("${ev.loader.queue.worker-slots:" + DEFAULT_WORKER_SLOTS + "}") int workerSlots,
+                             @Value("${ev.loader.queue.lease-millis:" + DEFAULT_LEASE_MILLIS + "}") long leaseMillis,
+                             @Value("${ev.loader.queue.max-attempts:" + DEFAULT_MAX_ATTEMPTS + "}") int maxAttempts) {
+        this.jobService = jobService;
+        this.csvDataLoaderService = csvDataLoaderService;
+        this.asyncService = asyncService;
+        this.loadJobRepository = loadJobRepository;
+        this.jobQueue = jobQueue;
+        this.jobStatuses = jobStatuses;
+        this.workerSlots = Math.max(workerSlots, 1);
+        this.leaseMillis = leaseMillis;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Queues a job only this instance can run, such as an upload; it starts on the next
+     * {@link #dispatch()} with a free worker slot, before any job of the shared queue.
+     *
+     * @param jobId The job ID, already leased to this instance
+     * @param path Path of the file to load
+     * @param options Options of the load
+     */
+    public void enqueueLocal(String jobId, String path, LoadOptions options) {
+        localQueue.add(new PendingJob(jobId, path, options));
+    }
+
+    /**
+     * Leases a new job this instance runs itself to this instance from the start.
+     *
+     * @param job The job record, not saved yet
+     * @param status The job's status
+     */
+    public void holdLease(LoadJob job, JobStatus status) {
+        job.setLeaseOwner(instanceId);
+        job.setLeaseExpiresAt(Instant.now().plusMillis(leaseMillis));
+        status.setWorker(instanceId);
+    }
+
+    /**
+     * Leases existing jobs that this instance resumes itself.
+     *
+     * @param jobIds The job IDs
+     */
+    public void lease(List<String> jobIds) {
+        jobQueue.lease(instanceId, jobIds, leaseMillis);
+    }
+
+    /**
+     * Puts a job back into the shared queue, for whichever instance claims it first.
+     *
+     * @param jobId The job ID
+     */
+    public void requeue(String jobId) {
+        jobQueue.requeue(jobId);
+    }
+
+    /**
+     * Cancels a job that waits in the shared queue and no instance has claimed.
+     *
+     * @param jobId The job ID
+     * @return Whether the job was waiting and is now cancelled
+     */
+    public boolean cancelQueued(String jobId) {
+        return jobQueue.cancelQueued(jobId);
+    }
+
+    /**
+     * Starts queued jobs while this instance has free worker slots: first the uploads and resumed
+     * uploads only this instance can run, then the oldest jobs claimed from the shared queue.
+     * Runs after each new job and every {@code ev.loader.queue.poll-millis}, 1 s by default.
+     */
+    @Scheduled(fixedDelayString = "${ev.loader.queue.poll-millis:1000}")
+    public synchronized void dispatch() {
+        PendingJob pending;
+        while (runningJobs.get() < workerSlots && (pending = localQueue.poll()) != null) {
+            if (!run(pending)) {
+                localQueue.addFirst(pending);
+                return;
+            }
+        }
+        int free = workerSlots - runningJobs.get();
+        if (free <= 0) {
+            return;
+        }
+        List<String> claimed;
+        try {
+            claimed = jobQueue.claim(instanceId, free, leaseMillis, maxAttempts);
+        } catch (DataAccessException e) {
+            log.warn("Could not claim queued data loading jobs: {}", e.getMessage());
+            return;
+        }
+        claimed.forEach(this::startClaimed);
+    }
+
+    private void startClaimed(String jobId) {
+        try {
+            LoadJob job = loadJobRepository.findById(jobId).orElse(null);
+            if (job == null) {
+                return;
+            }
+            try {
+                DataLoaderJobService.verifyFileUnchanged(job);
+            } catch (JobStateConflictException e) {
+                log.error("Could not start claimed data loading job {}: {}", jobId, e.getMessage());
+                job.setStatus(JobStatus.Status.FAILED.name());
+                job.setErrorMessage(e.getMessage());
+                job.setUpdatedAt(Instant.now());
+                loadJobRepository.save(job);
+                return;
+            }
+            if (job.getAttempts() > 1) {
+                // Reclaimed after the lease of the previous attempt's instance expired
+                dropLeftoverTables(jobId);
+            }
+            LoadOptions options = jobService.resumeClaimed(job);
+            if (run(new PendingJob(jobId, job.getFilePath(), options))) {
+                log.info("Claimed data loading job {} (attempt {}) from record {}: {}", jobId, job.getAttempts(),
+                        job.getCheckpointRecords(), job.getFilePath());
+            } else {
+                // Left for the next poll, here or on another instance
+                jobStatuses.remove(jobId);
+                jobQueue.release(instanceId, jobId);
+            }
+        } catch (DataAccessException e) {
+            // The lease runs out and the job is claimed again
+            log.warn("Could not start claimed data loading job {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    /**
+     * Hands a job to the task executor, taking a worker slot until it ends.
+     *
+     * @return Whether the job was accepted
+     */
+    private boolean run(PendingJob pending) {
+        runningJobs.incrementAndGet();
+        try {
+            asyncService.executeLoadDataAsync(pending.jobId(), pending.path(), pending.options())
+                    .whenComplete((records, error) -> runningJobs.decrementAndGet());
+            return true;
+        } catch (RuntimeException e) {
+            // E.g. the task executor's queue is full with directory file jobs
+            runningJobs.decrementAndGet();
+            log.warn("Could not start data loading job {} yet: {}", pending.jobId(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Persists the checkpoint of each job running on this instance whose checkpoint advanced since
+     * it was last persisted. Batches only advance the in-memory checkpoint, so the writer threads
+     * never wait on this update; a crash loses at most one interval of checkpoints, which a resume
+     * repeats. Runs every {@code ev.loader.checkpoint.persist-millis}, 1 s by default.
+     */
+    @Scheduled(fixedDelayString = "${ev.loader.checkpoint.persist-millis:1000}")
+    public void persistCheckpoints() {
+        List<String> active = jobStatuses.activeJobIds();
+        persistedCheckpoints.keySet().retainAll(active);
+        for (String jobId : active) {
+            JobStatus status = jobStatuses.get(jobId);
+            if (status == null || status.getCheckpointRecords() <= persistedCheckpoints.getOrDefault(jobId, 0L)) {
+                continue;
+            }
+            long checkpointRecords = status.getCheckpointRecords();
+            try {
+                if (loadJobRepository.updateCheckpoint(jobId, instanceId, checkpointRecords, status.getRecordsProcessed(),
+                        Instant.now()) == 0) {
+                    // Its progress belongs to the new owner now
+                    jobService.stopTakenOver(jobId);
+                    continue;
+                }
+                persistedCheckpoints.put(jobId, checkpointRecords);
+            } catch (DataAccessException e) {
+                // A missed checkpoint only means a resume repeats more records
+                log.warn("Could not record checkpoint {} for job {}: {}", checkpointRecords, jobId, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Renews the leases on the jobs queued or running on this instance, and ends the jobs of
+     * instances that stopped renewing theirs, dropping the work tables those left behind. A job
+     * this instance could not renew in time has been taken over by another instance; it is
+     * stopped here so it does not run twice.
+     * Runs every {@code ev.loader.queue.renew-millis}, 10 s by default, well within the lease, on
+     * a scheduler of its own, so no other scheduled task can hold it up.
+     */
+    @Scheduled(fixedDelayString = "${ev.loader.queue.renew-millis:10000}", scheduler = "leaseScheduler")
+    public void renewLeases() {
+        List<String> held = jobStatuses.activeJobIds();
+        try {
+            Set<String> renewed = new HashSet<>(jobQueue.renew(instanceId, held, leaseMillis));
+            for (String jobId : held) {
+                JobStatus status = jobStatuses.get(jobId);
+                // A job that ended since is no longer renewed either
+                if (!renewed.contains(jobId) && status != null && ACTIVE.contains(status.getStatus())) {
+                    jobService.stopTakenOver(jobId);
+                }
+            }
+            List<String> ended = jobQueue.expireLeases(maxAttempts);
+            if (!ended.isEmpty()) {
+                log.warn("Ended {} data loading job(s) whose instance stopped renewing their lease", ended.size());
+                ended.forEach(this::dropLeftoverTables);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not renew data loading job leases: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Drops the work tables of a job whose previous instance stopped while running it.
+     */
+    private void dropLeftoverTables(String jobId) {
+        try {
+            int dropped = csvDataLoaderService.dropLeftoverTables(jobId);
+            if (dropped > 0) {
+                log.info("Dropped {} table(s) left behind by data loading job {}", dropped, jobId);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Could not drop the tables left behind by data loading job {}: {}", jobId, e.getMessage());
+        }
+    }
+
+    private static String newInstanceId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "unknown";
+        }
+        // A restarted instance does not take over the leases of its previous run
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    /**
+     * Job waiting for a worker slot of this instance.
+     */
+    private record PendingJob(String jobId, String path, LoadOptions options) {
+    }
+}
@@ -0,0 +1,61 @@
+package com.ev.apiservice.service.loader;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps VINs unique within one batch, with the last record winning.
+ * <p>
+ * PostgreSQL rejects an {@code INSERT ... ON CONFLICT DO UPDATE} that touches the same row twice,
+ * so a batch must never carry a VIN twice. This is the fallback for inputs that cannot be scanned
+ * ahead by {@link VinDeduplicator}, such as request bodies, and a safety net for those that can.
+ * Across batches, a later batch still overwrites an earlier one.
+ */
+public class BatchDeduplicator {
+
+    private final VinTable positions = new VinTable(1024);
+    private final Map<String, Integer> unpackedPositions = new HashMap<>();
+    private int duplicates;
+
+    /**
+     * Adds a row to the batch, or replaces the earlier row with the same VIN.
+     *
+     * @param batch Batch being filled; only modified through this method until {@link #clear()}
+     * @param row The row
+     * @return {@code true} if the row was added, {@code false} if it replaced a duplicate
+     */
+    public boolean add(List<VehicleRow> batch, VehicleRow row) {
+        int position = batch.size();
+        long key = VinTable.pack(row.getVin());
+        int previous;
+        if (key != VinTable.UNPACKABLE) {
+            previous = positions.putIfAbsent(key, position);
+        } else {
+            Integer existing = unpackedPositions.putIfAbsent(row.getVin(), position);
+            previous = existing != null ? existing : -1;
+        }
+        if (previous >= 0) {
+            batch.set(previous, row);
+            duplicates++;
+            return false;
+        }
+        batch.add(row);
+        return true;
+    }
+
+    /**
+     * Forgets the rows of the current batch, before the next one is filled.
+     */
+    public void clear() {
+        positions.clear();
+        unpackedPositions.clear();
+    }
+
+    /**
+     * @return Rows replaced by a later row of the same batch so far
+     */
+    public int getDuplicates() {
+        return duplicates;
+    }
+}
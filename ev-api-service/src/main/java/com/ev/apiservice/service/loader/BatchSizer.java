@@ -0,0 +1,127 @@
+package com.ev.apiservice.service.loader;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides how many rows go into each batch of a load.
+ * <p>
+ * A fixed sizer always returns the requested size. An adaptive sizer measures how long each batch
+ * transaction takes and steers the batch size toward a target duration: larger batches amortize
+ * round trips and commits, while the target bounds how long a batch holds its row locks. The
+ * per-row cost is smoothed over recent batches, each step at most halves or doubles the size, and
+ * changes under 10% are ignored so the size does not oscillate.
+ * <p>
+ * Writers report commits concurrently; the parser reads the current size when it fills a buffer.
+ */
+@Slf4j
+public class BatchSizer {
+
+    public static final int MIN_ADAPTIVE_BATCH_SIZE = 100;
+    public static final int MAX_ADAPTIVE_BATCH_SIZE = 20_000;
+
+    private static final double SMOOTHING = 0.3;
+    private static final double HYSTERESIS = 0.1;
+
+    private final long targetNanos; // 0 for a fixed size
+    private final LoadMetrics metrics;
+    private final SizeListener listener;
+    private volatile int batchSize;
+    // Guarded by this
+    private double nanosPerRow = Double.NaN;
+    private int adjustments;
+
+    private BatchSizer(int batchSize, long targetNanos, LoadMetrics metrics, SizeListener listener) {
+        this.batchSize = batchSize;
+        this.targetNanos = targetNanos;
+        this.metrics = metrics;
+        this.listener = listener;
+    }
+
+    /**
+     * @param batchSize Rows per batch
+     * @return A sizer that never changes the batch size
+     */
+    public static BatchSizer fixed(int batchSize) {
+        return new BatchSizer(batchSize, 0, null, null);
+    }
+
+    /**
+     * @param initialBatchSize Rows in the first batch, clamped to the adaptive range
+     * @param targetMillis Target duration of one batch transaction
+     * @param metrics Receives the current size and every adjustment
+     * @param listener Called with the new size after each adjustment, may be {@code null}
+     * @return A sizer that adapts the batch size to the measured commit latency
+     */
+    public static BatchSizer adaptive(int initialBatchSize, long targetMillis, LoadMetrics metrics, SizeListener listener) {
+        int initial = Math.min(Math.max(initialBatchSize, MIN_ADAPTIVE_BATCH_SIZE), MAX_ADAPTIVE_BATCH_SIZE);
+        BatchSizer sizer = new BatchSizer(initial, TimeUnit.MILLISECONDS.toNanos(targetMillis), metrics, listener);
+        metrics.getAdaptiveBatchSize().set(initial);
+        return sizer;
+    }
+
+    /**
+     * @return Rows to put in the next batch
+     */
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public boolean isAdaptive() {
+        return targetNanos > 0;
+    }
+
+    /**
+     * @return Number of times the batch size has been changed
+     */
+    public synchronized int getAdjustments() {
+        return adjustments;
+    }
+
+    /**
+     * Records the duration of one committed batch transaction and adjusts the batch size.
+     *
+     * @param rows Rows in the batch
+     * @param elapsedNanos Duration of the transaction, including the commit
+     */
+    public void onBatchCommitted(int rows, long elapsedNanos) {
+        if (!isAdaptive() || rows == 0) {
+            return;
+        }
+        int previous;
+        int next;
+        synchronized (this) {
+            double observed = (double) elapsedNanos / rows;
+            nanosPerRow = Double.isNaN(nanosPerRow) ? observed : SMOOTHING * observed + (1 - SMOOTHING) * nanosPerRow;
+
+            previous = batchSize;
+            double ideal = targetNanos / Math.max(nanosPerRow, 1.0);
+            double bounded = Math.min(Math.max(ideal, previous / 2.0), previous * 2.0);
+            next = (int) Math.min(Math.max(Math.round(bounded), MIN_ADAPTIVE_BATCH_SIZE), MAX_ADAPTIVE_BATCH_SIZE);
+            if (Math.abs(next - previous) < previous * HYSTERESIS) {
+                return;
+            }
+            batchSize = next;
+            adjustments++;
+        }
+        metrics.getAdaptiveBatchSize().set(next);
+        (next > previous ? metrics.getBatchSizeIncreases() : metrics.getBatchSizeDecreases()).increment();
+        log.debug("Batch size {} -> {} ({} ms for {} rows, target {} ms)", previous, next,
+                TimeUnit.NANOSECONDS.toMillis(elapsedNanos), rows, TimeUnit.NANOSECONDS.toMillis(targetNanos));
+        if (listener != null) {
+            listener.onBatchSizeChanged(next);
+        }
+    }
+
+    /**
+     * Receives batch size adjustments.
+     */
+    public interface SizeListener {
+
+        /**
+         * @param batchSize The new batch size
+         */
+        void onBatchSizeChanged(int batchSize);
+    }
+}
@@ -0,0 +1,47 @@
+package com.ev.apiservice.service.loader;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Input stream over a (memory-mapped) byte buffer that adds consumed bytes to a shared counter.
+ */
+class ByteBufferInputStream extends InputStream {
+
+    private final ByteBuffer buffer;
+    private final AtomicLong bytesRead;
+
+    ByteBufferInputStream(ByteBuffer buffer, AtomicLong bytesRead) {
+        this.buffer = buffer;
+        this.bytesRead = bytesRead;
+    }
+
+    @Override
+    public int read() {
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        bytesRead.incrementAndGet();
+        return buffer.get() & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) {
+        if (len == 0) {
+            return 0;
+        }
+        if (!buffer.hasRemaining()) {
+            return -1;
+        }
+        int n = Math.min(len, buffer.remaining());
+        buffer.get(b, off, n);
+        bytesRead.addAndGet(n);
+        return n;
+    }
+
+    @Override
+    public int available() {
+        return buffer.remaining();
+    }
+}
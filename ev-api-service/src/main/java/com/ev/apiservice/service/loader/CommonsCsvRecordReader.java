@@ -0,0 +1,94 @@
+package com.ev.apiservice.service.loader;
+
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Iterator;
+
+/**
+ * Reads vehicle records with Apache Commons CSV, looking every field up by its header name.
+ */
+public class CommonsCsvRecordReader implements VehicleRecordReader {
+
+    /**
+     * Format of the loader's input files: a header record, matched ignoring case, and trimmed values.
+     */
+    public static final CSVFormat FORMAT = CSVFormat.DEFAULT.builder()
+            .setHeader()
+            .setSkipHeaderRecord(true)
+            .setIgnoreHeaderCase(true)
+            .setTrim(true)
+            .build();
+
+    private final CSVParser parser;
+    private final Iterator<CSVRecord> records;
+    private CSVRecord current;
+
+    /**
+     * @param reader The CSV data, starting with the header record
+     * @throws IOException if the header cannot be read
+     */
+    public CommonsCsvRecordReader(Reader reader) throws IOException {
+        this.parser = new CSVParser(reader, FORMAT);
+        this.records = parser.iterator();
+    }
+
+    @Override
+    public boolean next() {
+        if (!records.hasNext()) {
+            return false;
+        }
+        current = records.next();
+        return true;
+    }
+
+    /**
+     * Positions a reader on one record of another parser, such as a range of a parallel parse.
+     */
+    private CommonsCsvRecordReader(CSVRecord record) {
+        this.parser = null;
+        this.records = null;
+        this.current = record;
+    }
+
+    @Override
+    public String getVin() {
+        return current.get(VehicleColumn.VIN.getHeader());
+    }
+
+    @Override
+    public String getText(VehicleColumn column) {
+        return current.isSet(column.getHeader()) ? current.get(column.getHeader()) : null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (parser != null) {
+            parser.close();
+        }
+    }
+
+    /**
+     * Converts a CSV record into a typed row like {@link #toRow()}.
+     *
+     * @param record Record of a parser with a header
+     * @return The row
+     */
+    public static VehicleRow toRow(CSVRecord record) {
+        return toRow(record, true);
+    }
+
+    /**
+     * Converts a CSV record into a typed row like {@link #toRow(boolean)}.
+     *
+     * @param record Record of a parser with a header
+     * @param logInvalid Whether to log each invalid value
+     * @return The row
+     */
+    public static VehicleRow toRow(CSVRecord record, boolean logInvalid) {
+        return new CommonsCsvRecordReader(record).toRow(logInvalid);
+    }
+}
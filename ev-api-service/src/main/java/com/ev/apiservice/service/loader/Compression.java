@@ -0,0 +1,68 @@
+package com.ev.apiservice.service.loader;
+
+import io.airlift.compress.zstd.ZstdInputStream;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Compression formats accepted for CSV inputs. Compressed inputs are decompressed as a stream
+ * in front of the parser; no expanded copy is written to disk.
+ */
+public enum Compression {
+
+    NONE,
+    GZIP,
+    ZSTD;
+
+    /**
+     * Bytes needed by {@link #detect(String, byte[], int)} to recognise every format.
+     */
+    public static final int MAGIC_LENGTH = 4;
+
+    private static final int DECOMPRESSION_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * Detects the format from the leading bytes of the input, falling back to the file extension
+     * ({@code .gz} or {@code .zst}) when the bytes are inconclusive.
+     *
+     * @param name File name or path of the input, may be {@code null}
+     * @param header Leading bytes of the input
+     * @param length Number of valid bytes in {@code header}
+     * @return The detected format
+     */
+    public static Compression detect(String name, byte[] header, int length) {
+        if (length >= 2 && (header[0] & 0xff) == 0x1f && (header[1] & 0xff) == 0x8b) {
+            return GZIP;
+        }
+        if (length >= 4 && (header[0] & 0xff) == 0x28 && (header[1] & 0xff) == 0xb5
+                && (header[2] & 0xff) == 0x2f && (header[3] & 0xff) == 0xfd) {
+            return ZSTD;
+        }
+        String lowerName = name != null ? name.toLowerCase(Locale.ROOT) : "";
+        if (lowerName.endsWith(".gz") || lowerName.endsWith(".gzip")) {
+            return GZIP;
+        }
+        if (lowerName.endsWith(".zst") || lowerName.endsWith(".zstd")) {
+            return ZSTD;
+        }
+        return NONE;
+    }
+
+    /**
+     * Wraps a stream of this format in a decompressing stream.
+     *
+     * @param compressed Stream positioned at the start of the compressed data
+     * @return A stream of the decompressed bytes
+     */
+    public InputStream decompress(InputStream compressed) throws IOException {
+        return switch (this) {
+            case NONE -> compressed;
+            // GZIPInputStream also reads concatenated members, as produced by pigz or split uploads
+            case GZIP -> new GZIPInputStream(compressed, DECOMPRESSION_BUFFER_SIZE);
+            case ZSTD -> new ZstdInputStream(compressed);
+        };
+    }
+}
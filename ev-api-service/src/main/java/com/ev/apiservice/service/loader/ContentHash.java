@@ -0,0 +1,101 @@
+package com.ev.apiservice.service.loader;
+
+import java.math.BigDecimal;
+
+/**
+ * Computes the 64-bit content hash stored in {@code electric_vehicle_population.content_hash}.
+ * <p>
+ * The hash covers every loaded column in a fixed order, using FNV-1a over the characters of each
+ * value followed by a final avalanche step. Each value is followed by a separator, and null is
+ * hashed differently from the empty string. Numbers are hashed in canonical form, so
+ * {@code 41990} and {@code 41990.00} hash the same, as they do once stored in the database.
+ * Coordinates are hashed by their IEEE 754 bits rather than their text.
+ */
+public final class ContentHash {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final char NULL_MARKER = '\u0000';
+    private static final char SEPARATOR = '\u001f';
+
+    private ContentHash() {
+    }
+
+    /**
+     * @param row Parsed row; its own {@code contentHash} is ignored
+     * @return The content hash of the row
+     */
+    public static long of(VehicleRow row) {
+        long hash = FNV_OFFSET_BASIS;
+        hash = mix(hash, row.getVin());
+        hash = mix(hash, row.getCounty());
+        hash = mix(hash, row.getCity());
+        hash = mix(hash, row.getState());
+        hash = mix(hash, row.getPostalCode());
+        hash = mix(hash, row.getModelYear());
+        hash = mix(hash, row.getMake());
+        hash = mix(hash, row.getModel());
+        hash = mix(hash, row.getElectricVehicleType());
+        hash = mix(hash, row.getCafvEligibilityStatus());
+        hash = mix(hash, row.getElectricRange());
+        hash = mix(hash, canonical(row.getBaseMsrp()));
+        hash = mix(hash, row.getLegislativeDistrict());
+        hash = mix(hash, row.getDolVehicleId());
+        hash = row.hasLocation() ? mix(mix(hash, row.getLongitude()), row.getLatitude()) : mix(hash, (String) null);
+        hash = mix(hash, row.getElectricUtility());
+        hash = mix(hash, row.getCensusTract2020());
+        return finish(hash);
+    }
+
+    /**
+     * Hashes a single text value the same way, e.g. to estimate how many distinct values a column has.
+     *
+     * @param value The value, may be {@code null}
+     * @return Its 64-bit hash
+     */
+    public static long ofValue(String value) {
+        return finish(mix(FNV_OFFSET_BASIS, value));
+    }
+
+    private static long mix(long hash, Object value) {
+        return mix(hash, value != null ? value.toString() : null);
+    }
+
+    /**
+     * Mixes the bits of a coordinate byte by byte; {@code -0.0} is hashed as {@code 0.0}.
+     */
+    private static long mix(long hash, double value) {
+        long bits = Double.doubleToLongBits(value + 0.0);
+        for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+            hash = (hash ^ ((bits >>> shift) & 0xff)) * FNV_PRIME;
+        }
+        return (hash ^ SEPARATOR) * FNV_PRIME;
+    }
+
+    private static long mix(long hash, String value) {
+        if (value == null) {
+            hash = (hash ^ NULL_MARKER) * FNV_PRIME;
+        } else {
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+            }
+        }
+        return (hash ^ SEPARATOR) * FNV_PRIME;
+    }
+
+    private static String canonical(BigDecimal value) {
+        return value != null ? value.stripTrailingZeros().toPlainString() : null;
+    }
+
+    /**
+     * MurmurHash3 finalizer, so that single-character differences spread over all 64 bits.
+     */
+    private static long finish(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,196 @@
+package com.ev.apiservice.service.loader;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Writes batches through PostgreSQL {@code COPY}.
+ * Each batch is streamed into an unlogged staging table and merged into the live table with a
+ * single set-based {@code INSERT ... SELECT ... ON CONFLICT}; the staging table is then truncated
+ * in the same transaction. The merge only rewrites rows whose content hash changed and returns
+ * whether each written row was inserted or updated; the remaining staged rows were unchanged.
+ * The staging table belongs to this writer: it is created once, when the writer is, and dropped
+ * on {@link #close()}. A batch that rolls back takes its staged rows with it, so the table is
+ * empty at the start of every batch.
+ */
+@Slf4j
+public class CopyBatchWriter implements VehicleBatchWriter {
+
+    private static final int EWKB_POINT_WITH_SRID = 0x20000001;
+    private static final int SRID_WGS84 = 4326;
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private final JdbcTemplate jdbcTemplate;
+    private final String stagingTable;
+    private final StringBuilder copyBuffer = new StringBuilder(64 * 1024);
+    private long bindNanos;
+
+    /**
+     * Creates the writer and its staging table. Must be called outside a batch transaction, so
+     * the table outlives a batch that rolls back.
+     *
+     * @param jdbcTemplate Template on the loader's database
+     * @param tableTag Tag of the load, from {@link LoadTables#tag(String)}, carried by the staging table's name
+     */
+    public CopyBatchWriter(JdbcTemplate jdbcTemplate, String tableTag) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.stagingTable = LoadTables.staging(tableTag);
+        jdbcTemplate.execute("CREATE UNLOGGED TABLE " + stagingTable +
+                " (LIKE " + VehicleTableSql.TABLE + " INCLUDING DEFAULTS)");
+    }
+
+    @Override
+    public LoadResult write(List<VehicleRow> batch) {
+        long bindStart = System.nanoTime();
+        byte[] data = encode(batch, copyBuffer);
+        bindNanos += System.nanoTime() - bindStart;
+        copy(jdbcTemplate, stagingTable, data);
+
+        // xmax is 0 only for freshly inserted row versions
+        LoadResult result = new LoadResult();
+        jdbcTemplate.query("INSERT INTO " + VehicleTableSql.TABLE + " (" + VehicleTableSql.COLUMNS + ")\n" +
+                "SELECT " + VehicleTableSql.COLUMNS + " FROM " + stagingTable + "\n" +
+                "ON CONFLICT (vin) DO UPDATE SET\n    " + VehicleTableSql.UPDATE_SET + "\n" +
+                "RETURNING (xmax = 0) AS inserted", rs -> {
+            if (rs.getBoolean(1)) {
+                result.setInserted(result.getInserted() + 1);
+            } else {
+                result.setUpdated(result.getUpdated() + 1);
+            }
+        });
+        result.setUnchanged(batch.size() - result.getInserted() - result.getUpdated());
+        jdbcTemplate.execute("TRUNCATE " + stagingTable);
+        return result;
+    }
+
+    @Override
+    public long takeBindNanos() {
+        long nanos = bindNanos;
+        bindNanos = 0;
+        return nanos;
+    }
+
+    @Override
+    public void close() {
+        try {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + stagingTable);
+        } catch (Exception e) {
+            log.warn("Could not drop staging table {}: {}", stagingTable, e.getMessage());
+        }
+    }
+
+    /**
+     * Formats a batch as COPY CSV data.
+     *
+     * @param buffer Reused to format the rows
+     */
+    static byte[] encode(List<VehicleRow> batch, StringBuilder buffer) {
+        buffer.setLength(0);
+        for (VehicleRow row : batch) {
+            appendCsvLine(buffer, row);
+        }
+        return buffer.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Streams COPY CSV data into a table with the columns of {@code electric_vehicle_population}.
+     *
+     * @return Number of rows copied
+     */
+    static long copy(JdbcTemplate jdbcTemplate, String table, byte[] data) {
+        String copySql = "COPY " + table + " (" + VehicleTableSql.COLUMNS + ") FROM STDIN WITH (FORMAT csv)";
+        Long copied = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                CopyManager copyManager = new CopyManager(connection.unwrap(BaseConnection.class));
+                return copyManager.copyIn(copySql, new ByteArrayInputStream(data));
+            } catch (IOException e) {
+                throw new IllegalStateException("COPY into " + table + " failed: " + e.getMessage(), e);
+            }
+        });
+        log.debug("Copied {} rows into {}", copied, table);
+        return copied != null ? copied : 0;
+    }
+
+    /**
+     * Appends one row in COPY CSV format. {@code null} is written as an unquoted empty field,
+     * strings are always quoted so empty strings survive as empty strings.
+     */
+    static void appendCsvLine(StringBuilder out, VehicleRow row) {
+        appendText(out, row.getVin()).append(',');
+        appendText(out, row.getCounty()).append(',');
+        appendText(out, row.getCity()).append(',');
+        appendText(out, row.getState()).append(',');
+        appendText(out, row.getPostalCode()).append(',');
+        appendValue(out, row.getModelYear()).append(',');
+        appendText(out, row.getMake()).append(',');
+        appendText(out, row.getModel()).append(',');
+        appendText(out, row.getElectricVehicleType()).append(',');
+        appendText(out, row.getCafvEligibilityStatus()).append(',');
+        appendValue(out, row.getElectricRange()).append(',');
+        appendValue(out, row.getBaseMsrp() != null ? row.getBaseMsrp().toPlainString() : null).append(',');
+        appendText(out, row.getLegislativeDistrict()).append(',');
+        appendValue(out, row.getDolVehicleId()).append(',');
+        if (row.hasLocation()) {
+            appendEwkbPoint(out, row.getLongitude(), row.getLatitude());
+        }
+        out.append(',');
+        appendText(out, row.getElectricUtility()).append(',');
+        appendValue(out, row.getCensusTract2020()).append(',');
+        appendValue(out, row.getContentHash()).append('\n');
+    }
+
+    /**
+     * Appends a point as hex-encoded little-endian EWKB with SRID 4326. The geometry input function
+     * decodes it directly, so the server never parses WKT text.
+     */
+    static void appendEwkbPoint(StringBuilder out, double longitude, double latitude) {
+        out.append("01"); // little-endian
+        appendHexInt(out, EWKB_POINT_WITH_SRID);
+        appendHexInt(out, SRID_WGS84);
+        appendHexLong(out, Double.doubleToLongBits(longitude));
+        appendHexLong(out, Double.doubleToLongBits(latitude));
+    }
+
+    private static void appendHexInt(StringBuilder out, int value) {
+        for (int shift = 0; shift < Integer.SIZE; shift += Byte.SIZE) {
+            appendHexByte(out, value >>> shift);
+        }
+    }
+
+    private static void appendHexLong(StringBuilder out, long value) {
+        for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+            appendHexByte(out, (int) (value >>> shift));
+        }
+    }
+
+    private static void appendHexByte(StringBuilder out, int value) {
+        out.append(HEX_DIGITS[(value >>> 4) & 0xf]).append(HEX_DIGITS[value & 0xf]);
+    }
+
+    private static StringBuilder appendValue(StringBuilder out, Object value) {
+        return value != null ? out.append(value) : out;
+    }
+
+    private static StringBuilder appendText(StringBuilder out, String value) {
+        if (value == null) {
+            return out;
+        }
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        return out.append('"');
+    }
+}
@@ -0,0 +1,31 @@
+package com.ev.apiservice.service.loader;
+
+import java.util.List;
+
+/**
+ * Outcome of a {@link LoadMode#VALIDATE} dry run: what loading the file would write, and what it
+ * would set to {@code null}.
+ *
+ * @param records Data records in the file
+ * @param distinctVins Distinct VINs, i.e. the rows a load would write
+ * @param duplicateVins Records a load would drop because a later record has the same VIN
+ * @param parseMillis Time spent parsing and validating the file
+ * @param estimatedLoadMillis Expected duration of loading the file, from the write throughput of the
+ *                            loads run since startup; -1 before the first one
+ * @param columns Statistics of each column of the schema, in schema order
+ */
+public record CsvProfile(long records, long distinctVins, long duplicateVins, long parseMillis,
+                         long estimatedLoadMillis, List<ColumnProfile> columns) {
+
+    /**
+     * Statistics of one column.
+     *
+     * @param column Header name of the column
+     * @param nulls Records where the column is empty or absent
+     * @param invalid Records where the column has a value that fails validation and would be loaded
+     *                as {@code null}, e.g. a non-numeric model year or malformed WKT location
+     * @param distinct Estimated number of distinct non-empty values, accurate to about 1%
+     */
+    public record ColumnProfile(String column, long nulls, long invalid, long distinct) {
+    }
+}
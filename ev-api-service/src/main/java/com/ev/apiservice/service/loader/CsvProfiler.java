@@ -0,0 +1,99 @@
+package com.ev.apiservice.service.loader;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Collects the column statistics of a dry run. Each record goes through the loader's own
+ * conversion, with logging of invalid values turned off, and a value counts as invalid when its
+ * text is not empty but the converted row holds {@code null} for it.
+ * <p>
+ * Safe to call from several parser threads: counts are {@link LongAdder}s and distinct values
+ * are estimated by {@link DistinctCounter}s.
+ */
+public final class CsvProfiler {
+
+    private static final VehicleColumn[] COLUMNS = VehicleColumn.values();
+
+    private final LongAdder records = new LongAdder();
+    private final LongAdder[] nulls = new LongAdder[COLUMNS.length];
+    private final LongAdder[] invalid = new LongAdder[COLUMNS.length];
+    private final DistinctCounter[] distinct = new DistinctCounter[COLUMNS.length];
+
+    public CsvProfiler() {
+        for (int i = 0; i < COLUMNS.length; i++) {
+            nulls[i] = new LongAdder();
+            invalid[i] = new LongAdder();
+            distinct[i] = new DistinctCounter();
+        }
+    }
+
+    /**
+     * Profiles the record a reader is positioned on.
+     *
+     * @param records Reader positioned on a record
+     */
+    public void add(VehicleRecordReader records) {
+        add(records.toRow(false), records::getText);
+    }
+
+    /**
+     * Profiles one record.
+     *
+     * @param row The record converted without logging invalid values
+     * @param text Trimmed text of each column of the record, {@code null} if absent
+     */
+    public void add(VehicleRow row, Function<VehicleColumn, String> text) {
+        records.increment();
+        for (VehicleColumn column : COLUMNS) {
+            int i = column.ordinal();
+            String value = text.apply(column);
+            if (value == null || value.isEmpty()) {
+                nulls[i].increment();
+            } else {
+                distinct[i].add(value);
+                if (isInvalid(column, row)) {
+                    invalid[i].increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Records profiled so far
+     */
+    public long getRecords() {
+        return records.sum();
+    }
+
+    /**
+     * @return Statistics of each column, in schema order
+     */
+    public List<CsvProfile.ColumnProfile> getColumns() {
+        List<CsvProfile.ColumnProfile> columns = new ArrayList<>(COLUMNS.length);
+        for (VehicleColumn column : COLUMNS) {
+            int i = column.ordinal();
+            columns.add(new CsvProfile.ColumnProfile(column.getHeader(), nulls[i].sum(), invalid[i].sum(),
+                    distinct[i].estimate()));
+        }
+        return columns;
+    }
+
+    /**
+     * Whether the conversion dropped the non-empty value of a typed column; text columns are
+     * loaded as they are.
+     */
+    private static boolean isInvalid(VehicleColumn column, VehicleRow row) {
+        return switch (column) {
+            case MODEL_YEAR -> row.getModelYear() == null;
+            case ELECTRIC_RANGE -> row.getElectricRange() == null;
+            case BASE_MSRP -> row.getBaseMsrp() == null;
+            case DOL_VEHICLE_ID -> row.getDolVehicleId() == null;
+            case CENSUS_TRACT_2020 -> row.getCensusTract2020() == null;
+            case VEHICLE_LOCATION -> !row.hasLocation();
+            default -> false;
+        };
+    }
+}
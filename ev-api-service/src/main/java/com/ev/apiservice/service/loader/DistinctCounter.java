@@ -0,0 +1,57 @@
+package com.ev.apiservice.service.loader;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * HyperLogLog estimate of the number of distinct values in a column.
+ * <p>
+ * Each value is hashed to 64 bits; the top {@value #PRECISION} bits pick one of 16,384 registers,
+ * which keeps the longest run of leading zeros seen in the remaining bits. The estimate is off by
+ * about 0.8% (standard error) however many values are added, at a fixed 64 KB per counter, so a
+ * dry run can count distinct values of every column of a large file without keeping any of them.
+ * Small counts are estimated by linear counting over the empty registers and are near exact.
+ * <p>
+ * {@link #add(String)} may be called concurrently.
+ */
+public final class DistinctCounter {
+
+    static final int PRECISION = 14;
+    private static final int REGISTERS = 1 << PRECISION;
+    private static final double ALPHA = 0.7213 / (1 + 1.079 / REGISTERS);
+
+    private final AtomicIntegerArray registers = new AtomicIntegerArray(REGISTERS);
+
+    /**
+     * @param value A value of the column; {@code null} is a value like any other
+     */
+    public void add(String value) {
+        long hash = ContentHash.ofValue(value);
+        int register = (int) (hash >>> (Long.SIZE - PRECISION));
+        // The marker bit caps the rank when all remaining bits are zero
+        int rank = Long.numberOfLeadingZeros((hash << PRECISION) | (1L << (PRECISION - 1))) + 1;
+        int current = registers.get(register);
+        while (rank > current && !registers.compareAndSet(register, current, rank)) {
+            current = registers.get(register);
+        }
+    }
+
+    /**
+     * @return Estimated number of distinct values added
+     */
+    public long estimate() {
+        double sum = 0;
+        int empty = 0;
+        for (int i = 0; i < REGISTERS; i++) {
+            int rank = registers.get(i);
+            sum += 1.0 / (1L << rank);
+            if (rank == 0) {
+                empty++;
+            }
+        }
+        double estimate = ALPHA * REGISTERS * REGISTERS / sum;
+        if (estimate <= 2.5 * REGISTERS && empty > 0) {
+            estimate = REGISTERS * Math.log((double) REGISTERS / empty);
+        }
+        return Math.round(estimate);
+    }
+}
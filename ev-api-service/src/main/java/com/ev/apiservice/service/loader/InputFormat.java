@@ -0,0 +1,18 @@
+package com.ev.apiservice.service.loader;
+
+/**
+ * Format of the records a load reads.
+ */
+public enum InputFormat {
+
+    /**
+     * CSV with the DOL vehicle columns, tokenized by the load's {@link ParserType}.
+     */
+    CSV,
+
+    /**
+     * {@link JsonVehicleRecordReader}: NDJSON or a JSON array of objects shaped like the vehicle
+     * creation payload, read with a streaming parser. Always parsed sequentially.
+     */
+    JSON
+}
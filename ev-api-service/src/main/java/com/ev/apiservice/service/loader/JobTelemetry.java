@@ -0,0 +1,164 @@
+package com.ev.apiservice.service.loader;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Micrometer meters of one load job, tagged with its ID, in addition to the {@link LoadMetrics}
+ * shared by all jobs.
+ * <p>
+ * Every stage of the pipeline records the time the load's threads spent in it, per batch, as
+ * {@code csv.loader.job.stage.duration}. Comparing the stages shows what to tune: parsing, the
+ * connection pool (acquire), or the database (execute and commit). The time from opening a batch
+ * transaction until it committed is a histogram, {@code csv.loader.job.batch.commit}. Rows parsed and
+ * written and input bytes read are counters.
+ * <p>
+ * The meters are removed from the registry by {@link #close()}.
+ */
+public class JobTelemetry implements AutoCloseable {
+
+    /**
+     * Where a thread of a load spends its time. With one writer thread, the parser thread writes
+     * too; with more, the parser stages run concurrently with the writer stages.
+     */
+    public enum Stage {
+        /** Reading and converting records into a batch. */
+        PARSE,
+        /** Waiting for the job's rows-per-second limit. */
+        THROTTLE,
+        /** Parser waiting for room in the queue of parsed batches: the writers are behind. */
+        BLOCKED,
+        /** Opening a batch transaction, mostly waiting for a pooled connection. */
+        ACQUIRE,
+        /** Binding the rows of a batch to statement parameters or COPY data. */
+        BIND,
+        /** Running the batch's statements in the database. */
+        EXECUTE,
+        /** Committing a batch transaction. */
+        COMMIT,
+        /** Writer waiting for a parsed batch: the parser is behind. */
+        IDLE
+    }
+
+    private final MeterRegistry meterRegistry;
+    @Getter
+    private final String jobId;
+    @Getter
+    private final long startTime = System.currentTimeMillis();
+    private final Counter parsedRows;
+    private final Counter writtenRows;
+    private final Map<Stage, Timer> stageDurations = new EnumMap<>(Stage.class);
+    @Getter
+    private final Timer batchCommit;
+    private final List<Meter> meters = new ArrayList<>();
+    private volatile LongSupplier bytesRead = () -> 0;
+
+    public JobTelemetry(MeterRegistry meterRegistry, String jobId) {
+        this.meterRegistry = meterRegistry;
+        this.jobId = jobId;
+        this.parsedRows = register(Counter.builder("csv.loader.job.rows")
+                .description("Rows passed through a stage of one load job")
+                .tag("job", jobId)
+                .tag("stage", "parse")
+                .register(meterRegistry));
+        this.writtenRows = register(Counter.builder("csv.loader.job.rows")
+                .description("Rows passed through a stage of one load job")
+                .tag("job", jobId)
+                .tag("stage", "write")
+                .register(meterRegistry));
+        register(FunctionCounter.builder("csv.loader.job.bytes", this, JobTelemetry::getBytesRead)
+                .description("Input bytes one load job has read, compressed size for a compressed file")
+                .baseUnit("bytes")
+                .tag("job", jobId)
+                .register(meterRegistry));
+        for (Stage stage : Stage.values()) {
+            stageDurations.put(stage, register(Timer.builder("csv.loader.job.stage.duration")
+                    .description("Time the threads of one load job spent in a pipeline stage")
+                    .tag("job", jobId)
+                    .tag("stage", stage.name().toLowerCase())
+                    .register(meterRegistry)));
+        }
+        this.batchCommit = register(Timer.builder("csv.loader.job.batch.commit")
+                .description("Time from opening a batch transaction of one load job until it committed")
+                .tag("job", jobId)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    /**
+     * Sets where the bytes read are counted, once the input is open.
+     *
+     * @param bytesRead Input bytes consumed so far
+     */
+    public void setBytesRead(LongSupplier bytesRead) {
+        this.bytesRead = bytesRead;
+    }
+
+    public long getBytesRead() {
+        return bytesRead.getAsLong();
+    }
+
+    public void record(Stage stage, long nanos) {
+        stageDurations.get(stage).record(Math.max(nanos, 0), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Records a parsed batch.
+     *
+     * @param rows Rows of the batch
+     * @param nanos Time spent parsing it
+     */
+    public void recordParsed(int rows, long nanos) {
+        parsedRows.increment(rows);
+        record(Stage.PARSE, nanos);
+    }
+
+    /**
+     * Records a written batch.
+     *
+     * @param rows Rows of the batch
+     */
+    public void recordWritten(int rows) {
+        writtenRows.increment(rows);
+    }
+
+    public long getParsedRows() {
+        return (long) parsedRows.count();
+    }
+
+    public long getWrittenRows() {
+        return (long) writtenRows.count();
+    }
+
+    /**
+     * @return Time spent in the stage so far, in nanoseconds
+     */
+    public long getStageNanos(Stage stage) {
+        return (long) stageDurations.get(stage).totalTime(TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Removes the job's meters from the registry.
+     */
+    @Override
+    public void close() {
+        meters.forEach(meterRegistry::remove);
+    }
+
+    private <M extends Meter> M register(M meter) {
+        meters.add(meter);
+        return meter;
+    }
+}
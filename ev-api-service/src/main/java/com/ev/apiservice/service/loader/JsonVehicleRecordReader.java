@@ -0,0 +1,154 @@
+package com.ev.apiservice.service.loader;
+
+import com.ev.apiservice.dto.CreateElectricVehicleDTO;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reads vehicle records from JSON objects shaped like {@link CreateElectricVehicleDTO}, either
+ * newline-delimited (NDJSON, one object per line) or as the elements of one top-level array.
+ * <p>
+ * Records are pulled one at a time from a streaming Jackson parser, so neither the document nor
+ * a tree of a record is ever built: the values of the current object are kept as text in one
+ * reused array, by column, and converted like CSV fields. As in the CSV readers, invalid numbers
+ * and locations become {@code null}, rather than failing the load as data binding would.
+ * Unknown properties are ignored. The location is the DTO's {@code {"longitude": .., "latitude": ..}}
+ * object; a WKT string is accepted as well.
+ */
+public class JsonVehicleRecordReader implements VehicleRecordReader {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private static final VehicleColumn[] COLUMNS = VehicleColumn.values();
+
+    /**
+     * Column of each {@link CreateElectricVehicleDTO} property.
+     */
+    private static final Map<String, VehicleColumn> PROPERTIES = new HashMap<>();
+
+    static {
+        PROPERTIES.put("vin", VehicleColumn.VIN);
+        PROPERTIES.put("county", VehicleColumn.COUNTY);
+        PROPERTIES.put("city", VehicleColumn.CITY);
+        PROPERTIES.put("state", VehicleColumn.STATE);
+        PROPERTIES.put("postalCode", VehicleColumn.POSTAL_CODE);
+        PROPERTIES.put("modelYear", VehicleColumn.MODEL_YEAR);
+        PROPERTIES.put("make", VehicleColumn.MAKE);
+        PROPERTIES.put("model", VehicleColumn.MODEL);
+        PROPERTIES.put("electricVehicleType", VehicleColumn.EV_TYPE);
+        PROPERTIES.put("cafvEligibilityStatus", VehicleColumn.CAFV_ELIGIBILITY);
+        PROPERTIES.put("electricRange", VehicleColumn.ELECTRIC_RANGE);
+        PROPERTIES.put("baseMSRP", VehicleColumn.BASE_MSRP);
+        PROPERTIES.put("legislativeDistrict", VehicleColumn.LEGISLATIVE_DISTRICT);
+        PROPERTIES.put("dolVehicleId", VehicleColumn.DOL_VEHICLE_ID);
+        PROPERTIES.put("vehicleLocation", VehicleColumn.VEHICLE_LOCATION);
+        PROPERTIES.put("electricUtility", VehicleColumn.ELECTRIC_UTILITY);
+        PROPERTIES.put("censusTract2020", VehicleColumn.CENSUS_TRACT_2020);
+    }
+
+    private final JsonParser parser;
+    private final String[] texts = new String[COLUMNS.length];
+    private boolean started;
+    private boolean inArray;
+    private long records;
+
+    /**
+     * @param reader The JSON data: objects separated by whitespace, or one array of objects
+     * @throws IOException if the parser cannot be created
+     */
+    public JsonVehicleRecordReader(Reader reader) throws IOException {
+        this.parser = JSON_FACTORY.createParser(reader);
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        JsonToken token = parser.nextToken();
+        if (!started) {
+            started = true;
+            if (token == JsonToken.START_ARRAY) {
+                inArray = true;
+                token = parser.nextToken();
+            }
+        }
+        if (token == null || (inArray && token == JsonToken.END_ARRAY)) {
+            return false;
+        }
+        if (token != JsonToken.START_OBJECT) {
+            throw new JsonParseException(parser, "Expected a vehicle object as record " + (records + 1) + " but found " + token);
+        }
+        Arrays.fill(texts, null);
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            VehicleColumn column = PROPERTIES.get(parser.currentName());
+            JsonToken value = parser.nextToken();
+            if (column == null) {
+                parser.skipChildren();
+            } else if (column == VehicleColumn.VEHICLE_LOCATION && value == JsonToken.START_OBJECT) {
+                texts[column.ordinal()] = readLocation();
+            } else if (value.isScalarValue()) {
+                texts[column.ordinal()] = value == JsonToken.VALUE_NULL ? null : parser.getText().trim();
+            } else {
+                throw new JsonParseException(parser, "Expected a value for " + parser.currentName() + " of record "
+                        + (records + 1) + " but found " + value);
+            }
+        }
+        records++;
+        return true;
+    }
+
+    /**
+     * @return VIN of the current record, trimmed; empty if the record has none
+     */
+    @Override
+    public String getVin() {
+        String vin = texts[VehicleColumn.VIN.ordinal()];
+        return vin != null ? vin : "";
+    }
+
+    /**
+     * @return Trimmed text of the property in the current record, the location as WKT, or
+     *         {@code null} if the record lacks it or it is {@code null}
+     */
+    @Override
+    public String getText(VehicleColumn column) {
+        return texts[column.ordinal()];
+    }
+
+    @Override
+    public void close() throws IOException {
+        parser.close();
+    }
+
+    /**
+     * Reads a location object as WKT, so it is converted and profiled like the CSV column.
+     *
+     * @return {@code POINT (longitude latitude)}, with an empty coordinate if it is missing, or
+     *         {@code null} if both are
+     */
+    private String readLocation() throws IOException {
+        String longitude = null;
+        String latitude = null;
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String name = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (!value.isScalarValue() || value == JsonToken.VALUE_NULL) {
+                parser.skipChildren();
+            } else if ("longitude".equals(name)) {
+                longitude = parser.getText().trim();
+            } else if ("latitude".equals(name)) {
+                latitude = parser.getText().trim();
+            }
+        }
+        if (longitude == null && latitude == null) {
+            return null;
+        }
+        return "POINT (" + (longitude != null ? longitude : "") + " " + (latitude != null ? latitude : "") + ")";
+    }
+}
@@ -0,0 +1,21 @@
+package com.ev.apiservice.service.loader;
+
+import lombok.Getter;
+
+/**
+ * Thrown when a load stops because it was cancelled through its {@link LoadControl}. Every batch
+ * counted in the result is committed.
+ */
+@Getter
+public class LoadCancelledException extends RuntimeException {
+
+    private final transient LoadResult result;
+
+    /**
+     * @param result Counts of the batches committed before the load stopped
+     */
+    public LoadCancelledException(LoadResult result) {
+        super("Load cancelled after " + result.getRecordsProcessed() + " records");
+        this.result = result;
+    }
+}
@@ -0,0 +1,45 @@
+package com.ev.apiservice.service.loader;
+
+import lombok.Getter;
+
+/**
+ * Runtime handle of one load, used to slow it down or stop it while it runs. {@link LoadPipeline}
+ * consults it before each batch: it waits for the batch's rows from the rate limiter, and once
+ * the load is cancelled it writes no further batch, lets batches already handed to writers
+ * commit, and ends the load with a {@link LoadCancelledException}.
+ */
+public class LoadControl {
+
+    @Getter
+    private final RowRateLimiter rateLimiter;
+    private volatile boolean cancelled;
+
+    /**
+     * @param rateLimiter Limiter of this load, possibly shared with other loads
+     */
+    public LoadControl(RowRateLimiter rateLimiter) {
+        this.rateLimiter = rateLimiter;
+    }
+
+    /**
+     * Asks the load to stop at its next batch boundary.
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Waits until the rate limit allows writing the rows, or the load is cancelled.
+     *
+     * @param rows Rows of the next batch
+     * @return Nanoseconds spent waiting
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public long awaitPermit(int rows) throws InterruptedException {
+        return rateLimiter.acquire(rows, this::isCancelled);
+    }
+}
@@ -0,0 +1,123 @@
+package com.ev.apiservice.service.loader;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Micrometer meters for the CSV load pipeline, shared by all load jobs.
+ * <p>
+ * Rows and batch durations are tagged by stage ({@code parse} or {@code write}). The wait timers
+ * show which stage is saturated: a parser that often waits on a full queue is held back by the
+ * writers, while writers that often wait on an empty queue are starved by the parser.
+ * Adaptive loads also report their current batch size and each adjustment of it, and rate-limited
+ * loads the time they were held back by their limit.
+ */
+@Getter
+public class LoadMetrics {
+
+    private final Counter parsedRows;
+    private final Counter writtenRows;
+    private final Timer parseDuration;
+    private final Timer writeDuration;
+    private final Counter insertedRows;
+    private final Counter updatedRows;
+    private final Counter unchangedRows;
+    private final Counter duplicateRows;
+    private final Counter rejectedRows;
+    private final Counter deletedRows;
+    private final Timer parseWait;
+    private final Timer writeWait;
+    private final Timer throttleWait;
+    private final AtomicInteger queuedBatches = new AtomicInteger();
+    private final Counter batchSizeIncreases;
+    private final Counter batchSizeDecreases;
+    private final AtomicInteger adaptiveBatchSize = new AtomicInteger();
+
+    public LoadMetrics(MeterRegistry meterRegistry) {
+        this.parsedRows = Counter.builder("csv.loader.rows")
+                .description("Rows passed through a CSV load stage")
+                .tag("stage", "parse")
+                .register(meterRegistry);
+        this.writtenRows = Counter.builder("csv.loader.rows")
+                .description("Rows passed through a CSV load stage")
+                .tag("stage", "write")
+                .register(meterRegistry);
+        this.insertedRows = outcomeCounter(meterRegistry, "inserted");
+        this.updatedRows = outcomeCounter(meterRegistry, "updated");
+        this.unchangedRows = outcomeCounter(meterRegistry, "unchanged");
+        this.duplicateRows = outcomeCounter(meterRegistry, "duplicate");
+        this.rejectedRows = outcomeCounter(meterRegistry, "rejected");
+        this.deletedRows = outcomeCounter(meterRegistry, "deleted");
+        this.parseDuration = Timer.builder("csv.loader.batch.duration")
+                .description("Time spent producing or writing one batch")
+                .tag("stage", "parse")
+                .register(meterRegistry);
+        this.writeDuration = Timer.builder("csv.loader.batch.duration")
+                .description("Time spent producing or writing one batch")
+                .tag("stage", "write")
+                .register(meterRegistry);
+        this.parseWait = Timer.builder("csv.loader.stage.wait")
+                .description("Time a stage spent blocked on the batch queue")
+                .tag("stage", "parse")
+                .register(meterRegistry);
+        this.writeWait = Timer.builder("csv.loader.stage.wait")
+                .description("Time a stage spent blocked on the batch queue")
+                .tag("stage", "write")
+                .register(meterRegistry);
+        this.throttleWait = Timer.builder("csv.loader.throttle.wait")
+                .description("Time a load spent waiting for its rows-per-second limit before a batch")
+                .register(meterRegistry);
+        Gauge.builder("csv.loader.queue.depth", queuedBatches, AtomicInteger::get)
+                .description("Parsed batches waiting for a writer")
+                .register(meterRegistry);
+        this.batchSizeIncreases = batchSizeAdjustmentCounter(meterRegistry, "up");
+        this.batchSizeDecreases = batchSizeAdjustmentCounter(meterRegistry, "down");
+        Gauge.builder("csv.loader.batch.size", adaptiveBatchSize, AtomicInteger::get)
+                .description("Current batch size of the most recent adaptive load")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Adds the outcome counts of one written batch.
+     *
+     * @param result Inserted, updated, unchanged, duplicate and rejected rows of the batch
+     */
+    public void recordOutcome(LoadResult result) {
+        insertedRows.increment(result.getInserted());
+        updatedRows.increment(result.getUpdated());
+        unchangedRows.increment(result.getUnchanged());
+        duplicateRows.increment(result.getDuplicates());
+        rejectedRows.increment(result.getRejected());
+    }
+
+    /**
+     * Write cost observed so far, for estimating how long a load would take.
+     *
+     * @return Average milliseconds a writer spent per written row over all loads since startup,
+     *         or -1 before the first batch was written
+     */
+    public double getWriteMillisPerRow() {
+        double rows = writtenRows.count();
+        return rows > 0 ? writeDuration.totalTime(TimeUnit.MILLISECONDS) / rows : -1;
+    }
+
+    private static Counter batchSizeAdjustmentCounter(MeterRegistry meterRegistry, String direction) {
+        return Counter.builder("csv.loader.batch.size.adjustments")
+                .description("Batch size changes made by adaptive loads toward their target batch duration")
+                .tag("direction", direction)
+                .register(meterRegistry);
+    }
+
+    private static Counter outcomeCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("csv.loader.rows.outcome")
+                .description("Rows by outcome; unchanged rows and duplicate VINs are skipped without a database write, rejected rows were refused by it")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
@@ -0,0 +1,33 @@
+package com.ev.apiservice.service.loader;
+
+/**
+ * How parsed CSV batches are written to the database, or for a dry run, that they are not.
+ */
+public enum LoadMode {
+
+    /**
+     * Multi-row JDBC batch of {@code INSERT ... ON CONFLICT (vin) DO UPDATE} statements.
+     */
+    UPSERT,
+
+    /**
+     * PostgreSQL {@code COPY} into an unlogged staging table, merged into the live table
+     * with one set-based {@code INSERT ... SELECT ... ON CONFLICT} per batch.
+     */
+    COPY,
+
+    /**
+     * Full refresh: {@code COPY} into a shadow copy of the live table without indexes, then build
+     * the indexes, analyze it and swap it in for the live table in one short transaction. Vehicles
+     * missing from the file are gone afterwards. Needs a local file whose VINs can be scanned
+     * ahead; a failed or cancelled load drops the shadow and leaves the live table as it was.
+     */
+    REPLACE,
+
+    /**
+     * Dry run: parse and validate every record without opening a database connection, and report
+     * per-column null, invalid and distinct counts, duplicate VINs and an estimated load time as a
+     * {@link CsvProfile} instead of writing anything.
+     */
+    VALIDATE
+}
@@ -0,0 +1,130 @@
+package com.ev.apiservice.service.loader;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.nio.file.Path;
+
+/**
+ * Per-job settings for a CSV data load.
+ */
+@Data
+@NoArgsConstructor
+public class LoadOptions {
+
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private int batchSize = DEFAULT_BATCH_SIZE;
+    private LoadMode mode = LoadMode.UPSERT;
+    private InputFormat format = InputFormat.CSV;
+
+    /**
+     * CSV tokenizer; ignored for JSON input.
+     */
+    private ParserType parserType = ParserType.COMMONS;
+
+    /**
+     * Number of threads parsing a memory-mapped local file in parallel; 1 parses sequentially.
+     */
+    private int parseThreads = 1;
+
+    /**
+     * Number of writer workers, each writing batches on its own pooled connection; 1 writes on the
+     * parsing thread. With several writers, batches commit in no particular order; local files are
+     * deduplicated by VIN up front, but a VIN repeated across batches of a request body stream has
+     * no defined winner.
+     */
+    private int writerThreads = 1;
+
+    /**
+     * Target duration of one batch transaction in milliseconds. When positive, the batch size
+     * starts at {@link #batchSize} and adapts to the measured commit latency; 0 keeps it fixed.
+     */
+    private long targetBatchMillis;
+
+    /**
+     * Number of leading data records to skip, used to resume a job from its checkpoint.
+     * Resumed loads always parse sequentially.
+     */
+    private long resumeFromRecord;
+
+    /**
+     * CSV file receiving rows the database refuses, with the reason. When set, a refused batch is
+     * split to isolate its bad rows and the load continues; when {@code null}, the load fails.
+     */
+    private Path rejectFile;
+
+    /**
+     * Snapshot sync: the file lists every current vehicle, so once it has loaded completely, the
+     * vehicles it does not list are deleted. Not for REPLACE, which drops them anyway.
+     */
+    private boolean deleteMissing;
+
+    /**
+     * CSV file receiving the VINs a snapshot sync deleted; when {@code null}, they are only counted.
+     */
+    private Path removedFile;
+
+    /**
+     * Initial ceiling on the rows written per second; 0 for no limit. A running load is slowed
+     * down or sped up through its {@link #control}.
+     */
+    private long maxRowsPerSecond;
+
+    /**
+     * Runtime handle to change the rate limit or cancel the load while it runs; not a setting.
+     * Without one, a load gets its own limiter for {@link #maxRowsPerSecond} and cannot be cancelled.
+     */
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private LoadControl control;
+
+    /**
+     * Meters of the job running the load, recording where its time goes; not a setting.
+     */
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private JobTelemetry telemetry;
+
+    /**
+     * ID of the job running the load, carried by the names of the tables the load creates so they
+     * can be dropped if its instance dies; not a setting. {@code null} for a load outside a job.
+     */
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private String jobId;
+
+    /**
+     * Creates options for the default UPSERT mode with the given batch size.
+     *
+     * @param batchSize Number of records to process in each batch
+     * @return The load options
+     */
+    public static LoadOptions ofBatchSize(int batchSize) {
+        LoadOptions options = new LoadOptions();
+        options.setBatchSize(batchSize);
+        return options;
+    }
+
+    /**
+     * @return Options with the same settings, e.g. for one file of a multi-file job; the control, telemetry and job ID are not copied
+     */
+    public LoadOptions copy() {
+        LoadOptions copy = new LoadOptions();
+        copy.setBatchSize(batchSize);
+        copy.setMode(mode);
+        copy.setFormat(format);
+        copy.setParserType(parserType);
+        copy.setParseThreads(parseThreads);
+        copy.setWriterThreads(writerThreads);
+        copy.setTargetBatchMillis(targetBatchMillis);
+        copy.setResumeFromRecord(resumeFromRecord);
+        copy.setRejectFile(rejectFile);
+        copy.setDeleteMissing(deleteMissing);
+        copy.setRemovedFile(removedFile);
+        copy.setMaxRowsPerSecond(maxRowsPerSecond);
+        return copy;
+    }
+}
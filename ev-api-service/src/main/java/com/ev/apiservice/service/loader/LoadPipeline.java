@@ -0,0 +1,452 @@
+package com.ev.apiservice.service.loader;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Hands parsed batches from the parser stage to one or more writer workers.
+ * <p>
+ * With a single writer, batches are written on the submitting thread, exactly as a plain
+ * parse-then-write loop would. With more writers, batches go through a bounded queue to a pool of
+ * worker threads. Each worker owns its own {@link VehicleBatchWriter} and runs every batch in its
+ * own transaction, so each worker holds its own pooled connection while it writes. A full queue
+ * blocks the parser (backpressure). The first write failure stops all workers and is rethrown to
+ * the parser on its next {@link #submit(List)} or on {@link #finish()}.
+ * <p>
+ * With a {@link RejectWriter}, a batch refused for a data integrity violation does not fail the
+ * load. It is split in halves, each written in its own transaction, recursively, until the refused
+ * rows are isolated; those are recorded as rejected and the rest of the batch is committed. A few
+ * bad rows in a batch of {@code n} cost about {@code 2 log2(n)} extra transactions each.
+ * <p>
+ * With a {@link LoadControl}, each batch first waits for its rows from the load's rate limiter.
+ * Once the load is cancelled, the next submitted batch is dropped, batches already handed to the
+ * writers are committed, and {@link #submit(List, int)} throws a {@link LoadCancelledException}
+ * carrying the committed counts.
+ * <p>
+ * With a {@link JobTelemetry}, the pipeline also records where the load's threads spend their
+ * time: parsing, throttled, blocked on a full queue, and for each batch transaction acquiring a
+ * connection, binding the rows, executing the statements and committing.
+ * <p>
+ * With several writers, batches commit in no particular order. The pipeline therefore also
+ * reports the committed prefix: the number of records in the longest run of submitted batches,
+ * starting with the first, that are all committed. When batches are submitted in file order, a
+ * load restarted after that many records repeats no committed work except out-of-order batches.
+ */
+@Slf4j
+public class LoadPipeline implements AutoCloseable {
+
+    private static final QueuedBatch END_OF_INPUT = new QueuedBatch(-1, null, 0);
+    private static final long POLL_MILLIS = 100;
+    private static final long SHUTDOWN_SECONDS = 60;
+
+    private final int writerThreads;
+    private final BatchSizer batchSizer;
+    private final TransactionTemplate transactionTemplate;
+    private final LoadMetrics metrics;
+    private final BatchListener onBatchWritten;
+    private final RejectWriter rejectWriter;
+    private final LoadControl control;
+    private final JobTelemetry telemetry;
+    private final LoadResult totals = new LoadResult();
+    // Guarded by totals
+    private final Map<Long, Integer> committedOutOfOrder = new HashMap<>();
+    private long nextPrefixSequence;
+    private long committedPrefix;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    // Inline mode (one writer)
+    private final VehicleBatchWriter inlineWriter;
+
+    // Queued mode (several writers)
+    private final BlockingQueue<QueuedBatch> queue;
+    private final BlockingQueue<List<VehicleRow>> freeBatches;
+    private final ExecutorService workers;
+
+    private long nextSequence;
+    private long lastSubmitNanos = System.nanoTime();
+    private boolean finished;
+
+    /**
+     * @param writerThreads Number of writer workers; 1 writes on the submitting thread
+     * @param batchSizer Sizes new buffers and receives the duration of every batch transaction
+     * @param writerFactory Creates one writer per worker
+     * @param transactionTemplate Runs each batch in its own transaction
+     * @param metrics Shared pipeline meters
+     * @param hooks Progress listener, reject writer, load control and telemetry of the load
+     */
+    public LoadPipeline(int writerThreads, BatchSizer batchSizer, Supplier<VehicleBatchWriter> writerFactory,
+                        TransactionTemplate transactionTemplate, LoadMetrics metrics, Hooks hooks) {
+        this.writerThreads = writerThreads;
+        this.batchSizer = batchSizer;
+        this.transactionTemplate = transactionTemplate;
+        this.metrics = metrics;
+        this.onBatchWritten = hooks.getOnBatchWritten();
+        this.rejectWriter = hooks.getRejectWriter();
+        this.control = hooks.getControl();
+        this.telemetry = hooks.getTelemetry();
+
+        if (writerThreads <= 1) {
+            this.inlineWriter = writerFactory.get();
+            this.queue = null;
+            this.freeBatches = null;
+            this.workers = null;
+        } else {
+            this.inlineWriter = null;
+            this.queue = new ArrayBlockingQueue<>(writerThreads * 2);
+            this.freeBatches = new ArrayBlockingQueue<>(writerThreads * 3);
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.workers = Executors.newFixedThreadPool(writerThreads,
+                    runnable -> new Thread(runnable, "CsvWriter-" + threadNumber.incrementAndGet()));
+            for (int i = 0; i < writerThreads; i++) {
+                workers.execute(() -> runWorker(writerFactory));
+            }
+            log.info("Started {} CSV writer workers", writerThreads);
+        }
+    }
+
+    /**
+     * Passes a full batch to the writer stage. Blocks while the queue is full.
+     *
+     * @param batch Rows to write; ownership passes to the pipeline
+     * @return An empty buffer to fill with the next batch (the same list when writing inline)
+     * @throws RuntimeException the first write failure, if any writer has failed
+     */
+    public List<VehicleRow> submit(List<VehicleRow> batch) {
+        return submit(batch, batch.size());
+    }
+
+    /**
+     * Passes a batch built from more input records than it holds rows, because duplicates were
+     * dropped. The difference is counted as duplicates, and the committed prefix advances by the
+     * input records, so it stays an offset into the file. An empty batch is only counted.
+     *
+     * @param batch Rows to write; ownership passes to the pipeline
+     * @param sourceRecords Input records the batch was built from, at least {@code batch.size()}
+     * @return An empty buffer to fill with the next batch (the same list when writing inline)
+     * @throws LoadCancelledException if the load was cancelled; the batch is dropped
+     * @throws RuntimeException the first write failure, if any writer has failed
+     */
+    public List<VehicleRow> submit(List<VehicleRow> batch, int sourceRecords) {
+        long submitNanos = System.nanoTime();
+        metrics.getParseDuration().record(submitNanos - lastSubmitNanos, TimeUnit.NANOSECONDS);
+        metrics.getParsedRows().increment(batch.size());
+        if (telemetry != null) {
+            telemetry.recordParsed(batch.size(), submitNanos - lastSubmitNanos);
+        }
+        if (control != null) {
+            awaitPermit(batch.size());
+            submitNanos = System.nanoTime();
+        }
+
+        long sequence = nextSequence++;
+        if (inlineWriter != null) {
+            writeBatch(inlineWriter, sequence, batch, sourceRecords);
+            batch.clear();
+            lastSubmitNanos = System.nanoTime();
+            return batch;
+        }
+
+        throwIfFailed();
+        offer(new QueuedBatch(sequence, batch, sourceRecords));
+        metrics.getQueuedBatches().incrementAndGet();
+        long queuedNanos = System.nanoTime();
+        metrics.getParseWait().record(queuedNanos - submitNanos, TimeUnit.NANOSECONDS);
+        if (telemetry != null) {
+            telemetry.record(JobTelemetry.Stage.BLOCKED, queuedNanos - submitNanos);
+        }
+        lastSubmitNanos = queuedNanos;
+
+        List<VehicleRow> next = freeBatches.poll();
+        return next != null ? next : new ArrayList<>(batchSizer.getBatchSize());
+    }
+
+    /**
+     * Waits for all submitted batches to be written.
+     *
+     * @return Outcome counts over all batches
+     * @throws RuntimeException the first write failure, if any writer has failed
+     */
+    public LoadResult finish() {
+        if (workers != null) {
+            for (int i = 0; i < writerThreads; i++) {
+                throwIfFailed();
+                offer(END_OF_INPUT);
+            }
+            workers.shutdown();
+            try {
+                while (!workers.awaitTermination(POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                    throwIfFailed();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for CSV writers", e);
+            }
+            throwIfFailed();
+        }
+        finished = true;
+        synchronized (totals) {
+            LoadResult result = new LoadResult();
+            result.add(totals);
+            return result;
+        }
+    }
+
+    /**
+     * Stops the writers. Batches still queued are discarded if {@link #finish()} was not reached.
+     */
+    @Override
+    public void close() {
+        if (inlineWriter != null) {
+            inlineWriter.close();
+            return;
+        }
+        if (!finished) {
+            // Workers poll the failure flag, finish their current batch and close their writers
+            failure.compareAndSet(null, new IllegalStateException("Load aborted"));
+            workers.shutdown();
+        }
+        try {
+            if (!workers.awaitTermination(SHUTDOWN_SECONDS, TimeUnit.SECONDS)) {
+                log.warn("CSV writer workers did not stop within {} seconds", SHUTDOWN_SECONDS);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        metrics.getQueuedBatches().addAndGet(-queue.stream().mapToInt(queued -> queued == END_OF_INPUT ? 0 : 1).sum());
+        queue.clear();
+    }
+
+    private void runWorker(Supplier<VehicleBatchWriter> writerFactory) {
+        try (VehicleBatchWriter writer = writerFactory.get()) {
+            while (failure.get() == null) {
+                long waitStart = System.nanoTime();
+                QueuedBatch queued = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                long waitNanos = System.nanoTime() - waitStart;
+                metrics.getWriteWait().record(waitNanos, TimeUnit.NANOSECONDS);
+                if (telemetry != null) {
+                    telemetry.record(JobTelemetry.Stage.IDLE, waitNanos);
+                }
+                if (queued == null) {
+                    continue;
+                }
+                if (queued == END_OF_INPUT) {
+                    return;
+                }
+                metrics.getQueuedBatches().decrementAndGet();
+                if (failure.get() != null) {
+                    return;
+                }
+                writeBatch(writer, queued.sequence(), queued.rows(), queued.sourceRecords());
+                queued.rows().clear();
+                freeBatches.offer(queued.rows());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Throwable t) {
+            if (failure.compareAndSet(null, t)) {
+                log.error("CSV writer worker failed: {}", t.getMessage());
+            }
+        }
+    }
+
+    private void writeBatch(VehicleBatchWriter writer, long sequence, List<VehicleRow> batch, int sourceRecords) {
+        int batchCount = batch.size();
+        LoadResult batchResult = new LoadResult();
+        if (batchCount > 0) {
+            long start = System.nanoTime();
+            batchResult = writeInTransaction(writer, batch);
+            long elapsedNanos = System.nanoTime() - start;
+            metrics.getWriteDuration().record(elapsedNanos, TimeUnit.NANOSECONDS);
+            if (batchResult.getRejected() == 0) {
+                // Bisection round trips say nothing about the cost of a batch of this size
+                batchSizer.onBatchCommitted(batchCount, elapsedNanos);
+            }
+            metrics.getWrittenRows().increment(batchCount);
+            if (telemetry != null) {
+                telemetry.recordWritten(batchCount);
+            }
+        }
+        batchResult.setDuplicates(batchResult.getDuplicates() + sourceRecords - batchCount);
+        metrics.recordOutcome(batchResult);
+
+        synchronized (totals) {
+            totals.add(batchResult);
+            committedOutOfOrder.put(sequence, sourceRecords);
+            Integer next;
+            while ((next = committedOutOfOrder.remove(nextPrefixSequence)) != null) {
+                committedPrefix += next;
+                nextPrefixSequence++;
+            }
+            onBatchWritten.onBatchWritten(totals.getRecordsProcessed(), committedPrefix);
+        }
+    }
+
+    private LoadResult writeInTransaction(VehicleBatchWriter writer, List<VehicleRow> rows) {
+        try {
+            return telemetry != null ? writeMeasured(writer, rows) : transactionTemplate.execute(status -> writer.write(rows));
+        } catch (DataIntegrityViolationException e) {
+            if (rejectWriter == null) {
+                throw e;
+            }
+            return isolateRejects(writer, rows, e);
+        }
+    }
+
+    /**
+     * Writes a batch in its own transaction, recording the time spent acquiring a connection,
+     * binding, executing and committing.
+     */
+    private LoadResult writeMeasured(VehicleBatchWriter writer, List<VehicleRow> rows) {
+        long begin = System.nanoTime();
+        long[] writtenNanos = new long[1];
+        LoadResult result = transactionTemplate.execute(status -> {
+            long started = System.nanoTime();
+            telemetry.record(JobTelemetry.Stage.ACQUIRE, started - begin);
+            LoadResult written = writer.write(rows);
+            writtenNanos[0] = System.nanoTime();
+            long bindNanos = writer.takeBindNanos();
+            telemetry.record(JobTelemetry.Stage.BIND, bindNanos);
+            telemetry.record(JobTelemetry.Stage.EXECUTE, writtenNanos[0] - started - bindNanos);
+            return written;
+        });
+        long committed = System.nanoTime();
+        telemetry.record(JobTelemetry.Stage.COMMIT, committed - writtenNanos[0]);
+        telemetry.getBatchCommit().record(committed - begin, TimeUnit.NANOSECONDS);
+        return result;
+    }
+
+    /**
+     * Writes the halves of a refused batch in separate transactions, splitting further whichever
+     * half is refused again. A single refused row is rejected.
+     */
+    private LoadResult isolateRejects(VehicleBatchWriter writer, List<VehicleRow> rows, DataIntegrityViolationException failure) {
+        if (rows.size() == 1) {
+            rejectWriter.reject(rows.get(0), failure);
+            LoadResult result = new LoadResult();
+            result.setRejected(1);
+            return result;
+        }
+        log.debug("Batch of {} rows refused, splitting it: {}", rows.size(), failure.getMessage());
+        int middle = rows.size() / 2;
+        LoadResult result = writeInTransaction(writer, rows.subList(0, middle));
+        result.add(writeInTransaction(writer, rows.subList(middle, rows.size())));
+        return result;
+    }
+
+    /**
+     * Waits for the rate limit, then stops the load if it was cancelled meanwhile or before.
+     */
+    private void awaitPermit(int rows) {
+        try {
+            long waitNanos = control.awaitPermit(rows);
+            metrics.getThrottleWait().record(waitNanos, TimeUnit.NANOSECONDS);
+            if (telemetry != null) {
+                telemetry.record(JobTelemetry.Stage.THROTTLE, waitNanos);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the rate limit", e);
+        }
+        if (control.isCancelled()) {
+            // Batches already queued still commit, so the committed prefix stays a clean resume point
+            LoadResult committed = finish();
+            log.info("Load cancelled; stopped after {} committed records", committed.getRecordsProcessed());
+            throw new LoadCancelledException(committed);
+        }
+    }
+
+    private void offer(QueuedBatch batch) {
+        try {
+            // Offer with a timeout so the parser notices a failed writer instead of blocking forever
+            while (!queue.offer(batch, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                throwIfFailed();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while queueing a batch", e);
+        }
+    }
+
+    private void throwIfFailed() {
+        Throwable t = failure.get();
+        if (t == null) {
+            return;
+        }
+        if (t instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (t instanceof Error error) {
+            throw error;
+        }
+        throw new IllegalStateException("CSV writer failed: " + t.getMessage(), t);
+    }
+
+    /**
+     * Receives progress after each committed batch.
+     */
+    public interface BatchListener {
+
+        /**
+         * @param recordsWritten Input records written, rejected or dropped as duplicates so far, in any order
+         * @param committedPrefix Input records in the longest fully committed run of batches from the first one
+         */
+        void onBatchWritten(int recordsWritten, long committedPrefix);
+    }
+
+    /**
+     * What a load plugs into its pipeline besides the writers; everything but the listener is optional.
+     */
+    @Data
+    @NoArgsConstructor
+    public static class Hooks {
+
+        /**
+         * Called after each committed batch; calls are serialized across workers.
+         */
+        private BatchListener onBatchWritten = (recordsWritten, committedPrefix) -> { };
+
+        /**
+         * Receives rows isolated from a refused batch, or {@code null} to fail the load instead.
+         */
+        private RejectWriter rejectWriter;
+
+        /**
+         * Rate limit and cancellation of the load, or {@code null} for neither.
+         */
+        private LoadControl control;
+
+        /**
+         * Meters of the load's job, or {@code null} for none.
+         */
+        private JobTelemetry telemetry;
+
+        /**
+         * @param onBatchWritten Called after each committed batch
+         * @return Hooks with only the listener set
+         */
+        public static Hooks onBatchWritten(BatchListener onBatchWritten) {
+            Hooks hooks = new Hooks();
+            hooks.setOnBatchWritten(onBatchWritten);
+            return hooks;
+        }
+    }
+
+    private record QueuedBatch(long sequence, List<VehicleRow> rows, int sourceRecords) {
+    }
+}
@@ -0,0 +1,65 @@
+package com.ev.apiservice.service.loader;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Outcome of writing one batch or a whole load, split by what happened to each row.
+ */
+@Data
+@NoArgsConstructor
+public class LoadResult {
+
+    /** Rows whose VIN was not in the table yet. */
+    private int inserted;
+
+    /** Existing rows whose content changed and were rewritten. */
+    private int updated;
+
+    /** Existing rows whose content hash matched and were left alone. */
+    private int unchanged;
+
+    /** Records not written because another record of the file has the same VIN and wins. */
+    private int duplicates;
+
+    /** Rows the database refused, isolated from their batch and recorded in the reject file. */
+    private int rejected;
+
+    /** Vehicles deleted after a snapshot sync because the file no longer lists them; not input records. */
+    private int deleted;
+
+    /** Records a dry run parsed and validated, and a load would write. */
+    private int validated;
+
+    /** Column statistics of a dry run; {@code null} for a load. */
+    private CsvProfile profile;
+
+    public LoadResult(int inserted, int updated, int unchanged) {
+        this.inserted = inserted;
+        this.updated = updated;
+        this.unchanged = unchanged;
+    }
+
+    /**
+     * @return Total number of input records processed, including dropped duplicates, rejected rows
+     *         and records validated by a dry run
+     */
+    public int getRecordsProcessed() {
+        return inserted + updated + unchanged + duplicates + rejected + validated;
+    }
+
+    /**
+     * Adds the counts of another result to this one; the profile is not combined.
+     *
+     * @param other Counts to add
+     */
+    public void add(LoadResult other) {
+        inserted += other.inserted;
+        updated += other.updated;
+        unchanged += other.unchanged;
+        duplicates += other.duplicates;
+        rejected += other.rejected;
+        deleted += other.deleted;
+        validated += other.validated;
+    }
+}
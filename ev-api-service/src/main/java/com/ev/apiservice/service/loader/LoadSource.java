@@ -0,0 +1,28 @@
+package com.ev.apiservice.service.loader;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * An opened CSV input together with what is known about its size and location.
+ */
+@Getter
+@AllArgsConstructor
+public class LoadSource implements Closeable {
+
+    private final String name;
+    private final InputStream inputStream;
+    private final long size;  // -1 when the size is not known up front
+    private final Path path;  // null unless backed by a local file
+    private final Compression compression;
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+}
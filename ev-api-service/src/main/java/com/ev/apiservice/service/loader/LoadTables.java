@@ -0,0 +1,81 @@
+package com.ev.apiservice.service.loader;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Names of the work tables a load creates next to {@code electric_vehicle_population}: the
+ * staging table of each COPY writer and the shadow table of a full refresh. Each name carries the
+ * tag of the load's job, so the tables of a job whose instance died can be found and dropped by
+ * the instance that takes the job over or ends it.
+ */
+@Slf4j
+public final class LoadTables {
+
+    static final String STAGING_PREFIX = "ev_staging_";
+    static final String SHADOW_PREFIX = "ev_shadow_";
+
+    private static final int TAG_LENGTH = 32;
+
+    private LoadTables() {
+    }
+
+    /**
+     * @param jobId ID of the job running the load, or {@code null} for a load outside a job
+     * @return The tag of the load's tables: the job ID's letters and digits, or a random tag without a job
+     */
+    public static String tag(String jobId) {
+        String tag = jobId != null ? jobId.toLowerCase(Locale.ROOT).replaceAll("[^a-z0-9]", "") : "";
+        if (tag.isEmpty()) {
+            tag = randomSuffix(TAG_LENGTH);
+        }
+        return tag.length() > TAG_LENGTH ? tag.substring(0, TAG_LENGTH) : tag;
+    }
+
+    /**
+     * @return A new staging table name for a writer of the tagged load
+     */
+    static String staging(String tag) {
+        return STAGING_PREFIX + tag + "_" + randomSuffix(12);
+    }
+
+    /**
+     * @return A new shadow table name for the tagged load; the part after the last underscore is unique to it
+     */
+    static String shadow(String tag) {
+        return SHADOW_PREFIX + tag + "_" + randomSuffix(12);
+    }
+
+    /**
+     * Drops the staging and shadow tables left behind by a job, e.g. by an instance that stopped
+     * while running it. The live table is never touched.
+     *
+     * @param jdbcTemplate Template on the loader's database
+     * @param jobId The job ID
+     * @return Names of the dropped tables
+     */
+    public static List<String> dropLeftovers(JdbcTemplate jdbcTemplate, String jobId) {
+        String tag = tag(jobId);
+        // Tags are letters and digits only; the underscores of the prefixes are escaped for LIKE
+        List<String> tables = jdbcTemplate.queryForList("SELECT tablename FROM pg_tables WHERE schemaname = current_schema()"
+                        + " AND (tablename LIKE ? OR tablename LIKE ?)", String.class,
+                likePrefix(STAGING_PREFIX + tag + "_"), likePrefix(SHADOW_PREFIX + tag + "_"));
+        for (String table : tables) {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+            log.info("Dropped table {} left behind by job {}", table, jobId);
+        }
+        return tables;
+    }
+
+    private static String likePrefix(String prefix) {
+        return prefix.replace("_", "\\_") + "%";
+    }
+
+    private static String randomSuffix(int length) {
+        return UUID.randomUUID().toString().replace("-", "").substring(0, length);
+    }
+}
@@ -0,0 +1,355 @@
+package com.ev.apiservice.service.loader;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVParser;
+import org.apache.commons.csv.CSVRecord;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * Parses a local CSV file on several threads.
+ * <p>
+ * The file is memory-mapped and split into byte ranges that end on record boundaries. Boundaries
+ * are found with one byte scan that tracks quote state, so newlines inside quoted fields never
+ * split a record. Each range is parsed by commons-csv, or by {@link VehicleCsvReader} when created
+ * with {@link #withSchemaReader}, on a dedicated fork-join pool and the
+ * resulting batches are handed to the calling thread through a bounded queue, which keeps memory
+ * bounded when the consumer (the database writer) is slower than parsing.
+ * <p>
+ * Batches from different ranges arrive in no particular order. Converters are told the range and
+ * the position within it of each record, so a decision that depends on a record's place in the
+ * file does not depend on that order; {@link #rangeStarts(Path, int)} returns the ranges a parser
+ * of the same file and parallelism uses.
+ */
+@Slf4j
+public class ParallelCsvParser {
+
+    private static final List<VehicleRow> END_OF_RANGE = new ArrayList<>(0);
+    private static final long POLL_MILLIS = 100;
+
+    private final Path file;
+    private final int parallelism;
+    private final IntSupplier batchSize;
+    private final RecordConverter<CSVRecord> converter;
+    private final RecordConverter<VehicleCsvReader> schemaConverter;
+    private final AtomicLong bytesRead = new AtomicLong();
+    private volatile boolean aborted;
+
+    public ParallelCsvParser(Path file, int parallelism, int batchSize, RecordConverter<CSVRecord> converter) {
+        this(file, parallelism, () -> batchSize, converter);
+    }
+
+    /**
+     * @param batchSize Rows per batch, read whenever a batch is started, so it may change during a load
+     */
+    public ParallelCsvParser(Path file, int parallelism, IntSupplier batchSize, RecordConverter<CSVRecord> converter) {
+        this(file, parallelism, batchSize, converter, null);
+    }
+
+    private ParallelCsvParser(Path file, int parallelism, IntSupplier batchSize, RecordConverter<CSVRecord> converter,
+                              RecordConverter<VehicleCsvReader> schemaConverter) {
+        this.file = file;
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.converter = converter;
+        this.schemaConverter = schemaConverter;
+    }
+
+    /**
+     * Creates a parser that tokenizes each range with a {@link VehicleCsvReader}.
+     *
+     * @param batchSize Rows per batch, read whenever a batch is started, so it may change during a load
+     * @param converter Converts the record the reader is positioned on, or returns {@code null} to drop it
+     * @return The parser
+     */
+    public static ParallelCsvParser withSchemaReader(Path file, int parallelism, IntSupplier batchSize,
+                                                     RecordConverter<VehicleCsvReader> converter) {
+        return new ParallelCsvParser(file, parallelism, batchSize, null, converter);
+    }
+
+    /**
+     * Finds the ranges a parser of a file splits it into, e.g. for a pre-pass that needs to place
+     * the records of each range in the file. The split is a byte scan of the mapped file.
+     *
+     * @param file The CSV file
+     * @param parallelism Parallelism of the parser
+     * @return Byte offsets at which the ranges start, in ascending order; none for a file without data records
+     * @throws IOException if the file cannot be mapped
+     */
+    public static int[] rangeStarts(Path file, int parallelism) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = map(channel);
+            int headerEnd = findRecordEnd(mapped, 0);
+            if (headerEnd >= mapped.limit()) {
+                return new int[0];
+            }
+            return splitRanges(mapped, headerEnd, mapped.limit(), parallelism).stream().mapToInt(range -> range[0]).toArray();
+        }
+    }
+
+    /**
+     * @return Number of bytes consumed by the range parsers so far
+     */
+    public long getBytesRead() {
+        return bytesRead.get();
+    }
+
+    /**
+     * Parses the whole file and passes each full batch to the consumer on the calling thread.
+     * If the consumer throws, parsing is stopped and the exception is rethrown.
+     *
+     * @param consumer Receives batches of at most {@code batchSize} rows
+     * @throws IOException if the file cannot be mapped or a range fails to parse
+     */
+    public void parse(Consumer<List<VehicleRow>> consumer) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = map(channel);
+            int size = mapped.limit();
+
+            int headerEnd = findRecordEnd(mapped, 0);
+            String[] headers = parseHeader(mapped, headerEnd);
+            bytesRead.set(headerEnd);
+            if (headerEnd >= size) {
+                return;
+            }
+
+            List<int[]> ranges = splitRanges(mapped, headerEnd, size, parallelism);
+            log.info("Parsing {} in {} ranges on {} threads", file, ranges.size(), parallelism);
+
+            CSVFormat rangeFormat = CSVFormat.DEFAULT.builder()
+                    .setHeader(headers)
+                    .setSkipHeaderRecord(false)
+                    .setIgnoreHeaderCase(true)
+                    .setTrim(true)
+                    .build();
+
+            BlockingQueue<List<VehicleRow>> queue = new ArrayBlockingQueue<>(parallelism * 2);
+            AtomicReference<Throwable> failure = new AtomicReference<>();
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                for (int i = 0; i < ranges.size(); i++) {
+                    int rangeIndex = i;
+                    int[] range = ranges.get(i);
+                    pool.submit(ForkJoinTask.adapt(() -> parseRange(mapped, rangeIndex, range[0], range[1], headers,
+                            rangeFormat, queue, failure)));
+                }
+                drain(queue, ranges.size(), failure, consumer);
+            } finally {
+                aborted = true;
+                pool.shutdownNow();
+            }
+        }
+    }
+
+    private void drain(BlockingQueue<List<VehicleRow>> queue, int rangeCount, AtomicReference<Throwable> failure,
+                       Consumer<List<VehicleRow>> consumer) throws IOException {
+        int finishedRanges = 0;
+        while (finishedRanges < rangeCount) {
+            Throwable parseFailure = failure.get();
+            if (parseFailure != null) {
+                throw new IOException("Parallel CSV parsing failed: " + parseFailure.getMessage(), parseFailure);
+            }
+            List<VehicleRow> batch;
+            try {
+                batch = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while waiting for parsed batches", e);
+            }
+            if (batch == null) {
+                continue;
+            }
+            if (batch == END_OF_RANGE) {
+                finishedRanges++;
+            } else {
+                consumer.accept(batch);
+            }
+        }
+    }
+
+    private void parseRange(MappedByteBuffer mapped, int rangeIndex, int start, int end, String[] headers, CSVFormat format,
+                            BlockingQueue<List<VehicleRow>> queue, AtomicReference<Throwable> failure) {
+        try (Reader reader = new InputStreamReader(
+                new ByteBufferInputStream(mapped.slice(start, end - start), bytesRead), StandardCharsets.UTF_8)) {
+            BatchCollector collector = new BatchCollector(queue);
+            int index = 0;
+            if (schemaConverter != null) {
+                VehicleCsvReader records = new VehicleCsvReader(reader, headers);
+                while (!aborted && records.next()) {
+                    collector.add(schemaConverter.convert(records, rangeIndex, index++));
+                }
+            } else {
+                try (CSVParser parser = new CSVParser(reader, format)) {
+                    for (CSVRecord record : parser) {
+                        if (aborted) {
+                            break;
+                        }
+                        collector.add(converter.convert(record, rangeIndex, index++));
+                    }
+                }
+            }
+            if (aborted) {
+                return;
+            }
+            collector.flush();
+            put(queue, END_OF_RANGE);
+        } catch (Throwable t) {
+            failure.compareAndSet(null, t);
+        }
+    }
+
+    /**
+     * Fills batches of the current target size and queues each one when it is full.
+     */
+    private final class BatchCollector {
+
+        private final BlockingQueue<List<VehicleRow>> queue;
+        private int targetSize = batchSize.getAsInt();
+        private List<VehicleRow> batch = new ArrayList<>(targetSize);
+
+        BatchCollector(BlockingQueue<List<VehicleRow>> queue) {
+            this.queue = queue;
+        }
+
+        void add(VehicleRow row) throws InterruptedException {
+            if (row == null) {
+                return; // dropped by the converter, e.g. a duplicate
+            }
+            batch.add(row);
+            if (batch.size() >= targetSize) {
+                put(queue, batch);
+                targetSize = batchSize.getAsInt();
+                batch = new ArrayList<>(targetSize);
+            }
+        }
+
+        void flush() throws InterruptedException {
+            if (!batch.isEmpty()) {
+                put(queue, batch);
+            }
+        }
+    }
+
+    private void put(BlockingQueue<List<VehicleRow>> queue, List<VehicleRow> batch) throws InterruptedException {
+        // Offer with a timeout so a range parser notices when the consumer has given up
+        while (!queue.offer(batch, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+            if (aborted) {
+                throw new InterruptedException("Parsing aborted");
+            }
+        }
+    }
+
+    private static MappedByteBuffer map(FileChannel channel) throws IOException {
+        long size = channel.size();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("File too large to map for parallel parsing: " + size + " bytes");
+        }
+        return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    private static String[] parseHeader(MappedByteBuffer mapped, int headerEnd) throws IOException {
+        byte[] headerBytes = new byte[headerEnd];
+        mapped.get(0, headerBytes);
+        try (CSVParser parser = CSVParser.parse(new String(headerBytes, StandardCharsets.UTF_8),
+                CSVFormat.DEFAULT.builder().setTrim(true).build())) {
+            List<CSVRecord> records = parser.getRecords();
+            if (records.isEmpty()) {
+                throw new IOException("CSV file has no header record");
+            }
+            String[] headers = records.get(0).values();
+            // Strip a UTF-8 byte order mark from the first header
+            if (headers.length > 0 && !headers[0].isEmpty() && headers[0].charAt(0) == '\uFEFF') {
+                headers[0] = headers[0].substring(1);
+            }
+            return headers;
+        }
+    }
+
+    /**
+     * Returns the offset just past the newline that ends the record starting at {@code start},
+     * or the buffer limit if the last record has no trailing newline.
+     */
+    static int findRecordEnd(ByteBuffer buffer, int start) {
+        boolean inQuotes = false;
+        int limit = buffer.limit();
+        for (int i = start; i < limit; i++) {
+            byte b = buffer.get(i);
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if (b == '\n' && !inQuotes) {
+                return i + 1;
+            }
+        }
+        return limit;
+    }
+
+    /**
+     * Splits {@code [start, end)} into at most {@code parts} ranges that each end on a record boundary.
+     * Quote state is tracked from {@code start}, which must itself be a record boundary; an escaped
+     * quote ({@code ""}) toggles the state twice and therefore leaves it unchanged.
+     */
+    static List<int[]> splitRanges(ByteBuffer buffer, int start, int end, int parts) {
+        List<int[]> ranges = new ArrayList<>(parts);
+        long span = end - start;
+        int rangeStart = start;
+        int part = 1;
+        long target = start + span * part / parts;
+        boolean inQuotes = false;
+        for (int i = start; i < end && part < parts; i++) {
+            byte b = buffer.get(i);
+            if (b == '"') {
+                inQuotes = !inQuotes;
+            } else if (b == '\n' && !inQuotes && i + 1 >= target) {
+                if (i + 1 > rangeStart && i + 1 < end) {
+                    ranges.add(new int[]{rangeStart, i + 1});
+                    rangeStart = i + 1;
+                }
+                while (part < parts && start + span * part / parts <= i + 1) {
+                    part++;
+                }
+                target = start + span * part / parts;
+            }
+        }
+        if (rangeStart < end) {
+            ranges.add(new int[]{rangeStart, end});
+        }
+        return ranges;
+    }
+
+    /**
+     * Converts the record of a range parser.
+     *
+     * @param <R> The parser's record type
+     */
+    @FunctionalInterface
+    public interface RecordConverter<R> {
+
+        /**
+         * @param record The record, or the reader positioned on it
+         * @param range Index of the record's range, in file order
+         * @param index Position of the record within its range, from 0
+         * @return The row, or {@code null} to drop the record
+         */
+        VehicleRow convert(R record, int range, int index);
+    }
+}
@@ -0,0 +1,18 @@
+package com.ev.apiservice.service.loader;
+
+/**
+ * How CSV records are tokenized and converted into {@link VehicleRow}s.
+ */
+public enum ParserType {
+
+    /**
+     * General-purpose Apache Commons CSV parser; fields are looked up by header name per record.
+     */
+    COMMONS,
+
+    /**
+     * {@link VehicleCsvReader}, a tokenizer for the DOL vehicle schema that resolves column
+     * indexes once and converts numbers straight from its character buffer.
+     */
+    SCHEMA
+}
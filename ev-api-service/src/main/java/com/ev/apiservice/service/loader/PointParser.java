@@ -0,0 +1,186 @@
+package com.ev.apiservice.service.loader;
+
+/**
+ * Parses WKT points of the form {@code POINT (lon lat)} into two doubles without allocating.
+ * <p>
+ * Numbers are scanned into a long mantissa and a decimal exponent. When the mantissa fits in 53
+ * bits and the exponent is within the range of exactly representable powers of ten, one
+ * multiplication or division gives the correctly rounded double, the same result as
+ * {@link Double#parseDouble(String)}. Longer numbers fall back to {@code Double.parseDouble}.
+ */
+public final class PointParser {
+
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+    private static final long MAX_EXACT_MANTISSA = 1L << 53;
+
+    private PointParser() {
+    }
+
+    /**
+     * Parses a point and checks that it is a valid WGS84 coordinate.
+     *
+     * @param text WKT text such as {@code POINT (-122.3321 47.6062)}; the keyword is case-insensitive
+     * @param row Receives the longitude and latitude; left untouched if the point is invalid
+     * @return {@code true} if the text is a point with longitude in [-180, 180] and latitude in [-90, 90]
+     */
+    public static boolean parse(CharSequence text, VehicleRow row) {
+        if (text == null) {
+            return false;
+        }
+        int length = text.length();
+        int pos = skipSpaces(text, 0, length);
+        if (!regionMatchesIgnoreCase(text, pos, "POINT")) {
+            return false;
+        }
+        pos = skipSpaces(text, pos + 5, length);
+        if (pos >= length || text.charAt(pos) != '(') {
+            return false;
+        }
+
+        int lonStart = skipSpaces(text, pos + 1, length);
+        int lonEnd = scanNumber(text, lonStart, length);
+        if (lonEnd < 0) {
+            return false;
+        }
+        int latStart = skipSpaces(text, lonEnd, length);
+        if (latStart == lonEnd) {
+            return false; // coordinates must be separated by whitespace
+        }
+        int latEnd = scanNumber(text, latStart, length);
+        if (latEnd < 0) {
+            return false;
+        }
+        pos = skipSpaces(text, latEnd, length);
+        if (pos >= length || text.charAt(pos) != ')' || skipSpaces(text, pos + 1, length) != length) {
+            return false;
+        }
+
+        double longitude = toDouble(text, lonStart, lonEnd);
+        double latitude = toDouble(text, latStart, latEnd);
+        if (!(longitude >= -180 && longitude <= 180 && latitude >= -90 && latitude <= 90)) {
+            return false; // also rejects NaN
+        }
+        row.setLongitude(longitude);
+        row.setLatitude(latitude);
+        return true;
+    }
+
+    /**
+     * Returns the end of a number of the form {@code [+-]digits[.digits][(e|E)[+-]digits]}
+     * starting at {@code start}, or -1 if there is none.
+     */
+    private static int scanNumber(CharSequence text, int start, int length) {
+        int pos = start;
+        if (pos < length && (text.charAt(pos) == '-' || text.charAt(pos) == '+')) {
+            pos++;
+        }
+        int digits = 0;
+        while (pos < length && isDigit(text.charAt(pos))) {
+            pos++;
+            digits++;
+        }
+        if (pos < length && text.charAt(pos) == '.') {
+            pos++;
+            while (pos < length && isDigit(text.charAt(pos))) {
+                pos++;
+                digits++;
+            }
+        }
+        if (digits == 0) {
+            return -1;
+        }
+        if (pos < length && (text.charAt(pos) == 'e' || text.charAt(pos) == 'E')) {
+            pos++;
+            if (pos < length && (text.charAt(pos) == '-' || text.charAt(pos) == '+')) {
+                pos++;
+            }
+            int exponentDigits = 0;
+            while (pos < length && isDigit(text.charAt(pos))) {
+                pos++;
+                exponentDigits++;
+            }
+            if (exponentDigits == 0 || exponentDigits > 3) {
+                return -1;
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * Converts a number already validated by {@link #scanNumber}.
+     */
+    private static double toDouble(CharSequence text, int start, int end) {
+        int pos = start;
+        boolean negative = false;
+        if (text.charAt(pos) == '-' || text.charAt(pos) == '+') {
+            negative = text.charAt(pos) == '-';
+            pos++;
+        }
+        long mantissa = 0;
+        int exponent = 0;
+        boolean exact = true;
+        boolean fraction = false;
+        for (; pos < end; pos++) {
+            char c = text.charAt(pos);
+            if (c == '.') {
+                fraction = true;
+            } else if (isDigit(c)) {
+                if (mantissa < MAX_EXACT_MANTISSA / 10) {
+                    mantissa = mantissa * 10 + (c - '0');
+                    if (fraction) {
+                        exponent--;
+                    }
+                } else {
+                    exact = false;
+                    break;
+                }
+            } else {
+                break; // exponent marker
+            }
+        }
+        if (exact && pos < end) {
+            int exponentSign = 1;
+            pos++; // 'e' or 'E'
+            if (text.charAt(pos) == '-' || text.charAt(pos) == '+') {
+                exponentSign = text.charAt(pos) == '-' ? -1 : 1;
+                pos++;
+            }
+            int explicitExponent = 0;
+            for (; pos < end; pos++) {
+                explicitExponent = explicitExponent * 10 + (text.charAt(pos) - '0');
+            }
+            exponent += exponentSign * explicitExponent;
+        }
+        if (!exact || mantissa >= MAX_EXACT_MANTISSA || exponent < -22 || exponent > 22) {
+            return Double.parseDouble(text.subSequence(start, end).toString());
+        }
+        double value = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        return negative ? -value : value;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int skipSpaces(CharSequence text, int pos, int length) {
+        while (pos < length && Character.isWhitespace(text.charAt(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    private static boolean regionMatchesIgnoreCase(CharSequence text, int pos, String keyword) {
+        if (pos + keyword.length() > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            if (Character.toUpperCase(text.charAt(pos + i)) != keyword.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
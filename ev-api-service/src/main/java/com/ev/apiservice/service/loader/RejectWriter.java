@@ -0,0 +1,107 @@
+package com.ev.apiservice.service.loader;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.springframework.core.NestedExceptionUtils;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+
+/**
+ * Records rows the database refused, with the reason, in a per-job CSV file.
+ * <p>
+ * The file is created on the first rejected row, so clean loads leave no file behind, and appended
+ * to when a resumed job rejects more rows. Without a file, rejected rows are only logged.
+ * Safe to use from several writer workers.
+ */
+@Slf4j
+public class RejectWriter implements Closeable {
+
+    private static final String[] HEADER = {"VIN (1-10)", "DOL Vehicle ID", "Model Year", "Make", "Model", "Reason"};
+
+    private final Path file;
+    private CSVPrinter printer;
+    private int rejected;
+
+    /**
+     * @param file CSV file to append rejected rows to, or {@code null} to only log them
+     */
+    public RejectWriter(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Records one rejected row.
+     *
+     * @param row The row that could not be written
+     * @param failure Why the database refused it
+     * @throws UncheckedIOException if the reject file cannot be written
+     */
+    public synchronized void reject(VehicleRow row, Throwable failure) {
+        String reason = reasonOf(failure);
+        log.warn("Rejected row for VIN {}: {}", row.getVin(), reason);
+        rejected++;
+        if (file == null) {
+            return;
+        }
+        try {
+            if (printer == null) {
+                printer = open();
+            }
+            printer.printRecord(row.getVin(), row.getDolVehicleId(), row.getModelYear(), row.getMake(), row.getModel(), reason);
+            printer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write reject file " + file + ": " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return Rows rejected through this writer
+     */
+    public synchronized int getRejected() {
+        return rejected;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (printer == null) {
+            return;
+        }
+        try {
+            printer.close();
+        } catch (IOException e) {
+            log.warn("Could not close reject file {}: {}", file, e.getMessage());
+        }
+    }
+
+    private CSVPrinter open() throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        boolean newFile = !Files.exists(file) || Files.size(file) == 0;
+        CSVFormat format = newFile ? CSVFormat.DEFAULT.builder().setHeader(HEADER).build() : CSVFormat.DEFAULT;
+        log.info("Writing rejected rows to {}", file);
+        return new CSVPrinter(Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND), format);
+    }
+
+    /**
+     * Extracts the database's own message from a translated exception. A failed JDBC batch keeps
+     * the error of the refused statement as the next exception of its {@link java.sql.BatchUpdateException}.
+     */
+    static String reasonOf(Throwable failure) {
+        Throwable cause = NestedExceptionUtils.getMostSpecificCause(failure);
+        if (cause instanceof SQLException sqlException && sqlException.getNextException() != null) {
+            cause = sqlException.getNextException();
+        }
+        String message = cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName();
+        return message.replaceAll("\\s*\\R\\s*", " ").trim();
+    }
+}
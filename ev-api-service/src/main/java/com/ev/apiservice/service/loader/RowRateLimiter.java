@@ -0,0 +1,89 @@
+package com.ev.apiservice.service.loader;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Token bucket limiting the rows per second a load writes. The rate can be changed while a load
+ * is waiting on it, and one limiter may be shared by several loads to cap their combined rate.
+ * <p>
+ * The bucket holds at most one second of rows and starts empty, so a new or raised limit does not
+ * let a burst through. A request for more rows than the bucket holds waits until the bucket is
+ * full and then overdraws it; the next request waits for the debt, so the average rate still
+ * matches the limit when batches are larger than the per-second ceiling.
+ */
+public class RowRateLimiter {
+
+    private static final long MAX_SLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    private long maxRowsPerSecond;
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+
+    /**
+     * @param maxRowsPerSecond Rows per second; 0 for no limit
+     */
+    public RowRateLimiter(long maxRowsPerSecond) {
+        setMaxRowsPerSecond(maxRowsPerSecond);
+    }
+
+    /**
+     * @return Rows per second; 0 for no limit
+     */
+    public synchronized long getMaxRowsPerSecond() {
+        return maxRowsPerSecond;
+    }
+
+    /**
+     * Changes the limit. Loads waiting on the limiter pick up the new rate within 100 ms.
+     *
+     * @param maxRowsPerSecond Rows per second; 0 for no limit
+     * @throws IllegalArgumentException if the rate is negative
+     */
+    public synchronized void setMaxRowsPerSecond(long maxRowsPerSecond) {
+        if (maxRowsPerSecond < 0) {
+            throw new IllegalArgumentException("Rows per second must not be negative");
+        }
+        refill(System.nanoTime());
+        this.maxRowsPerSecond = maxRowsPerSecond;
+        tokens = Math.min(tokens, maxRowsPerSecond);
+    }
+
+    /**
+     * Takes rows from the bucket, waiting while it holds too few.
+     *
+     * @param rows Rows about to be written
+     * @param abort Checked while waiting; when it returns {@code true}, the wait ends without taking rows
+     * @return Nanoseconds spent waiting
+     * @throws InterruptedException if the thread is interrupted while waiting
+     */
+    public long acquire(int rows, BooleanSupplier abort) throws InterruptedException {
+        long start = System.nanoTime();
+        while (!abort.getAsBoolean()) {
+            long waitNanos;
+            synchronized (this) {
+                long now = System.nanoTime();
+                refill(now);
+                if (maxRowsPerSecond == 0) {
+                    return now - start;
+                }
+                double needed = Math.min(rows, maxRowsPerSecond);
+                if (tokens >= needed) {
+                    tokens -= rows;
+                    return now - start;
+                }
+                waitNanos = (long) Math.ceil((needed - tokens) * TimeUnit.SECONDS.toNanos(1) / maxRowsPerSecond);
+            }
+            TimeUnit.NANOSECONDS.sleep(Math.min(waitNanos, MAX_SLEEP_NANOS));
+        }
+        return System.nanoTime() - start;
+    }
+
+    private void refill(long now) {
+        if (maxRowsPerSecond > 0) {
+            tokens = Math.min(maxRowsPerSecond,
+                    tokens + (double) (now - lastRefillNanos) * maxRowsPerSecond / TimeUnit.SECONDS.toNanos(1));
+        }
+        lastRefillNanos = now;
+    }
+}
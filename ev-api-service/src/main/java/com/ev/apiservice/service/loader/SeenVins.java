@@ -0,0 +1,60 @@
+package com.ev.apiservice.service.loader;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Compact set of the distinct VINs of a file, for a snapshot sync. VINs that pack are kept as
+ * primitive longs in a {@link VinTable}, the rare others as strings.
+ * <p>
+ * {@link #add(String)} is single-threaded.
+ */
+public final class SeenVins {
+
+    private static final int INITIAL_TABLE_SIZE = 1 << 16;
+
+    private final VinTable packed;
+    private final Set<String> unpacked;
+
+    public SeenVins() {
+        this(new VinTable(INITIAL_TABLE_SIZE), new HashSet<>());
+    }
+
+    SeenVins(VinTable packed, Set<String> unpacked) {
+        this.packed = packed;
+        this.unpacked = unpacked;
+    }
+
+    /**
+     * @param vin VIN of a record, trimmed as by the CSV parser; blank VINs are ignored
+     */
+    public void add(String vin) {
+        if (vin == null || vin.isEmpty()) {
+            return;
+        }
+        long key = VinTable.pack(vin);
+        if (key != VinTable.UNPACKABLE) {
+            packed.putIfAbsent(key, 0);
+        } else {
+            unpacked.add(vin);
+        }
+    }
+
+    /**
+     * @return Number of distinct VINs
+     */
+    public int size() {
+        return packed.size() + unpacked.size();
+    }
+
+    /**
+     * Calls an action for every VIN, in no particular order.
+     *
+     * @param action Receives each VIN
+     */
+    public void forEach(Consumer<String> action) {
+        packed.forEachKey(key -> action.accept(VinTable.unpack(key)));
+        unpacked.forEach(action);
+    }
+}
@@ -0,0 +1,210 @@
+package com.ev.apiservice.service.loader;
+
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+
+/**
+ * Shadow copy of {@code electric_vehicle_population} filled by a {@link LoadMode#REPLACE} load.
+ * The shadow starts with the columns, defaults and NOT NULL constraints of the live table but no
+ * keys, indexes or triggers, so batches are copied in at raw COPY speed. Once every batch is in,
+ * {@link #buildIndexes()} recreates the constraints, indexes and triggers of the live table on it,
+ * read from the catalog so that later migrations carry over, and analyzes it.
+ * {@link #swap(TransactionTemplate)} then replaces the live table in one short transaction, so
+ * readers see either the old dataset or the complete new one. Closing a shadow that was not
+ * swapped in drops it.
+ */
+@Slf4j
+public class ShadowTable implements AutoCloseable {
+
+    private static final String LOCK_TIMEOUT = "5s";
+    private static final int SWAP_ATTEMPTS = 5;
+    private static final int MAX_IDENTIFIER_LENGTH = 63;
+
+    private final JdbcTemplate jdbcTemplate;
+    @Getter
+    private final String name;
+    private final String suffix;
+    private final List<Rename> renames = new ArrayList<>();
+    private boolean swapped;
+
+    private ShadowTable(JdbcTemplate jdbcTemplate, String name) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.name = name;
+        // Unique to this shadow, so it also tells apart the temporary names of its indexes
+        this.suffix = name.substring(name.lastIndexOf('_') + 1);
+    }
+
+    /**
+     * Creates an empty shadow table.
+     *
+     * @param jdbcTemplate Template on the loader's database
+     * @param tableTag Tag of the load, from {@link LoadTables#tag(String)}, carried by the shadow table's name
+     */
+    public static ShadowTable create(JdbcTemplate jdbcTemplate, String tableTag) {
+        ShadowTable shadow = new ShadowTable(jdbcTemplate, LoadTables.shadow(tableTag));
+        jdbcTemplate.execute("CREATE TABLE " + shadow.name + " (LIKE " + VehicleTableSql.TABLE + " INCLUDING DEFAULTS)");
+        log.info("Created shadow table {} for a full refresh of {}", shadow.name, VehicleTableSql.TABLE);
+        return shadow;
+    }
+
+    /**
+     * @return A writer copying batches into the shadow table; every row counts as inserted
+     */
+    public VehicleBatchWriter newWriter() {
+        StringBuilder buffer = new StringBuilder(64 * 1024);
+        return new VehicleBatchWriter() {
+            private long bindNanos;
+
+            @Override
+            public LoadResult write(List<VehicleRow> batch) {
+                long bindStart = System.nanoTime();
+                byte[] data = CopyBatchWriter.encode(batch, buffer);
+                bindNanos += System.nanoTime() - bindStart;
+                return new LoadResult((int) CopyBatchWriter.copy(jdbcTemplate, name, data), 0, 0);
+            }
+
+            @Override
+            public long takeBindNanos() {
+                long nanos = bindNanos;
+                bindNanos = 0;
+                return nanos;
+            }
+        };
+    }
+
+    /**
+     * Adds the constraints, indexes and triggers of the live table to the loaded shadow table,
+     * under temporary names where names must be unique per schema, then analyzes it.
+     *
+     * @throws org.springframework.dao.DataAccessException if the loaded rows violate a constraint,
+     *         e.g. two vehicles share a {@code DOL Vehicle ID}
+     */
+    public void buildIndexes() {
+        long start = System.nanoTime();
+        List<Map<String, Object>> constraints = jdbcTemplate.queryForList("""
+                SELECT conname, pg_get_constraintdef(oid) AS definition
+                FROM pg_constraint
+                WHERE conrelid = ?::regclass AND contype IN ('p', 'u', 'c', 'f', 'x')
+                ORDER BY contype, conname""", VehicleTableSql.TABLE);
+        for (Map<String, Object> constraint : constraints) {
+            String original = (String) constraint.get("conname");
+            String temporary = temporaryName(original);
+            jdbcTemplate.execute("ALTER TABLE " + name + " ADD CONSTRAINT " + temporary + " " + constraint.get("definition"));
+            renames.add(new Rename(true, temporary, original));
+        }
+
+        // Indexes backing a constraint were built with it
+        List<Map<String, Object>> indexes = jdbcTemplate.queryForList("""
+                SELECT c.relname AS name, pg_get_indexdef(i.indexrelid) AS definition
+                FROM pg_index i JOIN pg_class c ON c.oid = i.indexrelid
+                WHERE i.indrelid = ?::regclass
+                  AND NOT EXISTS (SELECT 1 FROM pg_constraint k WHERE k.conindid = i.indexrelid)
+                ORDER BY c.relname""", VehicleTableSql.TABLE);
+        for (Map<String, Object> index : indexes) {
+            String original = (String) index.get("name");
+            String temporary = temporaryName(original);
+            jdbcTemplate.execute(retargetIndex((String) index.get("definition"), temporary, name));
+            renames.add(new Rename(false, temporary, original));
+        }
+
+        // Trigger names are per table, so triggers keep theirs
+        List<String> triggers = jdbcTemplate.queryForList(
+                "SELECT pg_get_triggerdef(oid) FROM pg_trigger WHERE tgrelid = ?::regclass AND NOT tgisinternal",
+                String.class, VehicleTableSql.TABLE);
+        for (String trigger : triggers) {
+            jdbcTemplate.execute(retarget(trigger, name));
+        }
+
+        jdbcTemplate.execute("ANALYZE " + name);
+        log.info("Built {} constraint(s), {} index(es) and {} trigger(s) on {} and analyzed it in {} ms",
+                constraints.size(), indexes.size(), triggers.size(), name, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Replaces the live table with the shadow table and gives its constraints and indexes their
+     * final names, in one transaction. The transaction waits at most a few seconds for the
+     * exclusive lock, so queries arriving meanwhile are not queued behind it for long; it is
+     * retried a few times when readers hold the table longer.
+     *
+     * @throws PessimisticLockingFailureException if the live table stays locked
+     */
+    public void swap(TransactionTemplate transactionTemplate) {
+        for (int attempt = 1; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                transactionTemplate.executeWithoutResult(status -> {
+                    jdbcTemplate.execute("SET LOCAL lock_timeout = '" + LOCK_TIMEOUT + "'");
+                    jdbcTemplate.execute("DROP TABLE " + VehicleTableSql.TABLE);
+                    jdbcTemplate.execute("ALTER TABLE " + name + " RENAME TO " + VehicleTableSql.TABLE);
+                    for (Rename rename : renames) {
+                        jdbcTemplate.execute(rename.constraint()
+                                ? "ALTER TABLE " + VehicleTableSql.TABLE + " RENAME CONSTRAINT " + rename.temporary() + " TO " + rename.original()
+                                : "ALTER INDEX " + rename.temporary() + " RENAME TO " + rename.original());
+                    }
+                });
+                swapped = true;
+                log.info("Swapped {} in as {} in {} ms", name, VehicleTableSql.TABLE, (System.nanoTime() - start) / 1_000_000);
+                return;
+            } catch (PessimisticLockingFailureException e) {
+                if (attempt >= SWAP_ATTEMPTS) {
+                    throw e;
+                }
+                log.warn("Could not lock {} to swap in {} (attempt {} of {}): {}",
+                        VehicleTableSql.TABLE, name, attempt, SWAP_ATTEMPTS, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Drops the shadow table unless it was swapped in.
+     */
+    @Override
+    public void close() {
+        if (swapped) {
+            return;
+        }
+        try {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + name);
+            log.info("Dropped shadow table {}", name);
+        } catch (Exception e) {
+            log.warn("Could not drop shadow table {}: {}", name, e.getMessage());
+        }
+    }
+
+    private String temporaryName(String original) {
+        String base = original.length() > MAX_IDENTIFIER_LENGTH - suffix.length() - 1
+                ? original.substring(0, MAX_IDENTIFIER_LENGTH - suffix.length() - 1)
+                : original;
+        return base + "_" + suffix;
+    }
+
+    /**
+     * Rewrites a {@code CREATE INDEX} statement of the live table to create the index under a
+     * new name on another table.
+     */
+    static String retargetIndex(String definition, String indexName, String table) {
+        return retarget(definition.replaceFirst("^CREATE (UNIQUE )?INDEX \\S+ ", "CREATE $1INDEX " + indexName + " "), table);
+    }
+
+    /**
+     * Rewrites a statement on the live table, as printed by the catalog, to act on another table.
+     */
+    static String retarget(String definition, String table) {
+        return definition.replaceFirst(" ON (ONLY )?(\\w+\\.)?" + VehicleTableSql.TABLE + " ",
+                " ON " + Matcher.quoteReplacement(table) + " ");
+    }
+
+    /**
+     * Constraint or index created under a temporary name.
+     */
+    private record Rename(boolean constraint, String temporary, String original) {
+    }
+}
@@ -0,0 +1,173 @@
+package com.ev.apiservice.service.loader;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.csv.CSVFormat;
+import org.apache.commons.csv.CSVPrinter;
+import org.postgresql.copy.CopyManager;
+import org.postgresql.core.BaseConnection;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Deletes the vehicles a complete snapshot no longer lists.
+ * <p>
+ * The VINs seen in the file are copied into an unlogged table, and one set-based anti-join
+ * against {@code electric_vehicle_population} collects the VINs it does not contain. Those are
+ * then deleted in chunks of consecutive VINs, each in its own short transaction, so the delete
+ * never holds locks on a large part of the table or builds one huge transaction. Rows added by
+ * other writers after the anti-join are left alone.
+ */
+@Slf4j
+public class SnapshotSync {
+
+    public static final int DEFAULT_CHUNK_SIZE = 5_000;
+    private static final int COPY_CHUNK_SIZE = 100_000;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+
+    public SnapshotSync(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Deletes every vehicle whose VIN is not among the seen ones. Does nothing when no VIN was
+     * seen, so an empty or unreadable file cannot wipe the table.
+     *
+     * @param seen VINs of the snapshot
+     * @param removedFile CSV file to write the deleted VINs to, or {@code null}
+     * @return Number of vehicles deleted
+     * @throws UncheckedIOException if the removed file cannot be written
+     */
+    public int deleteMissing(SeenVins seen, Path removedFile) {
+        if (seen.size() == 0) {
+            log.warn("Snapshot has no VINs; not deleting any vehicle");
+            return 0;
+        }
+        String suffix = UUID.randomUUID().toString().replace("-", "").substring(0, 12);
+        String seenTable = "ev_seen_" + suffix;
+        String missingTable = "ev_missing_" + suffix;
+        long start = System.nanoTime();
+        try {
+            jdbcTemplate.execute("CREATE UNLOGGED TABLE " + seenTable + " (vin TEXT NOT NULL)");
+            copyVins(seenTable, seen);
+            jdbcTemplate.execute("ANALYZE " + seenTable);
+            jdbcTemplate.execute("CREATE UNLOGGED TABLE " + missingTable + " AS SELECT e.vin FROM " + VehicleTableSql.TABLE
+                    + " e WHERE NOT EXISTS (SELECT 1 FROM " + seenTable + " s WHERE s.vin = e.vin)");
+            jdbcTemplate.execute("ALTER TABLE " + missingTable + " ADD PRIMARY KEY (vin)");
+
+            int deleted = deleteInChunks(missingTable, removedFile);
+            log.info("Snapshot sync deleted {} vehicle(s) missing from {} seen VINs in {} ms", deleted, seen.size(),
+                    (System.nanoTime() - start) / 1_000_000);
+            return deleted;
+        } finally {
+            dropQuietly(seenTable);
+            dropQuietly(missingTable);
+        }
+    }
+
+    private void copyVins(String table, SeenVins seen) {
+        StringBuilder buffer = new StringBuilder(COPY_CHUNK_SIZE * 13);
+        int[] buffered = {0};
+        seen.forEach(vin -> {
+            buffer.append('"').append(vin.replace("\"", "\"\"")).append("\"\n");
+            if (++buffered[0] == COPY_CHUNK_SIZE) {
+                copy(table, buffer);
+                buffered[0] = 0;
+            }
+        });
+        if (buffered[0] > 0) {
+            copy(table, buffer);
+        }
+    }
+
+    private void copy(String table, StringBuilder buffer) {
+        byte[] data = buffer.toString().getBytes(StandardCharsets.UTF_8);
+        buffer.setLength(0);
+        jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            try {
+                CopyManager copyManager = new CopyManager(connection.unwrap(BaseConnection.class));
+                return copyManager.copyIn("COPY " + table + " (vin) FROM STDIN WITH (FORMAT csv)", new ByteArrayInputStream(data));
+            } catch (IOException e) {
+                throw new IllegalStateException("COPY into " + table + " failed: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Deletes the missing VINs in ascending chunks, bounded by the last VIN of each chunk.
+     */
+    private int deleteInChunks(String missingTable, Path removedFile) {
+        int deleted = 0;
+        String after = "";
+        CSVPrinter printer = null;
+        try {
+            while (after != null) {
+                List<String> bounds = jdbcTemplate.queryForList("SELECT vin FROM " + missingTable
+                        + " WHERE vin > ? ORDER BY vin OFFSET ? LIMIT 1", String.class, after, chunkSize - 1);
+                // Without a bound, the rest fits in this chunk
+                String upTo = bounds.isEmpty() ? null : bounds.get(0);
+                String lower = after;
+                List<String> removed = transactionTemplate.execute(status -> jdbcTemplate.queryForList(
+                        "DELETE FROM " + VehicleTableSql.TABLE + " e USING " + missingTable + " m"
+                                + " WHERE e.vin = m.vin AND m.vin > ?" + (upTo != null ? " AND m.vin <= ?" : "")
+                                + " RETURNING e.vin",
+                        String.class, upTo != null ? new Object[]{lower, upTo} : new Object[]{lower}));
+                if (removed != null && !removed.isEmpty()) {
+                    deleted += removed.size();
+                    if (removedFile != null) {
+                        if (printer == null) {
+                            printer = open(removedFile);
+                        }
+                        for (String vin : removed) {
+                            printer.printRecord(vin);
+                        }
+                        printer.flush();
+                    }
+                }
+                after = upTo;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not write removed VINs to " + removedFile + ": " + e.getMessage(), e);
+        } finally {
+            if (printer != null) {
+                try {
+                    printer.close();
+                } catch (IOException e) {
+                    log.warn("Could not close removed VIN file {}: {}", removedFile, e.getMessage());
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private static CSVPrinter open(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        log.info("Writing VINs removed by the snapshot sync to {}", file);
+        return new CSVPrinter(Files.newBufferedWriter(file, StandardCharsets.UTF_8),
+                CSVFormat.DEFAULT.builder().setHeader("VIN (1-10)").build());
+    }
+
+    private void dropQuietly(String table) {
+        try {
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + table);
+        } catch (Exception e) {
+            log.warn("Could not drop snapshot sync table {}: {}", table, e.getMessage());
+        }
+    }
+}
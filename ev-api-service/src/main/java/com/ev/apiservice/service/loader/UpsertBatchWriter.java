@@ -0,0 +1,133 @@
+package com.ev.apiservice.service.loader;
+
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes batches with a JDBC batch of {@code INSERT ... ON CONFLICT (vin) DO UPDATE} statements.
+ * The update only rewrites a row whose stored content hash differs, and each statement returns
+ * whether it inserted or updated its row; a row it left alone returns nothing and was unchanged.
+ * So unchanged rows cost no extra round-trip, no new row version and no WAL.
+ */
+public class UpsertBatchWriter implements VehicleBatchWriter {
+
+    static final String UPSERT_SQL = "INSERT INTO " + VehicleTableSql.TABLE + " (\n" + VehicleTableSql.COLUMNS + "\n" +
+            ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ST_SetSRID(ST_MakePoint(?, ?), 4326), ?, ?, ?)\n" +
+            "ON CONFLICT (vin) DO UPDATE SET\n    " + VehicleTableSql.UPDATE_SET + "\n" +
+            "RETURNING (xmax = 0) AS inserted"; // xmax is 0 only for freshly inserted row versions
+
+    private final JdbcTemplate jdbcTemplate;
+    private long bindStart;
+    private long bindNanos;
+
+    public UpsertBatchWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public LoadResult write(List<VehicleRow> batch) {
+        LoadResult result = new LoadResult();
+        if (batch.isEmpty()) {
+            return result;
+        }
+        for (Map<String, Object> written : upsert(batch).getKeyList()) {
+            if (Boolean.TRUE.equals(written.get("inserted"))) {
+                result.setInserted(result.getInserted() + 1);
+            } else {
+                result.setUpdated(result.getUpdated() + 1);
+            }
+        }
+        result.setUnchanged(batch.size() - result.getInserted() - result.getUpdated());
+        return result;
+    }
+
+    @Override
+    public long takeBindNanos() {
+        long nanos = bindNanos;
+        bindNanos = 0;
+        return nanos;
+    }
+
+    /**
+     * @return One entry per inserted or updated row, holding whether it was inserted
+     */
+    private KeyHolder upsert(List<VehicleRow> rows) {
+        KeyHolder written = new GeneratedKeyHolder();
+        // The statement already ends in RETURNING, so the driver returns that instead of adding its own
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(UPSERT_SQL, Statement.RETURN_GENERATED_KEYS),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int k) throws SQLException {
+                        // The rows are all bound before the batch is sent, so two clock reads per batch suffice
+                        if (k == 0) {
+                            bindStart = System.nanoTime();
+                        }
+                        VehicleRow row = rows.get(k);
+
+                        ps.setString(1, row.getVin());
+                        ps.setString(2, row.getCounty());
+                        ps.setString(3, row.getCity());
+                        ps.setString(4, row.getState());
+                        ps.setString(5, row.getPostalCode());
+                        setInteger(ps, 6, row.getModelYear());
+                        ps.setString(7, row.getMake());
+                        ps.setString(8, row.getModel());
+                        ps.setString(9, row.getElectricVehicleType());
+                        ps.setString(10, row.getCafvEligibilityStatus());
+                        setInteger(ps, 11, row.getElectricRange());
+                        if (row.getBaseMsrp() != null) {
+                            ps.setBigDecimal(12, row.getBaseMsrp());
+                        } else {
+                            ps.setNull(12, Types.NUMERIC);
+                        }
+                        ps.setString(13, row.getLegislativeDistrict());
+                        setLong(ps, 14, row.getDolVehicleId());
+                        // Binding the coordinates as doubles spares the server from parsing WKT text
+                        if (row.hasLocation()) {
+                            ps.setDouble(15, row.getLongitude());
+                            ps.setDouble(16, row.getLatitude());
+                        } else {
+                            ps.setNull(15, Types.DOUBLE);
+                            ps.setNull(16, Types.DOUBLE);
+                        }
+                        ps.setString(17, row.getElectricUtility());
+                        setLong(ps, 18, row.getCensusTract2020());
+                        setLong(ps, 19, row.getContentHash());
+                        if (k == rows.size() - 1) {
+                            bindNanos += System.nanoTime() - bindStart;
+                        }
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return rows.size();
+                    }
+                }, written);
+        return written;
+    }
+
+    private static void setInteger(PreparedStatement ps, int index, Integer value) throws SQLException {
+        if (value != null) {
+            ps.setInt(index, value);
+        } else {
+            ps.setNull(index, Types.INTEGER);
+        }
+    }
+
+    private static void setLong(PreparedStatement ps, int index, Long value) throws SQLException {
+        if (value != null) {
+            ps.setLong(index, value);
+        } else {
+            ps.setNull(index, Types.BIGINT);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.ev.apiservice.service.loader;
+
+import java.util.List;
+
+/**
+ * Writes one batch of parsed rows to {@code electric_vehicle_population}.
+ * The caller owns the surrounding transaction; {@link #write(List)} must run inside it.
+ */
+public interface VehicleBatchWriter extends AutoCloseable {
+
+    /**
+     * Writes the rows of one batch.
+     *
+     * @param batch Rows to write, in file order
+     * @return How many rows were inserted, updated or left unchanged
+     */
+    LoadResult write(List<VehicleRow> batch);
+
+    /**
+     * Returns the time spent binding rows to statement parameters or COPY data since the last call,
+     * so it can be told apart from the time the database spent on them.
+     *
+     * @return Nanoseconds spent binding; 0 if the writer does not measure it
+     */
+    default long takeBindNanos() {
+        return 0;
+    }
+
+    /**
+     * Releases resources held for the load, such as staging tables.
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,37 @@
+package com.ev.apiservice.service.loader;
+
+/**
+ * Columns of the DOL electric vehicle population file read by the loader, with their header names.
+ */
+public enum VehicleColumn {
+    VIN("VIN (1-10)"),
+    COUNTY("County"),
+    CITY("City"),
+    STATE("State"),
+    POSTAL_CODE("Postal Code"),
+    MODEL_YEAR("Model Year"),
+    MAKE("Make"),
+    MODEL("Model"),
+    EV_TYPE("Electric Vehicle Type"),
+    CAFV_ELIGIBILITY("Clean Alternative Fuel Vehicle (CAFV) Eligibility"),
+    ELECTRIC_RANGE("Electric Range"),
+    BASE_MSRP("Base MSRP"),
+    LEGISLATIVE_DISTRICT("Legislative District"),
+    DOL_VEHICLE_ID("DOL Vehicle ID"),
+    VEHICLE_LOCATION("Vehicle Location"),
+    ELECTRIC_UTILITY("Electric Utility"),
+    CENSUS_TRACT_2020("2020 Census Tract");
+
+    private final String header;
+
+    VehicleColumn(String header) {
+        this.header = header;
+    }
+
+    /**
+     * @return Header name of the column, matched ignoring case
+     */
+    public String getHeader() {
+        return header;
+    }
+}
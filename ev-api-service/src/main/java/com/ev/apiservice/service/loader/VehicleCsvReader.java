@@ -0,0 +1,428 @@
+package com.ev.apiservice.service.loader;
+
+import com.ev.apiservice.model.StringDictionary;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * CSV tokenizer for the DOL electric vehicle population schema.
+ * <p>
+ * Column indexes are resolved once from the header. Each record is unescaped into one reused
+ * character array, and fields are addressed by offsets into it, so a record costs no per-field
+ * tokens, no header map lookups and no trimmed copies. Numbers are parsed straight from the
+ * array, and the location is handed to {@link PointParser} through a reused character view.
+ * Low-cardinality columns are looked up in {@link StringDictionary#VEHICLE_ATTRIBUTES} straight
+ * from the array as well. The only allocations per record are the {@link VehicleRow} itself, the
+ * strings it keeps that are not shared and boxed numbers.
+ * <p>
+ * The accepted dialect matches the loader's commons-csv format: comma separated, double-quote
+ * encapsulated with {@code ""} as an escaped quote, LF, CRLF or CR line endings, empty lines
+ * skipped, and every value trimmed. Header names are matched ignoring case, and a leading byte
+ * order mark is dropped. Unlike commons-csv, a record with fewer fields than the header reads
+ * the missing ones as {@code null}.
+ */
+@Slf4j
+public class VehicleCsvReader implements VehicleRecordReader {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final long INVALID = Long.MIN_VALUE;
+    private static final int MAX_EXACT_DIGITS = 18;
+
+    private static final VehicleColumn[] COLUMNS = VehicleColumn.values();
+
+    private final Reader reader;
+    private final char[] buffer = new char[BUFFER_SIZE];
+    private int position;
+    private int limit;
+
+    // Current record: unescaped values back to back, each field an offset range after trimming
+    private char[] values = new char[1024];
+    private int valuesLength;
+    private int[] starts = new int[32];
+    private int[] ends = new int[32];
+    private int fieldCount;
+    private long recordNumber; // physical records read, header included
+
+    private final int[] columnIndexes = new int[COLUMNS.length];
+    private final FieldView fieldView = new FieldView();
+    private String vin;
+    private boolean logInvalid = true; // set by the conversion in progress
+
+    /**
+     * Reads the header record from the input and resolves the column indexes.
+     *
+     * @param reader The CSV data, starting with the header record
+     * @throws IOException if the input cannot be read, is empty or lacks a column of the schema
+     */
+    public VehicleCsvReader(Reader reader) throws IOException {
+        this.reader = reader;
+        if (!readRecord()) {
+            throw new IOException("CSV input has no header record");
+        }
+        String[] headers = new String[fieldCount];
+        for (int i = 0; i < fieldCount; i++) {
+            headers[i] = new String(values, starts[i], ends[i] - starts[i]);
+        }
+        // Strip a UTF-8 byte order mark from the first header
+        if (headers.length > 0 && !headers[0].isEmpty() && headers[0].charAt(0) == '\uFEFF') {
+            headers[0] = headers[0].substring(1).trim();
+        }
+        resolveColumns(headers);
+    }
+
+    /**
+     * Reads data records only, such as one range of a file whose header was read separately.
+     *
+     * @param reader The CSV data, starting with a data record
+     * @param headers Column names of the file
+     * @throws IOException if the headers lack a column of the schema
+     */
+    public VehicleCsvReader(Reader reader, String[] headers) throws IOException {
+        this.reader = reader;
+        resolveColumns(headers);
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        vin = null;
+        return readRecord();
+    }
+
+    @Override
+    public String getVin() {
+        if (vin == null) {
+            vin = text(VehicleColumn.VIN);
+        }
+        return vin;
+    }
+
+    @Override
+    public String getText(VehicleColumn column) {
+        return text(column);
+    }
+
+    @Override
+    public VehicleRow toRow(boolean logInvalid) {
+        this.logInvalid = logInvalid;
+        String vin = getVin();
+
+        VehicleRow row = new VehicleRow();
+        row.setVin(vin);
+        row.setCounty(shared(VehicleColumn.COUNTY));
+        row.setCity(shared(VehicleColumn.CITY));
+        row.setState(text(VehicleColumn.STATE));
+        row.setPostalCode(text(VehicleColumn.POSTAL_CODE));
+        row.setModelYear(integer(VehicleColumn.MODEL_YEAR, vin));
+        row.setMake(shared(VehicleColumn.MAKE));
+        row.setModel(shared(VehicleColumn.MODEL));
+        row.setElectricVehicleType(shared(VehicleColumn.EV_TYPE));
+        row.setCafvEligibilityStatus(shared(VehicleColumn.CAFV_ELIGIBILITY));
+        row.setElectricRange(integer(VehicleColumn.ELECTRIC_RANGE, vin));
+        row.setBaseMsrp(decimal(VehicleColumn.BASE_MSRP, vin));
+        row.setLegislativeDistrict(text(VehicleColumn.LEGISLATIVE_DISTRICT));
+        row.setDolVehicleId(longValue(VehicleColumn.DOL_VEHICLE_ID, vin));
+
+        int location = columnIndexes[VehicleColumn.VEHICLE_LOCATION.ordinal()];
+        if (!PointParser.parse(location < fieldCount ? fieldView.of(starts[location], ends[location]) : null, row) && logInvalid) {
+            log.warn("Invalid or empty Vehicle Location for VIN {}: '{}'. Setting related geometry to NULL.",
+                    vin, text(VehicleColumn.VEHICLE_LOCATION));
+        }
+
+        row.setElectricUtility(shared(VehicleColumn.ELECTRIC_UTILITY));
+        row.setCensusTract2020(longValue(VehicleColumn.CENSUS_TRACT_2020, vin));
+        row.setContentHash(ContentHash.of(row));
+        return row;
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+
+    private void resolveColumns(String[] headers) throws IOException {
+        List<String> missing = new ArrayList<>();
+        for (VehicleColumn column : COLUMNS) {
+            int index = -1;
+            for (int i = 0; i < headers.length; i++) {
+                if (column.getHeader().equalsIgnoreCase(headers[i])) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                missing.add(column.getHeader());
+            }
+            columnIndexes[column.ordinal()] = index;
+        }
+        if (!missing.isEmpty()) {
+            throw new IOException("CSV header is missing columns: " + missing);
+        }
+    }
+
+    /**
+     * Tokenizes the next non-empty record into {@link #values}.
+     *
+     * @return {@code false} at the end of the input
+     */
+    private boolean readRecord() throws IOException {
+        int c = read();
+        while (c == '\n' || c == '\r') {
+            c = read();
+        }
+        if (c == -1) {
+            return false;
+        }
+        recordNumber++;
+        valuesLength = 0;
+        fieldCount = 0;
+        while (true) {
+            int start = valuesLength;
+            if (c == '"') {
+                while (true) {
+                    c = read();
+                    if (c == -1) {
+                        throw new IOException("EOF reached before encapsulated token finished in record " + recordNumber);
+                    }
+                    if (c == '"') {
+                        c = read();
+                        if (c != '"') {
+                            break;
+                        }
+                    }
+                    append((char) c);
+                }
+                while (c != ',' && c != '\n' && c != '\r' && c != -1) {
+                    if (!Character.isWhitespace(c)) {
+                        throw new IOException("Invalid character between encapsulated token and delimiter in record "
+                                + recordNumber);
+                    }
+                    c = read();
+                }
+            } else {
+                while (c != ',' && c != '\n' && c != '\r' && c != -1) {
+                    append((char) c);
+                    c = read();
+                }
+            }
+            addField(start, valuesLength);
+            if (c != ',') {
+                break;
+            }
+            c = read();
+        }
+        if (c == '\r') {
+            skipLineFeed();
+        }
+        return true;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            return -1;
+        }
+        return buffer[position++];
+    }
+
+    private void skipLineFeed() throws IOException {
+        if ((position < limit || fill()) && buffer[position] == '\n') {
+            position++;
+        }
+    }
+
+    private boolean fill() throws IOException {
+        int read;
+        do {
+            read = reader.read(buffer, 0, buffer.length);
+        } while (read == 0);
+        if (read < 0) {
+            return false;
+        }
+        position = 0;
+        limit = read;
+        return true;
+    }
+
+    private void append(char c) {
+        if (valuesLength == values.length) {
+            values = Arrays.copyOf(values, valuesLength * 2);
+        }
+        values[valuesLength++] = c;
+    }
+
+    private void addField(int start, int end) {
+        while (start < end && values[start] <= ' ') {
+            start++;
+        }
+        while (end > start && values[end - 1] <= ' ') {
+            end--;
+        }
+        if (fieldCount == starts.length) {
+            starts = Arrays.copyOf(starts, fieldCount * 2);
+            ends = Arrays.copyOf(ends, fieldCount * 2);
+        }
+        starts[fieldCount] = start;
+        ends[fieldCount] = end;
+        fieldCount++;
+    }
+
+    private String text(VehicleColumn column) {
+        int index = columnIndexes[column.ordinal()];
+        if (index >= fieldCount) {
+            return null;
+        }
+        int length = ends[index] - starts[index];
+        return length == 0 ? "" : new String(values, starts[index], length);
+    }
+
+    private String shared(VehicleColumn column) {
+        int index = columnIndexes[column.ordinal()];
+        if (index >= fieldCount) {
+            return null;
+        }
+        return StringDictionary.VEHICLE_ATTRIBUTES.intern(fieldView.of(starts[index], ends[index]));
+    }
+
+    private Integer integer(VehicleColumn column, String vin) {
+        int index = columnIndexes[column.ordinal()];
+        if (index >= fieldCount || starts[index] == ends[index]) {
+            return null;
+        }
+        long value = parseLong(starts[index], ends[index]);
+        if (value == INVALID || value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            if (logInvalid) {
+                log.warn("Invalid integer value for {} for VIN {}: '{}'. Setting to NULL.", column.getHeader(), vin, text(column));
+            }
+            return null;
+        }
+        return (int) value;
+    }
+
+    private Long longValue(VehicleColumn column, String vin) {
+        int index = columnIndexes[column.ordinal()];
+        if (index >= fieldCount || starts[index] == ends[index]) {
+            return null;
+        }
+        long value = parseLong(starts[index], ends[index]);
+        if (value == INVALID) {
+            if (logInvalid) {
+                log.warn("Invalid long value for {} for VIN {}: '{}'. Setting to NULL.", column.getHeader(), vin, text(column));
+            }
+            return null;
+        }
+        return value;
+    }
+
+    /**
+     * Parses plain decimals of up to 18 digits into an unscaled long and a scale; anything else,
+     * such as exponents, goes through the {@link BigDecimal} parser.
+     */
+    private BigDecimal decimal(VehicleColumn column, String vin) {
+        int index = columnIndexes[column.ordinal()];
+        if (index >= fieldCount || starts[index] == ends[index]) {
+            return null;
+        }
+        int start = starts[index];
+        int end = ends[index];
+        int pos = start;
+        boolean negative = false;
+        if (values[pos] == '-' || values[pos] == '+') {
+            negative = values[pos] == '-';
+            pos++;
+        }
+        long unscaled = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean fraction = false;
+        for (; pos < end; pos++) {
+            char c = values[pos];
+            if (c >= '0' && c <= '9') {
+                unscaled = unscaled * 10 + (c - '0');
+                digits++;
+                if (fraction) {
+                    scale++;
+                }
+            } else if (c == '.' && !fraction) {
+                fraction = true;
+            } else {
+                break;
+            }
+        }
+        if (pos == end && digits > 0 && digits <= MAX_EXACT_DIGITS) {
+            return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+        }
+        try {
+            return new BigDecimal(values, start, end - start);
+        } catch (NumberFormatException e) {
+            if (logInvalid) {
+                log.warn("Invalid BigDecimal value for {} for VIN {}: '{}'. Setting to NULL.", column.getHeader(), vin, text(column));
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Parses {@code [+-]digits} as {@link Long#parseLong(String)} would, returning {@link #INVALID}
+     * instead of throwing.
+     */
+    private long parseLong(int start, int end) {
+        int pos = start;
+        boolean negative = false;
+        if (values[pos] == '-' || values[pos] == '+') {
+            negative = values[pos] == '-';
+            pos++;
+            if (pos == end) {
+                return INVALID;
+            }
+        }
+        long result = 0;
+        for (; pos < end; pos++) {
+            int digit = values[pos] - '0';
+            if (digit < 0 || digit > 9 || result > (Long.MAX_VALUE - digit) / 10) {
+                return INVALID;
+            }
+            result = result * 10 + digit;
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Read-only view of one field of the current record, handed out instead of a string.
+     */
+    private final class FieldView implements CharSequence {
+
+        private int start;
+        private int end;
+
+        FieldView of(int start, int end) {
+            this.start = start;
+            this.end = end;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return end - start;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return values[start + index];
+        }
+
+        @Override
+        public CharSequence subSequence(int from, int to) {
+            return new String(values, start + from, to - from);
+        }
+
+        @Override
+        public String toString() {
+            return new String(values, start, end - start);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.ev.apiservice.service.loader;
+
+import com.ev.apiservice.model.StringDictionary;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.function.Function;
+
+/**
+ * Cursor over the data records of a vehicle CSV input, positioned on one record at a time.
+ * The VIN can be read without converting the record, so records dropped as duplicates cost
+ * no conversion.
+ */
+public interface VehicleRecordReader extends Closeable {
+
+    /**
+     * Advances to the next data record.
+     *
+     * @return {@code false} at the end of the input
+     * @throws IOException if the input cannot be read or is malformed
+     */
+    boolean next() throws IOException;
+
+    /**
+     * @return VIN of the current record, trimmed
+     */
+    String getVin();
+
+    /**
+     * @param column A column of the schema
+     * @return Trimmed text of the column in the current record, or {@code null} if the record lacks it
+     */
+    String getText(VehicleColumn column);
+
+    /**
+     * Converts the current record. Invalid numeric values and locations are logged and set to {@code null}.
+     *
+     * @return A new row holding the record
+     */
+    default VehicleRow toRow() {
+        return toRow(true);
+    }
+
+    /**
+     * Converts the current record from the text of its columns. Invalid numeric values and
+     * locations are set to {@code null}, matching what the database would otherwise receive.
+     * Low-cardinality columns are replaced by their {@link StringDictionary#VEHICLE_ATTRIBUTES}
+     * instances.
+     *
+     * @param logInvalid Whether to log each invalid value; a dry run counts them instead
+     * @return A new row holding the record
+     */
+    default VehicleRow toRow(boolean logInvalid) {
+        String vin = getVin();
+
+        VehicleRow row = new VehicleRow();
+        row.setVin(vin);
+        row.setCounty(shared(VehicleColumn.COUNTY));
+        row.setCity(shared(VehicleColumn.CITY));
+        row.setState(getText(VehicleColumn.STATE));
+        row.setPostalCode(getText(VehicleColumn.POSTAL_CODE));
+        row.setModelYear(parse(VehicleColumn.MODEL_YEAR, "integer", Integer::valueOf, logInvalid, vin));
+        row.setMake(shared(VehicleColumn.MAKE));
+        row.setModel(shared(VehicleColumn.MODEL));
+        row.setElectricVehicleType(shared(VehicleColumn.EV_TYPE));
+        row.setCafvEligibilityStatus(shared(VehicleColumn.CAFV_ELIGIBILITY));
+        row.setElectricRange(parse(VehicleColumn.ELECTRIC_RANGE, "integer", Integer::valueOf, logInvalid, vin));
+        row.setBaseMsrp(parse(VehicleColumn.BASE_MSRP, "BigDecimal", BigDecimal::new, logInvalid, vin));
+        row.setLegislativeDistrict(getText(VehicleColumn.LEGISLATIVE_DISTRICT));
+        row.setDolVehicleId(parse(VehicleColumn.DOL_VEHICLE_ID, "long", Long::valueOf, logInvalid, vin));
+
+        String locationWkt = getText(VehicleColumn.VEHICLE_LOCATION);
+        if (!PointParser.parse(locationWkt, row) && logInvalid) {
+            LoggerFactory.getLogger(VehicleRecordReader.class).warn(
+                    "Invalid or empty Vehicle Location for VIN {}: '{}'. Setting related geometry to NULL.", vin, locationWkt);
+        }
+
+        row.setElectricUtility(shared(VehicleColumn.ELECTRIC_UTILITY));
+        row.setCensusTract2020(parse(VehicleColumn.CENSUS_TRACT_2020, "long", Long::valueOf, logInvalid, vin));
+        row.setContentHash(ContentHash.of(row));
+        return row;
+    }
+
+    private String shared(VehicleColumn column) {
+        return StringDictionary.VEHICLE_ATTRIBUTES.intern(getText(column));
+    }
+
+    /**
+     * @param type Name of the type in the log message
+     * @return The parsed value, or {@code null} if the column is empty or invalid
+     */
+    private <T> T parse(VehicleColumn column, String type, Function<String, T> parser,
+                        boolean logInvalid, String vin) {
+        String value = getText(column);
+        try {
+            if (value != null && !value.isEmpty()) {
+                return parser.apply(value);
+            }
+        } catch (NumberFormatException e) {
+            if (logInvalid) {
+                LoggerFactory.getLogger(VehicleRecordReader.class).warn(
+                        "Invalid {} value for {} for VIN {}: '{}'. Setting to NULL.", type, column.getHeader(), vin, value);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,43 @@
+package com.ev.apiservice.service.loader;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * One parsed and validated record of the DOL electric vehicle population file.
+ * Numeric columns are already converted; values that failed validation are {@code null}.
+ */
+@Data
+@NoArgsConstructor
+public class VehicleRow {
+
+    private String vin;
+    private String county;
+    private String city;
+    private String state;
+    private String postalCode;
+    private Integer modelYear;
+    private String make;
+    private String model;
+    private String electricVehicleType;
+    private String cafvEligibilityStatus;
+    private Integer electricRange;
+    private BigDecimal baseMsrp;
+    private String legislativeDistrict;
+    private Long dolVehicleId;
+    private double longitude = Double.NaN; // WGS84, NaN when the location is missing or invalid
+    private double latitude = Double.NaN;
+    private String electricUtility;
+    private Long censusTract2020;
+
+    /**
+     * Hash of all other columns, see {@link ContentHash}; used to skip rows whose content has not changed.
+     */
+    private Long contentHash;
+
+    public boolean hasLocation() {
+        return !Double.isNaN(longitude) && !Double.isNaN(latitude);
+    }
+}
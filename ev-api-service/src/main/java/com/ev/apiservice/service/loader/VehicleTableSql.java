@@ -0,0 +1,42 @@
+package com.ev.apiservice.service.loader;
+
+/**
+ * SQL fragments for {@code electric_vehicle_population} shared by the batch writers.
+ */
+final class VehicleTableSql {
+
+    static final String TABLE = "electric_vehicle_population";
+
+    static final String COLUMNS = """
+            vin, county, city, state, postal_code, model_year, make, model,
+            electric_vehicle_type, cafv_eligibility_status, electric_range, base_msrp,
+            legislative_district, dol_vehicle_id, vehicle_location_point,
+            electric_utility, census_tract_2020, content_hash""";
+
+    /**
+     * {@code ON CONFLICT} update of every column. Rows whose stored content hash matches the new one
+     * are not rewritten, which avoids a new row version and its WAL for unchanged records.
+     */
+    static final String UPDATE_SET = """
+            county = EXCLUDED.county,
+                city = EXCLUDED.city,
+                state = EXCLUDED.state,
+                postal_code = EXCLUDED.postal_code,
+                model_year = EXCLUDED.model_year,
+                make = EXCLUDED.make,
+                model = EXCLUDED.model,
+                electric_vehicle_type = EXCLUDED.electric_vehicle_type,
+                cafv_eligibility_status = EXCLUDED.cafv_eligibility_status,
+                electric_range = EXCLUDED.electric_range,
+                base_msrp = EXCLUDED.base_msrp,
+                legislative_district = EXCLUDED.legislative_district,
+                dol_vehicle_id = EXCLUDED.dol_vehicle_id,
+                vehicle_location_point = EXCLUDED.vehicle_location_point,
+                electric_utility = EXCLUDED.electric_utility,
+                census_tract_2020 = EXCLUDED.census_tract_2020,
+                content_hash = EXCLUDED.content_hash
+            WHERE electric_vehicle_population.content_hash IS DISTINCT FROM EXCLUDED.content_hash""";
+
+    private VehicleTableSql() {
+    }
+}
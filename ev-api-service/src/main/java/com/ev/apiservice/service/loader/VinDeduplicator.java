@@ -0,0 +1,318 @@
+package com.ev.apiservice.service.loader;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Keeps only the last occurrence of each VIN in a file, so every vehicle is written once and the
+ * last record wins, as it would if the records were written one by one.
+ * <p>
+ * {@link #scan(InputStream, String, int[])} makes a pre-pass that only extracts the VIN column
+ * with a quote-aware byte scanner and records the ordinal of each VIN's last record in a
+ * {@link VinTable}; {@link #scan(VehicleRecordReader)} does the same through a record reader.
+ * During the load, {@link #keep(String, int)} accepts a record only if it is at that ordinal,
+ * before the record is even converted. The decision depends on the record's position alone, so
+ * it is the same whether the file is parsed sequentially or in parallel ranges, in any order.
+ * VINs that do not pack into the table are kept in a small map instead.
+ */
+@Slf4j
+public class VinDeduplicator {
+
+    private static final int SCAN_BUFFER_SIZE = 64 * 1024;
+    private static final int INITIAL_TABLE_SIZE = 1 << 16;
+
+    private final VinTable lastOrdinals;
+    private final Map<String, Integer> unpackedLastOrdinals;
+    private final int[] rangeFirstRecords;
+    private final AtomicInteger duplicates = new AtomicInteger();
+    private final int records;
+
+    private VinDeduplicator(VinTable lastOrdinals, Map<String, Integer> unpackedLastOrdinals, int[] rangeFirstRecords,
+                            int records) {
+        this.lastOrdinals = lastOrdinals;
+        this.unpackedLastOrdinals = unpackedLastOrdinals;
+        this.rangeFirstRecords = rangeFirstRecords;
+        this.records = records;
+    }
+
+    /**
+     * Records the last record of each VIN over a whole CSV input, for a sequential parser.
+     *
+     * @see #scan(InputStream, String, int[])
+     */
+    public static VinDeduplicator scan(InputStream csv, String vinHeader) throws IOException {
+        return scan(csv, vinHeader, new int[0]);
+    }
+
+    /**
+     * Records the last record of each VIN over a whole CSV input. For a file parsed in ranges,
+     * also counts the records before each range, so that {@link #ordinal(int, int)} can place a
+     * record of a range in the file.
+     *
+     * @param csv The CSV data, starting with the header record; not closed
+     * @param vinHeader Name of the VIN column, matched ignoring case
+     * @param rangeStarts Byte offsets at which the ranges of a {@link ParallelCsvParser} start, in
+     *                    ascending order, or none for a sequential parser
+     * @return The deduplicator, or {@code null} if the header has no VIN column
+     * @throws IOException if the input cannot be read
+     */
+    public static VinDeduplicator scan(InputStream csv, String vinHeader, int[] rangeStarts) throws IOException {
+        VinScanner scanner = new VinScanner(vinHeader);
+        int[] rangeFirstRecords = new int[rangeStarts.length];
+        int nextRange = 0;
+        long position = 0;
+        byte[] buffer = new byte[SCAN_BUFFER_SIZE];
+        int read;
+        while ((read = csv.read(buffer)) != -1) {
+            for (int i = 0; i < read; i++, position++) {
+                // Ranges start on record boundaries, where the records before are all counted
+                while (nextRange < rangeStarts.length && rangeStarts[nextRange] <= position) {
+                    rangeFirstRecords[nextRange++] = scanner.records;
+                }
+                scanner.accept(buffer[i]);
+            }
+            if (scanner.missingVinColumn) {
+                return null;
+            }
+        }
+        scanner.finish();
+        if (scanner.vinColumn < 0) {
+            return null;
+        }
+        return new VinDeduplicator(scanner.table, scanner.unpacked, rangeFirstRecords, scanner.records);
+    }
+
+    /**
+     * Records the last record of each VIN over a whole input read record by record, for formats
+     * the byte scanner does not understand, such as JSON.
+     *
+     * @param records Reader positioned before the first record; not closed
+     * @return The deduplicator
+     * @throws IOException if the input cannot be read or is malformed
+     */
+    public static VinDeduplicator scan(VehicleRecordReader records) throws IOException {
+        VinTable table = new VinTable(INITIAL_TABLE_SIZE);
+        Map<String, Integer> unpacked = new HashMap<>();
+        int count = 0;
+        while (records.next()) {
+            String vin = records.getVin();
+            long key = VinTable.pack(vin);
+            if (key != VinTable.UNPACKABLE) {
+                table.put(key, count);
+            } else if (vin != null) {
+                unpacked.put(vin, count);
+            }
+            count++;
+        }
+        return new VinDeduplicator(table, unpacked, new int[0], count);
+    }
+
+    /**
+     * Decides whether a record is the last one of its VIN. Safe to call from several threads.
+     *
+     * @param vin VIN of the record, trimmed as by the CSV parser
+     * @param ordinal Position of the record among the data records of the file, from 0
+     * @return {@code true} if no later record has the same VIN and the record should be written
+     */
+    public boolean keep(String vin, int ordinal) {
+        if (lastOrdinal(vin) > ordinal) {
+            duplicates.incrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Places a record parsed by a {@link ParallelCsvParser} in the file.
+     *
+     * @param range Index of the record's range among the range starts given to the pre-pass
+     * @param index Position of the record within its range, from 0
+     * @return The ordinal of the record, as taken by {@link #keep(String, int)}
+     */
+    public int ordinal(int range, int index) {
+        return rangeFirstRecords[range] + index;
+    }
+
+    /**
+     * @return Records dropped by {@link #keep(String, int)} because a later record has the same VIN
+     */
+    public int getDuplicates() {
+        return duplicates.get();
+    }
+
+    /**
+     * @return Number of data records seen by the pre-pass
+     */
+    public int getRecords() {
+        return records;
+    }
+
+    /**
+     * @return The distinct VINs seen by the pre-pass, backed by the deduplicator's tables
+     */
+    public SeenVins getVins() {
+        return new SeenVins(lastOrdinals, unpackedLastOrdinals.keySet());
+    }
+
+    /**
+     * @return Number of distinct VINs seen by the pre-pass
+     */
+    public int getDistinctVins() {
+        return lastOrdinals.size() + unpackedLastOrdinals.size();
+    }
+
+    /**
+     * @return The ordinal of the VIN's last record, or -1 for a VIN the pre-pass did not see, so it is kept
+     */
+    private int lastOrdinal(String vin) {
+        long key = VinTable.pack(vin);
+        if (key != VinTable.UNPACKABLE) {
+            return lastOrdinals.get(key);
+        }
+        Integer last = vin != null ? unpackedLastOrdinals.get(vin) : null;
+        return last != null ? last : -1;
+    }
+
+    /**
+     * Byte-level CSV scanner that extracts one column. Follows the RFC 4180 rules of the loader's
+     * format: quoted fields may contain commas, line breaks and doubled quotes; blank lines are
+     * not records; values are trimmed.
+     */
+    private static final class VinScanner {
+
+        private final String vinHeader;
+        private final VinTable table = new VinTable(INITIAL_TABLE_SIZE);
+        private final Map<String, Integer> unpacked = new HashMap<>();
+        private final List<String> headerNames = new ArrayList<>();
+        private byte[] field = new byte[64];
+        private int fieldLength;
+        private int fieldIndex;
+        private boolean inQuotes;
+        private boolean pendingQuote; // a quote inside a quoted field; doubled or closing
+        private boolean recordStarted;
+        private int vinColumn = -1;
+        private boolean headerDone;
+        private boolean missingVinColumn;
+        private int records;
+
+        VinScanner(String vinHeader) {
+            this.vinHeader = vinHeader;
+        }
+
+        void accept(byte b) {
+            if (pendingQuote) {
+                pendingQuote = false;
+                if (b == '"') {
+                    append(b);
+                    return;
+                }
+                inQuotes = false;
+            }
+            if (inQuotes) {
+                if (b == '"') {
+                    pendingQuote = true;
+                } else {
+                    append(b);
+                }
+                return;
+            }
+            switch (b) {
+                case '"' -> {
+                    inQuotes = true;
+                    recordStarted = true;
+                }
+                case ',' -> {
+                    recordStarted = true;
+                    endField();
+                }
+                case '\n', '\r' -> endRecord();
+                default -> {
+                    recordStarted = true;
+                    append(b);
+                }
+            }
+        }
+
+        void finish() {
+            pendingQuote = false;
+            inQuotes = false;
+            endRecord();
+        }
+
+        private void append(byte b) {
+            if (!collecting()) {
+                return;
+            }
+            if (fieldLength == field.length) {
+                field = Arrays.copyOf(field, field.length * 2);
+            }
+            field[fieldLength++] = b;
+        }
+
+        private boolean collecting() {
+            return !headerDone || fieldIndex == vinColumn;
+        }
+
+        private void endField() {
+            if (!headerDone) {
+                headerNames.add(trimmedString());
+            } else if (fieldIndex == vinColumn) {
+                countVin();
+            }
+            fieldLength = 0;
+            fieldIndex++;
+        }
+
+        private void endRecord() {
+            if (!recordStarted && fieldIndex == 0 && fieldLength == 0) {
+                return; // blank line, or the LF of a CRLF
+            }
+            endField();
+            if (!headerDone) {
+                headerDone = true;
+                for (int i = 0; i < headerNames.size(); i++) {
+                    if (headerNames.get(i).equalsIgnoreCase(vinHeader)) {
+                        vinColumn = i;
+                    }
+                }
+                missingVinColumn = vinColumn < 0;
+            } else {
+                records++;
+            }
+            fieldIndex = 0;
+            fieldLength = 0;
+            recordStarted = false;
+        }
+
+        private void countVin() {
+            int start = 0;
+            int end = fieldLength;
+            while (start < end && (field[start] & 0xff) <= ' ') {
+                start++;
+            }
+            while (end > start && (field[end - 1] & 0xff) <= ' ') {
+                end--;
+            }
+            long key = end - start == VinTable.VIN_LENGTH ? VinTable.pack(field, start) : VinTable.UNPACKABLE;
+            // The record is counted once it ends, so the count is its ordinal
+            if (key != VinTable.UNPACKABLE) {
+                table.put(key, records);
+            } else {
+                unpacked.put(new String(field, start, end - start, StandardCharsets.UTF_8), records);
+            }
+        }
+
+        private String trimmedString() {
+            return new String(field, 0, fieldLength, StandardCharsets.UTF_8).trim();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.ev.apiservice.service.loader;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Open-addressing hash table from a VIN to an int, with VINs packed into primitive longs.
+ * <p>
+ * The DOL file identifies vehicles by the first ten VIN characters, each a digit or an upper-case
+ * letter, so a VIN packs into a base-36 number below 2<sup>52</sup>. Keys and values live in two
+ * parallel primitive arrays with linear probing: about 12 bytes per slot at a load factor of at
+ * most 0.75, so a table of four million VINs takes about 64 MB and no {@code String} is retained.
+ * VINs that do not pack are the caller's to handle.
+ * <p>
+ * Inserts are single-threaded. Once filled, {@link #get(long)} may be called concurrently.
+ */
+public final class VinTable {
+
+    public static final int VIN_LENGTH = 10;
+    /** Returned by {@link #pack(CharSequence)} for a VIN that does not fit the packed format. */
+    public static final long UNPACKABLE = -1;
+
+    private static final long EMPTY = 0;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    /**
+     * @param expectedSize Number of entries to size the table for without rehashing
+     */
+    public VinTable(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) Math.min(1 << 30, expectedSize * 4L / 3)) - 1) << 1;
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Packs a VIN of ten digits or upper-case letters into a non-zero long.
+     *
+     * @param vin The VIN
+     * @return The packed key, or {@link #UNPACKABLE}
+     */
+    public static long pack(CharSequence vin) {
+        if (vin == null || vin.length() != VIN_LENGTH) {
+            return UNPACKABLE;
+        }
+        long packed = 0;
+        for (int i = 0; i < VIN_LENGTH; i++) {
+            int digit = digit(vin.charAt(i));
+            if (digit < 0) {
+                return UNPACKABLE;
+            }
+            packed = packed * 36 + digit;
+        }
+        return packed + 1; // 0 marks an empty slot
+    }
+
+    /**
+     * Packs ten ASCII bytes the same way as {@link #pack(CharSequence)}, without decoding them.
+     *
+     * @param bytes Buffer holding the VIN
+     * @param offset Position of the first VIN byte
+     * @return The packed key, or {@link #UNPACKABLE}
+     */
+    public static long pack(byte[] bytes, int offset) {
+        long packed = 0;
+        for (int i = 0; i < VIN_LENGTH; i++) {
+            int digit = digit((char) (bytes[offset + i] & 0xff));
+            if (digit < 0) {
+                return UNPACKABLE;
+            }
+            packed = packed * 36 + digit;
+        }
+        return packed + 1;
+    }
+
+    /**
+     * Reverses {@link #pack(CharSequence)}.
+     *
+     * @param key A packed VIN
+     * @return The VIN
+     */
+    public static String unpack(long key) {
+        char[] vin = new char[VIN_LENGTH];
+        long remaining = key - 1;
+        for (int i = VIN_LENGTH - 1; i >= 0; i--) {
+            int digit = (int) (remaining % 36);
+            vin[i] = (char) (digit < 10 ? '0' + digit : 'A' + digit - 10);
+            remaining /= 36;
+        }
+        return new String(vin);
+    }
+
+    private static int digit(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A' + 10;
+        }
+        return -1; // VIN keys are case-sensitive in the database, so lower case does not pack
+    }
+
+    /**
+     * @return Number of distinct keys in the table
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Sets the value of a key, inserting it if absent.
+     *
+     * @param key A packed VIN
+     * @param value The value
+     */
+    public void put(long key, int value) {
+        int slot = slotOf(key);
+        if (keys[slot] == EMPTY) {
+            insert(slot, key, value);
+        } else {
+            values[slot] = value;
+        }
+    }
+
+    /**
+     * Inserts a key with a value unless the key is already present.
+     *
+     * @param key A packed VIN
+     * @param value Value for a new key
+     * @return The existing value, or -1 if the key was inserted
+     */
+    public int putIfAbsent(long key, int value) {
+        int slot = slotOf(key);
+        if (keys[slot] == EMPTY) {
+            insert(slot, key, value);
+            return -1;
+        }
+        return values[slot];
+    }
+
+    /**
+     * Looks up the value of a key. Safe to call from several threads once no more keys are put.
+     *
+     * @param key A packed VIN
+     * @return The value, or -1 if the key is absent
+     */
+    public int get(long key) {
+        int slot = slotOf(key);
+        return keys[slot] == EMPTY ? -1 : values[slot];
+    }
+
+    /**
+     * Calls an action for every key in the table, in no particular order.
+     *
+     * @param action Receives each packed VIN
+     */
+    public void forEachKey(LongConsumer action) {
+        for (long key : keys) {
+            if (key != EMPTY) {
+                action.accept(key);
+            }
+        }
+    }
+
+    /**
+     * Removes all entries, keeping the capacity.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+        }
+    }
+
+    private int slotOf(long key) {
+        int slot = mix(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insert(int slot, long key, int value) {
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > (mask + 1) / 4 * 3) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Spreads the bits of a key so that sequential VINs do not cluster.
+     */
+    private static int mix(long key) {
+        long h = key * 0x9e3779b97f4a7c15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
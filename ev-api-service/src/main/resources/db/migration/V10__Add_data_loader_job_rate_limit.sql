@@ -0,0 +1,5 @@
+-- Flyway migration script: V10__Add_data_loader_job_rate_limit.sql
+-- Keeps the rows per second ceiling of a job, so a resumed job is throttled the same way.
+
+ALTER TABLE data_loader_job
+    ADD COLUMN max_rows_per_second BIGINT NOT NULL DEFAULT 0; -- 0 for no limit
@@ -0,0 +1,7 @@
+-- Flyway migration script: V11__Add_data_loader_job_snapshot_sync.sql
+-- Records whether a job deletes the vehicles its file no longer lists, and what it deleted.
+
+ALTER TABLE data_loader_job
+    ADD COLUMN delete_missing BOOLEAN NOT NULL DEFAULT FALSE,
+    ADD COLUMN deleted_records INT NOT NULL DEFAULT 0,
+    ADD COLUMN removed_file TEXT; -- only set once a vehicle was deleted
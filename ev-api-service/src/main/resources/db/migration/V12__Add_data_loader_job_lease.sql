@@ -0,0 +1,12 @@
+-- Flyway migration script: V12__Add_data_loader_job_lease.sql
+-- Turns the job table into a queue shared by all instances: an instance runs a job while it
+-- holds the job's lease and renews it; a job whose lease expired is picked up by another instance.
+
+ALTER TABLE data_loader_job
+    ADD COLUMN lease_owner VARCHAR(100),              -- Instance running or holding the job; NULL while waiting to be claimed
+    ADD COLUMN lease_expires_at TIMESTAMP WITH TIME ZONE,
+    ADD COLUMN attempts INT NOT NULL DEFAULT 0;       -- Times the job was claimed from the queue
+
+-- Used by workers claiming the oldest waiting jobs
+CREATE INDEX idx_data_loader_job_queue ON data_loader_job (start_time)
+    WHERE status IN ('QUEUED', 'RUNNING');
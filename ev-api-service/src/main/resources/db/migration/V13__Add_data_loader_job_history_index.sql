@@ -0,0 +1,9 @@
+-- Flyway migration script: V13__Add_data_loader_job_history_index.sql
+-- Serves the paginated job history, which lists jobs that are not the file job of a directory
+-- job, most recently started first, optionally in one status.
+
+CREATE INDEX idx_data_loader_job_history ON data_loader_job (start_time DESC)
+    WHERE parent_job_id IS NULL;
+
+CREATE INDEX idx_data_loader_job_history_status ON data_loader_job (status, start_time DESC)
+    WHERE parent_job_id IS NULL;
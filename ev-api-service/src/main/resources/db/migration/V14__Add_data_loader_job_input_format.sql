@@ -0,0 +1,11 @@
+-- Flyway migration script: V14__Add_data_loader_job_input_format.sql
+-- Records whether a job reads CSV or JSON, separately from the CSV parser, so a resumed job reads
+-- the same format. Jobs recorded with the former JSON parser type move to the new column.
+
+ALTER TABLE data_loader_job
+    ADD COLUMN input_format VARCHAR(10) NOT NULL DEFAULT 'CSV';
+
+UPDATE data_loader_job
+SET input_format = 'JSON',
+    parser_type  = 'COMMONS'
+WHERE parser_type = 'JSON';
@@ -0,0 +1,21 @@
+-- Flyway migration script: V2__Add_content_hash.sql
+-- Adds a content hash so CSV re-loads can skip rows whose content has not changed.
+
+-- 64-bit hash of the loaded columns, computed by the CSV loader while parsing.
+-- NULL means the row was written outside the loader and must be rewritten on the next load.
+ALTER TABLE electric_vehicle_population ADD COLUMN content_hash BIGINT;
+
+-- Any update that does not set a new hash (API edits, batch MSRP updates) invalidates it,
+-- so a later load cannot mistake the edited row for an unchanged one.
+CREATE OR REPLACE FUNCTION ev_invalidate_content_hash() RETURNS trigger AS $$
+BEGIN
+    IF NEW.content_hash IS NOT DISTINCT FROM OLD.content_hash THEN
+        NEW.content_hash := NULL;
+    END IF;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER trg_ev_invalidate_content_hash
+    BEFORE UPDATE ON electric_vehicle_population
+    FOR EACH ROW EXECUTE FUNCTION ev_invalidate_content_hash();
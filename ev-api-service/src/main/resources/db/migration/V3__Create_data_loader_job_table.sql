@@ -0,0 +1,26 @@
+-- Flyway migration script: V3__Create_data_loader_job_table.sql
+-- Durable record of CSV data loading jobs, so a job survives a restart and can be resumed
+-- from its last committed checkpoint.
+
+CREATE TABLE data_loader_job (
+         job_id VARCHAR(36) PRIMARY KEY,     -- UUID returned to the client
+         status VARCHAR(20) NOT NULL,        -- QUEUED, RUNNING, COMPLETED, FAILED or INTERRUPTED
+         file_path TEXT NOT NULL,            -- Path of the uploaded (or referenced) CSV file
+         file_size BIGINT,                   -- Size of the file when the job started, NULL if not a local file
+         file_last_modified BIGINT,          -- Modification time (epoch millis) when the job started
+         batch_size INT NOT NULL,
+         load_mode VARCHAR(20) NOT NULL,
+         parse_threads INT NOT NULL,
+         writer_threads INT NOT NULL,
+         checkpoint_records BIGINT NOT NULL DEFAULT 0, -- Leading data records of the file that are all committed
+         records_processed INT NOT NULL DEFAULT 0,
+         inserted_records INT NOT NULL DEFAULT 0,
+         updated_records INT NOT NULL DEFAULT 0,
+         unchanged_records INT NOT NULL DEFAULT 0,
+         error_message TEXT,
+         start_time BIGINT NOT NULL,         -- Epoch millis
+         updated_at TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- Used at startup to find jobs that were interrupted by a restart
+CREATE INDEX idx_data_loader_job_status ON data_loader_job (status);
@@ -0,0 +1,6 @@
+-- Flyway migration script: V4__Add_data_loader_job_temporary_file.sql
+-- Marks jobs that own their uploaded file, so the file can be deleted once the job completes.
+-- Jobs that read a streamed request body record a 'stream:' file path and cannot be resumed.
+
+ALTER TABLE data_loader_job
+    ADD COLUMN temporary_file BOOLEAN NOT NULL DEFAULT FALSE;
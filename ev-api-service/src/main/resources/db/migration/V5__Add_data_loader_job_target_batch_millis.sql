@@ -0,0 +1,5 @@
+-- Flyway migration script: V5__Add_data_loader_job_target_batch_millis.sql
+-- Keeps the adaptive batch sizing target of a job, so a resumed job adapts its batch size again.
+
+ALTER TABLE data_loader_job
+    ADD COLUMN target_batch_millis BIGINT NOT NULL DEFAULT 0; -- 0 for a fixed batch size
@@ -0,0 +1,5 @@
+-- Flyway migration script: V6__Add_data_loader_job_duplicate_records.sql
+-- Counts records of a job that were not written because a later record has the same VIN.
+
+ALTER TABLE data_loader_job
+    ADD COLUMN duplicate_records INT NOT NULL DEFAULT 0;
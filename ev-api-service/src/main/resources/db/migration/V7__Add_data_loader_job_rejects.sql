@@ -0,0 +1,6 @@
+-- Flyway migration script: V7__Add_data_loader_job_rejects.sql
+-- Counts rows of a job that the database refused and records where they were written.
+
+ALTER TABLE data_loader_job
+    ADD COLUMN rejected_records INT NOT NULL DEFAULT 0,
+    ADD COLUMN reject_file TEXT;
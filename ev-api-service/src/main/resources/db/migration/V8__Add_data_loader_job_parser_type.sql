@@ -0,0 +1,5 @@
+-- Flyway migration script: V8__Add_data_loader_job_parser_type.sql
+-- Records which CSV parser a job uses, so a resumed job parses the same way.
+
+ALTER TABLE data_loader_job
+    ADD COLUMN parser_type VARCHAR(20) NOT NULL DEFAULT 'COMMONS';
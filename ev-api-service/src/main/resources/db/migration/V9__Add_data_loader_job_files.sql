@@ -0,0 +1,10 @@
+-- Flyway migration script: V9__Add_data_loader_job_files.sql
+-- Links the per-file jobs of a directory or glob load to their parent job.
+
+ALTER TABLE data_loader_job
+    ADD COLUMN parent_job_id VARCHAR(36),
+    ADD COLUMN file_count INT NOT NULL DEFAULT 0,
+    ADD COLUMN file_parallelism INT NOT NULL DEFAULT 1;
+
+-- Used to roll up the file jobs of a directory job
+CREATE INDEX idx_data_loader_job_parent_job_id ON data_loader_job (parent_job_id);
@@ -0,0 +1,78 @@
+package com.ev.apiservice.config;
+
+import com.ev.apiservice.service.JobTelemetryService;
+import com.ev.apiservice.service.loader.JobTelemetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoadJobsEndpointTest {
+
+    private JobTelemetryService telemetryService;
+    private LoadJobsEndpoint endpoint;
+
+    @BeforeEach
+    void setUp() {
+        telemetryService = new JobTelemetryService(new SimpleMeterRegistry(), JobTelemetryService.DEFAULT_RETENTION_MILLIS);
+        endpoint = new LoadJobsEndpoint(telemetryService);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void runningJobShouldShowWhereTheJobSpendsItsTime() {
+        // Given
+        JobTelemetry telemetry = telemetryService.start("job-1");
+        telemetry.setBytesRead(() -> 4096);
+        telemetry.recordParsed(100, TimeUnit.MILLISECONDS.toNanos(200));
+        telemetry.record(JobTelemetry.Stage.EXECUTE, TimeUnit.MILLISECONDS.toNanos(600));
+        telemetry.record(JobTelemetry.Stage.IDLE, TimeUnit.MILLISECONDS.toNanos(1200));
+        telemetry.getBatchCommit().record(40, TimeUnit.MILLISECONDS);
+        telemetry.recordWritten(100);
+
+        // When
+        Map<String, Object> job = endpoint.runningJob("job-1");
+
+        // Then: idle time is waiting, so the busiest stage is the one doing the most work
+        assertEquals("job-1", job.get("jobId"));
+        assertEquals(100L, job.get("rowsParsed"));
+        assertEquals(100L, job.get("rowsWritten"));
+        assertEquals(4096L, job.get("bytesRead"));
+        assertEquals("execute", job.get("busiestStage"));
+        Map<String, Object> stages = (Map<String, Object>) job.get("stages");
+        assertEquals(0.3, (double) ((Map<String, Object>) stages.get("execute")).get("share"), 1e-9);
+        assertEquals(0.6, (double) ((Map<String, Object>) stages.get("idle")).get("share"), 1e-9);
+        assertEquals(1L, ((Map<String, Object>) job.get("batchCommit")).get("batches"));
+    }
+
+    @Test
+    void runningJobShouldBeNullForAJobNotRunningHere() {
+        // Given
+        telemetryService.start("job-1");
+        telemetryService.end("job-1");
+
+        // When and Then
+        assertNull(endpoint.runningJob("job-1"));
+        assertNull(endpoint.runningJob("unknown"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void runningJobsShouldListJobsInStartOrder() {
+        // Given
+        telemetryService.start("job-1");
+        telemetryService.start("job-2");
+
+        // When
+        List<Map<String, Object>> jobs = (List<Map<String, Object>>) endpoint.runningJobs().get("jobs");
+
+        // Then
+        assertEquals(2, jobs.size());
+        assertTrue(jobs.stream().allMatch(job -> job.get("busiestStage") == null));
+    }
+}
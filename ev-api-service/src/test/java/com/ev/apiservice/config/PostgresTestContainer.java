@@ -80,7 +80,8 @@ public class PostgresTestContainer {
                 "dol_vehicle_id BIGINT NOT NULL UNIQUE," +
                 "vehicle_location_point GEOMETRY(Point,4326)," +
                 "electric_utility VARCHAR(255)," +
-                "census_tract_2020 BIGINT" +
+                "census_tract_2020 BIGINT," +
+                "content_hash BIGINT" +
                 ")");
 
         return true;
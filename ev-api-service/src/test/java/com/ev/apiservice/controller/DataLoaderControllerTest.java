@@ -1,23 +1,40 @@
 package com.ev.apiservice.controller;
 
+import com.ev.apiservice.exception.JobStateConflictException;
 import com.ev.apiservice.service.DataLoaderJobService;
 import com.ev.apiservice.service.DataLoaderJobService.JobStatus;
+import com.ev.apiservice.service.DataLoaderJobService.JobSummary;
+import com.ev.apiservice.service.JobEventService;
+import com.ev.apiservice.service.loader.CsvProfile;
+import com.ev.apiservice.service.loader.LoadMode;
+import com.ev.apiservice.service.loader.LoadOptions;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.mock.web.MockMultipartFile;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
 
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
-import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(DataLoaderController.class)
@@ -32,6 +49,9 @@ class DataLoaderControllerTest {
     @MockBean
     private DataLoaderJobService jobService;
 
+    @MockBean
+    private JobEventService jobEventService;
+
     @Test
     void loadDataAsynchronouslyShouldReturnAcceptedWithJobInfo() throws Exception {
         // Given
@@ -43,7 +63,7 @@ class DataLoaderControllerTest {
         );
 
         String jobId = "test-job-id";
-        when(jobService.startLoadJob(anyString(), anyInt())).thenReturn(jobId);
+        when(jobService.startUploadJob(any(Path.class), any(LoadOptions.class))).thenReturn(jobId);
 
         // When and Then
         mockMvc.perform(multipart("/api/v1/data-loader/load-csv")
@@ -55,6 +75,97 @@ class DataLoaderControllerTest {
                 .andExpect(jsonPath("$.statusEndpoint", is("/api/v1/data-loader/job-status/" + jobId)));
     }
 
+    @Test
+    void loadDataShouldPassRequestedModeToJob() throws Exception {
+        // Given
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "test-file.csv", "text/csv", "sample,csv,content".getBytes());
+
+        String jobId = "copy-job-id";
+        when(jobService.startUploadJob(any(Path.class), any(LoadOptions.class))).thenReturn(jobId);
+
+        // When and Then
+        mockMvc.perform(multipart("/api/v1/data-loader/load-csv")
+                        .file(file)
+                        .param("batchSize", "5000")
+                        .param("mode", "COPY"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobId", is(jobId)))
+                .andExpect(jsonPath("$.mode", is("COPY")));
+
+        LoadOptions expected = LoadOptions.ofBatchSize(5000);
+        expected.setMode(LoadMode.COPY);
+        verify(jobService).startUploadJob(any(Path.class), eq(expected));
+    }
+
+    @Test
+    void loadDataShouldPassSnapshotSyncToJob() throws Exception {
+        // Given
+        MockMultipartFile file = new MockMultipartFile(
+                "file", "test-file.csv", "text/csv", "sample,csv,content".getBytes());
+        when(jobService.startUploadJob(any(Path.class), any(LoadOptions.class))).thenReturn("snapshot-job-id");
+
+        // When and Then
+        mockMvc.perform(multipart("/api/v1/data-loader/load-csv")
+                        .file(file)
+                        .param("deleteMissing", "true"))
+                .andExpect(status().isAccepted());
+
+        LoadOptions expected = LoadOptions.ofBatchSize(1000);
+        expected.setDeleteMissing(true);
+        verify(jobService).startUploadJob(any(Path.class), eq(expected));
+    }
+
+    @Test
+    void loadCsvStreamShouldLoadRequestBodyAndReturnOutcome() throws Exception {
+        // Given
+        byte[] body = "sample,csv,content".getBytes();
+        String jobId = "stream-job-id";
+        JobStatus completed = new JobStatus(JobStatus.Status.COMPLETED, 100, System.currentTimeMillis());
+        completed.setInsertedRecords(70);
+        completed.setUpdatedRecords(20);
+        completed.setUnchangedRecords(10);
+        when(jobService.runStreamingJob(eq("vehicles.csv"), any(InputStream.class), eq((long) body.length),
+                any(LoadOptions.class))).thenReturn(jobId);
+        when(jobService.getJobStatus(jobId)).thenReturn(completed);
+
+        // When and Then
+        mockMvc.perform(post("/api/v1/data-loader/load-csv/stream")
+                        .contentType("text/csv")
+                        .content(body)
+                        .param("filename", "vehicles.csv")
+                        .param("batchSize", "500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.jobId", is(jobId)))
+                .andExpect(jsonPath("$.status", is("COMPLETED")))
+                .andExpect(jsonPath("$.recordsProcessed", is(100)))
+                .andExpect(jsonPath("$.insertedRecords", is(70)))
+                .andExpect(jsonPath("$.unchangedRecords", is(10)));
+
+        verify(jobService).runStreamingJob(eq("vehicles.csv"), any(InputStream.class), eq((long) body.length),
+                eq(LoadOptions.ofBatchSize(500)));
+    }
+
+    @Test
+    void loadCsvStreamShouldReturnServerErrorWithJobIdWhenLoadFails() throws Exception {
+        // Given
+        String jobId = "failed-stream-job-id";
+        JobStatus failed = new JobStatus(JobStatus.Status.FAILED, 0, System.currentTimeMillis());
+        failed.setErrorMessage("Error during data loading: boom");
+        when(jobService.runStreamingJob(anyString(), any(InputStream.class), anyLong(), any(LoadOptions.class)))
+                .thenReturn(jobId);
+        when(jobService.getJobStatus(jobId)).thenReturn(failed);
+
+        // When and Then
+        mockMvc.perform(post("/api/v1/data-loader/load-csv/stream")
+                        .contentType("application/gzip")
+                        .content(new byte[]{0x1f, (byte) 0x8b}))
+                .andExpect(status().isInternalServerError())
+                .andExpect(jsonPath("$.jobId", is(jobId)))
+                .andExpect(jsonPath("$.status", is("FAILED")))
+                .andExpect(jsonPath("$.message", is("Error during data loading: boom")));
+    }
+
     @Test
     void getJobStatusShouldReturnNotFoundForNonExistentJob() throws Exception {
         // Given
@@ -67,6 +178,29 @@ class DataLoaderControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    void streamJobEventsShouldOpenAnEventStreamForAnExistingJob() throws Exception {
+        // Given
+        when(jobService.getJobStatus("running-job")).thenReturn(new JobStatus(JobStatus.Status.RUNNING, 50, 0));
+        when(jobEventService.subscribe("running-job", 2000)).thenReturn(new SseEmitter());
+
+        // When and Then
+        mockMvc.perform(get("/api/v1/data-loader/job-events/{jobId}", "running-job").param("intervalMillis", "2000"))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+        verify(jobEventService).subscribe("running-job", 2000);
+    }
+
+    @Test
+    void streamJobEventsShouldReturnNotFoundForNonExistentJob() throws Exception {
+        // Given
+        when(jobService.getJobStatus("non-existent-job")).thenReturn(new JobStatus(JobStatus.Status.NOT_FOUND, 0, 0));
+
+        // When and Then
+        mockMvc.perform(get("/api/v1/data-loader/job-events/{jobId}", "non-existent-job"))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     void getJobStatusShouldReturnStatusForExistingJob() throws Exception {
         // Given
@@ -87,6 +221,65 @@ class DataLoaderControllerTest {
                 .andExpect(jsonPath("$.startTime", notNullValue()));
     }
 
+    @Test
+    void getJobStatusShouldIncludeChangeCountsForCompletedJob() throws Exception {
+        // Given
+        String jobId = "completed-job";
+        JobStatus completedStatus = new JobStatus(JobStatus.Status.COMPLETED, 100, System.currentTimeMillis());
+        completedStatus.setInsertedRecords(10);
+        completedStatus.setUpdatedRecords(5);
+        completedStatus.setUnchangedRecords(85);
+
+        when(jobService.getJobStatus(eq(jobId))).thenReturn(completedStatus);
+
+        // When and Then
+        mockMvc.perform(get("/api/v1/data-loader/job-status/{jobId}", jobId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("COMPLETED")))
+                .andExpect(jsonPath("$.recordsProcessed", is(100)))
+                .andExpect(jsonPath("$.insertedRecords", is(10)))
+                .andExpect(jsonPath("$.updatedRecords", is(5)))
+                .andExpect(jsonPath("$.unchangedRecords", is(85)));
+    }
+
+    @Test
+    void getJobStatusShouldReportVehiclesDeletedByASnapshotSync() throws Exception {
+        // Given
+        String jobId = "snapshot-job";
+        JobStatus completedStatus = new JobStatus(JobStatus.Status.COMPLETED, 100, System.currentTimeMillis());
+        completedStatus.setDeletedRecords(3);
+        completedStatus.setRemovedFile("/tmp/ev-loader-rejects/snapshot-job-removed.csv");
+
+        when(jobService.getJobStatus(eq(jobId))).thenReturn(completedStatus);
+
+        // When and Then
+        mockMvc.perform(get("/api/v1/data-loader/job-status/{jobId}", jobId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.deletedRecords", is(3)))
+                .andExpect(jsonPath("$.removedFile", is("/tmp/ev-loader-rejects/snapshot-job-removed.csv")));
+    }
+
+    @Test
+    void getJobStatusShouldIncludeTheProfileOfADryRun() throws Exception {
+        // Given
+        String jobId = "dry-run-job";
+        JobStatus completedStatus = new JobStatus(JobStatus.Status.COMPLETED, 4, System.currentTimeMillis());
+        completedStatus.setDuplicateRecords(1);
+        completedStatus.setProfile(new CsvProfile(4, 3, 1, 12, -1,
+                List.of(new CsvProfile.ColumnProfile("Model Year", 0, 1, 2))));
+
+        when(jobService.getJobStatus(eq(jobId))).thenReturn(completedStatus);
+
+        // When and Then
+        mockMvc.perform(get("/api/v1/data-loader/job-status/{jobId}", jobId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.duplicateRecords", is(1)))
+                .andExpect(jsonPath("$.profile.records", is(4)))
+                .andExpect(jsonPath("$.profile.duplicateVins", is(1)))
+                .andExpect(jsonPath("$.profile.columns[0].column", is("Model Year")))
+                .andExpect(jsonPath("$.profile.columns[0].invalid", is(1)));
+    }
+
     @Test
     void getJobStatusShouldIncludeErrorMessageForFailedJob() throws Exception {
         // Given
@@ -105,4 +298,182 @@ class DataLoaderControllerTest {
                 .andExpect(jsonPath("$.errorMessage", is("Error occurred during processing")))
                 .andExpect(jsonPath("$.startTime", notNullValue()));
     }
-}
\ No newline at end of file
+
+    @Test
+    void resumeJobShouldReturnAcceptedWithCheckpoint() throws Exception {
+        // Given
+        String jobId = "interrupted-job";
+        JobStatus queuedStatus = new JobStatus(JobStatus.Status.QUEUED, 4000, System.currentTimeMillis());
+        queuedStatus.setCheckpointRecords(4000);
+
+        when(jobService.resumeJob(eq(jobId))).thenReturn(jobId);
+        when(jobService.getJobStatus(eq(jobId))).thenReturn(queuedStatus);
+
+        // When and Then
+        mockMvc.perform(post("/api/v1/data-loader/resume/{jobId}", jobId))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobId", is(jobId)))
+                .andExpect(jsonPath("$.statusEndpoint", is("/api/v1/data-loader/job-status/" + jobId)))
+                .andExpect(jsonPath("$.resumeFromRecord", is(4000)));
+    }
+
+    @Test
+    void resumeJobShouldReturnConflictWhenJobIsNotResumable() throws Exception {
+        // Given
+        String jobId = "completed-job";
+        when(jobService.resumeJob(eq(jobId)))
+                .thenThrow(new JobStateConflictException("Job completed-job is COMPLETED and cannot be resumed"));
+
+        // When and Then
+        mockMvc.perform(post("/api/v1/data-loader/resume/{jobId}", jobId))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message", is("Job completed-job is COMPLETED and cannot be resumed")));
+    }
+
+    @Test
+    void cancelJobShouldReturnAccepted() throws Exception {
+        // When and Then
+        mockMvc.perform(post("/api/v1/data-loader/cancel/{jobId}", "running-job"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobId", is("running-job")))
+                .andExpect(jsonPath("$.statusEndpoint", is("/api/v1/data-loader/job-status/running-job")));
+
+        verify(jobService).cancelJob("running-job");
+    }
+
+    @Test
+    void cancelJobShouldReturnConflictWhenJobHasFinished() throws Exception {
+        // Given
+        doThrow(new JobStateConflictException("Job completed-job is COMPLETED and cannot be cancelled"))
+                .when(jobService).cancelJob("completed-job");
+
+        // When and Then
+        mockMvc.perform(post("/api/v1/data-loader/cancel/{jobId}", "completed-job"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.message", is("Job completed-job is COMPLETED and cannot be cancelled")));
+    }
+
+    @Test
+    void cancelJobShouldNotReportAnInternalFailureAsAConflict() throws Exception {
+        // Given
+        doThrow(new IllegalStateException("Interrupted while queueing a batch"))
+                .when(jobService).cancelJob("running-job");
+
+        // When and Then
+        mockMvc.perform(post("/api/v1/data-loader/cancel/{jobId}", "running-job"))
+                .andExpect(status().isInternalServerError());
+    }
+
+    @Test
+    void setRateLimitShouldChangeTheLimitOfARunningJob() throws Exception {
+        // When and Then
+        mockMvc.perform(put("/api/v1/data-loader/rate-limit/{jobId}", "running-job")
+                        .param("maxRowsPerSecond", "2500"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.maxRowsPerSecond", is(2500)));
+
+        verify(jobService).setRateLimit("running-job", 2500L);
+    }
+
+    @Test
+    void getJobStatusShouldReportCountsAndCheckpointOfACancelledJob() throws Exception {
+        // Given
+        JobStatus cancelled = new JobStatus(JobStatus.Status.CANCELLED, 3000, System.currentTimeMillis());
+        cancelled.setInsertedRecords(3000);
+        cancelled.setCheckpointRecords(3000);
+        cancelled.setMaxRowsPerSecond(1000);
+        when(jobService.getJobStatus(eq("cancelled-job"))).thenReturn(cancelled);
+
+        // When and Then
+        mockMvc.perform(get("/api/v1/data-loader/job-status/{jobId}", "cancelled-job"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.status", is("CANCELLED")))
+                .andExpect(jsonPath("$.insertedRecords", is(3000)))
+                .andExpect(jsonPath("$.checkpointRecords", is(3000)))
+                .andExpect(jsonPath("$.maxRowsPerSecond", is(1000)));
+    }
+
+    @Test
+    void loadDirectoryShouldReturnAcceptedWithFileJobs() throws Exception {
+        // Given
+        String jobId = "directory-job";
+        JobStatus queuedStatus = new JobStatus(JobStatus.Status.QUEUED, 0, System.currentTimeMillis());
+        queuedStatus.setFileCount(2);
+        queuedStatus.setFileJobIds(List.of("file-1", "file-2"));
+        when(jobService.startDirectoryJob(eq("extracts"), any(LoadOptions.class), eq(4))).thenReturn(jobId);
+        when(jobService.getJobStatus(eq(jobId))).thenReturn(queuedStatus);
+
+        // When and Then
+        mockMvc.perform(post("/api/v1/data-loader/load-directory")
+                        .param("location", "extracts")
+                        .param("fileParallelism", "4")
+                        .param("batchSize", "500"))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.jobId", is(jobId)))
+                .andExpect(jsonPath("$.fileCount", is(2)))
+                .andExpect(jsonPath("$.fileJobIds[1]", is("file-2")));
+
+        verify(jobService).startDirectoryJob(eq("extracts"), eq(LoadOptions.ofBatchSize(500)), eq(4));
+    }
+
+    @Test
+    void loadDirectoryShouldReturnBadRequestWhenNoFilesMatch() throws Exception {
+        // Given
+        when(jobService.startDirectoryJob(eq("file:/empty"), any(LoadOptions.class), eq(2)))
+                .thenThrow(new IllegalArgumentException("No CSV files found at: file:/empty"));
+
+        // When and Then
+        mockMvc.perform(post("/api/v1/data-loader/load-directory").param("location", "file:/empty"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("No CSV files found at: file:/empty")));
+    }
+
+    @Test
+    void loadDirectoryShouldReturnBadRequestForALocationOutsideTheImportDirectory() throws Exception {
+        // Given
+        when(jobService.startDirectoryJob(eq("../etc"), any(LoadOptions.class), eq(2)))
+                .thenThrow(new IllegalArgumentException("Location must not leave the import directory: ../etc"));
+
+        // When and Then
+        mockMvc.perform(post("/api/v1/data-loader/load-directory").param("location", "../etc"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Location must not leave the import directory: ../etc")));
+    }
+
+    @Test
+    void getJobHistoryShouldReturnAPageOfJobs() throws Exception {
+        // Given
+        JobStatus failed = new JobStatus(JobStatus.Status.FAILED, 1200, 1_700_000_000_000L);
+        failed.setEndTime(1_700_000_060_000L);
+        failed.setErrorMessage("Connection refused");
+        when(jobService.getJobHistory(JobStatus.Status.FAILED, 1_600_000_000_000L, Long.MAX_VALUE, 1, 10))
+                .thenReturn(new PageImpl<>(List.of(new JobSummary("failed-job", "/data/a.csv", "UPSERT", failed)),
+                        PageRequest.of(1, 10), 11));
+
+        // When and Then
+        mockMvc.perform(get("/api/v1/data-loader/jobs")
+                        .param("status", "FAILED")
+                        .param("from", "1600000000000")
+                        .param("page", "1")
+                        .param("size", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[0].jobId", is("failed-job")))
+                .andExpect(jsonPath("$.content[0].status", is("FAILED")))
+                .andExpect(jsonPath("$.content[0].recordsProcessed", is(1200)))
+                .andExpect(jsonPath("$.content[0].endTime", is(1_700_000_060_000L)))
+                .andExpect(jsonPath("$.content[0].errorMessage", is("Connection refused")))
+                .andExpect(jsonPath("$.totalElements", is(11)));
+    }
+
+    @Test
+    void getJobHistoryShouldReturnBadRequestForAnOversizedPage() throws Exception {
+        // Given
+        when(jobService.getJobHistory(null, 0L, Long.MAX_VALUE, 0, 500))
+                .thenThrow(new IllegalArgumentException("Page size must be between 1 and 100"));
+
+        // When and Then
+        mockMvc.perform(get("/api/v1/data-loader/jobs").param("size", "500"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message", is("Page size must be between 1 and 100")));
+    }
+}
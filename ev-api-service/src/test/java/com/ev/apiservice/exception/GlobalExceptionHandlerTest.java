@@ -68,6 +68,22 @@ public class GlobalExceptionHandlerTest {
         assertThat(response.getBody().getGlobalErrors()).isNull();
     }
 
+    @Test
+    void handleJobStateConflictException_ShouldReturnConflictStatus() {
+        // Arrange
+        String errorMessage = "Job is COMPLETED and cannot be resumed";
+        JobStateConflictException ex = new JobStateConflictException(errorMessage);
+
+        // Act
+        ResponseEntity<GlobalExceptionHandler.ErrorResponse> response = exceptionHandler.handleJobStateConflictException(ex);
+
+        // Assert
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(response.getBody()).isNotNull();
+        assertThat(response.getBody().getStatus()).isEqualTo(HttpStatus.CONFLICT.value());
+        assertThat(response.getBody().getMessage()).isEqualTo(errorMessage);
+    }
+
     @Test
     void handleValidationExceptions_WithFieldErrors_ShouldReturnBadRequestWithFieldErrors() {
         // Arrange
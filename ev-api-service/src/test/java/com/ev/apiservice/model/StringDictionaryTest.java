@@ -0,0 +1,95 @@
+package com.ev.apiservice.model;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.nio.CharBuffer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StringDictionaryTest {
+
+    @Test
+    void internShouldReturnOneInstancePerDistinctValue() {
+        // Given
+        StringDictionary dictionary = new StringDictionary("test", 10);
+        String first = new String("TESLA");
+        String second = new String("TESLA");
+
+        // When
+        String sharedFirst = dictionary.intern(first);
+        String sharedSecond = dictionary.intern(second);
+        String fromBuffer = dictionary.intern(CharBuffer.wrap("xTESLAx".toCharArray(), 1, 5));
+
+        // Then
+        assertThat(sharedFirst).isSameAs(first);
+        assertThat(sharedSecond).isSameAs(first);
+        assertThat(fromBuffer).isSameAs(first);
+        assertThat(dictionary.size()).isEqualTo(1);
+    }
+
+    @Test
+    void internShouldStopGrowingWhenFull() {
+        // Given
+        StringDictionary dictionary = new StringDictionary("test", 2);
+        dictionary.intern("King");
+        dictionary.intern("Pierce");
+        String overflow = new String("Snohomish");
+
+        // When
+        String result = dictionary.intern(overflow);
+        String again = dictionary.intern(new String("Snohomish"));
+
+        // Then
+        assertThat(result).isSameAs(overflow);
+        assertThat(again).isEqualTo("Snohomish").isNotSameAs(overflow);
+        assertThat(dictionary.size()).isEqualTo(2);
+        assertThat(dictionary.intern(new String("King"))).isSameAs(dictionary.intern("King"));
+    }
+
+    @Test
+    void internShouldPassNullAndEmptyValuesThrough() {
+        // Given
+        StringDictionary dictionary = new StringDictionary("test", 10);
+
+        // When and Then
+        assertThat(dictionary.intern((String) null)).isNull();
+        assertThat(dictionary.intern((CharSequence) null)).isNull();
+        assertThat(dictionary.intern("")).isEmpty();
+        assertThat(dictionary.intern(CharBuffer.allocate(0))).isEmpty();
+        assertThat(dictionary.size()).isZero();
+    }
+
+    @Test
+    void bindToShouldReportLookupsAndSize() {
+        // Given
+        StringDictionary dictionary = new StringDictionary("test", 1);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        dictionary.bindTo(registry);
+
+        // When
+        dictionary.intern("Seattle");
+        dictionary.intern("Seattle");
+        dictionary.intern("Tacoma");
+
+        // Then
+        assertThat(registry.get("dictionary.lookups").tag("result", "miss").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("dictionary.lookups").tag("result", "hit").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("dictionary.lookups").tag("result", "overflow").functionCounter().count()).isEqualTo(1);
+        assertThat(registry.get("dictionary.size").tag("dictionary", "test").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void converterShouldShareValuesReadFromTheDatabase() {
+        // Given
+        InternedStringConverter converter = new InternedStringConverter();
+
+        // When
+        String first = converter.convertToEntityAttribute(new String("Battery Electric Vehicle (BEV)"));
+        String second = converter.convertToEntityAttribute(new String("Battery Electric Vehicle (BEV)"));
+
+        // Then
+        assertThat(second).isSameAs(first);
+        assertThat(converter.convertToDatabaseColumn(first)).isSameAs(first);
+    }
+}
@@ -0,0 +1,69 @@
+package com.ev.apiservice.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class LoadJobQueueTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final LoadJobQueue queue = new LoadJobQueue(jdbcTemplate);
+
+    @Test
+    void claimShouldSkipLockedJobsAndReturnTheOldestFirst() {
+        // Given: RETURNING yields the claimed rows in no particular order
+        when(jdbcTemplate.queryForList(contains("FOR UPDATE SKIP LOCKED"), eq("node-1"), eq(30.0), eq(3), eq(2)))
+                .thenReturn(List.of(Map.of("job_id", "newer", "start_time", 2000L),
+                        Map.of("job_id", "older", "start_time", 1000L)));
+
+        // When
+        List<String> claimed = queue.claim("node-1", 2, 30_000, 3);
+
+        // Then
+        assertEquals(List.of("older", "newer"), claimed);
+    }
+
+    @Test
+    void renewShouldOnlyTouchTheJobsOfTheOwner() {
+        // Given
+        when(jdbcTemplate.queryForList(contains("WHERE lease_owner = ?"), eq(String.class), any(Object[].class)))
+                .thenReturn(List.of("job-1"));
+
+        // When
+        List<String> renewed = queue.renew("node-1", List.of("job-1", "job-2"), 30_000);
+
+        // Then
+        assertEquals(List.of("job-1"), renewed);
+        verify(jdbcTemplate).queryForList(contains("job_id IN (?, ?)"), eq(String.class),
+                eq(new Object[]{30.0, "node-1", "job-1", "job-2"}));
+    }
+
+    @Test
+    void renewShouldNotQueryWithoutJobs() {
+        // When
+        List<String> renewed = queue.renew("node-1", List.of(), 30_000);
+
+        // Then
+        assertTrue(renewed.isEmpty());
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void expireLeasesShouldReturnTheJobsItEnded() {
+        // Given
+        when(jdbcTemplate.queryForList(contains("status = 'INTERRUPTED'"), eq(String.class))).thenReturn(List.of("upload-1"));
+        when(jdbcTemplate.queryForList(contains("status = 'FAILED'"), eq(String.class), eq(3))).thenReturn(List.of("shared-1"));
+
+        // When
+        List<String> ended = queue.expireLeases(3);
+
+        // Then
+        assertEquals(List.of("upload-1", "shared-1"), ended);
+    }
+}
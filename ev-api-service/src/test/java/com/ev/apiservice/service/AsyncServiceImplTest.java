@@ -1,11 +1,22 @@
 package com.ev.apiservice.service;
 
+import com.ev.apiservice.service.loader.JobTelemetry;
+import com.ev.apiservice.service.loader.LoadCancelledException;
+import com.ev.apiservice.service.loader.LoadControl;
+import com.ev.apiservice.service.loader.LoadMode;
+import com.ev.apiservice.service.loader.LoadOptions;
+import com.ev.apiservice.service.loader.LoadResult;
+import com.ev.apiservice.service.loader.RowRateLimiter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
 import java.util.concurrent.CompletableFuture;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -13,6 +24,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.longThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,11 +39,14 @@ class AsyncServiceImplTest {
     @Mock
     private DataLoaderJobService.JobStatus jobStatus;
 
+    private JobTelemetryService jobTelemetryService;
+
     private AsyncServiceImpl asyncService;
 
     @BeforeEach
     void setUp() {
-        asyncService = new AsyncServiceImpl(csvDataLoaderService, dataLoaderJobService);
+        jobTelemetryService = new JobTelemetryService(new SimpleMeterRegistry(), JobTelemetryService.DEFAULT_RETENTION_MILLIS);
+        asyncService = new AsyncServiceImpl(csvDataLoaderService, dataLoaderJobService, jobTelemetryService);
 
         // Setup default mocks
         when(dataLoaderJobService.getJobStatus(anyString())).thenReturn(jobStatus);
@@ -45,8 +60,8 @@ class AsyncServiceImplTest {
         int batchSize = 1000;
         int recordCount = 100;
 
-        when(csvDataLoaderService.countRecords(eq(csvFilePath))).thenReturn(recordCount);
-        when(csvDataLoaderService.loadData(eq(csvFilePath), eq(batchSize), any())).thenReturn(recordCount);
+        when(csvDataLoaderService.loadData(eq(csvFilePath), eq(LoadOptions.ofBatchSize(batchSize)), any()))
+                .thenReturn(new LoadResult(60, 15, 25));
 
         // When
         CompletableFuture<Integer> future = asyncService.executeLoadDataAsync(jobId, csvFilePath, batchSize);
@@ -59,37 +74,148 @@ class AsyncServiceImplTest {
         verify(jobStatus).setStatus(DataLoaderJobService.JobStatus.Status.RUNNING);
         verify(jobStatus).setTotalRecords(recordCount);
         verify(jobStatus).setRecordsProcessed(recordCount);
+        verify(jobStatus).setInsertedRecords(60);
+        verify(jobStatus).setUpdatedRecords(15);
+        verify(jobStatus).setUnchangedRecords(25);
         verify(jobStatus).setStatus(DataLoaderJobService.JobStatus.Status.COMPLETED);
         verify(jobStatus).setProgress(100.0);
     }
 
     @Test
-    void executeLoadDataAsyncShouldHandleExceptionWhenCountRecordsFails() throws Exception {
+    void executeLoadDataAsyncShouldRecordJobTelemetryWhileTheLoadRuns() throws Exception {
+        // Given
+        String jobId = "telemetry-job";
+        String csvFilePath = "file:path/to/file.csv";
+        LoadOptions options = LoadOptions.ofBatchSize(1000);
+        JobTelemetry[] duringLoad = new JobTelemetry[1];
+        when(csvDataLoaderService.loadData(eq(csvFilePath), eq(options), any())).thenAnswer(invocation -> {
+            duringLoad[0] = jobTelemetryService.getRunning(jobId);
+            return new LoadResult(10, 0, 0);
+        });
+
+        // When
+        asyncService.executeLoadDataAsync(jobId, csvFilePath, options).get();
+
+        // Then: the load got the job's telemetry, which is no longer running once it ended
+        assertNotNull(duringLoad[0]);
+        assertSame(duringLoad[0], options.getTelemetry());
+        assertNull(jobTelemetryService.getRunning(jobId));
+    }
+
+    @Test
+    void executeLoadDataAsyncShouldNotRecordJobTelemetryForADryRun() throws Exception {
+        // Given
+        String csvFilePath = "file:path/to/file.csv";
+        LoadOptions options = LoadOptions.ofBatchSize(1000);
+        options.setMode(LoadMode.VALIDATE);
+        when(csvDataLoaderService.loadData(eq(csvFilePath), eq(options), any())).thenReturn(new LoadResult(10, 0, 0));
+
+        // When
+        asyncService.executeLoadDataAsync("dry-run-job", csvFilePath, options).get();
+
+        // Then
+        assertNull(options.getTelemetry());
+    }
+
+    @Test
+    void executeLoadDataAsyncShouldDeriveProgressFromBytesReadInSinglePass() throws Exception {
         // Given
         String jobId = "test-job-id";
         String csvFilePath = "file:path/to/file.csv";
         int batchSize = 1000;
         int recordCount = 100;
 
-        RuntimeException countException = new RuntimeException("Error counting records");
-        when(csvDataLoaderService.countRecords(eq(csvFilePath))).thenThrow(countException);
-        when(csvDataLoaderService.loadData(eq(csvFilePath), eq(batchSize), any())).thenReturn(recordCount);
+        when(jobStatus.advance(50, 2500)).thenReturn(2500L);
+        when(csvDataLoaderService.loadData(eq(csvFilePath), eq(LoadOptions.ofBatchSize(batchSize)), any())).thenAnswer(invocation -> {
+            CsvDataLoaderService.ProgressCallback callback = invocation.getArgument(2);
+            callback.onProgress(50, 2500, 10000);
+            return new LoadResult(recordCount, 0, 0);
+        });
 
         // When
         CompletableFuture<Integer> future = asyncService.executeLoadDataAsync(jobId, csvFilePath, batchSize);
 
         // Then
-        assertTrue(future.isDone());
         assertEquals(recordCount, future.get());
 
-        // Verify status updates
-        verify(jobStatus).setStatus(DataLoaderJobService.JobStatus.Status.RUNNING);
-        verify(jobStatus, never()).setTotalRecords(anyInt()); // This should not be called
-        verify(jobStatus).setRecordsProcessed(recordCount);
+        verify(jobStatus).advance(50, 2500);
+        verify(jobStatus).setTotalBytes(10000);
+        verify(jobStatus).setProgress(25.0);
+        verify(jobStatus, times(2)).setEstimatedRemainingMillis(longThat(eta -> eta >= 0));
         verify(jobStatus).setStatus(DataLoaderJobService.JobStatus.Status.COMPLETED);
         verify(jobStatus).setProgress(100.0);
     }
 
+    @Test
+    void executeLoadDataAsyncShouldNotMoveProgressBackOnAnOlderReport() throws Exception {
+        // Given
+        String jobId = "test-job-id";
+        String csvFilePath = "file:path/to/file.csv";
+        LoadOptions options = LoadOptions.ofBatchSize(1000);
+
+        // A writer thread reports a batch read before the one already reported
+        when(jobStatus.advance(20, 1000)).thenReturn(5000L);
+        when(csvDataLoaderService.loadData(eq(csvFilePath), eq(options), any())).thenAnswer(invocation -> {
+            CsvDataLoaderService.ProgressCallback callback = invocation.getArgument(2);
+            callback.onProgress(20, 1000, 10000);
+            return new LoadResult(100, 0, 0);
+        });
+
+        // When
+        asyncService.executeLoadDataAsync(jobId, csvFilePath, options).get();
+
+        // Then
+        verify(jobStatus).setProgress(50.0);
+        verify(jobStatus, never()).setProgress(10.0);
+    }
+
+    @Test
+    void executeLoadDataAsyncShouldAdvanceCheckpointsAndCountSkippedRecords() throws Exception {
+        // Given
+        String jobId = "test-job-id";
+        String csvFilePath = "file:path/to/file.csv";
+        LoadOptions options = LoadOptions.ofBatchSize(1000);
+        options.setResumeFromRecord(4000);
+
+        when(csvDataLoaderService.loadData(eq(csvFilePath), eq(options), any())).thenAnswer(invocation -> {
+            CsvDataLoaderService.ProgressCallback callback = invocation.getArgument(2);
+            callback.onProgress(5000, 9000, 10000);
+            callback.onCheckpoint(5000);
+            return new LoadResult(0, 0, 1000);
+        });
+
+        // When
+        CompletableFuture<Integer> future = asyncService.executeLoadDataAsync(jobId, csvFilePath, options);
+
+        // Then
+        assertEquals(5000, future.get());
+        verify(jobStatus).advanceCheckpoint(5000);
+        verify(jobStatus).setTotalRecords(5000);
+        verify(dataLoaderJobService, times(2)).saveJob(jobId);
+    }
+
+    @Test
+    void executeLoadDataAsyncShouldRecordBatchSizeAdjustments() {
+        // Given
+        String jobId = "test-job-id";
+        String csvFilePath = "file:path/to/file.csv";
+        LoadOptions options = LoadOptions.ofBatchSize(1000);
+        options.setTargetBatchMillis(250);
+
+        when(csvDataLoaderService.loadData(eq(csvFilePath), eq(options), any())).thenAnswer(invocation -> {
+            CsvDataLoaderService.ProgressCallback callback = invocation.getArgument(2);
+            callback.onBatchSizeChanged(2000);
+            return new LoadResult(3000, 0, 0);
+        });
+
+        // When
+        asyncService.executeLoadDataAsync(jobId, csvFilePath, options);
+
+        // Then
+        verify(jobStatus).setCurrentBatchSize(2000);
+        verify(jobStatus).incrementBatchSizeAdjustments();
+    }
+
     @Test
     void executeLoadDataAsyncShouldHandleExceptionWhenLoadDataFails() {
         // Given
@@ -98,8 +224,7 @@ class AsyncServiceImplTest {
         int batchSize = 1000;
 
         RuntimeException loadException = new RuntimeException("Error loading data");
-        when(csvDataLoaderService.countRecords(eq(csvFilePath))).thenReturn(100);
-        when(csvDataLoaderService.loadData(eq(csvFilePath), eq(batchSize), any())).thenThrow(loadException);
+        when(csvDataLoaderService.loadData(eq(csvFilePath), eq(LoadOptions.ofBatchSize(batchSize)), any())).thenThrow(loadException);
 
         // When
         CompletableFuture<Integer> future = asyncService.executeLoadDataAsync(jobId, csvFilePath, batchSize);
@@ -109,8 +234,91 @@ class AsyncServiceImplTest {
 
         // Verify status updates
         verify(jobStatus).setStatus(DataLoaderJobService.JobStatus.Status.RUNNING);
-        verify(jobStatus).setTotalRecords(100);
+        verify(jobStatus, never()).setTotalRecords(anyInt());
         verify(jobStatus).setStatus(DataLoaderJobService.JobStatus.Status.FAILED);
         verify(jobStatus).setErrorMessage(loadException.getMessage());
+        // The uploaded file is kept so the job can be resumed
+        verify(dataLoaderJobService, never()).deleteTemporaryFile(anyString());
+    }
+
+    @Test
+    void executeLoadDataAsyncShouldDeleteUploadedFileOnCompletion() {
+        // Given
+        String jobId = "test-job-id";
+        String csvFilePath = "/tmp/ev-loader123/upload-1.csv";
+        when(csvDataLoaderService.loadData(eq(csvFilePath), eq(LoadOptions.ofBatchSize(1000)), any()))
+                .thenReturn(new LoadResult(10, 0, 0));
+
+        // When
+        asyncService.executeLoadDataAsync(jobId, csvFilePath, 1000);
+
+        // Then
+        verify(dataLoaderJobService).deleteTemporaryFile(jobId);
+    }
+
+    @Test
+    void executeLoadDataAsyncShouldMarkACancelledLoadCancelledWithItsCommittedCounts() throws Exception {
+        // Given
+        String jobId = "test-job-id";
+        String csvFilePath = "/tmp/ev-loader123/upload-1.csv";
+        LoadOptions options = LoadOptions.ofBatchSize(1000);
+        options.setControl(new LoadControl(new RowRateLimiter(0)));
+        when(csvDataLoaderService.loadData(eq(csvFilePath), eq(options), any())).thenAnswer(invocation -> {
+            options.getControl().cancel();
+            throw new LoadCancelledException(new LoadResult(20, 5, 0));
+        });
+
+        // When
+        CompletableFuture<Integer> future = asyncService.executeLoadDataAsync(jobId, csvFilePath, options);
+
+        // Then
+        assertEquals(25, future.get());
+        verify(jobStatus).setInsertedRecords(20);
+        verify(jobStatus, never()).setStatus(DataLoaderJobService.JobStatus.Status.FAILED);
+        // Saved once as it starts and once more with the cancelled state
+        InOrder saves = inOrder(jobStatus, dataLoaderJobService);
+        saves.verify(jobStatus).setStatus(DataLoaderJobService.JobStatus.Status.RUNNING);
+        saves.verify(dataLoaderJobService).saveJob(jobId);
+        saves.verify(jobStatus).setStatus(DataLoaderJobService.JobStatus.Status.CANCELLED);
+        saves.verify(dataLoaderJobService).saveJob(jobId);
+        verify(dataLoaderJobService, times(2)).saveJob(jobId);
+        // The uploaded file is kept so the job can be resumed
+        verify(dataLoaderJobService, never()).deleteTemporaryFile(anyString());
+    }
+
+    @Test
+    void executeLoadDataAsyncShouldNotStartAJobCancelledWhileQueued() {
+        // Given
+        LoadOptions options = LoadOptions.ofBatchSize(1000);
+        options.setControl(new LoadControl(new RowRateLimiter(0)));
+        options.getControl().cancel();
+
+        // When
+        asyncService.executeLoadDataAsync("test-job-id", "file:path/to/file.csv", options);
+
+        // Then
+        verify(jobStatus).setStatus(DataLoaderJobService.JobStatus.Status.CANCELLED);
+        verify(jobStatus, never()).setStatus(DataLoaderJobService.JobStatus.Status.RUNNING);
+        verifyNoInteractions(csvDataLoaderService);
+    }
+
+    @Test
+    void executeStreamingLoadShouldLoadTheStreamAndCompleteTheJob() throws Exception {
+        // Given
+        String jobId = "stream-job-id";
+        InputStream body = new ByteArrayInputStream(new byte[0]);
+        LoadOptions options = LoadOptions.ofBatchSize(1000);
+        when(csvDataLoaderService.loadStream(eq("vehicles.csv"), eq(body), eq(42L), eq(options), any()))
+                .thenReturn(new LoadResult(30, 10, 2));
+
+        // When
+        CompletableFuture<Integer> future = asyncService.executeStreamingLoad(jobId, "vehicles.csv", body, 42, options);
+
+        // Then
+        assertTrue(future.isDone());
+        assertEquals(42, future.get());
+        verify(jobStatus).setStatus(DataLoaderJobService.JobStatus.Status.COMPLETED);
+        verify(jobStatus).setInsertedRecords(30);
+        verify(dataLoaderJobService, never()).deleteTemporaryFile(anyString());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,734 @@
+package com.ev.apiservice.service;
+
+import io.airlift.compress.zstd.ZstdOutputStream;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import com.ev.apiservice.service.loader.CsvProfile;
+import com.ev.apiservice.service.loader.InputFormat;
+import com.ev.apiservice.service.loader.LoadMode;
+import com.ev.apiservice.service.loader.LoadOptions;
+import com.ev.apiservice.service.loader.LoadResult;
+import com.ev.apiservice.service.loader.ParserType;
+import com.ev.apiservice.service.loader.SnapshotSync;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayInputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.sql.PreparedStatement;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class CsvDataLoaderServiceTest {
+
+    private static final String HEADER = "\"VIN (1-10)\",\"County\",\"City\",\"State\",\"Postal Code\",\"Model Year\",\"Make\",\"Model\"," +
+            "\"Electric Vehicle Type\",\"Clean Alternative Fuel Vehicle (CAFV) Eligibility\",\"Electric Range\",\"Base MSRP\"," +
+            "\"Legislative District\",\"DOL Vehicle ID\",\"Vehicle Location\",\"Electric Utility\",\"2020 Census Tract\"\n";
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @TempDir
+    Path tempDir;
+
+    @TempDir
+    Path outside;
+
+    private CsvDataLoaderService csvDataLoaderService;
+
+    @BeforeEach
+    void setUp() {
+        csvDataLoaderService = new CsvDataLoaderService(jdbcTemplate, new DefaultResourceLoader(), transactionManager,
+                new SimpleMeterRegistry(), tempDir.toString());
+    }
+
+    @Test
+    void loadDataShouldStreamRecordsInBatchesOfConfiguredSize() throws Exception {
+        // Given
+        Path csv = writeCsv(5);
+        List<Integer> batchSizes = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenAnswer(invocation -> {
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            batchSizes.add(setter.getBatchSize());
+            return upserted(invocation);
+        });
+        List<Integer> progress = new ArrayList<>();
+        List<Long> bytesProgress = new ArrayList<>();
+        List<Long> totals = new ArrayList<>();
+
+        // When
+        int processed = csvDataLoaderService.loadData("file:" + csv.toAbsolutePath(), 2, (records, bytesRead, totalBytes) -> {
+            progress.add(records);
+            bytesProgress.add(bytesRead);
+            totals.add(totalBytes);
+        });
+
+        // Then
+        assertEquals(5, processed);
+        assertEquals(List.of(2, 2, 1), batchSizes);
+        assertEquals(List.of(2, 4, 5), progress);
+        long fileSize = Files.size(csv);
+        assertEquals(fileSize, bytesProgress.get(bytesProgress.size() - 1));
+        assertTrue(totals.stream().allMatch(total -> total == fileSize));
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    void loadDataShouldWriteEveryBatchWithSeveralWriterThreads() throws Exception {
+        // Given
+        Path csv = writeCsv(50);
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenAnswer(invocation -> {
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            batchSizes.add(setter.getBatchSize());
+            return upserted(invocation);
+        });
+        LoadOptions options = LoadOptions.ofBatchSize(5);
+        options.setWriterThreads(2);
+        List<Integer> progress = Collections.synchronizedList(new ArrayList<>());
+
+        // When
+        LoadResult result = csvDataLoaderService.loadData("file:" + csv.toAbsolutePath(), options,
+                (records, bytesRead, totalBytes) -> progress.add(records));
+
+        // Then
+        assertEquals(50, result.getRecordsProcessed());
+        assertEquals(50, result.getInserted());
+        assertEquals(10, batchSizes.size());
+        assertEquals(50, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertEquals(50, progress.get(progress.size() - 1));
+        verify(transactionManager, times(10)).commit(any());
+    }
+
+    @Test
+    void loadDataShouldSkipRecordsBeforeResumeCheckpointAndReportCheckpoints() throws Exception {
+        // Given
+        Path csv = writeCsv(5);
+        List<String> writtenVins = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenAnswer(invocation -> {
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            PreparedStatement ps = mock(PreparedStatement.class);
+            for (int i = 0; i < setter.getBatchSize(); i++) {
+                setter.setValues(ps, i);
+            }
+            ArgumentCaptor<String> vins = ArgumentCaptor.forClass(String.class);
+            verify(ps, times(setter.getBatchSize())).setString(eq(1), vins.capture());
+            writtenVins.addAll(vins.getAllValues());
+            return upserted(invocation);
+        });
+        LoadOptions options = LoadOptions.ofBatchSize(2);
+        options.setResumeFromRecord(3);
+        List<Integer> progress = new ArrayList<>();
+        List<Long> checkpoints = new ArrayList<>();
+
+        // When
+        LoadResult result = csvDataLoaderService.loadData("file:" + csv.toAbsolutePath(), options,
+                new CsvDataLoaderService.ProgressCallback() {
+                    @Override
+                    public void onProgress(int processedRecords, long bytesRead, long totalBytes) {
+                        progress.add(processedRecords);
+                    }
+
+                    @Override
+                    public void onCheckpoint(long committedRecords) {
+                        checkpoints.add(committedRecords);
+                    }
+                });
+
+        // Then
+        assertEquals(2, result.getRecordsProcessed());
+        assertEquals(List.of("TEST000003", "TEST000004"), writtenVins);
+        assertEquals(List.of(5), progress);
+        assertEquals(List.of(5L), checkpoints);
+    }
+
+    @Test
+    void loadDataShouldDecompressGzipAndZstdInputsAndReportCompressedProgress() throws Exception {
+        // Given
+        byte[] plain = Files.readAllBytes(writeCsv(5));
+        Path gzip = tempDir.resolve("vehicles.csv.gz");
+        try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(gzip))) {
+            out.write(plain);
+        }
+        // No extension, so zstd must be detected from the magic bytes
+        Path zstd = tempDir.resolve("vehicles-upload");
+        try (OutputStream out = new ZstdOutputStream(Files.newOutputStream(zstd))) {
+            out.write(plain);
+        }
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenAnswer(invocation -> {
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            return upserted(invocation);
+        });
+
+        for (Path compressed : List.of(gzip, zstd)) {
+            List<Long> bytesProgress = new ArrayList<>();
+            List<Long> totals = new ArrayList<>();
+            LoadOptions options = LoadOptions.ofBatchSize(2);
+            options.setParseThreads(4);
+
+            // When
+            LoadResult result = csvDataLoaderService.loadData("file:" + compressed.toAbsolutePath(), options,
+                    (records, bytesRead, totalBytes) -> {
+                        bytesProgress.add(bytesRead);
+                        totals.add(totalBytes);
+                    });
+
+            // Then
+            long compressedSize = Files.size(compressed);
+            assertEquals(5, result.getRecordsProcessed(), compressed.toString());
+            assertEquals(compressedSize, bytesProgress.get(bytesProgress.size() - 1), compressed.toString());
+            assertTrue(totals.stream().allMatch(total -> total == compressedSize), compressed.toString());
+        }
+    }
+
+    @Test
+    void loadStreamShouldLoadFromAnInputStreamOfUnknownLength() throws Exception {
+        // Given
+        byte[] plain = Files.readAllBytes(writeCsv(3));
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenAnswer(invocation -> {
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            return upserted(invocation);
+        });
+        List<Long> bytesProgress = new ArrayList<>();
+        List<Long> totals = new ArrayList<>();
+
+        // When
+        LoadResult result = csvDataLoaderService.loadStream("request-body.csv", new ByteArrayInputStream(plain), -1,
+                LoadOptions.ofBatchSize(2), (records, bytesRead, totalBytes) -> {
+                    bytesProgress.add(bytesRead);
+                    totals.add(totalBytes);
+                });
+
+        // Then
+        assertEquals(3, result.getRecordsProcessed());
+        assertEquals(plain.length, bytesProgress.get(bytesProgress.size() - 1));
+        assertTrue(totals.stream().allMatch(total -> total == -1));
+    }
+
+    @Test
+    void loadDataShouldWriteOnlyTheLastRecordOfEachVin() throws Exception {
+        // Given: duplicates within one batch and across batches of two, in a snapshot sync, which scans the VINs ahead
+        Path csv = writeCsv(List.of("VINAAAAAAA", "VINBBBBBBB", "VINAAAAAAA", "VINCCCCCCC", "VINBBBBBBB", "VINAAAAAAA"));
+        List<List<Long>> writtenDolIds = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenAnswer(invocation -> {
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            PreparedStatement ps = mock(PreparedStatement.class);
+            for (int i = 0; i < setter.getBatchSize(); i++) {
+                setter.setValues(ps, i);
+            }
+            // The DOL vehicle ID tells which record of a VIN was written
+            writtenDolIds.add(mockingDetails(ps).getInvocations().stream()
+                    .filter(call -> call.getMethod().getName().equals("setLong") && call.getArgument(0).equals(14))
+                    .map(call -> (Long) call.getArgument(1))
+                    .toList());
+            return upserted(invocation);
+        });
+        stubSnapshotSyncDeletingNothing();
+        LoadOptions options = LoadOptions.ofBatchSize(2);
+        options.setDeleteMissing(true);
+        List<Long> checkpoints = new ArrayList<>();
+
+        // When
+        LoadResult result = csvDataLoaderService.loadData("file:" + csv.toAbsolutePath(), options,
+                new CsvDataLoaderService.ProgressCallback() {
+                    @Override
+                    public void onProgress(int processedRecords, long bytesRead, long totalBytes) {
+                    }
+
+                    @Override
+                    public void onCheckpoint(long committedRecords) {
+                        checkpoints.add(committedRecords);
+                    }
+                });
+
+        // Then: the first batch holds no last occurrence, so it is counted without a transaction
+        assertEquals(List.of(List.of(100003L), List.of(100004L, 100005L)), writtenDolIds);
+        assertEquals(3, result.getInserted());
+        assertEquals(3, result.getDuplicates());
+        assertEquals(6, result.getRecordsProcessed());
+        assertEquals(List.of(2L, 4L, 6L), checkpoints);
+        // Two write transactions, then the snapshot sync's one chunk of deletes in its own
+        verify(jdbcTemplate, times(2)).batchUpdate(any(PreparedStatementCreator.class),
+                any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+        verify(jdbcTemplate, times(1)).queryForList(startsWith("DELETE"), eq(String.class), eq(""));
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    void loadDataShouldOnlyReplaceDuplicatesWithinABatchWithoutAPrePass() throws Exception {
+        // Given: a plain sequential upsert, whose single writer writes the batches in file order
+        Path csv = writeCsv(List.of("VINAAAAAAA", "VINBBBBBBB", "VINAAAAAAA", "VINCCCCCCC", "VINBBBBBBB", "VINAAAAAAA"));
+        List<List<Long>> writtenDolIds = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenAnswer(invocation -> {
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            PreparedStatement ps = mock(PreparedStatement.class);
+            for (int i = 0; i < setter.getBatchSize(); i++) {
+                setter.setValues(ps, i);
+            }
+            writtenDolIds.add(mockingDetails(ps).getInvocations().stream()
+                    .filter(call -> call.getMethod().getName().equals("setLong") && call.getArgument(0).equals(14))
+                    .map(call -> (Long) call.getArgument(1))
+                    .toList());
+            return upserted(invocation);
+        });
+
+        // When
+        LoadResult result = csvDataLoaderService.loadData("file:" + csv.toAbsolutePath(), LoadOptions.ofBatchSize(3), null);
+
+        // Then: the later record of a VIN replaces the earlier one in its batch, or overwrites it in a later batch
+        assertEquals(List.of(List.of(100002L, 100001L), List.of(100003L, 100004L, 100005L)), writtenDolIds);
+        assertEquals(1, result.getDuplicates());
+        assertEquals(6, result.getRecordsProcessed());
+    }
+
+    @Test
+    void loadStreamShouldReplaceDuplicateVinsWithinABatch() throws Exception {
+        // Given
+        byte[] plain = Files.readAllBytes(writeCsv(List.of("VINAAAAAAA", "VINBBBBBBB", "VINAAAAAAA", "VINCCCCCCC")));
+        List<Integer> batchSizes = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenAnswer(invocation -> {
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            batchSizes.add(setter.getBatchSize());
+            return upserted(invocation);
+        });
+
+        // When
+        LoadResult result = csvDataLoaderService.loadStream("request-body.csv", new ByteArrayInputStream(plain), -1,
+                LoadOptions.ofBatchSize(3), null);
+
+        // Then
+        assertEquals(List.of(2, 1), batchSizes);
+        assertEquals(1, result.getDuplicates());
+        assertEquals(4, result.getRecordsProcessed());
+    }
+
+    @Test
+    void schemaParserShouldBindTheSameValuesAsCommonsCsv() throws Exception {
+        // Given: quoting, padding, CRLF, a blank line, and invalid numbers and locations
+        String content = HEADER +
+                "\"VIN0000001\",\"King, County\" ,Seattle,WA,98101,2020,TESLA,\"Model \"\"S\"\"\nPlaid\"," +
+                "BEV,Eligible,0,0,43,1,,PSE,1\r\n" +
+                "\n" +
+                "  VIN0000002  ,King,Seattle,WA,98101,20x1,KIA,EV6,BEV,Eligible,310,41990.50,43,2,POINT (200 2),PSE,abc\n" +
+                "VIN0000003,King,Seattle,WA,98101,2022,KIA,EV6,BEV,Eligible,+12,1E+3,43,-3,\"POINT (-122.3 47.6)\",PSE,3\n";
+        Path csv = tempDir.resolve("vehicles.csv");
+        Files.writeString(csv, content);
+        List<String> bound = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenAnswer(invocation -> {
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            PreparedStatement ps = mock(PreparedStatement.class);
+            for (int i = 0; i < setter.getBatchSize(); i++) {
+                setter.setValues(ps, i);
+            }
+            mockingDetails(ps).getInvocations().forEach(call ->
+                    bound.add(call.getMethod().getName() + Arrays.toString(call.getArguments())));
+            return upserted(invocation);
+        });
+
+        // When
+        LoadOptions options = LoadOptions.ofBatchSize(10);
+        csvDataLoaderService.loadData("file:" + csv.toAbsolutePath(), options, null);
+        List<String> commons = new ArrayList<>(bound);
+        bound.clear();
+        options.setParserType(ParserType.SCHEMA);
+        LoadResult result = csvDataLoaderService.loadData("file:" + csv.toAbsolutePath(), options, null);
+
+        // Then
+        assertEquals(3, result.getRecordsProcessed());
+        assertEquals(3 * 19, commons.size());
+        assertEquals(commons, bound);
+    }
+
+    @Test
+    void jsonParserShouldBindTheSameValuesAsCommonsCsvFromAStream() throws Exception {
+        // Given: the same records as CSV and as NDJSON, with invalid numbers and locations
+        String csvContent = HEADER +
+                "VIN0000001,King,Seattle,WA,98101,2020,TESLA,Model S,BEV,Eligible,0,41990.50,43,1,,PSE,53033001100\n" +
+                "VIN0000002,King,Seattle,WA,98101,20x1,KIA,EV6,BEV,Eligible,310,0,43,2,POINT (200 2),PSE,abc\n" +
+                "VIN0000003,King,Seattle,WA,98101,2022,KIA,EV6,BEV,Eligible,12,1E+3,43,3,POINT (-122.3 47.6),PSE,3\n";
+        String ndjson = """
+                {"vin":"VIN0000001","county":"King","city":"Seattle","state":"WA","postalCode":"98101","modelYear":2020,"make":"TESLA","model":"Model S","electricVehicleType":"BEV","cafvEligibilityStatus":"Eligible","electricRange":0,"baseMSRP":41990.50,"legislativeDistrict":"43","dolVehicleId":1,"vehicleLocation":null,"electricUtility":"PSE","censusTract2020":53033001100}
+
+                {"vin":"VIN0000002","county":"King","city":"Seattle","state":"WA","postalCode":"98101","modelYear":"20x1","make":"KIA","model":"EV6","electricVehicleType":"BEV","cafvEligibilityStatus":"Eligible","electricRange":310,"baseMSRP":0,"legislativeDistrict":"43","dolVehicleId":2,"vehicleLocation":{"longitude":200,"latitude":2},"electricUtility":"PSE","censusTract2020":"abc","source":{"partner":"x"}}
+                {"vin":"VIN0000003","county":"King","city":"Seattle","state":"WA","postalCode":"98101","modelYear":2022,"make":"KIA","model":"EV6","electricVehicleType":"BEV","cafvEligibilityStatus":"Eligible","electricRange":12,"baseMSRP":1E+3,"legislativeDistrict":"43","dolVehicleId":3,"vehicleLocation":{"longitude":-122.3,"latitude":47.6},"electricUtility":"PSE","censusTract2020":3}
+                """;
+        List<String> bound = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenAnswer(invocation -> {
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            PreparedStatement ps = mock(PreparedStatement.class);
+            for (int i = 0; i < setter.getBatchSize(); i++) {
+                setter.setValues(ps, i);
+            }
+            mockingDetails(ps).getInvocations().forEach(call ->
+                    bound.add(call.getMethod().getName() + Arrays.toString(call.getArguments())));
+            return upserted(invocation);
+        });
+
+        // When
+        LoadOptions options = LoadOptions.ofBatchSize(10);
+        csvDataLoaderService.loadStream("vehicles.csv", new ByteArrayInputStream(csvContent.getBytes()), -1, options, null);
+        List<String> commons = new ArrayList<>(bound);
+        bound.clear();
+        options.setFormat(InputFormat.JSON);
+        List<Long> bytesProgress = new ArrayList<>();
+        LoadResult result = csvDataLoaderService.loadStream("vehicles.ndjson", new ByteArrayInputStream(ndjson.getBytes()), -1,
+                options, (records, bytesRead, totalBytes) -> bytesProgress.add(bytesRead));
+
+        // Then
+        assertEquals(3, result.getRecordsProcessed());
+        assertEquals(3 * 19, commons.size());
+        assertEquals(commons, bound);
+        assertEquals(List.of((long) ndjson.getBytes().length), bytesProgress);
+    }
+
+    @Test
+    void jsonParserShouldLoadAJsonArrayFileWithTheLastRecordOfEachVin() throws Exception {
+        // Given: a duplicate VIN across batches of two, in a snapshot sync, which scans the VINs ahead
+        Path json = tempDir.resolve("vehicles.json");
+        Files.writeString(json, "[" + String.join(",",
+                vehicleJson("VINAAAAAAA", 1), vehicleJson("VINBBBBBBB", 2), vehicleJson("VINAAAAAAA", 3)) + "]");
+        List<Integer> batchSizes = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenAnswer(invocation -> {
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            batchSizes.add(setter.getBatchSize());
+            return upserted(invocation);
+        });
+        stubSnapshotSyncDeletingNothing();
+        LoadOptions options = LoadOptions.ofBatchSize(2);
+        options.setFormat(InputFormat.JSON);
+        options.setParseThreads(4);
+        options.setDeleteMissing(true);
+
+        // When
+        LoadResult result = csvDataLoaderService.loadData("file:" + json.toAbsolutePath(), options, null);
+
+        // Then: the JSON pre-pass drops the first record of the repeated VIN
+        assertEquals(List.of(1, 1), batchSizes);
+        assertEquals(2, result.getInserted());
+        assertEquals(1, result.getDuplicates());
+        assertEquals(3, result.getRecordsProcessed());
+    }
+
+    @Test
+    void jsonParserShouldFailTheLoadForARecordThatIsNotAnObject() {
+        // Given
+        LoadOptions options = LoadOptions.ofBatchSize(10);
+        options.setFormat(InputFormat.JSON);
+        String ndjson = vehicleJson("VINAAAAAAA", 1) + "\n[1, 2]\n";
+
+        // When and Then
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> csvDataLoaderService.loadStream(
+                "vehicles.ndjson", new ByteArrayInputStream(ndjson.getBytes()), -1, options, null));
+        assertTrue(exception.getMessage().contains("Expected a vehicle object as record 2"));
+    }
+
+    @Test
+    void resolveFilesShouldListCsvFilesOfDirectoryAndMatchGlobs() throws Exception {
+        // Given
+        Path directory = Files.createDirectory(tempDir.resolve("extracts"));
+        Files.writeString(directory.resolve("king.csv"), HEADER);
+        Files.writeString(directory.resolve("adams.csv.gz"), HEADER);
+        Files.writeString(directory.resolve("readme.txt"), "not a csv");
+        Files.createDirectory(directory.resolve("archive"));
+        Files.writeString(directory.resolve("archive").resolve("pierce.csv"), HEADER);
+
+        // When
+        List<String> directoryFiles = csvDataLoaderService.resolveFiles("extracts");
+        List<String> globFiles = csvDataLoaderService.resolveFiles("file:" + directory + "/**/*.csv");
+
+        // Then
+        assertEquals(List.of("file:" + directory.resolve("adams.csv.gz"), "file:" + directory.resolve("king.csv")),
+                directoryFiles);
+        assertEquals(List.of("file:" + directory.resolve("archive").resolve("pierce.csv"), "file:" + directory.resolve("king.csv")),
+                globFiles);
+    }
+
+    @Test
+    void resolveFilesShouldRejectLocationWithoutCsvFiles() throws Exception {
+        // Given
+        Path directory = Files.createDirectory(tempDir.resolve("empty"));
+
+        // When and Then
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> csvDataLoaderService.resolveFiles(directory.toString()));
+        assertTrue(exception.getMessage().contains("No CSV files found"));
+    }
+
+    @Test
+    void resolveFilesShouldRejectLocationsOutsideTheImportDirectory() throws Exception {
+        // Given
+        Files.createDirectory(tempDir.resolve("extracts"));
+        Files.writeString(outside.resolve("king.csv"), HEADER);
+
+        // When and Then
+        for (String location : List.of("../" + outside.getFileName(), outside.toString(), "file:" + outside + "/*.csv",
+                "extracts/../../" + outside.getFileName() + "/*.csv", "extracts/*/../../*.csv", "classpath:data/*.csv")) {
+            assertThrows(IllegalArgumentException.class, () -> csvDataLoaderService.resolveFiles(location), location);
+        }
+    }
+
+    @Test
+    void resolveFilesShouldRejectSymbolicLinksOutOfTheImportDirectory() throws Exception {
+        // Given: a linked directory and a linked file below the import directory, both pointing out of it
+        Files.writeString(outside.resolve("king.csv"), HEADER);
+        Files.createSymbolicLink(tempDir.resolve("linked"), outside);
+        Path extracts = Files.createDirectory(tempDir.resolve("extracts"));
+        Files.writeString(extracts.resolve("adams.csv"), HEADER);
+        Files.createSymbolicLink(extracts.resolve("king.csv"), outside.resolve("king.csv"));
+
+        // When and Then
+        assertThrows(IllegalArgumentException.class, () -> csvDataLoaderService.resolveFiles("linked"));
+        assertThrows(IllegalArgumentException.class, () -> csvDataLoaderService.resolveFiles("linked/*.csv"));
+        IllegalArgumentException exception = assertThrows(IllegalArgumentException.class,
+                () -> csvDataLoaderService.resolveFiles("extracts"));
+        assertTrue(exception.getMessage().contains("must not leave the import directory"));
+    }
+
+    @Test
+    void replaceModeShouldCopyIntoAShadowTableAndSwapItInWithoutCheckpoints() throws Exception {
+        // Given
+        Path csv = writeCsv(3);
+        LoadOptions options = LoadOptions.ofBatchSize(2);
+        options.setMode(LoadMode.REPLACE);
+        List<Long> checkpoints = new ArrayList<>();
+
+        // When
+        csvDataLoaderService.loadData("file:" + csv.toAbsolutePath(), options, new CsvDataLoaderService.ProgressCallback() {
+            @Override
+            public void onProgress(int processedRecords, long bytesRead, long totalBytes) {
+            }
+
+            @Override
+            public void onCheckpoint(long committedRecords) {
+                checkpoints.add(committedRecords);
+            }
+        });
+
+        // Then: the live table is only touched by the swap
+        ArgumentCaptor<String> statements = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, atLeastOnce()).execute(statements.capture());
+        String shadow = statements.getAllValues().get(0).split(" ")[2];
+        assertTrue(shadow.startsWith("ev_shadow_"), statements.getAllValues().get(0));
+        assertTrue(statements.getAllValues().containsAll(List.of("ANALYZE " + shadow,
+                "DROP TABLE electric_vehicle_population", "ALTER TABLE " + shadow + " RENAME TO electric_vehicle_population")));
+        verify(jdbcTemplate, never()).batchUpdate(any(PreparedStatementCreator.class),
+                any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+        assertTrue(checkpoints.isEmpty());
+    }
+
+    @Test
+    void replaceModeShouldRefuseAStreamWithoutTouchingTheDatabase() {
+        // Given
+        LoadOptions options = LoadOptions.ofBatchSize(2);
+        options.setMode(LoadMode.REPLACE);
+
+        // When and Then
+        RuntimeException exception = assertThrows(RuntimeException.class, () -> csvDataLoaderService.loadStream(
+                "request-body.csv", new ByteArrayInputStream(HEADER.getBytes()), -1, options, null));
+        assertTrue(exception.getMessage().contains("REPLACE mode needs a local CSV file"));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void snapshotSyncShouldDeleteTheVehiclesTheStreamNoLongerLists() throws Exception {
+        // Given
+        byte[] plain = Files.readAllBytes(writeCsv(List.of("VINAAAAAAA", "VINBBBBBBB")));
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenAnswer(invocation -> {
+            BatchPreparedStatementSetter setter = invocation.getArgument(1);
+            return upserted(invocation);
+        });
+        when(jdbcTemplate.queryForList(contains("OFFSET"), eq(String.class), eq(""), eq(SnapshotSync.DEFAULT_CHUNK_SIZE - 1)))
+                .thenReturn(List.of());
+        when(jdbcTemplate.queryForList(startsWith("DELETE"), eq(String.class), eq("")))
+                .thenReturn(List.of("VINZZZZZZZ"));
+        LoadOptions options = LoadOptions.ofBatchSize(2);
+        options.setDeleteMissing(true);
+        options.setRemovedFile(tempDir.resolve("removed.csv"));
+
+        // When
+        LoadResult result = csvDataLoaderService.loadStream("request-body.csv", new ByteArrayInputStream(plain), -1,
+                options, null);
+
+        // Then
+        assertEquals(2, result.getRecordsProcessed());
+        assertEquals(1, result.getDeleted());
+        assertEquals(List.of("VIN (1-10)", "VINZZZZZZZ"), Files.readAllLines(tempDir.resolve("removed.csv")));
+    }
+
+    @Test
+    void snapshotSyncShouldBeRefusedInReplaceMode() {
+        // Given
+        LoadOptions options = LoadOptions.ofBatchSize(2);
+        options.setMode(LoadMode.REPLACE);
+        options.setDeleteMissing(true);
+
+        // When and Then
+        assertThrows(IllegalArgumentException.class, () -> csvDataLoaderService.loadStream(
+                "request-body.csv", new ByteArrayInputStream(HEADER.getBytes()), -1, options, null));
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void validateModeShouldProfileTheFileWithoutTouchingTheDatabase() throws Exception {
+        // Given: a duplicate VIN, a non-numeric model year, a missing DOL ID and a malformed location
+        Path csv = writeCsv(List.of("VINAAAAAAA", "VINBBBBBBB", "VINAAAAAAA", "VINCCCCCCC"));
+        List<String> lines = new ArrayList<>(Files.readAllLines(csv));
+        lines.set(2, lines.get(2).replace("\"2021\"", "\"20x1\""));
+        lines.set(3, lines.get(3).replace("\"100002\"", "\"\""));
+        lines.set(4, lines.get(4).replace("POINT (-122.3321 47.6062)", "POINT (-122.3321)"));
+        Files.write(csv, lines);
+
+        for (ParserType parser : ParserType.values()) {
+            for (int parseThreads : new int[]{1, 2}) {
+                LoadOptions options = LoadOptions.ofBatchSize(2);
+                options.setMode(LoadMode.VALIDATE);
+                options.setParserType(parser);
+                options.setParseThreads(parseThreads);
+
+                // When
+                LoadResult result = csvDataLoaderService.loadData("file:" + csv.toAbsolutePath(), options, null);
+
+                // Then
+                String variant = parser + " parser, " + parseThreads + " thread(s)";
+                CsvProfile profile = result.getProfile();
+                assertEquals(4, result.getRecordsProcessed(), variant);
+                assertEquals(1, result.getDuplicates(), variant);
+                assertEquals(4, profile.records(), variant);
+                assertEquals(3, profile.distinctVins(), variant);
+                assertEquals(1, profile.duplicateVins(), variant);
+                assertEquals(-1, profile.estimatedLoadMillis(), variant);
+                Map<String, CsvProfile.ColumnProfile> columns = profile.columns().stream()
+                        .collect(Collectors.toMap(CsvProfile.ColumnProfile::column, column -> column));
+                assertEquals(new CsvProfile.ColumnProfile("Model Year", 0, 1, 2), columns.get("Model Year"), variant);
+                assertEquals(new CsvProfile.ColumnProfile("DOL Vehicle ID", 1, 0, 3), columns.get("DOL Vehicle ID"), variant);
+                assertEquals(new CsvProfile.ColumnProfile("Vehicle Location", 0, 1, 2), columns.get("Vehicle Location"), variant);
+                assertEquals(new CsvProfile.ColumnProfile("VIN (1-10)", 0, 0, 3), columns.get("VIN (1-10)"), variant);
+            }
+        }
+        verifyNoInteractions(jdbcTemplate, transactionManager);
+    }
+
+    @Test
+    void validateModeShouldProfileAStreamAndCountItsDuplicateVins() throws Exception {
+        // Given
+        byte[] plain = Files.readAllBytes(writeCsv(List.of("VINAAAAAAA", "VINAAAAAAA", "VINBBBBBBB")));
+        LoadOptions options = LoadOptions.ofBatchSize(2);
+        options.setMode(LoadMode.VALIDATE);
+
+        // When
+        LoadResult result = csvDataLoaderService.loadStream("request-body.csv", new ByteArrayInputStream(plain), -1,
+                options, null);
+
+        // Then
+        assertEquals(3, result.getProfile().records());
+        assertEquals(1, result.getProfile().duplicateVins());
+        assertEquals(2, result.getValidated());
+        verifyNoInteractions(jdbcTemplate, transactionManager);
+    }
+
+    @Test
+    void loadDataShouldReturnZeroForHeaderOnlyFile() throws Exception {
+        // Given
+        Path csv = writeCsv(0);
+
+        // When
+        int processed = csvDataLoaderService.loadData("file:" + csv.toAbsolutePath(), 10);
+
+        // Then
+        assertEquals(0, processed);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void loadDataShouldFailForMissingFile() {
+        // When and Then
+        RuntimeException exception = assertThrows(RuntimeException.class,
+                () -> csvDataLoaderService.loadData("file:" + tempDir.resolve("missing.csv"), 10));
+        assertTrue(exception.getMessage().startsWith("Error reading CSV file"));
+    }
+
+    private void stubSnapshotSyncDeletingNothing() {
+        when(jdbcTemplate.queryForList(contains("OFFSET"), eq(String.class), eq(""), eq(SnapshotSync.DEFAULT_CHUNK_SIZE - 1)))
+                .thenReturn(List.of());
+        when(jdbcTemplate.queryForList(startsWith("DELETE"), eq(String.class), eq(""))).thenReturn(List.of());
+    }
+
+    private static int[] upserted(InvocationOnMock invocation) {
+        BatchPreparedStatementSetter setter = invocation.getArgument(1);
+        KeyHolder written = invocation.getArgument(2);
+        for (int i = 0; i < setter.getBatchSize(); i++) {
+            written.getKeyList().add(Map.of("inserted", true));
+        }
+        int[] counts = new int[setter.getBatchSize()];
+        Arrays.fill(counts, 1);
+        return counts;
+    }
+
+    private static String vehicleJson(String vin, long dolVehicleId) {
+        return String.format("{\"vin\":\"%s\",\"county\":\"King\",\"city\":\"Seattle\",\"state\":\"WA\"," +
+                "\"postalCode\":\"98101\",\"modelYear\":2021,\"make\":\"TESLA\",\"model\":\"Model 3\"," +
+                "\"electricRange\":350,\"baseMSRP\":41990,\"dolVehicleId\":%d," +
+                "\"vehicleLocation\":{\"longitude\":-122.3321,\"latitude\":47.6062}}", vin, dolVehicleId);
+    }
+
+    private Path writeCsv(int rows) throws Exception {
+        List<String> vins = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            vins.add(String.format("TEST%06d", i));
+        }
+        return writeCsv(vins);
+    }
+
+    private Path writeCsv(List<String> vins) throws Exception {
+        StringBuilder content = new StringBuilder(HEADER);
+        for (int i = 0; i < vins.size(); i++) {
+            content.append(String.format("\"%s\",\"King\",\"Seattle\",\"WA\",\"98101\",\"2021\",\"TESLA\",\"Model 3\"," +
+                    "\"Battery Electric Vehicle (BEV)\",\"Clean Alternative Fuel Vehicle Eligible\",\"350\",\"41990\",\"43\"," +
+                    "\"%d\",\"POINT (-122.3321 47.6062)\",\"SEATTLE CITY LIGHT\",\"53033001100\"%n", vins.get(i), 100000 + i));
+        }
+        Path csv = tempDir.resolve("vehicles.csv");
+        Files.writeString(csv, content);
+        return csv;
+    }
+}
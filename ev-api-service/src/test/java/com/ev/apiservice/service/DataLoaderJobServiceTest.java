@@ -1,15 +1,46 @@
 package com.ev.apiservice.service;
 
+import com.ev.apiservice.exception.JobStateConflictException;
+import com.ev.apiservice.model.LoadJob;
+import com.ev.apiservice.repository.LoadJobQueue;
+import com.ev.apiservice.repository.LoadJobRepository;
+import com.ev.apiservice.service.loader.InputFormat;
+import com.ev.apiservice.service.loader.LoadMode;
+import com.ev.apiservice.service.loader.LoadOptions;
+import jakarta.persistence.EntityNotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -23,11 +54,58 @@ class DataLoaderJobServiceTest {
     @Mock
     private AsyncService asyncService;
 
+    @Mock
+    private LoadJobRepository loadJobRepository;
+
+    @Mock
+    private LoadJobQueue jobQueue;
+
+    @Mock
+    private DataLoaderJobService lazyJobService;
+
+    @TempDir
+    Path tempDir;
+
+    private LoadJobDispatcher dispatcher;
     private DataLoaderJobService dataLoaderJobService;
 
+    /** Saved jobs, claimed by the queue mock like the table would be. */
+    private final Map<String, LoadJob> table = new LinkedHashMap<>();
+
     @BeforeEach
     void setUp() {
-        dataLoaderJobService = new DataLoaderJobService(csvDataLoaderService, asyncService);
+        newJobService(new JobStatusRegistry(JobStatusRegistry.DEFAULT_RETENTION_MILLIS, JobStatusRegistry.DEFAULT_MAX_RETAINED));
+        // Stands in for the lazy reference the dispatcher gets from Spring
+        lenient().when(lazyJobService.resumeClaimed(any(LoadJob.class)))
+                .thenAnswer(invocation -> dataLoaderJobService.resumeClaimed(invocation.getArgument(0)));
+        lenient().when(loadJobRepository.save(any(LoadJob.class))).thenAnswer(invocation -> {
+            LoadJob job = invocation.getArgument(0);
+            table.put(job.getJobId(), job);
+            return job;
+        });
+        lenient().when(loadJobRepository.findById(anyString()))
+                .thenAnswer(invocation -> Optional.ofNullable(table.get(invocation.<String>getArgument(0))));
+        lenient().when(jobQueue.claim(anyString(), anyInt(), anyLong(), anyInt())).thenAnswer(invocation -> {
+            List<String> claimed = new ArrayList<>();
+            for (LoadJob job : table.values()) {
+                if (claimed.size() < invocation.<Integer>getArgument(1) && "QUEUED".equals(job.getStatus())
+                        && job.getLeaseOwner() == null && job.getParentJobId() == null && job.getFileCount() == 0
+                        && !job.isTemporaryFile() && !job.getFilePath().startsWith("stream:")) {
+                    job.setLeaseOwner(invocation.getArgument(0));
+                    job.setAttempts(job.getAttempts() + 1);
+                    claimed.add(job.getJobId());
+                }
+            }
+            return claimed;
+        });
+        lenient().doAnswer(invocation -> {
+            LoadJob job = table.get(invocation.<String>getArgument(0));
+            job.setStatus("QUEUED");
+            job.setLeaseOwner(null);
+            return null;
+        }).when(jobQueue).requeue(anyString());
+        lenient().when(asyncService.executeLoadDataAsync(anyString(), anyString(), any(LoadOptions.class)))
+                .thenReturn(new CompletableFuture<>());
     }
 
     @Test
@@ -36,7 +114,7 @@ class DataLoaderJobServiceTest {
         String csvFilePath = "file:path/to/csv";
         int batchSize = 1000;
 
-        when(asyncService.executeLoadDataAsync(anyString(), eq(csvFilePath), eq(batchSize)))
+        when(asyncService.executeLoadDataAsync(anyString(), eq(csvFilePath), any(LoadOptions.class)))
                 .thenReturn(CompletableFuture.completedFuture(100));
 
         // When
@@ -46,7 +124,10 @@ class DataLoaderJobServiceTest {
         assertNotNull(jobId);
         assertTrue(jobId.length() > 0);
 
-        verify(asyncService).executeLoadDataAsync(eq(jobId), eq(csvFilePath), eq(batchSize));
+        ArgumentCaptor<LoadOptions> options = ArgumentCaptor.forClass(LoadOptions.class);
+        verify(asyncService).executeLoadDataAsync(eq(jobId), eq(csvFilePath), options.capture());
+        assertEquals(batchSize, options.getValue().getBatchSize());
+        assertEquals(DataLoaderJobService.REJECT_DIR.resolve(jobId + "-rejects.csv"), options.getValue().getRejectFile());
 
         // Verify job was queued with correct status
         DataLoaderJobService.JobStatus status = dataLoaderJobService.getJobStatus(jobId);
@@ -72,7 +153,7 @@ class DataLoaderJobServiceTest {
         String csvFilePath = "file:path/to/csv";
         int batchSize = 1000;
 
-        when(asyncService.executeLoadDataAsync(anyString(), anyString(), anyInt()))
+        when(asyncService.executeLoadDataAsync(anyString(), anyString(), any(LoadOptions.class)))
                 .thenReturn(CompletableFuture.completedFuture(100));
 
         String jobId = dataLoaderJobService.startLoadJob(csvFilePath, batchSize);
@@ -84,4 +165,623 @@ class DataLoaderJobServiceTest {
         assertNotNull(status);
         assertEquals(DataLoaderJobService.JobStatus.Status.QUEUED, status.getStatus());
     }
-}
\ No newline at end of file
+
+    @Test
+    void startLoadJobShouldPersistJobWithFileIdentity() throws Exception {
+        // Given
+        Path csv = Files.writeString(tempDir.resolve("upload.csv"), "header\nrow\n");
+        LoadOptions options = LoadOptions.ofBatchSize(500);
+        options.setMode(LoadMode.COPY);
+
+        // When
+        String jobId = dataLoaderJobService.startLoadJob(csv.toString(), options);
+
+        // Then
+        ArgumentCaptor<LoadJob> saved = ArgumentCaptor.forClass(LoadJob.class);
+        verify(loadJobRepository, atLeastOnce()).save(saved.capture());
+        assertEquals(jobId, saved.getValue().getJobId());
+        assertEquals("QUEUED", saved.getValue().getStatus());
+        assertEquals(Files.size(csv), saved.getValue().getFileSize());
+        assertEquals(csv.toFile().lastModified(), saved.getValue().getFileLastModified());
+        assertEquals(500, saved.getValue().getBatchSize());
+        assertEquals("COPY", saved.getValue().getLoadMode());
+    }
+
+    @Test
+    void getJobStatusShouldFallBackToPersistedJob() {
+        // Given
+        LoadJob job = persistedJob("old-job", "INTERRUPTED", tempDir.resolve("gone.csv").toFile());
+        job.setCheckpointRecords(3000);
+        when(loadJobRepository.findById("old-job")).thenReturn(Optional.of(job));
+
+        // When
+        DataLoaderJobService.JobStatus status = dataLoaderJobService.getJobStatus("old-job");
+
+        // Then
+        assertEquals(DataLoaderJobService.JobStatus.Status.INTERRUPTED, status.getStatus());
+        assertEquals(3000, status.getCheckpointRecords());
+    }
+
+    @Test
+    void getJobStatusShouldReportADirectoryJobWithoutFileJobsFromItsOwnRecord() {
+        // Given: a finished directory job whose file job records are gone
+        LoadJob job = persistedJob("dir-job", "FAILED", tempDir.toFile());
+        job.setFileCount(2);
+        job.setRecordsProcessed(30);
+        table.put("dir-job", job);
+        when(loadJobRepository.findByParentJobIdOrderByFilePath("dir-job")).thenReturn(List.of());
+
+        // When
+        DataLoaderJobService.JobStatus status = dataLoaderJobService.getJobStatus("dir-job");
+
+        // Then
+        assertEquals(DataLoaderJobService.JobStatus.Status.FAILED, status.getStatus());
+        assertEquals(30, status.getRecordsProcessed());
+    }
+
+    @Test
+    void resumeJobShouldContinueFromCheckpoint() throws Exception {
+        // Given
+        File csv = Files.writeString(tempDir.resolve("upload.csv"), "header\nrow\n").toFile();
+        LoadJob job = persistedJob("job-1", "INTERRUPTED", csv);
+        job.setCheckpointRecords(4000);
+        job.setInputFormat("JSON");
+        table.put("job-1", job);
+
+        // When
+        dataLoaderJobService.resumeJob("job-1");
+
+        // Then: the job goes back to the shared queue, and this instance claims it
+        verify(jobQueue).requeue("job-1");
+        ArgumentCaptor<LoadOptions> options = ArgumentCaptor.forClass(LoadOptions.class);
+        verify(asyncService).executeLoadDataAsync(eq("job-1"), eq(csv.getPath()), options.capture());
+        assertEquals(4000, options.getValue().getResumeFromRecord());
+        assertEquals(LoadMode.UPSERT, options.getValue().getMode());
+        assertEquals(InputFormat.JSON, options.getValue().getFormat());
+        assertEquals(DataLoaderJobService.JobStatus.Status.QUEUED, dataLoaderJobService.getJobStatus("job-1").getStatus());
+        assertEquals(dispatcher.getInstanceId(), dataLoaderJobService.getJobStatus("job-1").getWorker());
+        assertEquals("QUEUED", job.getStatus());
+        verify(loadJobRepository).save(job);
+    }
+
+    @Test
+    void resumeJobShouldRejectChangedFile() throws Exception {
+        // Given
+        File csv = Files.writeString(tempDir.resolve("upload.csv"), "header\nrow\n").toFile();
+        LoadJob job = persistedJob("job-1", "FAILED", csv);
+        Files.writeString(csv.toPath(), "header\nrow\nanother row\n");
+        when(loadJobRepository.findById("job-1")).thenReturn(Optional.of(job));
+
+        // When and Then
+        JobStateConflictException exception = assertThrows(JobStateConflictException.class,
+                () -> dataLoaderJobService.resumeJob("job-1"));
+        assertTrue(exception.getMessage().contains("has changed"));
+        verifyNoInteractions(asyncService);
+    }
+
+    @Test
+    void resumeJobShouldRejectCompletedJob() throws Exception {
+        // Given
+        File csv = Files.writeString(tempDir.resolve("upload.csv"), "header\nrow\n").toFile();
+        when(loadJobRepository.findById("job-1")).thenReturn(Optional.of(persistedJob("job-1", "COMPLETED", csv)));
+
+        // When and Then
+        assertThrows(JobStateConflictException.class, () -> dataLoaderJobService.resumeJob("job-1"));
+        verifyNoInteractions(asyncService);
+    }
+
+    @Test
+    void runStreamingJobShouldLoadOnCallingThreadAndNotBeResumable() {
+        // Given
+        InputStream body = new ByteArrayInputStream("header\nrow\n".getBytes());
+        LoadOptions options = LoadOptions.ofBatchSize(100);
+
+        // When
+        String jobId = dataLoaderJobService.runStreamingJob("vehicles.csv", body, 11, options);
+
+        // Then
+        verify(asyncService).executeStreamingLoad(jobId, "vehicles.csv", body, 11, options);
+        ArgumentCaptor<LoadJob> saved = ArgumentCaptor.forClass(LoadJob.class);
+        verify(loadJobRepository).save(saved.capture());
+        assertEquals("stream:vehicles.csv", saved.getValue().getFilePath());
+        assertNull(saved.getValue().getFileSize());
+        assertFalse(saved.getValue().isTemporaryFile());
+        assertEquals(dispatcher.getInstanceId(), saved.getValue().getLeaseOwner());
+
+        saved.getValue().setStatus("FAILED");
+        dataLoaderJobService.getJobStatus(jobId).setStatus(DataLoaderJobService.JobStatus.Status.FAILED);
+        when(loadJobRepository.findById(jobId)).thenReturn(Optional.of(saved.getValue()));
+        JobStateConflictException exception = assertThrows(JobStateConflictException.class,
+                () -> dataLoaderJobService.resumeJob(jobId));
+        assertTrue(exception.getMessage().contains("request body"));
+    }
+
+    @Test
+    void deleteTemporaryFileShouldOnlyDeleteUploadsOwnedByTheJob() throws Exception {
+        // Given
+        Path uploadDir = Files.createDirectory(tempDir.resolve("ev-loader-upload"));
+        File upload = Files.writeString(uploadDir.resolve("upload-1.csv"), "header\nrow\n").toFile();
+        LoadJob uploadJob = persistedJob("upload-job", "COMPLETED", upload);
+        uploadJob.setTemporaryFile(true);
+        File referenced = Files.writeString(tempDir.resolve("shared.csv"), "header\nrow\n").toFile();
+        when(loadJobRepository.findById("upload-job")).thenReturn(Optional.of(uploadJob));
+        when(loadJobRepository.findById("path-job")).thenReturn(Optional.of(persistedJob("path-job", "COMPLETED", referenced)));
+
+        // When
+        dataLoaderJobService.deleteTemporaryFile("upload-job");
+        dataLoaderJobService.deleteTemporaryFile("path-job");
+
+        // Then
+        assertFalse(upload.exists());
+        assertFalse(Files.exists(uploadDir));
+        assertTrue(referenced.exists());
+    }
+
+    @Test
+    void startUploadJobShouldMarkTheFileAsOwnedByTheJob() throws Exception {
+        // Given
+        Path upload = Files.writeString(tempDir.resolve("upload-2.csv"), "header\nrow\n");
+
+        // When
+        String jobId = dataLoaderJobService.startUploadJob(upload, LoadOptions.ofBatchSize(100));
+
+        // Then: the upload is on this instance's disk, so it is leased here and not shared
+        ArgumentCaptor<LoadJob> saved = ArgumentCaptor.forClass(LoadJob.class);
+        verify(loadJobRepository).save(saved.capture());
+        assertTrue(saved.getValue().isTemporaryFile());
+        assertEquals(upload.toString(), saved.getValue().getFilePath());
+        assertEquals(dispatcher.getInstanceId(), saved.getValue().getLeaseOwner());
+        verify(asyncService).executeLoadDataAsync(eq(jobId), eq(upload.toString()), any(LoadOptions.class));
+    }
+
+    @Test
+    void startDirectoryJobShouldLoadFilesAtMostParallelismAtATimeAndRollUpTheirStatus() throws Exception {
+        // Given
+        List<String> files = List.of(
+                "file:" + Files.writeString(tempDir.resolve("adams.csv"), "header\nrow\n"),
+                "file:" + Files.writeString(tempDir.resolve("king.csv"), "header\nrow\nrow\n"),
+                "file:" + Files.writeString(tempDir.resolve("pierce.csv"), "header\n"));
+        when(csvDataLoaderService.resolveFiles("file:" + tempDir)).thenReturn(files);
+        List<CompletableFuture<Integer>> runs = new ArrayList<>();
+        when(asyncService.executeLoadDataAsync(anyString(), anyString(), any(LoadOptions.class))).thenAnswer(invocation -> {
+            CompletableFuture<Integer> run = new CompletableFuture<>();
+            runs.add(run);
+            return run;
+        });
+
+        // When
+        String jobId = dataLoaderJobService.startDirectoryJob("file:" + tempDir, LoadOptions.ofBatchSize(100), 2);
+
+        // Then: two files start, the third waits for a free slot
+        DataLoaderJobService.JobStatus status = dataLoaderJobService.getJobStatus(jobId);
+        assertEquals(3, status.getFileCount());
+        assertEquals(DataLoaderJobService.JobStatus.Status.QUEUED, status.getStatus());
+        List<String> fileJobIds = status.getFileJobIds();
+        ArgumentCaptor<LoadOptions> options = ArgumentCaptor.forClass(LoadOptions.class);
+        verify(asyncService).executeLoadDataAsync(eq(fileJobIds.get(0)), eq(files.get(0)), options.capture());
+        verify(asyncService).executeLoadDataAsync(eq(fileJobIds.get(1)), eq(files.get(1)), any(LoadOptions.class));
+        verifyNoMoreInteractions(asyncService);
+        assertEquals(100, options.getValue().getBatchSize());
+        assertEquals(DataLoaderJobService.REJECT_DIR.resolve(fileJobIds.get(0) + "-rejects.csv"), options.getValue().getRejectFile());
+        assertEquals(jobId, dataLoaderJobService.getJobStatus(fileJobIds.get(0)).getParentJobId());
+
+        ArgumentCaptor<LoadJob> saved = ArgumentCaptor.forClass(LoadJob.class);
+        verify(loadJobRepository).save(saved.capture());
+        LoadJob job = saved.getValue();
+        assertEquals(3, job.getFileCount());
+        assertEquals(2, job.getFileParallelism());
+        when(loadJobRepository.findById(jobId)).thenReturn(Optional.of(job));
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<LoadJob>> savedFiles = ArgumentCaptor.forClass(List.class);
+        verify(loadJobRepository).saveAll(savedFiles.capture());
+        when(loadJobRepository.findByParentJobIdOrderByFilePath(jobId)).thenReturn(savedFiles.getValue());
+
+        // When: the first file completes
+        complete(fileJobIds.get(0), DataLoaderJobService.JobStatus.Status.COMPLETED, 10);
+        runs.get(0).complete(10);
+
+        // Then: the third file starts
+        verify(asyncService).executeLoadDataAsync(eq(fileJobIds.get(2)), eq(files.get(2)), any(LoadOptions.class));
+        dataLoaderJobService.getJobStatus(fileJobIds.get(1)).setStatus(DataLoaderJobService.JobStatus.Status.RUNNING);
+        status = dataLoaderJobService.getJobStatus(jobId);
+        assertEquals(DataLoaderJobService.JobStatus.Status.RUNNING, status.getStatus());
+        assertEquals(10, status.getRecordsProcessed());
+        assertEquals(1, status.getCompletedFiles());
+
+        // When: the others complete and fail
+        complete(fileJobIds.get(1), DataLoaderJobService.JobStatus.Status.COMPLETED, 20);
+        runs.get(1).complete(20);
+        complete(fileJobIds.get(2), DataLoaderJobService.JobStatus.Status.FAILED, 0);
+        runs.get(2).completeExceptionally(new RuntimeException("boom"));
+
+        // Then
+        status = dataLoaderJobService.getJobStatus(jobId);
+        assertEquals(DataLoaderJobService.JobStatus.Status.FAILED, status.getStatus());
+        assertEquals(30, status.getRecordsProcessed());
+        assertEquals(2, status.getCompletedFiles());
+        assertEquals(1, status.getFailedFiles());
+        assertEquals("FAILED", job.getStatus());
+        assertEquals(30, job.getRecordsProcessed());
+    }
+
+    @Test
+    void startDirectoryJobShouldRejectReplaceMode() {
+        // Given
+        LoadOptions options = LoadOptions.ofBatchSize(100);
+        options.setMode(LoadMode.REPLACE);
+
+        // When and Then
+        assertThrows(IllegalArgumentException.class,
+                () -> dataLoaderJobService.startDirectoryJob("file:" + tempDir, options, 2));
+        verifyNoInteractions(csvDataLoaderService, asyncService, loadJobRepository);
+    }
+
+    @Test
+    void startDirectoryJobShouldRejectSnapshotSync() {
+        // Given
+        LoadOptions options = LoadOptions.ofBatchSize(100);
+        options.setDeleteMissing(true);
+
+        // When and Then
+        assertThrows(IllegalArgumentException.class,
+                () -> dataLoaderJobService.startDirectoryJob("file:" + tempDir, options, 2));
+        verifyNoInteractions(csvDataLoaderService, asyncService, loadJobRepository);
+    }
+
+    @Test
+    void startLoadJobShouldSendTheVinsDeletedByASnapshotSyncToAJobFile() {
+        // Given
+        LoadOptions options = LoadOptions.ofBatchSize(100);
+        options.setDeleteMissing(true);
+
+        // When
+        String jobId = dataLoaderJobService.startLoadJob("file:path/to/csv", options);
+
+        // Then
+        ArgumentCaptor<LoadOptions> captured = ArgumentCaptor.forClass(LoadOptions.class);
+        verify(asyncService).executeLoadDataAsync(eq(jobId), eq("file:path/to/csv"), captured.capture());
+        assertTrue(captured.getValue().isDeleteMissing());
+        assertEquals(DataLoaderJobService.REJECT_DIR.resolve(jobId + "-removed.csv"), captured.getValue().getRemovedFile());
+        ArgumentCaptor<LoadJob> job = ArgumentCaptor.forClass(LoadJob.class);
+        verify(loadJobRepository, atLeastOnce()).save(job.capture());
+        assertTrue(job.getValue().isDeleteMissing());
+    }
+
+    @Test
+    void resumeJobShouldResumeOnlyTheFailedFilesOfADirectoryJob() throws Exception {
+        // Given
+        File done = Files.writeString(tempDir.resolve("adams.csv"), "header\nrow\n").toFile();
+        File failed = Files.writeString(tempDir.resolve("king.csv"), "header\nrow\nrow\n").toFile();
+        LoadJob job = persistedJob("job-1", "FAILED", tempDir.resolve("*.csv").toFile());
+        job.setFileCount(2);
+        job.setFileParallelism(2);
+        LoadJob doneJob = persistedJob("file-1", "COMPLETED", done);
+        doneJob.setParentJobId("job-1");
+        LoadJob failedJob = persistedJob("file-2", "FAILED", failed);
+        failedJob.setParentJobId("job-1");
+        failedJob.setCheckpointRecords(1);
+        when(loadJobRepository.findById("job-1")).thenReturn(Optional.of(job));
+        when(loadJobRepository.findById("file-1")).thenReturn(Optional.of(doneJob));
+        when(loadJobRepository.findByParentJobIdOrderByFilePath("job-1")).thenReturn(List.of(doneJob, failedJob));
+        when(asyncService.executeLoadDataAsync(anyString(), anyString(), any(LoadOptions.class)))
+                .thenReturn(new CompletableFuture<>());
+
+        // When
+        dataLoaderJobService.resumeJob("job-1");
+
+        // Then
+        verify(jobQueue).lease(dispatcher.getInstanceId(), List.of("file-2"), LoadJobDispatcher.DEFAULT_LEASE_MILLIS);
+        ArgumentCaptor<LoadOptions> options = ArgumentCaptor.forClass(LoadOptions.class);
+        verify(asyncService).executeLoadDataAsync(eq("file-2"), eq(failed.getPath()), options.capture());
+        verifyNoMoreInteractions(asyncService);
+        assertEquals(1, options.getValue().getResumeFromRecord());
+        assertEquals("QUEUED", failedJob.getStatus());
+        assertEquals(DataLoaderJobService.JobStatus.Status.RUNNING, dataLoaderJobService.getJobStatus("job-1").getStatus());
+    }
+
+    @Test
+    void cancelJobShouldCancelTheControlOfARunningJob() {
+        // Given
+        String jobId = dataLoaderJobService.startLoadJob("file:path/to/csv", LoadOptions.ofBatchSize(100));
+        ArgumentCaptor<LoadOptions> options = ArgumentCaptor.forClass(LoadOptions.class);
+        verify(asyncService).executeLoadDataAsync(eq(jobId), anyString(), options.capture());
+        dataLoaderJobService.getJobStatus(jobId).setStatus(DataLoaderJobService.JobStatus.Status.RUNNING);
+
+        // When
+        dataLoaderJobService.cancelJob(jobId);
+
+        // Then
+        assertTrue(options.getValue().getControl().isCancelled());
+    }
+
+    @Test
+    void cancelJobShouldRejectFinishedAndUnknownJobs() {
+        // Given
+        String jobId = dataLoaderJobService.startLoadJob("file:path/to/csv", LoadOptions.ofBatchSize(100));
+        complete(jobId, DataLoaderJobService.JobStatus.Status.COMPLETED, 10);
+
+        // When and Then
+        assertThrows(JobStateConflictException.class, () -> dataLoaderJobService.cancelJob(jobId));
+        assertThrows(EntityNotFoundException.class, () -> dataLoaderJobService.cancelJob("non-existent-id"));
+    }
+
+    @Test
+    void setRateLimitShouldThrottleTheRunningLoadAndPersistTheLimit() {
+        // Given
+        LoadOptions startOptions = LoadOptions.ofBatchSize(100);
+        startOptions.setMaxRowsPerSecond(5000);
+        String jobId = dataLoaderJobService.startLoadJob("file:path/to/csv", startOptions);
+        LoadJob job = table.get(jobId);
+        assertEquals(5000, job.getMaxRowsPerSecond());
+        ArgumentCaptor<LoadOptions> options = ArgumentCaptor.forClass(LoadOptions.class);
+        verify(asyncService).executeLoadDataAsync(eq(jobId), anyString(), options.capture());
+        assertEquals(5000, options.getValue().getMaxRowsPerSecond());
+
+        // When
+        dataLoaderJobService.setRateLimit(jobId, 200);
+
+        // Then
+        assertEquals(200, options.getValue().getControl().getRateLimiter().getMaxRowsPerSecond());
+        assertEquals(200, dataLoaderJobService.getJobStatus(jobId).getMaxRowsPerSecond());
+        assertEquals(200, job.getMaxRowsPerSecond());
+        assertThrows(IllegalArgumentException.class, () -> dataLoaderJobService.setRateLimit(jobId, -1));
+    }
+
+    @Test
+    void cancelJobShouldCancelEveryUnfinishedFileOfADirectoryJob() throws Exception {
+        // Given
+        List<String> files = List.of(
+                "file:" + Files.writeString(tempDir.resolve("adams.csv"), "header\nrow\n"),
+                "file:" + Files.writeString(tempDir.resolve("king.csv"), "header\nrow\n"));
+        when(csvDataLoaderService.resolveFiles("file:" + tempDir)).thenReturn(files);
+        when(asyncService.executeLoadDataAsync(anyString(), anyString(), any(LoadOptions.class)))
+                .thenReturn(new CompletableFuture<>());
+        String jobId = dataLoaderJobService.startDirectoryJob("file:" + tempDir, LoadOptions.ofBatchSize(100), 1);
+        List<String> fileJobIds = dataLoaderJobService.getJobStatus(jobId).getFileJobIds();
+        dataLoaderJobService.getJobStatus(fileJobIds.get(0)).setStatus(DataLoaderJobService.JobStatus.Status.RUNNING);
+
+        // When
+        dataLoaderJobService.cancelJob(jobId);
+        dataLoaderJobService.setRateLimit(jobId, 100);
+
+        // Then: both files share the limiter, and the waiting file will not start loading
+        ArgumentCaptor<LoadOptions> options = ArgumentCaptor.forClass(LoadOptions.class);
+        verify(asyncService).executeLoadDataAsync(eq(fileJobIds.get(0)), anyString(), options.capture());
+        assertTrue(options.getValue().getControl().isCancelled());
+        assertEquals(100, options.getValue().getControl().getRateLimiter().getMaxRowsPerSecond());
+        assertEquals(100, dataLoaderJobService.getJobStatus(jobId).getMaxRowsPerSecond());
+
+        // When: both files end cancelled
+        complete(fileJobIds.get(0), DataLoaderJobService.JobStatus.Status.CANCELLED, 5);
+        complete(fileJobIds.get(1), DataLoaderJobService.JobStatus.Status.CANCELLED, 0);
+
+        // Then
+        DataLoaderJobService.JobStatus status = dataLoaderJobService.getJobStatus(jobId);
+        assertEquals(DataLoaderJobService.JobStatus.Status.CANCELLED, status.getStatus());
+        assertEquals(2, status.getFailedFiles());
+        assertEquals(5, status.getRecordsProcessed());
+    }
+
+    @Test
+    void dispatchShouldRunAtMostTheWorkerSlotsAndLeaveTheRestQueued() throws Exception {
+        // Given: two worker slots
+        List<CompletableFuture<Integer>> runs = new ArrayList<>();
+        when(asyncService.executeLoadDataAsync(anyString(), anyString(), any(LoadOptions.class))).thenAnswer(invocation -> {
+            CompletableFuture<Integer> run = new CompletableFuture<>();
+            runs.add(run);
+            return run;
+        });
+
+        // When: three jobs arrive, one of them an upload
+        String first = dataLoaderJobService.startLoadJob("file:path/to/first.csv", LoadOptions.ofBatchSize(100));
+        String upload = dataLoaderJobService.startUploadJob(
+                Files.writeString(tempDir.resolve("upload-3.csv"), "header\nrow\n"), LoadOptions.ofBatchSize(100));
+        String third = dataLoaderJobService.startLoadJob("file:path/to/third.csv", LoadOptions.ofBatchSize(100));
+
+        // Then: the third waits in the shared queue, unclaimed
+        assertEquals(2, runs.size());
+        assertNull(table.get(third).getLeaseOwner());
+        assertNull(dataLoaderJobService.getJobStatus(third).getWorker());
+        assertEquals(DataLoaderJobService.JobStatus.Status.QUEUED, dataLoaderJobService.getJobStatus(third).getStatus());
+
+        // When: a job ends and the queue is polled
+        runs.get(0).complete(10);
+        dispatcher.dispatch();
+
+        // Then
+        verify(asyncService).executeLoadDataAsync(eq(first), anyString(), any(LoadOptions.class));
+        verify(asyncService).executeLoadDataAsync(eq(upload), anyString(), any(LoadOptions.class));
+        verify(asyncService).executeLoadDataAsync(eq(third), eq("file:path/to/third.csv"), any(LoadOptions.class));
+        assertEquals(dispatcher.getInstanceId(), table.get(third).getLeaseOwner());
+    }
+
+    @Test
+    void cancelJobShouldCancelAJobWaitingInTheSharedQueue() {
+        // Given
+        when(jobQueue.cancelQueued("queued-elsewhere")).thenReturn(true);
+
+        // When
+        dataLoaderJobService.cancelJob("queued-elsewhere");
+
+        // Then
+        verify(jobQueue).cancelQueued("queued-elsewhere");
+    }
+
+    @Test
+    void stopTakenOverShouldCancelTheJobAndLeaveItsRecordToTheNewOwner() {
+        // Given: two running jobs, one of which lost its lease
+        String kept = dataLoaderJobService.startLoadJob("file:path/to/kept.csv", LoadOptions.ofBatchSize(100));
+        String lost = dataLoaderJobService.startLoadJob("file:path/to/lost.csv", LoadOptions.ofBatchSize(100));
+        ArgumentCaptor<LoadOptions> options = ArgumentCaptor.forClass(LoadOptions.class);
+        verify(asyncService).executeLoadDataAsync(eq(lost), anyString(), options.capture());
+
+        // When
+        dataLoaderJobService.stopTakenOver(lost);
+
+        // Then: its status is now read from the record the new owner writes
+        assertTrue(options.getValue().getControl().isCancelled());
+        assertEquals(DataLoaderJobService.JobStatus.Status.QUEUED, dataLoaderJobService.getJobStatus(kept).getStatus());
+        table.get(lost).setLeaseOwner("other-instance");
+        assertEquals("other-instance", dataLoaderJobService.getJobStatus(lost).getWorker());
+
+        // When: another instance took over the kept job as well
+        table.get(kept).setLeaseOwner("other-instance");
+        dataLoaderJobService.getJobStatus(kept).setStatus(DataLoaderJobService.JobStatus.Status.FAILED);
+        dataLoaderJobService.saveJob(kept);
+
+        // Then: this instance no longer writes its state
+        assertEquals("QUEUED", table.get(kept).getStatus());
+    }
+
+    @Test
+    void getJobHistoryShouldShowTheLiveStatusOfJobsThisInstanceRuns() {
+        // Given
+        String running = dataLoaderJobService.startUploadJob(tempDir.resolve("upload.csv"), LoadOptions.ofBatchSize(1000));
+        dataLoaderJobService.getJobStatus(running).setStatus(DataLoaderJobService.JobStatus.Status.RUNNING);
+        dataLoaderJobService.getJobStatus(running).advance(700, 4096);
+        LoadJob finished = persistedJob("finished-job", "COMPLETED", tempDir.resolve("old.csv").toFile());
+        finished.setRecordsProcessed(900);
+        finished.setUpdatedAt(Instant.ofEpochMilli(finished.getStartTime() + 1000));
+        when(loadJobRepository.findHistory(null, 0, Long.MAX_VALUE, PageRequest.of(0, 20)))
+                .thenReturn(new PageImpl<>(List.of(table.get(running), finished), PageRequest.of(0, 20), 2));
+
+        // When
+        Page<DataLoaderJobService.JobSummary> history = dataLoaderJobService.getJobHistory(null, 0, Long.MAX_VALUE, 0, 20);
+
+        // Then
+        assertEquals(2, history.getTotalElements());
+        DataLoaderJobService.JobStatus live = history.getContent().get(0).status();
+        assertEquals(DataLoaderJobService.JobStatus.Status.RUNNING, live.getStatus());
+        assertEquals(700, live.getRecordsProcessed());
+        DataLoaderJobService.JobStatus persisted = history.getContent().get(1).status();
+        assertEquals(DataLoaderJobService.JobStatus.Status.COMPLETED, persisted.getStatus());
+        assertEquals(900, persisted.getRecordsProcessed());
+        assertEquals(finished.getStartTime() + 1000, persisted.getEndTime());
+    }
+
+    @Test
+    void getJobHistoryShouldRejectInvalidPagesAndWindows() {
+        // When and Then
+        assertThrows(IllegalArgumentException.class, () -> dataLoaderJobService.getJobHistory(null, 0, 1, -1, 20));
+        assertThrows(IllegalArgumentException.class, () -> dataLoaderJobService.getJobHistory(null, 0, 1, 0, 0));
+        assertThrows(IllegalArgumentException.class,
+                () -> dataLoaderJobService.getJobHistory(null, 0, 1, 0, DataLoaderJobService.MAX_HISTORY_PAGE_SIZE + 1));
+        assertThrows(IllegalArgumentException.class, () -> dataLoaderJobService.getJobHistory(null, 2, 1, 0, 20));
+        assertThrows(IllegalArgumentException.class,
+                () -> dataLoaderJobService.getJobHistory(DataLoaderJobService.JobStatus.Status.NOT_FOUND, 0, 1, 0, 20));
+        verify(loadJobRepository, never()).findHistory(any(), anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void evictEndedJobsShouldKeepRunningJobsAndAnswerEvictedOnesFromTheirRecord() {
+        // Given
+        newJobService(new JobStatusRegistry(0, 1));
+        String finished = dataLoaderJobService.startUploadJob(tempDir.resolve("a.csv"), LoadOptions.ofBatchSize(1000));
+        String running = dataLoaderJobService.startUploadJob(tempDir.resolve("b.csv"), LoadOptions.ofBatchSize(1000));
+        DataLoaderJobService.JobStatus runningStatus = dataLoaderJobService.getJobStatus(running);
+        DataLoaderJobService.JobStatus status = dataLoaderJobService.getJobStatus(finished);
+        status.setStatus(DataLoaderJobService.JobStatus.Status.COMPLETED);
+        dataLoaderJobService.saveJob(finished);
+        status.setEndTime(System.currentTimeMillis() - JobStatusRegistry.GRACE_MILLIS);
+
+        // When
+        dataLoaderJobService.evictEndedJobs();
+
+        // Then
+        assertNotSame(status, dataLoaderJobService.getJobStatus(finished));
+        assertEquals(DataLoaderJobService.JobStatus.Status.COMPLETED, dataLoaderJobService.getJobStatus(finished).getStatus());
+        assertSame(runningStatus, dataLoaderJobService.getJobStatus(running));
+    }
+
+    @Test
+    void deleteFilesOlderThanShouldDeleteExpiredRejectFilesExceptThoseOfActiveJobs() throws Exception {
+        // Given: reject files of an old job, of an old job still running and of a recent job
+        long now = System.currentTimeMillis();
+        Path expired = Files.writeString(tempDir.resolve("old-job-rejects.csv"), "row\n");
+        Path expiredRemoved = Files.writeString(tempDir.resolve("old-job-removed.csv"), "VIN\n");
+        Path running = Files.writeString(tempDir.resolve("running-job-rejects.csv"), "row\n");
+        Path recent = Files.writeString(tempDir.resolve("new-job-rejects.csv"), "row\n");
+        for (Path file : List.of(expired, expiredRemoved, running)) {
+            Files.setLastModifiedTime(file, FileTime.fromMillis(now - 2 * DataLoaderJobService.DEFAULT_REJECT_RETENTION_MILLIS));
+        }
+
+        // When
+        int deleted = DataLoaderJobService.deleteFilesOlderThan(tempDir,
+                now - DataLoaderJobService.DEFAULT_REJECT_RETENTION_MILLIS, Set.of("running-job"));
+
+        // Then
+        assertEquals(2, deleted);
+        assertFalse(Files.exists(expired));
+        assertFalse(Files.exists(expiredRemoved));
+        assertTrue(Files.exists(running));
+        assertTrue(Files.exists(recent));
+    }
+
+    @Test
+    void jobStatusProgressShouldOnlyMoveForwardUnderConcurrentReports() throws Exception {
+        // Given
+        DataLoaderJobService.JobStatus status = new DataLoaderJobService.JobStatus(
+                DataLoaderJobService.JobStatus.Status.RUNNING, 0, System.currentTimeMillis());
+        int threads = 4;
+        int reports = 10_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        // When: writer threads report interleaved batches, each in its own order
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            futures.add(executor.submit(() -> {
+                for (int i = offset; i < reports; i += threads) {
+                    status.advance(i, i * 100L);
+                    status.advanceCheckpoint(i);
+                    status.incrementBatchSizeAdjustments();
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        status.advance(10, 1000);
+
+        // Then
+        assertEquals(reports - 1, status.getRecordsProcessed());
+        assertEquals((reports - 1) * 100L, status.getBytesRead());
+        assertEquals(reports - 1, status.getCheckpointRecords());
+        assertEquals(reports, status.getBatchSizeAdjustments());
+    }
+
+    private void complete(String jobId, DataLoaderJobService.JobStatus.Status state, int records) {
+        DataLoaderJobService.JobStatus status = dataLoaderJobService.getJobStatus(jobId);
+        status.setStatus(state);
+        status.setRecordsProcessed(records);
+        if (state == DataLoaderJobService.JobStatus.Status.COMPLETED) {
+            status.setProgress(100.0);
+        }
+    }
+
+    private void newJobService(JobStatusRegistry jobStatuses) {
+        dispatcher = new LoadJobDispatcher(lazyJobService, csvDataLoaderService, asyncService, loadJobRepository, jobQueue,
+                jobStatuses, 2, LoadJobDispatcher.DEFAULT_LEASE_MILLIS, LoadJobDispatcher.DEFAULT_MAX_ATTEMPTS);
+        dataLoaderJobService = new DataLoaderJobService(csvDataLoaderService, asyncService, loadJobRepository, dispatcher,
+                jobStatuses, DataLoaderJobService.DEFAULT_REJECT_RETENTION_MILLIS);
+    }
+
+    private static LoadJob persistedJob(String jobId, String status, File file) {
+        LoadJob job = new LoadJob();
+        job.setJobId(jobId);
+        job.setStatus(status);
+        job.setFilePath(file.getPath());
+        if (file.exists()) {
+            job.setFileSize(file.length());
+            job.setFileLastModified(file.lastModified());
+        }
+        job.setBatchSize(1000);
+        job.setLoadMode("UPSERT");
+        job.setParserType("COMMONS");
+        job.setParseThreads(1);
+        job.setWriterThreads(1);
+        job.setStartTime(System.currentTimeMillis());
+        return job;
+    }
+}
@@ -0,0 +1,147 @@
+package com.ev.apiservice.service;
+
+import com.ev.apiservice.service.DataLoaderJobService.JobStatus;
+import jakarta.persistence.EntityNotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JobEventServiceTest {
+
+    @Mock
+    private DataLoaderJobService jobService;
+
+    private JobStatusRegistry jobStatuses;
+    private JobEventService jobEventService;
+
+    @BeforeEach
+    void setUp() {
+        jobStatuses = new JobStatusRegistry(JobStatusRegistry.DEFAULT_RETENTION_MILLIS, JobStatusRegistry.DEFAULT_MAX_RETAINED);
+        jobEventService = new JobEventService(jobService, jobStatuses, Runnable::run, JobEventService.DEFAULT_INTERVAL_MILLIS);
+    }
+
+    @Test
+    void subscribeShouldRejectUnknownJobs() {
+        // Given
+        when(jobService.getJobStatus("unknown")).thenReturn(new JobStatus(JobStatus.Status.NOT_FOUND, 0, 0));
+
+        // When and Then
+        assertThrows(EntityNotFoundException.class, () -> jobEventService.subscribe("unknown", 1000));
+    }
+
+    @Test
+    void publishShouldReadEachWatchedJobOnceAndCloseItsStreamsWhenItEnds() {
+        // Given: two dashboards watch the same running job of another instance
+        JobStatus status = new JobStatus(JobStatus.Status.RUNNING, 0, 0);
+        when(jobService.getJobStatus("job-1")).thenReturn(status);
+        jobEventService.subscribe("job-1", 0);
+        jobEventService.subscribe("job-1", 5000);
+        assertEquals(2, jobEventService.getSubscriberCount());
+
+        // When: a batch commits
+        status.setRecordsProcessed(1000);
+        jobEventService.publish();
+
+        // Then: the status was read once for both subscribers
+        verify(jobService, times(3)).getJobStatus("job-1");
+        assertEquals(2, jobEventService.getSubscriberCount());
+
+        // When: the job completes
+        status.setStatus(JobStatus.Status.COMPLETED);
+        jobEventService.publish();
+
+        // Then
+        assertEquals(0, jobEventService.getSubscriberCount());
+    }
+
+    @Test
+    void publishShouldReadALocalJobFromTheRegistryWithoutTheJobService() {
+        // Given
+        JobStatus status = new JobStatus(JobStatus.Status.RUNNING, 0, 0);
+        when(jobService.getJobStatus("job-1")).thenReturn(status);
+        jobEventService.subscribe("job-1", 0);
+        jobStatuses.put("job-1", status);
+
+        // When
+        status.setRecordsProcessed(1000);
+        jobEventService.publish();
+        status.setStatus(JobStatus.Status.COMPLETED);
+        jobEventService.publish();
+
+        // Then: only the subscription went through the job service
+        verify(jobService, times(1)).getJobStatus("job-1");
+        assertEquals(0, jobEventService.getSubscriberCount());
+    }
+
+    @Test
+    void publishShouldNotWaitOnNorQueueMoreForASubscriberStillWritingAnEvent() {
+        // Given: event writes that have not run yet, as for a client that stopped reading
+        List<Runnable> writes = new ArrayList<>();
+        jobEventService = new JobEventService(jobService, jobStatuses, writes::add, 0);
+        JobStatus status = new JobStatus(JobStatus.Status.RUNNING, 0, 0);
+        when(jobService.getJobStatus("job-1")).thenReturn(status);
+        jobEventService.subscribe("job-1", 0);
+        jobStatuses.put("job-1", status);
+
+        // When: two batches commit while the first write is stuck
+        status.setRecordsProcessed(1000);
+        jobEventService.publish();
+        status.setRecordsProcessed(2000);
+        jobEventService.publish();
+
+        // Then: the publisher returned both times with one write handed off
+        assertEquals(1, writes.size());
+
+        // When: the write completes and the job ends
+        writes.remove(0).run();
+        status.setStatus(JobStatus.Status.COMPLETED);
+        jobEventService.publish();
+
+        // Then: the stream stays open until its done event is written
+        assertEquals(1, writes.size());
+        assertEquals(1, jobEventService.getSubscriberCount());
+        writes.remove(0).run();
+        assertEquals(0, jobEventService.getSubscriberCount());
+    }
+
+    @Test
+    void subscribeShouldNotKeepAStreamForAJobThatHasEnded() {
+        // Given
+        when(jobService.getJobStatus("job-1")).thenReturn(new JobStatus(JobStatus.Status.FAILED, 10, 0));
+
+        // When
+        jobEventService.subscribe("job-1", 1000);
+
+        // Then
+        assertEquals(0, jobEventService.getSubscriberCount());
+    }
+
+    @Test
+    void snapshotShouldNameFieldsAsTheStatusResponseDoes() {
+        // Given
+        JobStatus status = new JobStatus(JobStatus.Status.RUNNING, 500, 0);
+        status.setEstimatedRemainingMillis(12_500);
+        status.setWorker("node-1");
+
+        // When
+        Map<String, Object> snapshot = JobEventService.snapshot(status);
+
+        // Then
+        assertEquals("RUNNING", snapshot.get("status"));
+        assertEquals(500, snapshot.get("recordsProcessed"));
+        assertEquals(12L, snapshot.get("estimatedRemainingSeconds"));
+        assertEquals("node-1", snapshot.get("worker"));
+        assertFalse(snapshot.containsKey("completedFiles"));
+        assertTrue(snapshot.keySet().containsAll(List.of("progress", "insertedRecords", "checkpointRecords")));
+    }
+}
@@ -0,0 +1,103 @@
+package com.ev.apiservice.service;
+
+import com.ev.apiservice.service.DataLoaderJobService.JobStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobStatusRegistryTest {
+
+    @Test
+    void evictShouldDropEndedJobsPastTheirRetentionOnly() {
+        // Given
+        JobStatusRegistry registry = new JobStatusRegistry(60_000, 100);
+        long now = System.currentTimeMillis();
+        registry.put("old", ended(now - 120_000));
+        registry.put("recent", ended(now - 10_000));
+        registry.put("running", new JobStatus(JobStatus.Status.RUNNING, 0, now - 300_000));
+
+        // When
+        List<String> evicted = registry.evict(now);
+
+        // Then
+        assertEquals(List.of("old"), evicted);
+        assertNull(registry.get("old"));
+        assertNotNull(registry.get("recent"));
+        assertNotNull(registry.get("running"));
+    }
+
+    @Test
+    void putShouldEvictTheLongestEndedJobsWhileOverTheBound() {
+        // Given
+        JobStatusRegistry registry = new JobStatusRegistry(3_600_000, 3);
+        long now = System.currentTimeMillis();
+        registry.put("queued", new JobStatus(JobStatus.Status.QUEUED, 0, now));
+        registry.put("ended-first", ended(now - 60_000));
+        registry.put("ended-second", ended(now - 30_000));
+
+        // When
+        List<String> evicted = registry.put("new", new JobStatus(JobStatus.Status.QUEUED, 0, now));
+
+        // Then
+        assertEquals(List.of("ended-first"), evicted);
+        assertEquals(3, registry.size());
+        assertNotNull(registry.get("ended-second"));
+        assertNotNull(registry.get("queued"));
+    }
+
+    @Test
+    void putShouldKeepJobsThatJustEndedAndActiveJobsEvenOverTheBound() {
+        // Given
+        JobStatusRegistry registry = new JobStatusRegistry(3_600_000, 1);
+        long now = System.currentTimeMillis();
+        registry.put("running", new JobStatus(JobStatus.Status.RUNNING, 0, now));
+
+        // When: the thread that ended a job may still have to persist it
+        List<String> evicted = registry.put("just-ended", ended(now));
+
+        // Then
+        assertTrue(evicted.isEmpty());
+        assertEquals(2, registry.size());
+        assertEquals(List.of("running"), registry.activeJobIds());
+    }
+
+    @Test
+    void evictShouldKeepAStatusThatReplacedTheEvictedOne() {
+        // Given
+        JobStatusRegistry registry = new JobStatusRegistry(0, 100);
+        long now = System.currentTimeMillis();
+        registry.put("resumed", ended(now - 60_000));
+        JobStatus resumed = new JobStatus(JobStatus.Status.QUEUED, 500, now - 120_000);
+        registry.put("resumed", resumed);
+
+        // When
+        List<String> evicted = registry.evict(now);
+
+        // Then
+        assertTrue(evicted.isEmpty());
+        assertSame(resumed, registry.get("resumed"));
+    }
+
+    @Test
+    void endTimeShouldBeSetOnlyOnceAJobEnds() {
+        // Given
+        JobStatus status = new JobStatus(JobStatus.Status.QUEUED, 0, System.currentTimeMillis());
+
+        // When and Then
+        assertEquals(0, status.getEndTime());
+        status.setStatus(JobStatus.Status.RUNNING);
+        assertEquals(0, status.getEndTime());
+        assertFalse(status.isEnded());
+        status.setStatus(JobStatus.Status.CANCELLED);
+        assertTrue(status.getEndTime() > 0);
+        assertTrue(status.isEnded());
+    }
+
+    private static JobStatus ended(long endTime) {
+        JobStatus status = new JobStatus(JobStatus.Status.COMPLETED, 100, endTime - 1000);
+        status.setEndTime(endTime);
+        return status;
+    }
+}
@@ -0,0 +1,68 @@
+package com.ev.apiservice.service;
+
+import com.ev.apiservice.service.loader.JobTelemetry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JobTelemetryServiceTest {
+
+    private SimpleMeterRegistry meterRegistry;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    void endedJobShouldKeepItsMetersUntilTheRetentionHasPassed() {
+        // Given
+        JobTelemetryService service = new JobTelemetryService(meterRegistry, JobTelemetryService.DEFAULT_RETENTION_MILLIS);
+        service.start("job-1").recordWritten(10);
+
+        // When
+        service.end("job-1");
+        service.removeEnded();
+
+        // Then
+        assertNull(service.getRunning("job-1"));
+        assertEquals(10, meterRegistry.get("csv.loader.job.rows").tags("job", "job-1", "stage", "write").counter().count());
+    }
+
+    @Test
+    void removeEndedShouldRemoveTheMetersOfJobsPastTheRetention() {
+        // Given
+        JobTelemetryService service = new JobTelemetryService(meterRegistry, 0);
+        service.start("ended");
+        JobTelemetry running = service.start("running");
+        service.end("ended");
+
+        // When
+        service.removeEnded();
+
+        // Then
+        assertNull(meterRegistry.find("csv.loader.job.rows").tag("job", "ended").counter());
+        assertNotNull(meterRegistry.find("csv.loader.job.rows").tag("job", "running").counter());
+        assertEquals(List.of(running), List.copyOf(service.getRunning()));
+    }
+
+    @Test
+    void resumedJobShouldCountFromZero() {
+        // Given
+        JobTelemetryService service = new JobTelemetryService(meterRegistry, JobTelemetryService.DEFAULT_RETENTION_MILLIS);
+        service.start("job-1").recordParsed(50, 1_000);
+        service.end("job-1");
+
+        // When
+        JobTelemetry resumed = service.start("job-1");
+        resumed.recordParsed(5, 1_000);
+
+        // Then
+        assertEquals(5, resumed.getParsedRows());
+        assertEquals(5, meterRegistry.get("csv.loader.job.rows").tags("job", "job-1", "stage", "parse").counter().count());
+    }
+}
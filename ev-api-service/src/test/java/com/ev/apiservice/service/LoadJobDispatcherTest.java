@@ -0,0 +1,244 @@
+package com.ev.apiservice.service;
+
+import com.ev.apiservice.model.LoadJob;
+import com.ev.apiservice.repository.LoadJobQueue;
+import com.ev.apiservice.repository.LoadJobRepository;
+import com.ev.apiservice.service.DataLoaderJobService.JobStatus;
+import com.ev.apiservice.service.loader.LoadOptions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.core.task.TaskRejectedException;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LoadJobDispatcherTest {
+
+    @Mock
+    private DataLoaderJobService jobService;
+
+    @Mock
+    private CsvDataLoaderService csvDataLoaderService;
+
+    @Mock
+    private AsyncService asyncService;
+
+    @Mock
+    private LoadJobRepository loadJobRepository;
+
+    @Mock
+    private LoadJobQueue jobQueue;
+
+    @TempDir
+    Path tempDir;
+
+    private JobStatusRegistry jobStatuses;
+    private LoadJobDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        jobStatuses = new JobStatusRegistry(JobStatusRegistry.DEFAULT_RETENTION_MILLIS, JobStatusRegistry.DEFAULT_MAX_RETAINED);
+        dispatcher = new LoadJobDispatcher(jobService, csvDataLoaderService, asyncService, loadJobRepository, jobQueue,
+                jobStatuses, 2, LoadJobDispatcher.DEFAULT_LEASE_MILLIS, LoadJobDispatcher.DEFAULT_MAX_ATTEMPTS);
+        lenient().when(asyncService.executeLoadDataAsync(anyString(), anyString(), any(LoadOptions.class)))
+                .thenReturn(new CompletableFuture<>());
+    }
+
+    @Test
+    void dispatchShouldRunLocalJobsBeforeClaimingSharedOnesWithTheFreeSlots() throws Exception {
+        // Given: an upload waits locally and a shared job waits in the queue
+        File csv = Files.writeString(tempDir.resolve("vehicles.csv"), "header\nrow\n").toFile();
+        LoadJob shared = persistedJob("shared-job", csv);
+        shared.setAttempts(1);
+        LoadOptions sharedOptions = LoadOptions.ofBatchSize(100);
+        when(jobQueue.claim(dispatcher.getInstanceId(), 1, LoadJobDispatcher.DEFAULT_LEASE_MILLIS,
+                LoadJobDispatcher.DEFAULT_MAX_ATTEMPTS)).thenReturn(List.of("shared-job"));
+        when(loadJobRepository.findById("shared-job")).thenReturn(Optional.of(shared));
+        when(jobService.resumeClaimed(shared)).thenReturn(sharedOptions);
+        dispatcher.enqueueLocal("upload-job", "/tmp/upload.csv", LoadOptions.ofBatchSize(100));
+
+        // When
+        dispatcher.dispatch();
+
+        // Then: the upload took one of the two slots, the shared job the other
+        InOrder inOrder = inOrder(asyncService, jobQueue);
+        inOrder.verify(asyncService).executeLoadDataAsync(eq("upload-job"), eq("/tmp/upload.csv"), any(LoadOptions.class));
+        inOrder.verify(jobQueue).claim(anyString(), eq(1), anyLong(), anyInt());
+        inOrder.verify(asyncService).executeLoadDataAsync("shared-job", csv.getPath(), sharedOptions);
+        verify(csvDataLoaderService, never()).dropLeftoverTables(anyString());
+
+        // When: both still run
+        dispatcher.dispatch();
+
+        // Then: no slot is free to claim another
+        verify(jobQueue, times(1)).claim(anyString(), anyInt(), anyLong(), anyInt());
+    }
+
+    @Test
+    void dispatchShouldFailAClaimedJobWhoseFileChanged() throws Exception {
+        // Given: a queued job whose file changed before an instance claimed it
+        File csv = Files.writeString(tempDir.resolve("vehicles.csv"), "header\nrow\n").toFile();
+        LoadJob job = persistedJob("job-1", csv);
+        Files.writeString(csv.toPath(), "header\nrow\nanother row\n");
+        when(jobQueue.claim(anyString(), anyInt(), anyLong(), anyInt())).thenReturn(List.of("job-1"));
+        when(loadJobRepository.findById("job-1")).thenReturn(Optional.of(job));
+
+        // When
+        dispatcher.dispatch();
+
+        // Then
+        assertEquals("FAILED", job.getStatus());
+        assertTrue(job.getErrorMessage().contains("has changed"));
+        verify(loadJobRepository).save(job);
+        verifyNoInteractions(jobService, asyncService);
+    }
+
+    @Test
+    void dispatchShouldDropTheTablesOfAReclaimedJobBeforeResumingIt() throws Exception {
+        // Given: a job whose first instance stopped while running it
+        File csv = Files.writeString(tempDir.resolve("vehicles.csv"), "header\nrow\n").toFile();
+        LoadJob job = persistedJob("job-1", csv);
+        job.setAttempts(2);
+        when(jobQueue.claim(anyString(), anyInt(), anyLong(), anyInt())).thenReturn(List.of("job-1"));
+        when(loadJobRepository.findById("job-1")).thenReturn(Optional.of(job));
+        when(jobService.resumeClaimed(job)).thenReturn(LoadOptions.ofBatchSize(100));
+
+        // When
+        dispatcher.dispatch();
+
+        // Then
+        InOrder inOrder = inOrder(csvDataLoaderService, jobService, asyncService);
+        inOrder.verify(csvDataLoaderService).dropLeftoverTables("job-1");
+        inOrder.verify(jobService).resumeClaimed(job);
+        inOrder.verify(asyncService).executeLoadDataAsync(eq("job-1"), anyString(), any(LoadOptions.class));
+    }
+
+    @Test
+    void dispatchShouldReleaseAClaimedJobTheExecutorRejects() throws Exception {
+        // Given
+        File csv = Files.writeString(tempDir.resolve("vehicles.csv"), "header\nrow\n").toFile();
+        LoadJob job = persistedJob("job-1", csv);
+        job.setAttempts(1);
+        when(jobQueue.claim(anyString(), anyInt(), anyLong(), anyInt())).thenReturn(List.of("job-1"));
+        when(loadJobRepository.findById("job-1")).thenReturn(Optional.of(job));
+        when(jobService.resumeClaimed(job)).thenAnswer(invocation -> {
+            jobStatuses.put("job-1", new JobStatus(JobStatus.Status.QUEUED, 0, job.getStartTime()));
+            return LoadOptions.ofBatchSize(100);
+        });
+        when(asyncService.executeLoadDataAsync(anyString(), anyString(), any(LoadOptions.class)))
+                .thenThrow(new TaskRejectedException("queue full"));
+
+        // When
+        dispatcher.dispatch();
+
+        // Then: it is left for the next poll, here or on another instance
+        verify(jobQueue).release(dispatcher.getInstanceId(), "job-1");
+        assertFalse(jobStatuses.contains("job-1"));
+    }
+
+    @Test
+    void persistCheckpointsShouldOnlyWriteCheckpointsThatAdvanced() {
+        // Given: a running job whose batches advanced its checkpoint in memory
+        JobStatus status = new JobStatus(JobStatus.Status.RUNNING, 0, System.currentTimeMillis());
+        status.advance(700, 4096);
+        status.advanceCheckpoint(500);
+        jobStatuses.put("job-1", status);
+        when(loadJobRepository.updateCheckpoint(eq("job-1"), eq(dispatcher.getInstanceId()), anyLong(), anyInt(),
+                any(Instant.class))).thenReturn(1);
+
+        // When: flushed twice without a new batch in between
+        dispatcher.persistCheckpoints();
+        dispatcher.persistCheckpoints();
+
+        // Then
+        verify(loadJobRepository, times(1)).updateCheckpoint(eq("job-1"), anyString(), eq(500L), eq(700), any(Instant.class));
+
+        // When
+        status.advanceCheckpoint(800);
+        dispatcher.persistCheckpoints();
+
+        // Then
+        verify(loadJobRepository).updateCheckpoint(eq("job-1"), anyString(), eq(800L), eq(700), any(Instant.class));
+        verifyNoInteractions(jobService);
+    }
+
+    @Test
+    void persistCheckpointsShouldStopAJobWhoseLeaseWasTakenOver() {
+        // Given: another instance holds the lease, so the checkpoint update matches no row
+        JobStatus status = new JobStatus(JobStatus.Status.RUNNING, 0, System.currentTimeMillis());
+        status.advanceCheckpoint(500);
+        jobStatuses.put("job-1", status);
+
+        // When
+        dispatcher.persistCheckpoints();
+
+        // Then
+        verify(jobService).stopTakenOver("job-1");
+    }
+
+    @Test
+    void renewLeasesShouldStopJobsTakenOverByAnotherInstanceAndExpireOthers() {
+        // Given: two running jobs, one of which lost its lease, and one that already ended
+        jobStatuses.put("kept", new JobStatus(JobStatus.Status.RUNNING, 0, System.currentTimeMillis()));
+        jobStatuses.put("lost", new JobStatus(JobStatus.Status.RUNNING, 0, System.currentTimeMillis()));
+        jobStatuses.put("ended", new JobStatus(JobStatus.Status.COMPLETED, 10, System.currentTimeMillis()));
+        when(jobQueue.renew(eq(dispatcher.getInstanceId()), anyCollection(), eq(LoadJobDispatcher.DEFAULT_LEASE_MILLIS)))
+                .thenReturn(List.of("kept"));
+        when(jobQueue.expireLeases(LoadJobDispatcher.DEFAULT_MAX_ATTEMPTS)).thenReturn(List.of("dead-job"));
+        when(csvDataLoaderService.dropLeftoverTables("dead-job")).thenReturn(2);
+
+        // When
+        dispatcher.renewLeases();
+
+        // Then
+        verify(jobService).stopTakenOver("lost");
+        verifyNoMoreInteractions(jobService);
+        verify(csvDataLoaderService).dropLeftoverTables("dead-job");
+    }
+
+    @Test
+    void holdLeaseShouldLeaseANewJobToThisInstance() {
+        // Given
+        LoadJob job = new LoadJob();
+        JobStatus status = new JobStatus(JobStatus.Status.QUEUED, 0, System.currentTimeMillis());
+
+        // When
+        dispatcher.holdLease(job, status);
+
+        // Then
+        assertEquals(dispatcher.getInstanceId(), job.getLeaseOwner());
+        assertEquals(dispatcher.getInstanceId(), status.getWorker());
+        assertTrue(job.getLeaseExpiresAt().isAfter(Instant.now()));
+    }
+
+    private static LoadJob persistedJob(String jobId, File file) {
+        LoadJob job = new LoadJob();
+        job.setJobId(jobId);
+        job.setStatus("QUEUED");
+        job.setFilePath(file.getPath());
+        job.setFileSize(file.length());
+        job.setFileLastModified(file.lastModified());
+        job.setStartTime(System.currentTimeMillis());
+        return job;
+    }
+}
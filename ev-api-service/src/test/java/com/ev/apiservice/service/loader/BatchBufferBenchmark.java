@@ -0,0 +1,140 @@
+package com.ev.apiservice.service.loader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the heap a load needs to turn records into batches: streaming them through one reused
+ * batch buffer, as {@code CsvDataLoaderService} does, against collecting every record before the
+ * first batch, as it did before. Records are read by {@link CommonsCsvRecordReader}, the reader of
+ * the default {@link ParserType#COMMONS} parser. The input is generated while it is read, so it
+ * takes no heap.
+ * Not run by the test suite; run {@link #main} from the test classpath. After each iteration the
+ * peak old generation use is printed; {@code collected} is expected to run out of the 2 GiB heap
+ * of a pod before 10M rows.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class BatchBufferBenchmark {
+
+    @Param({"100000", "1000000", "10000000"})
+    private int rows;
+
+    @Param("1000")
+    private int batchSize;
+
+    @Setup(Level.Iteration)
+    public void resetPeakHeap() {
+        System.gc();
+        oldGenerations().forEach(MemoryPoolMXBean::resetPeakUsage);
+    }
+
+    @TearDown(Level.Iteration)
+    public void reportPeakHeap() {
+        long peak = oldGenerations().stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        System.out.printf("%npeak old generation: %d MiB%n", peak >> 20);
+    }
+
+    @Benchmark
+    public void streamed(Blackhole blackhole) throws IOException {
+        List<VehicleRow> batch = new ArrayList<>(batchSize);
+        try (VehicleRecordReader records = new CommonsCsvRecordReader(new SyntheticCsv(rows))) {
+            while (records.next()) {
+                batch.add(records.toRow());
+                if (batch.size() == batchSize) {
+                    blackhole.consume(batch);
+                    batch.clear();
+                }
+            }
+        }
+        blackhole.consume(batch);
+    }
+
+    @Benchmark
+    public void collected(Blackhole blackhole) throws IOException {
+        List<VehicleRow> all = new ArrayList<>();
+        try (VehicleRecordReader records = new CommonsCsvRecordReader(new SyntheticCsv(rows))) {
+            while (records.next()) {
+                all.add(records.toRow());
+            }
+        }
+        for (int from = 0; from < all.size(); from += batchSize) {
+            blackhole.consume(all.subList(from, Math.min(from + batchSize, all.size())));
+        }
+    }
+
+    private static List<MemoryPoolMXBean> oldGenerations() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .filter(pool -> pool.getName().contains("Old") || pool.getName().contains("Tenured"))
+                .toList();
+    }
+
+    /**
+     * The records of {@link VehicleCsvReaderBenchmark}, generated one line at a time.
+     */
+    private static final class SyntheticCsv extends Reader {
+
+        private final int rows;
+        private String line = VehicleCsvReaderBenchmark.HEADER;
+        private int position;
+        private int next;
+
+        SyntheticCsv(int rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        public int read(char[] buffer, int offset, int length) {
+            if (position == line.length()) {
+                if (next == rows) {
+                    return -1;
+                }
+                line = VehicleCsvReaderBenchmark.record(next++);
+                position = 0;
+            }
+            int count = Math.min(length, line.length() - position);
+            line.getChars(position, position + count, buffer, offset);
+            position += count;
+            return count;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(BatchBufferBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,89 @@
+package com.ev.apiservice.service.loader;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchSizerTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LoadMetrics metrics;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new LoadMetrics(meterRegistry);
+    }
+
+    @Test
+    void fixedSizerShouldNeverChangeTheBatchSize() {
+        // Given
+        BatchSizer sizer = BatchSizer.fixed(1000);
+
+        // When
+        sizer.onBatchCommitted(1000, TimeUnit.SECONDS.toNanos(10));
+
+        // Then
+        assertFalse(sizer.isAdaptive());
+        assertEquals(1000, sizer.getBatchSize());
+    }
+
+    @Test
+    void adaptiveSizerShouldGrowAtMostTwofoldPerBatchWhileUnderTarget() {
+        // Given: 10 µs per row against a 200 ms target allows 20 000 rows
+        List<Integer> changes = new ArrayList<>();
+        BatchSizer sizer = BatchSizer.adaptive(1000, 200, metrics, changes::add);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            int rows = sizer.getBatchSize();
+            sizer.onBatchCommitted(rows, rows * TimeUnit.MICROSECONDS.toNanos(10));
+        }
+
+        // Then
+        assertEquals(List.of(2000, 4000, 8000, 16000, 20000), changes);
+        assertEquals(BatchSizer.MAX_ADAPTIVE_BATCH_SIZE, sizer.getBatchSize());
+        assertEquals(5, sizer.getAdjustments());
+        assertEquals(5.0, meterRegistry.get("csv.loader.batch.size.adjustments").tag("direction", "up").counter().count());
+        assertEquals(20000.0, meterRegistry.get("csv.loader.batch.size").gauge().value());
+    }
+
+    @Test
+    void adaptiveSizerShouldShrinkWhenBatchesExceedTheTargetAndSettle() {
+        // Given: 1 ms per row against a 500 ms target settles at 500 rows
+        BatchSizer sizer = BatchSizer.adaptive(5000, 500, metrics, null);
+
+        // When
+        for (int i = 0; i < 20; i++) {
+            int rows = sizer.getBatchSize();
+            sizer.onBatchCommitted(rows, rows * TimeUnit.MILLISECONDS.toNanos(1));
+        }
+
+        // Then
+        assertEquals(500, sizer.getBatchSize());
+        assertTrue(meterRegistry.get("csv.loader.batch.size.adjustments").tag("direction", "down").counter().count() >= 2);
+        int settled = sizer.getAdjustments();
+        sizer.onBatchCommitted(500, TimeUnit.MILLISECONDS.toNanos(520));
+        assertEquals(settled, sizer.getAdjustments(), "changes under 10% are ignored");
+    }
+
+    @Test
+    void adaptiveSizerShouldStayWithinBounds() {
+        // Given
+        BatchSizer sizer = BatchSizer.adaptive(10, 1, metrics, null);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            sizer.onBatchCommitted(sizer.getBatchSize(), TimeUnit.SECONDS.toNanos(5));
+        }
+
+        // Then
+        assertEquals(BatchSizer.MIN_ADAPTIVE_BATCH_SIZE, sizer.getBatchSize());
+    }
+}
@@ -0,0 +1,70 @@
+package com.ev.apiservice.service.loader;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ContentHashTest {
+
+    @Test
+    void hashShouldBeStableForEqualContentAndIgnoreNumericScale() {
+        // Given
+        VehicleRow first = row("TEST123456", "Seattle", new BigDecimal("41990"));
+        VehicleRow second = row("TEST123456", "Seattle", new BigDecimal("41990.00"));
+        second.setContentHash(12345L);
+
+        // When and Then
+        assertEquals(ContentHash.of(first), ContentHash.of(second));
+    }
+
+    @Test
+    void hashShouldChangeWithAnyColumnAndDistinguishNullFromEmpty() {
+        // Given
+        VehicleRow base = row("TEST123456", "Seattle", new BigDecimal("41990"));
+        VehicleRow otherCity = row("TEST123456", "Seattlf", new BigDecimal("41990"));
+        VehicleRow emptyCity = row("TEST123456", "", new BigDecimal("41990"));
+        VehicleRow nullCity = row("TEST123456", null, new BigDecimal("41990"));
+        VehicleRow shiftedValue = row("TEST123456", null, new BigDecimal("41990"));
+        shiftedValue.setCounty("Seattle");
+
+        // When and Then
+        long hash = ContentHash.of(base);
+        assertNotEquals(hash, ContentHash.of(otherCity));
+        assertNotEquals(ContentHash.of(emptyCity), ContentHash.of(nullCity));
+        assertNotEquals(hash, ContentHash.of(shiftedValue));
+    }
+
+    @Test
+    void hashShouldCoverTheLocationAndTreatNegativeZeroAsZero() {
+        // Given
+        VehicleRow noLocation = row("TEST123456", "Seattle", null);
+        VehicleRow located = row("TEST123456", "Seattle", null);
+        located.setLongitude(-122.3321);
+        located.setLatitude(47.6062);
+        VehicleRow swapped = row("TEST123456", "Seattle", null);
+        swapped.setLongitude(47.6062);
+        swapped.setLatitude(-122.3321);
+        VehicleRow positiveZero = row("TEST123456", "Seattle", null);
+        positiveZero.setLongitude(0.0);
+        positiveZero.setLatitude(0.0);
+        VehicleRow negativeZero = row("TEST123456", "Seattle", null);
+        negativeZero.setLongitude(-0.0);
+        negativeZero.setLatitude(0.0);
+
+        // When and Then
+        assertNotEquals(ContentHash.of(noLocation), ContentHash.of(located));
+        assertNotEquals(ContentHash.of(located), ContentHash.of(swapped));
+        assertEquals(ContentHash.of(positiveZero), ContentHash.of(negativeZero));
+    }
+
+    private static VehicleRow row(String vin, String city, BigDecimal msrp) {
+        VehicleRow row = new VehicleRow();
+        row.setVin(vin);
+        row.setCity(city);
+        row.setBaseMsrp(msrp);
+        row.setDolVehicleId(1L);
+        return row;
+    }
+}
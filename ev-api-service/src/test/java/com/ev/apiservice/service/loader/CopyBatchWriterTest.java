@@ -0,0 +1,84 @@
+package com.ev.apiservice.service.loader;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+class CopyBatchWriterTest {
+
+    @Test
+    void appendCsvLineShouldQuoteTextAndLeaveNullsUnquoted() {
+        // Given
+        VehicleRow row = new VehicleRow();
+        row.setVin("TEST123456");
+        row.setCounty("King");
+        row.setCity("Seattle");
+        row.setState("WA");
+        row.setPostalCode("");
+        row.setModelYear(2021);
+        row.setMake("TESLA");
+        row.setModel("Model \"3\"");
+        row.setElectricVehicleType("Battery Electric Vehicle (BEV)");
+        row.setCafvEligibilityStatus("Clean Alternative Fuel Vehicle Eligible");
+        row.setElectricRange(null);
+        row.setBaseMsrp(new BigDecimal("41990.00"));
+        row.setLegislativeDistrict("43");
+        row.setDolVehicleId(123456789L);
+        row.setLongitude(-122.3321);
+        row.setLatitude(47.6062);
+        row.setElectricUtility("SEATTLE CITY LIGHT");
+        row.setCensusTract2020(53033001100L);
+        row.setContentHash(-42L);
+
+        // When
+        StringBuilder out = new StringBuilder();
+        CopyBatchWriter.appendCsvLine(out, row);
+
+        // Then
+        assertEquals("\"TEST123456\",\"King\",\"Seattle\",\"WA\",\"\",2021,\"TESLA\",\"Model \"\"3\"\"\"," +
+                "\"Battery Electric Vehicle (BEV)\",\"Clean Alternative Fuel Vehicle Eligible\",,41990.00,\"43\"," +
+                "123456789,0101000020E61000001AC05B2041955EC0E86A2BF697CD4740,\"SEATTLE CITY LIGHT\",53033001100,-42\n", out.toString());
+    }
+
+    @Test
+    void appendCsvLineShouldWriteMissingLocationAsNull() {
+        // Given
+        VehicleRow row = new VehicleRow();
+        row.setVin("TEST123456");
+        row.setDolVehicleId(1L);
+
+        // When
+        StringBuilder out = new StringBuilder();
+        CopyBatchWriter.appendCsvLine(out, row);
+
+        // Then
+        assertEquals("\"TEST123456\",,,,,,,,,,,,,1,,,,\n", out.toString());
+    }
+
+    @Test
+    void writerShouldCreateItsStagingTableOnceAndTruncateItAfterEveryBatch() {
+        // Given
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        VehicleRow row = new VehicleRow();
+        row.setVin("TEST123456");
+
+        // When
+        try (CopyBatchWriter writer = new CopyBatchWriter(jdbcTemplate, "job1")) {
+            writer.write(List.of(row));
+            writer.write(List.of(row));
+        }
+
+        // Then
+        verify(jdbcTemplate, times(1)).execute(startsWith("CREATE UNLOGGED TABLE ev_staging_"));
+        verify(jdbcTemplate, times(2)).execute(startsWith("TRUNCATE ev_staging_"));
+        verify(jdbcTemplate, times(1)).execute(startsWith("DROP TABLE IF EXISTS ev_staging_"));
+    }
+}
@@ -0,0 +1,39 @@
+package com.ev.apiservice.service.loader;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DistinctCounterTest {
+
+    @Test
+    void estimateShouldBeExactForFewValuesAndIgnoreRepeats() {
+        // Given
+        DistinctCounter counter = new DistinctCounter();
+
+        // When
+        for (int repeat = 0; repeat < 3; repeat++) {
+            for (String make : new String[]{"TESLA", "NISSAN", "KIA", "BMW", "FORD"}) {
+                counter.add(make);
+            }
+        }
+
+        // Then
+        assertEquals(5, counter.estimate());
+    }
+
+    @Test
+    void estimateShouldStayWithinTwoPercentForManyValuesAddedConcurrently() {
+        // Given
+        DistinctCounter counter = new DistinctCounter();
+        int distinct = 500_000;
+
+        // When
+        IntStream.range(0, distinct * 2).parallel().forEach(i -> counter.add("DOL" + (i % distinct)));
+
+        // Then
+        assertEquals(distinct, counter.estimate(), distinct * 0.02);
+    }
+}
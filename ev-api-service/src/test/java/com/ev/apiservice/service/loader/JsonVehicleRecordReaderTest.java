@@ -0,0 +1,127 @@
+package com.ev.apiservice.service.loader;
+
+import com.ev.apiservice.dto.CreateElectricVehicleDTO;
+import com.ev.apiservice.dto.PointDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonVehicleRecordReaderTest {
+
+    @Test
+    void toRowShouldConvertEveryPropertyOfTheCreationPayload() throws Exception {
+        // Given: NDJSON serialized from the DTO, so every property name matches it
+        CreateElectricVehicleDTO dto = new CreateElectricVehicleDTO();
+        dto.setVin("5YJ3E1EA1K");
+        dto.setCounty("King");
+        dto.setCity("Seattle");
+        dto.setState("WA");
+        dto.setPostalCode("98101");
+        dto.setModelYear(2019);
+        dto.setMake("TESLA");
+        dto.setModel("MODEL 3");
+        dto.setElectricVehicleType("Battery Electric Vehicle (BEV)");
+        dto.setCafvEligibilityStatus("Clean Alternative Fuel Vehicle Eligible");
+        dto.setElectricRange(220);
+        dto.setBaseMSRP(new BigDecimal("41990.50"));
+        dto.setLegislativeDistrict("43");
+        dto.setDolVehicleId(477309682L);
+        dto.setVehicleLocation(new PointDTO(-122.3321, 47.6062));
+        dto.setElectricUtility("CITY OF SEATTLE - (WA)");
+        dto.setCensusTract2020(53033001100L);
+        String json = new ObjectMapper().writeValueAsString(dto) + "\n";
+
+        // When
+        VehicleRow row;
+        try (JsonVehicleRecordReader reader = new JsonVehicleRecordReader(new StringReader(json))) {
+            assertTrue(reader.next());
+            row = reader.toRow();
+            assertFalse(reader.next());
+        }
+
+        // Then
+        assertEquals("5YJ3E1EA1K", row.getVin());
+        assertEquals("King", row.getCounty());
+        assertEquals("Seattle", row.getCity());
+        assertEquals("WA", row.getState());
+        assertEquals("98101", row.getPostalCode());
+        assertEquals(2019, row.getModelYear());
+        assertEquals("TESLA", row.getMake());
+        assertEquals("MODEL 3", row.getModel());
+        assertEquals("Battery Electric Vehicle (BEV)", row.getElectricVehicleType());
+        assertEquals("Clean Alternative Fuel Vehicle Eligible", row.getCafvEligibilityStatus());
+        assertEquals(220, row.getElectricRange());
+        assertEquals(new BigDecimal("41990.50"), row.getBaseMsrp());
+        assertEquals("43", row.getLegislativeDistrict());
+        assertEquals(477309682L, row.getDolVehicleId());
+        assertEquals(-122.3321, row.getLongitude());
+        assertEquals(47.6062, row.getLatitude());
+        assertEquals("CITY OF SEATTLE - (WA)", row.getElectricUtility());
+        assertEquals(53033001100L, row.getCensusTract2020());
+        assertNotNull(row.getContentHash());
+    }
+
+    @Test
+    void nextShouldReadTheElementsOfATopLevelArray() throws IOException {
+        // Given
+        String json = "[ {\"vin\": \"VIN0000001\"},\n {\"vin\": \" VIN0000002 \", \"tags\": [\"a\", {\"b\": 1}]} ]";
+
+        // When
+        List<String> vins = new ArrayList<>();
+        try (JsonVehicleRecordReader reader = new JsonVehicleRecordReader(new StringReader(json))) {
+            while (reader.next()) {
+                vins.add(reader.getVin());
+            }
+        }
+
+        // Then: unknown properties are skipped and values trimmed
+        assertEquals(List.of("VIN0000001", "VIN0000002"), vins);
+    }
+
+    @Test
+    void toRowShouldSetInvalidAndMissingValuesToNull() throws IOException {
+        // Given
+        String json = "{\"modelYear\": \"20x1\", \"electricRange\": 1.5, \"make\": null, " +
+                "\"vehicleLocation\": {\"longitude\": -122.3}}\n" +
+                "{\"vin\": \"VIN0000002\", \"vehicleLocation\": \"POINT (-122.3 47.6)\"}";
+
+        // When and Then
+        try (JsonVehicleRecordReader reader = new JsonVehicleRecordReader(new StringReader(json))) {
+            assertTrue(reader.next());
+            VehicleRow row = reader.toRow(false);
+            assertEquals("", reader.getVin());
+            assertNull(row.getModelYear());
+            assertNull(row.getElectricRange());
+            assertNull(reader.getText(VehicleColumn.MAKE));
+            assertEquals("POINT (-122.3 )", reader.getText(VehicleColumn.VEHICLE_LOCATION));
+            assertFalse(row.hasLocation());
+
+            assertTrue(reader.next());
+            row = reader.toRow(false);
+            assertNull(reader.getText(VehicleColumn.MODEL_YEAR), "values of the previous record are cleared");
+            assertEquals(-122.3, row.getLongitude());
+            assertEquals(47.6, row.getLatitude());
+            assertFalse(reader.next());
+        }
+    }
+
+    @Test
+    void nextShouldRejectARecordThatIsNotAnObject() throws IOException {
+        // Given
+        String json = "{\"vin\": \"VIN0000001\"}\n\"VIN0000002\"\n";
+
+        // When and Then
+        try (JsonVehicleRecordReader reader = new JsonVehicleRecordReader(new StringReader(json))) {
+            assertTrue(reader.next());
+            IOException exception = assertThrows(IOException.class, reader::next);
+            assertTrue(exception.getMessage().startsWith("Expected a vehicle object as record 2"));
+        }
+    }
+}
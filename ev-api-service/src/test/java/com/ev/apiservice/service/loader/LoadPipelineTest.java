@@ -0,0 +1,315 @@
+package com.ev.apiservice.service.loader;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class LoadPipelineTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private LoadMetrics metrics;
+    private TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        metrics = new LoadMetrics(meterRegistry);
+        transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+    }
+
+    @Test
+    void singleWriterShouldWriteInlineAndReuseTheBuffer() {
+        // Given
+        List<String> written = new ArrayList<>();
+        List<Integer> progress = new ArrayList<>();
+        LoadPipeline pipeline = new LoadPipeline(1, BatchSizer.fixed(2),
+                () -> batch -> {
+                    batch.forEach(row -> written.add(row.getVin()));
+                    return new LoadResult(batch.size(), 0, 0);
+                },
+                transactionTemplate, metrics,
+                LoadPipeline.Hooks.onBatchWritten((recordsWritten, committedPrefix) -> progress.add(recordsWritten)));
+
+        // When
+        List<VehicleRow> batch = new ArrayList<>(List.of(row("A"), row("B")));
+        List<VehicleRow> next = pipeline.submit(batch);
+        next.add(row("C"));
+        pipeline.submit(next);
+        LoadResult result = pipeline.finish();
+        pipeline.close();
+
+        // Then
+        assertSame(batch, next);
+        assertTrue(next.isEmpty());
+        assertEquals(List.of("A", "B", "C"), written);
+        assertEquals(List.of(2, 3), progress);
+        assertEquals(3, result.getInserted());
+    }
+
+    @Test
+    void multipleWritersShouldWriteEveryRowOnceWithOneWriterPerWorker() {
+        // Given
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+        AtomicInteger writersCreated = new AtomicInteger();
+        AtomicInteger writersClosed = new AtomicInteger();
+        List<Integer> progress = Collections.synchronizedList(new ArrayList<>());
+        LoadPipeline pipeline = new LoadPipeline(3, BatchSizer.fixed(10), () -> {
+            writersCreated.incrementAndGet();
+            return new VehicleBatchWriter() {
+                @Override
+                public LoadResult write(List<VehicleRow> batch) {
+                    batch.forEach(row -> written.add(row.getVin()));
+                    // Every other row counts as unchanged
+                    return new LoadResult(batch.size() / 2, 0, batch.size() - batch.size() / 2);
+                }
+
+                @Override
+                public void close() {
+                    writersClosed.incrementAndGet();
+                }
+            };
+        }, transactionTemplate, metrics,
+                LoadPipeline.Hooks.onBatchWritten((recordsWritten, committedPrefix) -> progress.add(recordsWritten)));
+
+        // When
+        List<VehicleRow> batch = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            batch.add(row("V" + i));
+            if (batch.size() == 10) {
+                batch = pipeline.submit(batch);
+            }
+        }
+        LoadResult result = pipeline.finish();
+        pipeline.close();
+
+        // Then
+        assertEquals(1000, result.getRecordsProcessed());
+        assertEquals(500, result.getUnchanged());
+        assertEquals(1000, written.size());
+        assertEquals(1000, new TreeSet<>(written).size());
+        assertEquals(3, writersCreated.get());
+        assertEquals(3, writersClosed.get());
+        assertEquals(100, progress.size());
+        assertEquals(1000, progress.get(progress.size() - 1));
+        assertEquals(1000.0, meterRegistry.get("csv.loader.rows").tag("stage", "write").counter().count());
+        assertEquals(500.0, meterRegistry.get("csv.loader.rows.outcome").tag("outcome", "unchanged").counter().count());
+        assertEquals(0.0, meterRegistry.get("csv.loader.queue.depth").gauge().value());
+    }
+
+    @Test
+    void writerFailureShouldStopTheParserAndBeRethrown() {
+        // Given
+        AtomicInteger writersClosed = new AtomicInteger();
+        LoadPipeline pipeline = new LoadPipeline(2, BatchSizer.fixed(1), () -> new VehicleBatchWriter() {
+            @Override
+            public LoadResult write(List<VehicleRow> batch) {
+                if (batch.get(0).getVin().equals("BAD")) {
+                    throw new IllegalStateException("constraint violated");
+                }
+                return new LoadResult(batch.size(), 0, 0);
+            }
+
+            @Override
+            public void close() {
+                writersClosed.incrementAndGet();
+            }
+        }, transactionTemplate, metrics, new LoadPipeline.Hooks());
+
+        // When
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> {
+            try (pipeline) {
+                pipeline.submit(new ArrayList<>(List.of(row("BAD"))));
+                // Keep submitting; the pipeline must fail fast rather than accept the whole input
+                for (int i = 0; i < 1_000_000; i++) {
+                    pipeline.submit(new ArrayList<>(List.of(row("V" + i))));
+                    Thread.sleep(1);
+                }
+                pipeline.finish();
+            }
+        });
+
+        // Then
+        assertEquals("constraint violated", exception.getMessage());
+        assertEquals(2, writersClosed.get());
+        assertEquals(0.0, meterRegistry.get("csv.loader.queue.depth").gauge().value());
+    }
+
+    @Test
+    void refusedBatchShouldBeBisectedAndOnlyTheBadRowsRejected(@TempDir Path tempDir) throws Exception {
+        // Given: a batch containing any BAD row is refused as a whole
+        Path rejectFile = tempDir.resolve("rejects.csv");
+        List<String> committed = new ArrayList<>();
+        AtomicInteger transactions = new AtomicInteger();
+        List<Long> checkpoints = new ArrayList<>();
+        LoadPipeline.Hooks hooks = LoadPipeline.Hooks.onBatchWritten(
+                (written, committedPrefix) -> checkpoints.add(committedPrefix));
+        LoadResult result;
+        try (RejectWriter rejectWriter = new RejectWriter(rejectFile);
+             LoadPipeline pipeline = new LoadPipeline(1, BatchSizer.fixed(8), () -> batch -> {
+                 transactions.incrementAndGet();
+                 if (batch.stream().anyMatch(row -> row.getVin().startsWith("BAD"))) {
+                     throw new DataIntegrityViolationException("value too long for type character varying(10)");
+                 }
+                 batch.forEach(row -> committed.add(row.getVin()));
+                 return new LoadResult(batch.size(), 0, 0);
+             }, transactionTemplate, metrics, withRejects(hooks, rejectWriter))) {
+
+            // When
+            pipeline.submit(new ArrayList<>(List.of(row("A"), row("B"), row("BAD1"), row("C"),
+                    row("D"), row("E"), row("BAD2"), row("F"))));
+            result = pipeline.finish();
+            assertEquals(2, rejectWriter.getRejected());
+        }
+
+        // Then
+        assertEquals(List.of("A", "B", "C", "D", "E", "F"), committed);
+        assertEquals(6, result.getInserted());
+        assertEquals(2, result.getRejected());
+        assertEquals(8, result.getRecordsProcessed());
+        assertEquals(List.of(8L), checkpoints);
+        assertTrue(transactions.get() < 16, "bisection should not fall back to one transaction per row");
+        List<String> lines = Files.readAllLines(rejectFile);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(1).startsWith("BAD1,"));
+        assertTrue(lines.get(1).endsWith("value too long for type character varying(10)"));
+        assertTrue(lines.get(2).startsWith("BAD2,"));
+        assertEquals(2.0, meterRegistry.get("csv.loader.rows.outcome").tag("outcome", "rejected").counter().count());
+    }
+
+    @Test
+    void refusedBatchShouldFailTheLoadWithoutARejectWriter() {
+        // Given
+        LoadPipeline pipeline = new LoadPipeline(1, BatchSizer.fixed(2), () -> batch -> {
+            throw new DataIntegrityViolationException("duplicate key value violates unique constraint");
+        }, transactionTemplate, metrics, new LoadPipeline.Hooks());
+
+        // When / Then
+        assertThrows(DataIntegrityViolationException.class,
+                () -> pipeline.submit(new ArrayList<>(List.of(row("A"), row("B")))));
+        pipeline.close();
+    }
+
+    @Test
+    void committedPrefixShouldOnlyCoverBatchesWithNoGapBeforeThem() {
+        // Given: the second batch is slow, so later batches commit before it
+        List<long[]> reports = Collections.synchronizedList(new ArrayList<>());
+        LoadPipeline pipeline = new LoadPipeline(3, BatchSizer.fixed(10), () -> batch -> {
+            if (batch.get(0).getVin().equals("V10")) {
+                try {
+                    Thread.sleep(200);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            return new LoadResult(batch.size(), 0, 0);
+        }, transactionTemplate, metrics,
+                LoadPipeline.Hooks.onBatchWritten((written, committedPrefix) -> reports.add(new long[]{written, committedPrefix})));
+
+        // When
+        List<VehicleRow> batch = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            batch.add(row("V" + i));
+            if (batch.size() == 10) {
+                batch = pipeline.submit(batch);
+            }
+        }
+        pipeline.finish();
+        pipeline.close();
+
+        // Then
+        long previousPrefix = 0;
+        for (long[] report : reports) {
+            assertTrue(report[1] <= report[0], "prefix cannot exceed records written");
+            assertTrue(report[1] >= previousPrefix, "prefix never moves backwards");
+            assertEquals(0, report[1] % 10, "prefix ends on a batch boundary");
+            previousPrefix = report[1];
+        }
+        assertTrue(reports.stream().anyMatch(report -> report[1] == 10 && report[0] > 20),
+                "batches after the slow one must not advance the prefix past it");
+        assertEquals(60, reports.get(reports.size() - 1)[1]);
+    }
+
+    @Test
+    void cancelledLoadShouldStopAtTheNextBatchAfterCommittingQueuedBatches() {
+        // Given
+        List<String> written = Collections.synchronizedList(new ArrayList<>());
+        LoadControl control = new LoadControl(new RowRateLimiter(0));
+        LoadPipeline.Hooks hooks = new LoadPipeline.Hooks();
+        hooks.setControl(control);
+        LoadPipeline pipeline = new LoadPipeline(2, BatchSizer.fixed(1), () -> batch -> {
+            batch.forEach(row -> written.add(row.getVin()));
+            return new LoadResult(batch.size(), 0, 0);
+        }, transactionTemplate, metrics, hooks);
+        pipeline.submit(new ArrayList<>(List.of(row("A"))));
+        pipeline.submit(new ArrayList<>(List.of(row("B"))));
+
+        // When
+        control.cancel();
+        LoadCancelledException cancelled = assertThrows(LoadCancelledException.class,
+                () -> pipeline.submit(new ArrayList<>(List.of(row("C")))));
+        pipeline.close();
+
+        // Then
+        assertEquals(new TreeSet<>(List.of("A", "B")), new TreeSet<>(written));
+        assertEquals(2, cancelled.getResult().getRecordsProcessed());
+    }
+
+    @Test
+    void telemetryShouldCountRowsAndTimeEveryBatchCommit() {
+        // Given
+        JobTelemetry telemetry = new JobTelemetry(meterRegistry, "job-1");
+        LoadPipeline.Hooks hooks = new LoadPipeline.Hooks();
+        hooks.setTelemetry(telemetry);
+        LoadPipeline pipeline = new LoadPipeline(1, BatchSizer.fixed(2), () -> new VehicleBatchWriter() {
+            @Override
+            public LoadResult write(List<VehicleRow> batch) {
+                return new LoadResult(batch.size(), 0, 0);
+            }
+
+            @Override
+            public long takeBindNanos() {
+                return 1_000;
+            }
+        }, transactionTemplate, metrics, hooks);
+
+        // When
+        pipeline.submit(new ArrayList<>(List.of(row("A"), row("B"))));
+        pipeline.submit(new ArrayList<>(List.of(row("C"))));
+        pipeline.finish();
+        pipeline.close();
+
+        // Then
+        assertEquals(3, telemetry.getParsedRows());
+        assertEquals(3, telemetry.getWrittenRows());
+        assertEquals(2, telemetry.getBatchCommit().count());
+        assertEquals(2_000, telemetry.getStageNanos(JobTelemetry.Stage.BIND));
+        assertEquals(2, meterRegistry.get("csv.loader.job.stage.duration")
+                .tags("job", "job-1", "stage", "execute").timer().count());
+    }
+
+    private static LoadPipeline.Hooks withRejects(LoadPipeline.Hooks hooks, RejectWriter rejectWriter) {
+        hooks.setRejectWriter(rejectWriter);
+        return hooks;
+    }
+
+    private static VehicleRow row(String vin) {
+        VehicleRow row = new VehicleRow();
+        row.setVin(vin);
+        return row;
+    }
+}
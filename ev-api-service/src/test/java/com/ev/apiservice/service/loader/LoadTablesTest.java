@@ -0,0 +1,49 @@
+package com.ev.apiservice.service.loader;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class LoadTablesTest {
+
+    private static final String JOB_ID = "3F2504E0-4F89-11D3-9A0C-0305E82C3301";
+
+    @Test
+    void tableNamesShouldCarryTheJobIdAsAValidIdentifier() {
+        // When
+        String tag = LoadTables.tag(JOB_ID);
+        String staging = LoadTables.staging(tag);
+        String shadow = LoadTables.shadow(tag);
+
+        // Then
+        assertEquals("3f2504e04f8911d39a0c0305e82c3301", tag);
+        assertTrue(staging.startsWith("ev_staging_" + tag + "_"), staging);
+        assertTrue(shadow.startsWith("ev_shadow_" + tag + "_"), shadow);
+        assertTrue(staging.length() <= 63 && shadow.length() <= 63);
+        assertNotEquals(staging, LoadTables.staging(tag));
+        assertTrue(LoadTables.tag(null).matches("[0-9a-f]{32}"));
+    }
+
+    @Test
+    void dropLeftoversShouldOnlyDropTheTablesOfTheJob() {
+        // Given
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        String tag = LoadTables.tag(JOB_ID);
+        when(jdbcTemplate.queryForList(anyString(), eq(String.class), eq("ev\\_staging\\_" + tag + "\\_%"),
+                eq("ev\\_shadow\\_" + tag + "\\_%"))).thenReturn(List.of("ev_staging_" + tag + "_abc", "ev_shadow_" + tag + "_def"));
+
+        // When
+        List<String> dropped = LoadTables.dropLeftovers(jdbcTemplate, JOB_ID);
+
+        // Then
+        assertEquals(2, dropped.size());
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS ev_staging_" + tag + "_abc");
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS ev_shadow_" + tag + "_def");
+    }
+}
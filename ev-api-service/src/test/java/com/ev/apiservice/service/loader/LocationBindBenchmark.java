@@ -0,0 +1,103 @@
+package com.ev.apiservice.service.loader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the client side of the two ways a vehicle location reaches the COPY stream: the WKT
+ * text checked by prefix and written as EWKT, as before, against {@link PointParser} and the hex
+ * EWKB of {@link CopyBatchWriter#appendEwkbPoint}. The server's cost of parsing WKT instead of
+ * decoding EWKB is not covered; it needs a database. Not run by the test suite; run {@link #main}
+ * from the test classpath. Times and the GC profiler's {@code gc.alloc.rate.norm} are per location.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LocationBindBenchmark {
+
+    private static final int LOCATIONS = 10_000;
+
+    private final String[] locations = new String[LOCATIONS];
+    private final StringBuilder out = new StringBuilder(64 * LOCATIONS);
+    private final VehicleRow row = new VehicleRow();
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < LOCATIONS; i++) {
+            locations[i] = String.format("POINT (-122.%04d 47.%04d)", i, (i * 7) % 10000);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOCATIONS)
+    public void wktText(Blackhole blackhole) {
+        out.setLength(0);
+        for (String location : locations) {
+            if (isValidWktPoint(location)) {
+                appendQuoted(out, "SRID=4326;" + location);
+            }
+            out.append(',');
+        }
+        blackhole.consume(out);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOCATIONS)
+    public void binaryPoint(Blackhole blackhole) {
+        out.setLength(0);
+        for (String location : locations) {
+            if (PointParser.parse(location, row)) {
+                CopyBatchWriter.appendEwkbPoint(out, row.getLongitude(), row.getLatitude());
+            }
+            out.append(',');
+        }
+        blackhole.consume(out);
+    }
+
+    /**
+     * The check locations went through before they were parsed.
+     */
+    private static boolean isValidWktPoint(String wkt) {
+        return wkt != null && !wkt.trim().isEmpty() && wkt.toUpperCase().startsWith("POINT (") && wkt.endsWith(")");
+    }
+
+    /**
+     * The quoting of a text value in the COPY stream.
+     */
+    private static void appendQuoted(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(LocationBindBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
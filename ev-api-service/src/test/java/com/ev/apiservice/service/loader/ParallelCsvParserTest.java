@@ -0,0 +1,102 @@
+package com.ev.apiservice.service.loader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelCsvParserTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void splitRangesShouldNotSplitInsideQuotedNewlines() {
+        // Given
+        String content = "a,b\n" +
+                "\"1\",\"x\ny\ny\ny\ny\"\n" +
+                "\"2\",\"z\"\n" +
+                "\"3\",\"w\"\n";
+        ByteBuffer buffer = ByteBuffer.wrap(content.getBytes(StandardCharsets.UTF_8));
+
+        // When
+        List<int[]> ranges = ParallelCsvParser.splitRanges(buffer, 4, buffer.limit(), 4);
+
+        // Then
+        Set<Integer> recordStarts = Set.of(4, content.indexOf("\"2\""), content.indexOf("\"3\""), buffer.limit());
+        assertEquals(4, ranges.get(0)[0]);
+        assertEquals(buffer.limit(), ranges.get(ranges.size() - 1)[1]);
+        for (int i = 0; i < ranges.size(); i++) {
+            assertTrue(recordStarts.contains(ranges.get(i)[0]), "range must start on a record boundary");
+            assertTrue(recordStarts.contains(ranges.get(i)[1]), "range must end on a record boundary");
+            if (i > 0) {
+                assertEquals(ranges.get(i - 1)[1], ranges.get(i)[0]);
+            }
+        }
+    }
+
+    @Test
+    void parseShouldReturnEveryRecordExactlyOnce() throws Exception {
+        // Given
+        StringBuilder content = new StringBuilder("\"VIN (1-10)\",\"Model\"\n");
+        for (int i = 0; i < 1000; i++) {
+            // Every tenth model contains a quoted newline and an escaped quote
+            String model = i % 10 == 0 ? "Model\n\"\"" + i + "\"\"" : "Model " + i;
+            content.append(String.format("\"V%09d\",\"%s\"%n", i, model));
+        }
+        Path csv = tempDir.resolve("vehicles.csv");
+        Files.writeString(csv, content);
+
+        ParallelCsvParser parser = new ParallelCsvParser(csv, 4, 64, (record, range, index) -> {
+            VehicleRow row = new VehicleRow();
+            row.setVin(record.get("VIN (1-10)"));
+            row.setModel(record.get("Model"));
+            return row;
+        });
+
+        // When
+        List<VehicleRow> rows = Collections.synchronizedList(new ArrayList<>());
+        parser.parse(rows::addAll);
+
+        // Then
+        assertEquals(1000, rows.size());
+        Set<String> vins = new TreeSet<>();
+        for (VehicleRow row : rows) {
+            vins.add(row.getVin());
+            if (row.getVin().equals("V000000010")) {
+                assertEquals("Model\n\"10\"", row.getModel());
+            }
+        }
+        assertEquals(1000, vins.size());
+        assertEquals(Files.size(csv), parser.getBytesRead());
+    }
+
+    @Test
+    void parseShouldStopAndRethrowWhenConsumerFails() throws Exception {
+        // Given
+        StringBuilder content = new StringBuilder("\"VIN (1-10)\"\n");
+        for (int i = 0; i < 10_000; i++) {
+            content.append("\"V").append(i).append("\"\n");
+        }
+        Path csv = tempDir.resolve("vehicles.csv");
+        Files.writeString(csv, content);
+
+        ParallelCsvParser parser = new ParallelCsvParser(csv, 4, 10, (record, range, index) -> new VehicleRow());
+
+        // When and Then
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> parser.parse(batch -> {
+            throw new IllegalStateException("write failed");
+        }));
+        assertEquals("write failed", exception.getMessage());
+    }
+}
@@ -0,0 +1,54 @@
+package com.ev.apiservice.service.loader;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PointParserTest {
+
+    @Test
+    void parseShouldReadLongitudeAndLatitudeExactlyAsParseDouble() {
+        // Given
+        String[][] points = {
+                {"POINT (-122.3321 47.6062)", "-122.3321", "47.6062"},
+                {"point(-117.42642 47.65964)", "-117.42642", "47.65964"},
+                {"  POINT ( 0 -0.5 ) ", "0", "-0.5"},
+                {"POINT (+180 90.0)", "180", "90.0"},
+                {"POINT (-1.2345e2 4.5E-1)", "-1.2345e2", "4.5E-1"},
+                {"POINT (-122.33209999999999999999 47.606200000000000000001)",
+                        "-122.33209999999999999999", "47.606200000000000000001"}
+        };
+
+        for (String[] point : points) {
+            // When
+            VehicleRow row = new VehicleRow();
+            boolean parsed = PointParser.parse(point[0], row);
+
+            // Then
+            assertTrue(parsed, point[0]);
+            assertEquals(Double.parseDouble(point[1]), row.getLongitude(), 0.0, point[0]);
+            assertEquals(Double.parseDouble(point[2]), row.getLatitude(), 0.0, point[0]);
+        }
+    }
+
+    @Test
+    void parseShouldRejectMalformedAndOutOfRangePoints() {
+        // Given
+        String[] invalid = {
+                null, "", "POINT EMPTY", "POINT ()", "POINT (-122.3321)", "POINT (-122.3321 47.6062",
+                "POINT (-122.3321,47.6062)", "POINT (-122.3321 47.6062 12.5)", "LINESTRING (0 0, 1 1)",
+                "POINT (-180.0001 47.6062)", "POINT (-122.3321 90.5)", "POINT (1e 2)", "POINT (. 2)",
+                "POINT (-122.3321 47.6062) trailing"
+        };
+
+        for (String text : invalid) {
+            // When
+            VehicleRow row = new VehicleRow();
+            boolean parsed = PointParser.parse(text, row);
+
+            // Then
+            assertFalse(parsed, String.valueOf(text));
+            assertFalse(row.hasLocation(), String.valueOf(text));
+        }
+    }
+}
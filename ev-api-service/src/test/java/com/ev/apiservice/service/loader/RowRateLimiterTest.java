@@ -0,0 +1,84 @@
+package com.ev.apiservice.service.loader;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowRateLimiterTest {
+
+    @Test
+    void unlimitedShouldNotWait() throws Exception {
+        // Given
+        RowRateLimiter limiter = new RowRateLimiter(0);
+
+        // When
+        long waited = limiter.acquire(1_000_000, () -> false);
+
+        // Then
+        assertTrue(waited < TimeUnit.MILLISECONDS.toNanos(50));
+    }
+
+    @Test
+    void acquireShouldHoldTheAverageRateToTheLimit() throws Exception {
+        // Given: the bucket starts empty, so 5 batches of 100 rows at 1000 rows/s take about 0.5 s
+        RowRateLimiter limiter = new RowRateLimiter(1_000);
+
+        // When
+        long start = System.nanoTime();
+        for (int i = 0; i < 5; i++) {
+            limiter.acquire(100, () -> false);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        // Then
+        assertTrue(elapsedMillis >= 400, "took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void raisingTheLimitShouldReleaseAWaitingLoad() throws Exception {
+        // Given: one row per second would keep the batch waiting for over a minute
+        RowRateLimiter limiter = new RowRateLimiter(1);
+        Thread raiser = new Thread(() -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            limiter.setMaxRowsPerSecond(0);
+        });
+
+        // When
+        raiser.start();
+        long waited = limiter.acquire(100, () -> false);
+        raiser.join();
+
+        // Then
+        assertTrue(waited < TimeUnit.SECONDS.toNanos(5));
+    }
+
+    @Test
+    void abortShouldEndTheWait() throws Exception {
+        // Given
+        RowRateLimiter limiter = new RowRateLimiter(1);
+        AtomicBoolean abort = new AtomicBoolean(true);
+
+        // When
+        long waited = limiter.acquire(100, abort::get);
+
+        // Then
+        assertTrue(waited < TimeUnit.SECONDS.toNanos(1));
+    }
+
+    @Test
+    void negativeLimitShouldBeRejected() {
+        // Given
+        RowRateLimiter limiter = new RowRateLimiter(10);
+
+        // When / Then
+        assertThrows(IllegalArgumentException.class, () -> limiter.setMaxRowsPerSecond(-1));
+        assertEquals(10, limiter.getMaxRowsPerSecond());
+    }
+}
@@ -0,0 +1,31 @@
+package com.ev.apiservice.service.loader;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SeenVinsTest {
+
+    @Test
+    void shouldKeepEachDistinctVinOnceWhetherItPacksOrNot() {
+        // Given
+        SeenVins seen = new SeenVins();
+
+        // When
+        seen.add("5YJ3E1EA7K");
+        seen.add("5YJ3E1EA7K");
+        seen.add("5yj3e1ea7k");
+        seen.add("WBY8P6C05L");
+        seen.add("");
+        seen.add(null);
+
+        // Then
+        Set<String> vins = new HashSet<>();
+        seen.forEach(vins::add);
+        assertEquals(3, seen.size());
+        assertEquals(Set.of("5YJ3E1EA7K", "5yj3e1ea7k", "WBY8P6C05L"), vins);
+    }
+}
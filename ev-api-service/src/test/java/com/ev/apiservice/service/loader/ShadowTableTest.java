@@ -0,0 +1,119 @@
+package com.ev.apiservice.service.loader;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class ShadowTableTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @Test
+    void retargetIndexShouldRenameTheIndexAndPointItAtTheShadow() {
+        // When
+        String gist = ShadowTable.retargetIndex(
+                "CREATE INDEX idx_ev_location_gist ON public.electric_vehicle_population USING gist (vehicle_location_point)",
+                "idx_ev_location_gist_abc", "ev_shadow_abc");
+        String unique = ShadowTable.retargetIndex(
+                "CREATE UNIQUE INDEX idx_ev_vin ON electric_vehicle_population USING btree (vin)",
+                "idx_ev_vin_abc", "ev_shadow_abc");
+
+        // Then
+        assertEquals("CREATE INDEX idx_ev_location_gist_abc ON ev_shadow_abc USING gist (vehicle_location_point)", gist);
+        assertEquals("CREATE UNIQUE INDEX idx_ev_vin_abc ON ev_shadow_abc USING btree (vin)", unique);
+    }
+
+    @Test
+    void retargetShouldPointATriggerAtTheShadow() {
+        // When
+        String trigger = ShadowTable.retarget("CREATE TRIGGER trg_ev_invalidate_content_hash BEFORE UPDATE " +
+                "ON public.electric_vehicle_population FOR EACH ROW EXECUTE FUNCTION ev_invalidate_content_hash()", "ev_shadow_abc");
+
+        // Then
+        assertEquals("CREATE TRIGGER trg_ev_invalidate_content_hash BEFORE UPDATE ON ev_shadow_abc " +
+                "FOR EACH ROW EXECUTE FUNCTION ev_invalidate_content_hash()", trigger);
+    }
+
+    @Test
+    void buildIndexesAndSwapShouldRecreateTheLiveTableDefinitionsAndRestoreTheirNames() {
+        // Given
+        when(jdbcTemplate.queryForList(contains("FROM pg_constraint"), eq(VehicleTableSql.TABLE)))
+                .thenReturn(List.of(Map.of("conname", "electric_vehicle_population_pkey", "definition", "PRIMARY KEY (vin)")));
+        when(jdbcTemplate.queryForList(contains("FROM pg_index"), eq(VehicleTableSql.TABLE)))
+                .thenReturn(List.of(Map.of("name", "idx_ev_location_gist", "definition",
+                        "CREATE INDEX idx_ev_location_gist ON public.electric_vehicle_population USING gist (vehicle_location_point)")));
+        when(jdbcTemplate.queryForList(contains("FROM pg_trigger"), eq(String.class), eq(VehicleTableSql.TABLE)))
+                .thenReturn(List.of());
+        ShadowTable shadow = ShadowTable.create(jdbcTemplate, "job1");
+        String name = shadow.getName();
+        String suffix = name.substring(name.lastIndexOf('_') + 1);
+
+        // When
+        shadow.buildIndexes();
+        shadow.swap(transactionTemplate);
+        shadow.close();
+
+        // Then
+        InOrder inOrder = inOrder(jdbcTemplate);
+        inOrder.verify(jdbcTemplate).execute("CREATE TABLE " + name + " (LIKE electric_vehicle_population INCLUDING DEFAULTS)");
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE " + name + " ADD CONSTRAINT electric_vehicle_population_pkey_" + suffix
+                + " PRIMARY KEY (vin)");
+        inOrder.verify(jdbcTemplate).execute("CREATE INDEX idx_ev_location_gist_" + suffix + " ON " + name
+                + " USING gist (vehicle_location_point)");
+        inOrder.verify(jdbcTemplate).execute("ANALYZE " + name);
+        inOrder.verify(jdbcTemplate).execute("DROP TABLE electric_vehicle_population");
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE " + name + " RENAME TO electric_vehicle_population");
+        inOrder.verify(jdbcTemplate).execute("ALTER TABLE electric_vehicle_population RENAME CONSTRAINT "
+                + "electric_vehicle_population_pkey_" + suffix + " TO electric_vehicle_population_pkey");
+        inOrder.verify(jdbcTemplate).execute("ALTER INDEX idx_ev_location_gist_" + suffix + " RENAME TO idx_ev_location_gist");
+        // The swapped-in table is not dropped
+        verify(jdbcTemplate, never()).execute("DROP TABLE IF EXISTS " + name);
+    }
+
+    @Test
+    void swapShouldRetryWhileTheLiveTableIsLocked() {
+        // Given: the first attempt times out waiting for the lock
+        ShadowTable shadow = ShadowTable.create(jdbcTemplate, "job1");
+        doThrow(new CannotAcquireLockException("canceling statement due to lock timeout"))
+                .doNothing()
+                .when(jdbcTemplate).execute("DROP TABLE electric_vehicle_population");
+
+        // When
+        shadow.swap(transactionTemplate);
+
+        // Then
+        verify(jdbcTemplate, times(2)).execute("DROP TABLE electric_vehicle_population");
+        verify(jdbcTemplate).execute("ALTER TABLE " + shadow.getName() + " RENAME TO electric_vehicle_population");
+    }
+
+    @Test
+    void closeShouldDropAShadowThatWasNotSwappedIn() {
+        // Given
+        ShadowTable shadow = ShadowTable.create(jdbcTemplate, "job1");
+
+        // When
+        shadow.close();
+
+        // Then
+        ArgumentCaptor<String> statements = ArgumentCaptor.forClass(String.class);
+        verify(jdbcTemplate, times(2)).execute(statements.capture());
+        assertEquals("DROP TABLE IF EXISTS " + shadow.getName(), statements.getValue());
+        verify(jdbcTemplate, never()).execute(startsWith("ALTER TABLE"));
+        verify(jdbcTemplate, never()).queryForList(anyString(), eq(VehicleTableSql.TABLE));
+    }
+}
@@ -0,0 +1,83 @@
+package com.ev.apiservice.service.loader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.*;
+
+class SnapshotSyncTest {
+
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void deleteMissingShouldDeleteTheAntiJoinInBoundedChunksAndReportTheVins() throws Exception {
+        // Given: three vehicles are missing from the snapshot, deleted two at a time
+        SeenVins seen = new SeenVins();
+        seen.add("5YJ3E1EA7K");
+        when(jdbcTemplate.queryForList(contains("OFFSET"), eq(String.class), eq(""), eq(1)))
+                .thenReturn(List.of("1N4AZ0CP5E"));
+        when(jdbcTemplate.queryForList(contains("OFFSET"), eq(String.class), eq("1N4AZ0CP5E"), eq(1)))
+                .thenReturn(List.of());
+        when(jdbcTemplate.queryForList(startsWith("DELETE"), eq(String.class), eq(""), eq("1N4AZ0CP5E")))
+                .thenReturn(List.of("1N4AZ0CP5D", "1N4AZ0CP5E"));
+        when(jdbcTemplate.queryForList(startsWith("DELETE"), eq(String.class), eq("1N4AZ0CP5E")))
+                .thenReturn(List.of("WBY8P6C05L"));
+        Path removedFile = tempDir.resolve("removed.csv");
+
+        // When
+        int deleted = new SnapshotSync(jdbcTemplate, transactionTemplate, 2).deleteMissing(seen, removedFile);
+
+        // Then
+        assertEquals(3, deleted);
+        assertEquals(List.of("VIN (1-10)", "1N4AZ0CP5D", "1N4AZ0CP5E", "WBY8P6C05L"), Files.readAllLines(removedFile));
+        verify(jdbcTemplate).execute(contains("WHERE NOT EXISTS"));
+        verify(jdbcTemplate).execute(startsWith("DROP TABLE IF EXISTS ev_seen_"));
+        verify(jdbcTemplate).execute(startsWith("DROP TABLE IF EXISTS ev_missing_"));
+    }
+
+    @Test
+    void deleteMissingShouldDeleteNothingWithoutSeenVins() {
+        // Given
+        SeenVins seen = new SeenVins();
+
+        // When
+        int deleted = new SnapshotSync(jdbcTemplate, transactionTemplate, 2).deleteMissing(seen, null);
+
+        // Then
+        assertEquals(0, deleted);
+        verify(jdbcTemplate, never()).execute(anyString());
+    }
+
+    @Test
+    void deleteMissingShouldNotCreateTheRemovedFileWhenNothingIsMissing() {
+        // Given
+        SeenVins seen = new SeenVins();
+        seen.add("5YJ3E1EA7K");
+        when(jdbcTemplate.queryForList(contains("OFFSET"), eq(String.class), eq(""), eq(1))).thenReturn(List.of());
+        when(jdbcTemplate.queryForList(startsWith("DELETE"), eq(String.class), eq(""))).thenReturn(List.of());
+        Path removedFile = tempDir.resolve("removed.csv");
+
+        // When
+        int deleted = new SnapshotSync(jdbcTemplate, transactionTemplate, 2).deleteMissing(seen, removedFile);
+
+        // Then
+        assertEquals(0, deleted);
+        assertFalse(Files.exists(removedFile));
+    }
+}
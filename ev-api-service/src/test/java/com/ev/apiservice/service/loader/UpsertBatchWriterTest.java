@@ -0,0 +1,76 @@
+package com.ev.apiservice.service.loader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UpsertBatchWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void writeShouldCountRowsTheUpsertLeftAloneAsUnchanged() {
+        // Given: the database inserts A, rewrites C and D, and leaves B alone because its hash matches
+        List<Integer> upsertSizes = new ArrayList<>();
+        when(jdbcTemplate.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class))).thenAnswer(invocation -> {
+                    BatchPreparedStatementSetter setter = invocation.getArgument(1);
+                    upsertSizes.add(setter.getBatchSize());
+                    KeyHolder written = invocation.getArgument(2);
+                    written.getKeyList().add(Map.of("inserted", true));
+                    written.getKeyList().add(Map.of("inserted", false));
+                    written.getKeyList().add(Map.of("inserted", false));
+                    return new int[]{1, 0, 1, 1};
+                });
+
+        // When
+        LoadResult result = new UpsertBatchWriter(jdbcTemplate)
+                .write(List.of(row("A", 1L), row("B", 2L), row("C", 3L), row("D", null)));
+
+        // Then: every row goes out in one batch, with no query beforehand
+        assertEquals(new LoadResult(1, 2, 1), result);
+        assertEquals(List.of(4), upsertSizes);
+        verify(jdbcTemplate).batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class),
+                any(KeyHolder.class));
+        verifyNoMoreInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void writeShouldNotTouchTheDatabaseForAnEmptyBatch() {
+        // When
+        LoadResult result = new UpsertBatchWriter(jdbcTemplate).write(List.of());
+
+        // Then
+        assertEquals(new LoadResult(), result);
+        verifyNoInteractions(jdbcTemplate);
+    }
+
+    @Test
+    void upsertShouldOnlyRewriteRowsWithADifferentContentHash() {
+        assertTrue(UpsertBatchWriter.UPSERT_SQL.contains(
+                "WHERE electric_vehicle_population.content_hash IS DISTINCT FROM EXCLUDED.content_hash"));
+        assertTrue(UpsertBatchWriter.UPSERT_SQL.endsWith("RETURNING (xmax = 0) AS inserted"));
+    }
+
+    private static VehicleRow row(String vin, Long contentHash) {
+        VehicleRow row = new VehicleRow();
+        row.setVin(vin);
+        row.setContentHash(contentHash);
+        return row;
+    }
+}
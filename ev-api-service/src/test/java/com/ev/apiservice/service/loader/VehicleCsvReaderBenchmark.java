@@ -0,0 +1,89 @@
+package com.ev.apiservice.service.loader;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link CommonsCsvRecordReader} with {@link VehicleCsvReader} on synthetic DOL records.
+ * Not run by the test suite; run {@link #main} from the test classpath. The GC profiler reports
+ * the allocation per operation ({@code gc.alloc.rate.norm}); divide by {@code rows}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class VehicleCsvReaderBenchmark {
+
+    static final String HEADER = "VIN (1-10),County,City,State,Postal Code,Model Year,Make,Model," +
+            "Electric Vehicle Type,Clean Alternative Fuel Vehicle (CAFV) Eligibility,Electric Range,Base MSRP," +
+            "Legislative District,DOL Vehicle ID,Vehicle Location,Electric Utility,2020 Census Tract\n";
+
+    @Param("100000")
+    private int rows;
+
+    private String csv;
+
+    @Setup
+    public void setUp() {
+        StringBuilder content = new StringBuilder(HEADER);
+        for (int i = 0; i < rows; i++) {
+            content.append(record(i));
+        }
+        csv = content.toString();
+    }
+
+    /**
+     * @return The {@code i}-th synthetic record, with its line break
+     */
+    static String record(int i) {
+        return String.format("5YJ3E%05d,King,Seattle,WA,98101,%d,TESLA,MODEL 3,Battery Electric Vehicle (BEV)," +
+                        "Clean Alternative Fuel Vehicle Eligible,%d,%s,43,%d,POINT (-122.%04d 47.%04d)," +
+                        "CITY OF SEATTLE - (WA)|CITY OF TACOMA - (WA),530330%05d%n",
+                i, 2012 + i % 13, i % 330, i % 50 == 0 ? "69900" : "0", 100000000 + i, i % 10000, (i * 7) % 10000,
+                i % 100000);
+    }
+
+    @Benchmark
+    public void commonsCsv(Blackhole blackhole) throws IOException {
+        read(new CommonsCsvRecordReader(new StringReader(csv)), blackhole);
+    }
+
+    @Benchmark
+    public void schemaReader(Blackhole blackhole) throws IOException {
+        read(new VehicleCsvReader(new StringReader(csv)), blackhole);
+    }
+
+    private static void read(VehicleRecordReader records, Blackhole blackhole) throws IOException {
+        try (records) {
+            while (records.next()) {
+                blackhole.consume(records.toRow());
+            }
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(VehicleCsvReaderBenchmark.class.getSimpleName())
+                .addProfiler("gc")
+                .build()).run();
+    }
+}
@@ -0,0 +1,167 @@
+package com.ev.apiservice.service.loader;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VehicleCsvReaderTest {
+
+    private static final String HEADER = "VIN (1-10),County,City,State,Postal Code,Model Year,Make,Model," +
+            "Electric Vehicle Type,Clean Alternative Fuel Vehicle (CAFV) Eligibility,Electric Range,Base MSRP," +
+            "Legislative District,DOL Vehicle ID,Vehicle Location,Electric Utility,2020 Census Tract";
+
+    @Test
+    void toRowShouldConvertEveryColumn() throws Exception {
+        // Given
+        String csv = HEADER + "\n" +
+                "5YJ3E1EA1K,King,Seattle,WA,98101,2019,TESLA,MODEL 3,Battery Electric Vehicle (BEV)," +
+                "Clean Alternative Fuel Vehicle Eligible,220,41990.50,43,477309682,POINT (-122.3321 47.6062)," +
+                "CITY OF SEATTLE - (WA),53033001100\n";
+
+        // When
+        VehicleRow row;
+        try (VehicleCsvReader reader = new VehicleCsvReader(new StringReader(csv))) {
+            assertTrue(reader.next());
+            row = reader.toRow();
+            assertFalse(reader.next());
+        }
+
+        // Then
+        assertEquals("5YJ3E1EA1K", row.getVin());
+        assertEquals("King", row.getCounty());
+        assertEquals("Seattle", row.getCity());
+        assertEquals("WA", row.getState());
+        assertEquals("98101", row.getPostalCode());
+        assertEquals(2019, row.getModelYear());
+        assertEquals("TESLA", row.getMake());
+        assertEquals("MODEL 3", row.getModel());
+        assertEquals("Battery Electric Vehicle (BEV)", row.getElectricVehicleType());
+        assertEquals("Clean Alternative Fuel Vehicle Eligible", row.getCafvEligibilityStatus());
+        assertEquals(220, row.getElectricRange());
+        assertEquals(new BigDecimal("41990.50"), row.getBaseMsrp());
+        assertEquals("43", row.getLegislativeDistrict());
+        assertEquals(477309682L, row.getDolVehicleId());
+        assertEquals(-122.3321, row.getLongitude());
+        assertEquals(47.6062, row.getLatitude());
+        assertEquals("CITY OF SEATTLE - (WA)", row.getElectricUtility());
+        assertEquals(53033001100L, row.getCensusTract2020());
+        assertEquals(ContentHash.of(row), row.getContentHash());
+    }
+
+    @Test
+    void nextShouldHandleQuotesLineEndingsBomAndEmptyLines() throws Exception {
+        // Given: header with a byte order mark and different case, quoted fields with commas,
+        // escaped quotes and newlines, CRLF line endings, blank lines and padded values
+        String csv = "\uFEFF" + HEADER.toUpperCase() + "\r\n" +
+                "\r\n" +
+                "\"VIN0000001\",\"King, County\" ,Seattle,WA,98101,2020,TESLA,\"Model \"\"S\"\"\nPlaid\"," +
+                "BEV,Eligible,0,0,43,1,,PSE,1\r" +
+                "\n" +
+                "  VIN0000002  ,King,Seattle,WA,98101,2021,KIA,EV6,BEV,Eligible,310,,43,2,\"POINT (1 2)\",PSE,2";
+
+        // When
+        try (VehicleCsvReader reader = new VehicleCsvReader(new StringReader(csv))) {
+            assertTrue(reader.next());
+            VehicleRow first = reader.toRow();
+            assertTrue(reader.next());
+            VehicleRow second = reader.toRow();
+            assertFalse(reader.next());
+
+            // Then
+            assertEquals("VIN0000001", first.getVin());
+            assertEquals("King, County", first.getCounty());
+            assertEquals("Model \"S\"\nPlaid", first.getModel());
+            assertEquals(BigDecimal.ZERO, first.getBaseMsrp());
+            assertFalse(first.hasLocation());
+            assertEquals("VIN0000002", second.getVin());
+            assertNull(second.getBaseMsrp());
+            assertEquals(1.0, second.getLongitude());
+            assertEquals(2.0, second.getLatitude());
+        }
+    }
+
+    @Test
+    void toRowShouldSetInvalidNumbersToNullLikeTheCommonsConversion() throws Exception {
+        // Given
+        String csv = HEADER + "\n" +
+                "VIN0000001,King,Seattle,WA,98101,20x9,TESLA,Y,BEV,Eligible,99999999999,1.2.3,43,-7,POINT (1 2),PSE,+5\n" +
+                "VIN0000002,King,Seattle,WA,98101,-2019,TESLA,Y,BEV,Eligible,+12,1E+3,43,9223372036854775808,POINT (1 2),PSE,-\n";
+
+        // When
+        try (VehicleCsvReader reader = new VehicleCsvReader(new StringReader(csv))) {
+            assertTrue(reader.next());
+            VehicleRow first = reader.toRow();
+            assertTrue(reader.next());
+            VehicleRow second = reader.toRow();
+
+            // Then
+            assertNull(first.getModelYear());
+            assertNull(first.getElectricRange());
+            assertNull(first.getBaseMsrp());
+            assertEquals(-7L, first.getDolVehicleId());
+            assertEquals(5L, first.getCensusTract2020());
+            assertEquals(-2019, second.getModelYear());
+            assertEquals(12, second.getElectricRange());
+            assertEquals(new BigDecimal("1E+3"), second.getBaseMsrp());
+            assertNull(second.getDolVehicleId());
+            assertNull(second.getCensusTract2020());
+        }
+    }
+
+    @Test
+    void shortRecordShouldReadMissingFieldsAsNull() throws Exception {
+        // Given
+        String csv = HEADER + "\nVIN0000001,King\n";
+
+        // When
+        try (VehicleCsvReader reader = new VehicleCsvReader(new StringReader(csv))) {
+            assertTrue(reader.next());
+            VehicleRow row = reader.toRow();
+
+            // Then
+            assertEquals("VIN0000001", row.getVin());
+            assertEquals("King", row.getCounty());
+            assertNull(row.getCity());
+            assertNull(row.getModelYear());
+            assertFalse(row.hasLocation());
+        }
+    }
+
+    @Test
+    void getVinShouldNotRequireConversion() throws Exception {
+        // Given
+        String csv = HEADER + "\nVIN0000001,,,,,,,,,,,,,,,,\nVIN0000002,,,,,,,,,,,,,,,,\n";
+
+        // When and Then
+        try (VehicleCsvReader reader = new VehicleCsvReader(new StringReader(csv))) {
+            assertTrue(reader.next());
+            assertEquals("VIN0000001", reader.getVin());
+            assertTrue(reader.next());
+            assertEquals("VIN0000002", reader.getVin());
+            assertEquals("", reader.toRow().getCounty());
+        }
+    }
+
+    @Test
+    void constructorShouldRejectHeaderWithoutSchemaColumns() {
+        // When and Then
+        IOException exception = assertThrows(IOException.class,
+                () -> new VehicleCsvReader(new StringReader("VIN (1-10),County\nVIN0000001,King\n")));
+        assertTrue(exception.getMessage().contains("Model Year"));
+    }
+
+    @Test
+    void nextShouldRejectUnterminatedQuotedField() throws Exception {
+        // Given
+        String csv = HEADER + "\n\"VIN0000001,King\n";
+
+        // When and Then
+        try (VehicleCsvReader reader = new VehicleCsvReader(new StringReader(csv))) {
+            assertThrows(IOException.class, reader::next);
+        }
+    }
+}
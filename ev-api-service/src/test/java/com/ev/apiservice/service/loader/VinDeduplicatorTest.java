@@ -0,0 +1,169 @@
+package com.ev.apiservice.service.loader;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VinDeduplicatorTest {
+
+    private static final String VIN_HEADER = "VIN (1-10)";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void scanShouldKeepOnlyTheLastOccurrence() throws IOException {
+        // Given: quoted fields with separators and line breaks, CRLF endings and a blank line
+        String csv = "\"County\",\"vin (1-10)\",\"City\"\r\n" +
+                "\"King\",\"5YJ3E1EA7K\",\"Seattle\"\r\n" +
+                "\"Pierce, WA\",\" 1N4AZ0CP5D \",\"Tacoma\"\r\n" +
+                "\r\n" +
+                "\"Multi\nline \"\"note\"\"\",5YJ3E1EA7K,Bellevue\r\n" +
+                "King,5YJ3E1EA7K,Seattle";
+
+        // When
+        VinDeduplicator deduplicator = scan(csv);
+
+        // Then
+        assertNotNull(deduplicator);
+        assertEquals(4, deduplicator.getRecords());
+        assertEquals(2, deduplicator.getDistinctVins());
+        List<Boolean> kept = new ArrayList<>();
+        List<String> vins = List.of("5YJ3E1EA7K", "1N4AZ0CP5D", "5YJ3E1EA7K", "5YJ3E1EA7K");
+        for (int ordinal = 0; ordinal < vins.size(); ordinal++) {
+            kept.add(deduplicator.keep(vins.get(ordinal), ordinal));
+        }
+        assertEquals(List.of(false, true, false, true), kept);
+        assertEquals(2, deduplicator.getDuplicates());
+    }
+
+    @Test
+    void scanOfARecordReaderShouldKeepOnlyTheLastOccurrence() throws IOException {
+        // Given
+        String json = "{\"vin\":\"5YJ3E1EA7K\"}\n{\"vin\":\"abc\"}\n{\"vin\":\"5YJ3E1EA7K\"}\n{\"vin\":\"abc\"}\n";
+
+        // When
+        VinDeduplicator deduplicator;
+        try (JsonVehicleRecordReader records = new JsonVehicleRecordReader(new StringReader(json))) {
+            deduplicator = VinDeduplicator.scan(records);
+        }
+
+        // Then
+        assertEquals(4, deduplicator.getRecords());
+        assertEquals(2, deduplicator.getDistinctVins());
+        assertFalse(deduplicator.keep("5YJ3E1EA7K", 0));
+        assertFalse(deduplicator.keep("abc", 1));
+        assertTrue(deduplicator.keep("5YJ3E1EA7K", 2));
+        assertTrue(deduplicator.keep("abc", 3));
+        assertEquals(2, deduplicator.getDuplicates());
+    }
+
+    @Test
+    void scanShouldTrackVinsThatDoNotPackSeparately() throws IOException {
+        // Given
+        String csv = "VIN (1-10),City\nabc,Seattle\nabc,Tacoma\n5yj3e1ea7k,Seattle\n5YJ3E1EA7K,Seattle\n";
+
+        // When
+        VinDeduplicator deduplicator = scan(csv);
+
+        // Then
+        assertEquals(3, deduplicator.getDistinctVins());
+        assertTrue(deduplicator.keep("abc", 1), "records before a resume checkpoint are not asked about");
+        assertTrue(deduplicator.keep("5yj3e1ea7k", 2));
+        assertTrue(deduplicator.keep("5YJ3E1EA7K", 3));
+        assertTrue(deduplicator.keep("NOTSCANNED", 4), "a VIN the pre-pass did not see is kept");
+        assertEquals(0, deduplicator.getDuplicates());
+    }
+
+    @Test
+    void parallelRangesShouldKeepTheLastRecordOfEachVinInFileOrder() throws IOException {
+        // Given: 50 VINs repeated in every range, with a quoted line break now and then
+        StringBuilder content = new StringBuilder("\"VIN (1-10)\",\"DOL Vehicle ID\",\"Model\"\n");
+        for (int i = 0; i < 4000; i++) {
+            String model = i % 7 == 0 ? "Model\n" + i : "Model " + i;
+            content.append(String.format("\"V%09d\",\"%d\",\"%s\"\n", i % 50, i, model));
+        }
+        Path csv = Files.writeString(tempDir.resolve("vehicles.csv"), content);
+        int[] rangeStarts = ParallelCsvParser.rangeStarts(csv, 8);
+        assertEquals(8, rangeStarts.length);
+
+        for (int run = 0; run < 20; run++) {
+            VinDeduplicator deduplicator;
+            try (InputStream in = Files.newInputStream(csv)) {
+                deduplicator = VinDeduplicator.scan(in, VIN_HEADER, rangeStarts);
+            }
+            ParallelCsvParser parser = new ParallelCsvParser(csv, 8, 16, (record, range, index) -> {
+                if (!deduplicator.keep(record.get(VIN_HEADER), deduplicator.ordinal(range, index))) {
+                    return null;
+                }
+                VehicleRow row = new VehicleRow();
+                row.setVin(record.get(VIN_HEADER));
+                row.setDolVehicleId(Long.parseLong(record.get("DOL Vehicle ID")));
+                return row;
+            });
+
+            // When
+            List<VehicleRow> rows = Collections.synchronizedList(new ArrayList<>());
+            parser.parse(rows::addAll);
+
+            // Then: whatever order the ranges ran in, the kept records are those of the last range
+            assertEquals(LongStream.range(3950, 4000).boxed().collect(Collectors.toSet()),
+                    rows.stream().map(VehicleRow::getDolVehicleId).collect(Collectors.toSet()), "run " + run);
+            assertEquals(50, rows.size());
+            assertEquals(3950, deduplicator.getDuplicates());
+        }
+    }
+
+    @Test
+    void scanShouldReturnNullWithoutAVinColumn() throws IOException {
+        assertNull(scan("County,City\nKing,Seattle\n"));
+        assertNull(scan(""));
+    }
+
+    @Test
+    void batchDeduplicatorShouldReplaceEarlierRowsOfTheSameBatch() {
+        // Given
+        BatchDeduplicator deduplicator = new BatchDeduplicator();
+        List<VehicleRow> batch = new ArrayList<>();
+
+        // When
+        deduplicator.add(batch, row("5YJ3E1EA7K", "Seattle"));
+        deduplicator.add(batch, row("lower-case", "Tacoma"));
+        boolean added = deduplicator.add(batch, row("5YJ3E1EA7K", "Bellevue"));
+        deduplicator.add(batch, row("lower-case", "Spokane"));
+        deduplicator.clear();
+        List<VehicleRow> next = new ArrayList<>();
+        deduplicator.add(next, row("5YJ3E1EA7K", "Redmond"));
+
+        // Then
+        assertFalse(added);
+        assertEquals(List.of("Bellevue", "Spokane"), batch.stream().map(VehicleRow::getCity).toList());
+        assertEquals(1, next.size());
+        assertEquals(2, deduplicator.getDuplicates());
+    }
+
+    private static VinDeduplicator scan(String csv) throws IOException {
+        return VinDeduplicator.scan(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), VIN_HEADER);
+    }
+
+    private static VehicleRow row(String vin, String city) {
+        VehicleRow row = new VehicleRow();
+        row.setVin(vin);
+        row.setCity(city);
+        return row;
+    }
+}
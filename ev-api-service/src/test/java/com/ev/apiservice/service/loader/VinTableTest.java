@@ -0,0 +1,78 @@
+package com.ev.apiservice.service.loader;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VinTableTest {
+
+    @Test
+    void packShouldMapEachVinToADistinctNonZeroKey() {
+        // Given
+        String[] vins = {"0000000000", "ZZZZZZZZZZ", "5YJ3E1EA7K", "5YJ3E1EA7L", "1N4AZ0CP5D"};
+
+        // When
+        Set<Long> keys = new HashSet<>();
+        for (String vin : vins) {
+            long key = VinTable.pack(vin);
+
+            // Then
+            assertTrue(key > 0, vin);
+            assertEquals(key, VinTable.pack(("," + vin).getBytes(StandardCharsets.US_ASCII), 1), vin);
+            keys.add(key);
+        }
+        assertEquals(vins.length, keys.size());
+    }
+
+    @Test
+    void unpackShouldReturnThePackedVin() {
+        // Given
+        String[] vins = {"0000000000", "ZZZZZZZZZZ", "5YJ3E1EA7K", "1N4AZ0CP5D"};
+
+        for (String vin : vins) {
+            // When and Then
+            assertEquals(vin, VinTable.unpack(VinTable.pack(vin)));
+        }
+    }
+
+    @Test
+    void packShouldRejectVinsThatDoNotFitTheKey() {
+        // Given
+        String[] vins = {null, "", "5YJ3E1EA7", "5YJ3E1EA7KX", "5yj3e1ea7k", "5YJ3E1EA-K", "5YJ3E1EAÉK"};
+
+        for (String vin : vins) {
+            // When and Then
+            assertEquals(VinTable.UNPACKABLE, VinTable.pack(vin), String.valueOf(vin));
+        }
+    }
+
+    @Test
+    void tableShouldKeepTheLastValuePutAcrossGrowth() {
+        // Given
+        VinTable table = new VinTable(4);
+
+        // When
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < 10_000; i++) {
+                table.put(VinTable.pack(String.format("A%09d", i)), round * 10_000 + i);
+            }
+        }
+
+        // Then
+        assertEquals(10_000, table.size());
+        assertEquals(20_000, table.get(VinTable.pack("A000000000")));
+        assertEquals(29_999, table.get(VinTable.pack("A000009999")));
+        assertEquals(-1, table.get(VinTable.pack("B000000000")));
+        assertEquals(20_001, table.putIfAbsent(VinTable.pack("A000000001"), 7));
+        assertEquals(-1, table.putIfAbsent(VinTable.pack("B000000000"), 7));
+        assertEquals(7, table.putIfAbsent(VinTable.pack("B000000000"), 8));
+
+        table.clear();
+        assertEquals(0, table.size());
+        assertEquals(-1, table.get(VinTable.pack("A000000000")));
+    }
+}
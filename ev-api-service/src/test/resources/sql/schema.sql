@@ -21,6 +21,7 @@ CREATE TABLE IF NOT EXISTS electric_vehicle_population (
                                                            vehicle_location_point VARCHAR(100), -- Simplified for H2 compatibility
                                                            electric_utility VARCHAR(100),
                                                            census_tract_2020 BIGINT,
+                                                           content_hash BIGINT,
                                                            created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
                                                            updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );